@@ -0,0 +1,208 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.benchmark;
+
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.EvoBuilder;
+import ocotillo.dygraph.Evolution;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+import ocotillo.samples.parsers.Commons.DyDataSet;
+import ocotillo.samples.parsers.Commons.Mode;
+import ocotillo.samples.parsers.CollegeMsg;
+import ocotillo.samples.parsers.DialogSequences;
+import ocotillo.samples.parsers.InfoVisCitations;
+import ocotillo.samples.parsers.Mooc;
+import ocotillo.samples.parsers.NewcombFraternity;
+import ocotillo.samples.parsers.PreloadedGraphParser;
+import ocotillo.samples.parsers.RampInfectionMap;
+import ocotillo.samples.parsers.RugbyTweets;
+import ocotillo.samples.parsers.VanDeBunt;
+
+/**
+ * Provides the dynamic graphs used by the benchmarks.
+ */
+public class BenchmarkGraphs {
+
+    /**
+     * The prefix of the synthetic graph names.
+     */
+    public static final String SYNTHETIC = "synthetic-";
+
+    /**
+     * The desired edge length used on all graphs, as in the experiments.
+     */
+    public static final double DELTA = 5.0;
+
+    /**
+     * The duration of each appearance slot of the synthetic graphs.
+     */
+    public static final double SLOT_DURATION = 10.0;
+
+    /**
+     * Loads a graph by name. A name in the form "synthetic-N" generates a
+     * synthetic graph with N nodes, while the other names load the bundled
+     * dataset with the same name of the corresponding experiment.
+     *
+     * @param name the graph name.
+     * @param averageDegree the average degree of synthetic graphs.
+     * @param appearances the number of appearances of synthetic graphs.
+     * @param seed the seed of synthetic graphs.
+     * @return the dataset.
+     * @throws URISyntaxException if the dataset cannot be found.
+     */
+    public static DyDataSet load(String name, int averageDegree, int appearances, long seed) throws URISyntaxException {
+        if (name.startsWith(SYNTHETIC)) {
+            int nodes = Integer.parseInt(name.substring(SYNTHETIC.length()));
+            return synthetic(nodes, averageDegree, appearances, seed);
+        }
+        return parser(name).parse(loadMode(name));
+    }
+
+    /**
+     * Gets the load mode used by the experiments on a dataset.
+     *
+     * @param name the dataset name.
+     * @return the load mode.
+     */
+    public static Mode loadMode(String name) {
+        switch (name) {
+            case "InfoVis":
+            case "College":
+                return Mode.plain;
+            default:
+                return Mode.keepAppearedNode;
+        }
+    }
+
+    /**
+     * Gets the parser of a bundled dataset.
+     *
+     * @param name the dataset name.
+     * @return the parser.
+     */
+    private static PreloadedGraphParser parser(String name) {
+        switch (name) {
+            case "InfoVis":
+                return new InfoVisCitations();
+            case "Rugby":
+                return new RugbyTweets();
+            case "Dialogs":
+                return new DialogSequences();
+            case "Bunt":
+                return new VanDeBunt();
+            case "Newcomb":
+                return new NewcombFraternity();
+            case "College":
+                return new CollegeMsg();
+            case "MOOC":
+                return new Mooc();
+            case "RampInfectionMap":
+                return new RampInfectionMap();
+            default:
+                throw new IllegalArgumentException("Unknown benchmark graph " + name);
+        }
+    }
+
+    /**
+     * Generates a random dynamic graph. The time is divided into slots, and
+     * each node appears once per slot for an interval that covers at least the
+     * middle half of the slot. Each edge is present where both its extremities
+     * are. The nodes are scattered in a square whose area grows with their
+     * number.
+     *
+     * @param nodeCount the number of nodes.
+     * @param averageDegree the average node degree.
+     * @param appearances the number of appearances of each node.
+     * @param seed the random seed.
+     * @return the dataset.
+     */
+    public static DyDataSet synthetic(int nodeCount, int averageDegree, int appearances, long seed) {
+        Random random = new Random(seed);
+        DyGraph graph = new DyGraph();
+        DyNodeAttribute<Boolean> nodePresences = graph.nodeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> nodePositions = graph.nodeAttribute(StdAttribute.nodePosition);
+        DyEdgeAttribute<Boolean> edgePresences = graph.edgeAttribute(StdAttribute.dyPresence);
+
+        double side = Math.sqrt(nodeCount) * DELTA;
+        List<Node> nodes = new ArrayList<>();
+        List<Interval[]> nodeIntervals = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = graph.newNode();
+            Interval[] intervals = new Interval[appearances];
+            EvoBuilder.Builder<Boolean> presence = EvoBuilder.defaultAt(false);
+            for (int slot = 0; slot < appearances; slot++) {
+                double slotStart = slot * SLOT_DURATION;
+                intervals[slot] = Interval.newClosed(
+                        slotStart + random.nextDouble() * SLOT_DURATION / 4,
+                        slotStart + SLOT_DURATION - random.nextDouble() * SLOT_DURATION / 4);
+                presence.withConst(intervals[slot], true);
+            }
+            nodePresences.set(node, presence.build());
+            nodePositions.set(node, new Evolution<>(new Coordinates(random.nextDouble() * side, random.nextDouble() * side)));
+            nodes.add(node);
+            nodeIntervals.add(intervals);
+        }
+
+        long edgeCount = Math.min((long) nodeCount * averageDegree / 2, (long) nodeCount * (nodeCount - 1) / 2);
+        Set<Long> pairs = new HashSet<>();
+        while (pairs.size() < edgeCount) {
+            int source = random.nextInt(nodeCount);
+            int target = random.nextInt(nodeCount);
+            if (source == target || !pairs.add((long) Math.min(source, target) * nodeCount + Math.max(source, target))) {
+                continue;
+            }
+            EvoBuilder.Builder<Boolean> presence = EvoBuilder.defaultAt(false);
+            for (int slot = 0; slot < appearances; slot++) {
+                Interval sourceInterval = nodeIntervals.get(source)[slot];
+                Interval targetInterval = nodeIntervals.get(target)[slot];
+                presence.withConst(Interval.newClosed(
+                        Math.max(sourceInterval.leftBound(), targetInterval.leftBound()),
+                        Math.min(sourceInterval.rightBound(), targetInterval.rightBound())), true);
+            }
+            edgePresences.set(graph.newEdge(nodes.get(source), nodes.get(target)), presence.build());
+        }
+
+        return new DyDataSet(graph, 1.0, Interval.newClosed(0, appearances * SLOT_DURATION));
+    }
+
+    /**
+     * Gets the time of the snapshot used by the static benchmarks. For
+     * synthetic graphs, this is a time in which all the nodes and edges are
+     * present. For datasets, it is the middle of the suggested interval.
+     *
+     * @param name the graph name.
+     * @param dataset the dataset.
+     * @return the snapshot time.
+     */
+    public static double snapshotTime(String name, DyDataSet dataset) {
+        if (name.startsWith(SYNTHETIC)) {
+            return SLOT_DURATION / 2;
+        }
+        Interval interval = dataset.getSuggestedInterval(false, loadMode(name));
+        return (interval.leftBound() + interval.rightBound()) / 2;
+    }
+}
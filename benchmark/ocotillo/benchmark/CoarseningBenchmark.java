@@ -0,0 +1,75 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import ocotillo.multilevel.coarsening.GraphCoarsener;
+import ocotillo.multilevel.coarsening.IndependentSet;
+import ocotillo.multilevel.coarsening.SolarMerger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the computation of the coarsening hierarchy of the graph. The
+ * copy of the graph made by the coarsener is not measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CoarseningBenchmark {
+
+    @Param({"IndependentSet", "WalshawIndependentSet", "SolarMerger"})
+    public String coarsener;
+
+    private GraphCoarsener graphCoarsener;
+
+    @Setup(Level.Invocation)
+    public void setUp(GraphState state) {
+        switch (coarsener) {
+            case "IndependentSet":
+                graphCoarsener = new IndependentSet();
+                break;
+            case "WalshawIndependentSet":
+                graphCoarsener = new IndependentSet.WalshawIndependentSet();
+                break;
+            case "SolarMerger":
+                graphCoarsener = new SolarMerger();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown coarsener " + coarsener);
+        }
+        graphCoarsener.setGraph(state.dyGraph());
+    }
+
+    @Benchmark
+    public int computeCoarsening() {
+        graphCoarsener.computeCoarsening();
+        return graphCoarsener.getHierarchyDepth();
+    }
+}
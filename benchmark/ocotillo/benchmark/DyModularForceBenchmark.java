@@ -0,0 +1,91 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.benchmark;
+
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+import ocotillo.dygraph.layout.fdl.modular.DyModularFdl;
+import ocotillo.dygraph.layout.fdl.modular.DyModularForce;
+import ocotillo.graph.layout.fdl.modular.ModularForce;
+import ocotillo.graph.layout.fdl.modular.ModularStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the dynamic forces one at a time, on the space-time cube of the
+ * graph. As for the static forces, the "none" force measures the fixed cost
+ * of an iteration, which includes the synchronisation of the original graph.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DyModularForceBenchmark {
+
+    @Param({"none", "TimeStraightning", "MentalMapPreservation", "Gravity", "ConnectionAttraction", "EdgeRepulsion"})
+    public String force;
+
+    private DyModularFdl dyModularFdl;
+
+    @Setup(Level.Iteration)
+    public void setUp(GraphState state) throws URISyntaxException {
+        DyModularFdl.DyModularFdlBuilder builder = new DyModularFdl.DyModularFdlBuilder(state.load().dygraph, state.timeFactor);
+        if (!force.equals("none")) {
+            builder.withForce(createForce());
+        }
+        dyModularFdl = builder.build();
+    }
+
+    /**
+     * Creates the measured force.
+     *
+     * @return the force.
+     */
+    private ModularForce createForce() {
+        double delta = BenchmarkGraphs.DELTA;
+        switch (force) {
+            case "TimeStraightning":
+                return new DyModularForce.TimeStraightning(delta);
+            case "MentalMapPreservation":
+                return new DyModularForce.MentalMapPreservation(delta);
+            case "Gravity":
+                return new DyModularForce.Gravity();
+            case "ConnectionAttraction":
+                return new DyModularForce.ConnectionAttraction(delta);
+            case "EdgeRepulsion":
+                return new DyModularForce.EdgeRepulsion(delta);
+            default:
+                throw new IllegalArgumentException("Unknown force " + force);
+        }
+    }
+
+    @Benchmark
+    public ModularStatistics iterate() {
+        return dyModularFdl.iterate(1);
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.benchmark;
+
+import java.net.URISyntaxException;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.graph.Graph;
+import ocotillo.samples.parsers.Commons.DyDataSet;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The graph on which a benchmark runs. The graph is either synthetic, with a
+ * name in the form "synthetic-N" where N is the number of nodes, or one of
+ * the bundled datasets (InfoVis, Rugby, Dialogs, Bunt, Newcomb, College,
+ * MOOC, RampInfectionMap). Datasets are read from the data folder of the
+ * working directory.
+ */
+@State(Scope.Benchmark)
+public class GraphState {
+
+    @Param({"synthetic-100", "synthetic-1000"})
+    public String graph;
+
+    @Param({"4"})
+    public int averageDegree;
+
+    @Param({"5"})
+    public int appearances;
+
+    @Param({"73"})
+    public long seed;
+
+    public DyDataSet dataset;
+    public double timeFactor;
+
+    @Setup
+    public void setUp() throws URISyntaxException {
+        dataset = load();
+        timeFactor = dataset.getSuggestedTimeFactor(false, BenchmarkGraphs.loadMode(graph));
+    }
+
+    /**
+     * Loads a new copy of the graph. Benchmarks that modify the layout use it
+     * to start each iteration from the same drawing.
+     *
+     * @return the dataset.
+     * @throws URISyntaxException if the dataset cannot be found.
+     */
+    public DyDataSet load() throws URISyntaxException {
+        return BenchmarkGraphs.load(graph, averageDegree, appearances, seed);
+    }
+
+    /**
+     * Gets the dynamic graph.
+     *
+     * @return the dynamic graph.
+     */
+    public DyGraph dyGraph() {
+        return dataset.dygraph;
+    }
+
+    /**
+     * Takes the snapshot of a dynamic graph used by the static benchmarks.
+     *
+     * @param dyGraph the dynamic graph.
+     * @return the snapshot.
+     */
+    public Graph snapshot(DyGraph dyGraph) {
+        return dyGraph.snapshotAt(BenchmarkGraphs.snapshotTime(graph, dataset));
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.Function;
+import ocotillo.dygraph.FunctionConst;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+import ocotillo.structures.IntervalTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the interval tree and the evolutions on the node presences of
+ * the graph. The queries are taken at random times of the suggested
+ * interval of the graph.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IntervalTreeBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    private final List<Evolution<Boolean>> evolutions = new ArrayList<>();
+    private final List<Function<Boolean>> functions = new ArrayList<>();
+    private final IntervalTree<Function<Boolean>> tree = new IntervalTree<>();
+    private final double[] queryTimes = new double[QUERIES];
+    private int nextQuery = 0;
+
+    @Setup
+    public void setUp(GraphState state) {
+        DyNodeAttribute<Boolean> presences = state.dyGraph().nodeAttribute(StdAttribute.dyPresence);
+        for (Node node : state.dyGraph().nodes()) {
+            Evolution<Boolean> evolution = presences.get(node);
+            evolutions.add(evolution);
+            for (Function<Boolean> function : evolution) {
+                functions.add(function);
+            }
+        }
+        tree.insertAll(functions);
+
+        Interval interval = state.dataset.getSuggestedInterval(false, BenchmarkGraphs.loadMode(state.graph));
+        Random random = new Random(state.seed);
+        for (int i = 0; i < QUERIES; i++) {
+            queryTimes[i] = interval.leftBound() + random.nextDouble() * interval.width();
+        }
+    }
+
+    /**
+     * Gets the time of the next query.
+     *
+     * @return the query time.
+     */
+    private double nextTime() {
+        nextQuery = (nextQuery + 1) % QUERIES;
+        return queryTimes[nextQuery];
+    }
+
+    @Benchmark
+    public IntervalTree<Function<Boolean>> treeInsertAll() {
+        IntervalTree<Function<Boolean>> newTree = new IntervalTree<>();
+        newTree.insertAll(functions);
+        return newTree;
+    }
+
+    @Benchmark
+    public Set<Function<Boolean>> treeAllContaining() {
+        return tree.getAllContaining(nextTime());
+    }
+
+    @Benchmark
+    public Set<Function<Boolean>> treeAllOverlapping() {
+        double time = nextTime();
+        return tree.getAllOverlapping(Interval.newClosed(time, time + BenchmarkGraphs.SLOT_DURATION / 2));
+    }
+
+    @Benchmark
+    public int evolutionValueAt() {
+        double time = nextTime();
+        int present = 0;
+        for (Evolution<Boolean> evolution : evolutions) {
+            if (evolution.valueAt(time)) {
+                present++;
+            }
+        }
+        return present;
+    }
+
+    @Benchmark
+    public int evolutionOverlapping() {
+        double time = nextTime();
+        Function<Boolean> query = new FunctionConst<>(
+                Interval.newClosed(time, time + BenchmarkGraphs.SLOT_DURATION / 2), true);
+        int overlapping = 0;
+        for (Evolution<Boolean> evolution : evolutions) {
+            overlapping += evolution.getOverlappingIntervals(query).size();
+        }
+        return overlapping;
+    }
+
+    @Benchmark
+    public List<Evolution<Boolean>> evolutionCopy() {
+        List<Evolution<Boolean>> copies = new ArrayList<>(evolutions.size());
+        for (Evolution<Boolean> evolution : evolutions) {
+            Evolution<Boolean> copy = new Evolution<>(evolution.getDefaultValue());
+            copy.copyFrom(evolution);
+            copies.add(copy);
+        }
+        return copies;
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.benchmark;
+
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.layout.fdl.modular.DyModularFdl;
+import ocotillo.dygraph.layout.fdl.modular.DyModularForce;
+import ocotillo.dygraph.layout.fdl.modular.DyModularPostProcessing;
+import ocotillo.geometry.Geom;
+import ocotillo.graph.layout.fdl.modular.ModularConstraint;
+import ocotillo.graph.layout.fdl.modular.ModularFdl;
+import ocotillo.graph.layout.fdl.modular.ModularForce;
+import ocotillo.graph.layout.fdl.modular.ModularStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a single iteration of the static and of the dynamic force
+ * directed layouts, configured as in the experiments. Each measurement
+ * iteration starts from the initial drawing of the graph.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LayoutBenchmark {
+
+    private ModularFdl modularFdl;
+    private DyModularFdl dyModularFdl;
+
+    @Setup(Level.Iteration)
+    public void setUp(GraphState state) throws URISyntaxException {
+        double delta = BenchmarkGraphs.DELTA;
+        modularFdl = new ModularFdl.ModularFdlBuilder(state.snapshot(state.load().dygraph))
+                .withForce(new ModularForce.EdgeAttraction2D(delta))
+                .withForce(new ModularForce.NodeNodeRepulsion2D(delta))
+                .withForce(new ModularForce.EdgeNodeRepulsion2D(delta))
+                .withConstraint(new ModularConstraint.DecreasingMaxMovement(2 * delta))
+                .withConstraint(new ModularConstraint.MovementAcceleration(2 * delta, Geom.e2D))
+                .build();
+
+        DyGraph dyGraph = state.load().dygraph;
+        dyModularFdl = new DyModularFdl.DyModularFdlBuilder(dyGraph, state.timeFactor)
+                .withForce(new DyModularForce.TimeStraightning(delta))
+                .withForce(new DyModularForce.Gravity())
+                .withForce(new DyModularForce.ConnectionAttraction(delta))
+                .withForce(new DyModularForce.EdgeRepulsion(delta))
+                .withConstraint(new ModularConstraint.DecreasingMaxMovement(2 * delta))
+                .withConstraint(new ModularConstraint.MovementAcceleration(2 * delta, Geom.e3D))
+                .withPostProcessing(new DyModularPostProcessing.FlexibleTimeTrajectories(delta * 1.5, delta * 2.0, Geom.e3D))
+                .build();
+    }
+
+    @Benchmark
+    public ModularStatistics modularFdlIterate() {
+        return modularFdl.iterate(1);
+    }
+
+    @Benchmark
+    public ModularStatistics dyModularFdlIterate() {
+        return dyModularFdl.iterate(1);
+    }
+}
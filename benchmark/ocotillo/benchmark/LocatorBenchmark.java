@@ -0,0 +1,120 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import ocotillo.dygraph.extra.SpaceTimeCubeSynchroniser.StcsBuilder;
+import ocotillo.geometry.Geom;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.graph.layout.locator.ElementLocator.EdgePolicy;
+import ocotillo.graph.layout.locator.ElementLocator.NodePolicy;
+import ocotillo.graph.layout.locator.intervaltree.IntervalTreeLocator;
+import ocotillo.graph.layout.locator.intervaltree.IntervalTreeLocator.ItlBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the interval tree locator on the mirror graph of the space-time
+ * cube, configured as in the modular force directed layouts. The queries
+ * cycle through the mirror nodes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LocatorBenchmark {
+
+    private Graph mirrorGraph;
+    private IntervalTreeLocator locator;
+    private final List<Node> nodes = new ArrayList<>();
+    private int nextNode = 0;
+
+    @Setup
+    public void setUp(GraphState state) {
+        mirrorGraph = new StcsBuilder(state.dyGraph(), state.timeFactor).build().mirrorGraph();
+        nodes.addAll(mirrorGraph.nodes());
+        locator = buildLocator();
+    }
+
+    @TearDown
+    public void tearDown() {
+        locator.close();
+    }
+
+    /**
+     * Builds a locator on the mirror graph.
+     *
+     * @return the locator.
+     */
+    private IntervalTreeLocator buildLocator() {
+        return new ItlBuilder(mirrorGraph, NodePolicy.nodesAsGlyphs, EdgePolicy.edgesAsGlyphs)
+                .withGeometry(Geom.e3D).disableAutoSync().build();
+    }
+
+    /**
+     * Gets the node of the next query.
+     *
+     * @return the query node.
+     */
+    private Node nextNode() {
+        nextNode = (nextNode + 1) % nodes.size();
+        return nodes.get(nextNode);
+    }
+
+    @Benchmark
+    public IntervalTreeLocator build() {
+        IntervalTreeLocator newLocator = buildLocator();
+        newLocator.close();
+        return newLocator;
+    }
+
+    @Benchmark
+    public IntervalTreeLocator rebuild() {
+        locator.rebuild();
+        return locator;
+    }
+
+    @Benchmark
+    public Collection<Node> closeNodes() {
+        return locator.getCloseNodes(nextNode(), BenchmarkGraphs.DELTA);
+    }
+
+    @Benchmark
+    public Collection<Edge> closeEdges() {
+        return locator.getCloseEdges(nextNode(), BenchmarkGraphs.DELTA);
+    }
+
+    @Benchmark
+    public Collection<Node> nodesInBox() {
+        return locator.getNodesPartiallyInBox(locator.getBox(nextNode()).expand(BenchmarkGraphs.DELTA));
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import ocotillo.dygraph.extra.SpaceTimeCubeSynchroniser;
+import ocotillo.dygraph.extra.SpaceTimeCubeSynchroniser.StcsBuilder;
+import ocotillo.dygraph.extra.StcGraphMetric;
+import ocotillo.graph.Graph;
+import ocotillo.graph.extra.GraphMetric;
+import ocotillo.graph.extra.GraphMetric.NodeDistances;
+import ocotillo.graph.extra.GraphMetric.StressScalingStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the static metrics on a snapshot of the graph, and the space-time
+ * cube metrics on the whole graph. The metrics are built without distance
+ * cache, so that each measurement computes the theoretical distances.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MetricBenchmark {
+
+    private Graph snapshot;
+    private SpaceTimeCubeSynchroniser synchroniser;
+    private GraphMetric<NodeDistances> theoreticalDistances;
+    private GraphMetric<NodeDistances> spacialDistances;
+    private GraphMetric<Double> stress;
+    private GraphMetric<Double> idealStressScaling;
+    private GraphMetric<StressScalingStatistics> stressScalingStatistics;
+    private StcGraphMetric<Double> nodeMovement;
+    private StcGraphMetric<Integer> crowding;
+
+    @Setup
+    public void setUp(GraphState state) {
+        snapshot = state.snapshot(state.dyGraph());
+        synchroniser = new StcsBuilder(state.dyGraph(), state.timeFactor).build();
+        theoreticalDistances = new GraphMetric.NodeTheoreticalDistancesMetric.Builder().build();
+        spacialDistances = new GraphMetric.NodeSpacialDistancesMetric();
+        stress = new GraphMetric.StressMetric.Builder().withScaling(BenchmarkGraphs.DELTA).build();
+        idealStressScaling = new GraphMetric.IdealStressScalingMetric.Builder().withScaling(BenchmarkGraphs.DELTA).build();
+        stressScalingStatistics = new GraphMetric.StressScalingStatisticsMetric.Builder().withScaling(BenchmarkGraphs.DELTA).build();
+        nodeMovement = new StcGraphMetric.AverageNodeMovement2D();
+        crowding = new StcGraphMetric.Crowding(state.dataset.getSuggestedInterval(false, BenchmarkGraphs.loadMode(state.graph)), 600);
+    }
+
+    @Benchmark
+    public NodeDistances theoreticalDistances() {
+        return theoreticalDistances.computeMetric(snapshot);
+    }
+
+    @Benchmark
+    public NodeDistances spacialDistances() {
+        return spacialDistances.computeMetric(snapshot);
+    }
+
+    @Benchmark
+    public Double stress() {
+        return stress.computeMetric(snapshot);
+    }
+
+    @Benchmark
+    public Double idealStressScaling() {
+        return idealStressScaling.computeMetric(snapshot);
+    }
+
+    @Benchmark
+    public StressScalingStatistics stressScalingStatistics() {
+        return stressScalingStatistics.computeMetric(snapshot);
+    }
+
+    @Benchmark
+    public Double averageNodeMovement() {
+        return nodeMovement.computeMetric(synchroniser);
+    }
+
+    @Benchmark
+    public Integer crowding() {
+        return crowding.computeMetric(synchroniser);
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.benchmark;
+
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+import ocotillo.geometry.Coordinates;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.StdAttribute;
+import ocotillo.graph.layout.fdl.modular.ModularFdl;
+import ocotillo.graph.layout.fdl.modular.ModularForce;
+import ocotillo.graph.layout.fdl.modular.ModularStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the static forces one at a time. Each force is the only module of
+ * a modular force directed layout, so that a measurement is the cost of the
+ * force plus the fixed cost of an iteration (locator rebuild and movement),
+ * which is the one measured with the "none" force.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ModularForceBenchmark {
+
+    @Param({"none", "EdgeAttraction2D", "NodeNodeRepulsion2D", "BarnesHutNodeNodeRepulsion2D",
+        "EdgeNodeRepulsion2D", "NodeAttractionToPoint2D", "RandomForce2D"})
+    public String force;
+
+    private ModularFdl modularFdl;
+
+    @Setup(Level.Iteration)
+    public void setUp(GraphState state) throws URISyntaxException {
+        Graph graph = state.snapshot(state.load().dygraph);
+        ModularFdl.ModularFdlBuilder builder = new ModularFdl.ModularFdlBuilder(graph);
+        if (!force.equals("none")) {
+            builder.withForce(createForce(graph, state.seed));
+        }
+        modularFdl = builder.build();
+    }
+
+    /**
+     * Creates the measured force.
+     *
+     * @param graph the graph.
+     * @param seed the seed of the random forces.
+     * @return the force.
+     */
+    private ModularForce createForce(Graph graph, long seed) {
+        double delta = BenchmarkGraphs.DELTA;
+        switch (force) {
+            case "EdgeAttraction2D":
+                return new ModularForce.EdgeAttraction2D(delta);
+            case "NodeNodeRepulsion2D":
+                return new ModularForce.NodeNodeRepulsion2D(delta);
+            case "BarnesHutNodeNodeRepulsion2D":
+                return new ModularForce.BarnesHutNodeNodeRepulsion2D(delta);
+            case "EdgeNodeRepulsion2D":
+                return new ModularForce.EdgeNodeRepulsion2D(delta);
+            case "NodeAttractionToPoint2D":
+                NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+                NodeAttribute<Coordinates> attractionPoints = new NodeAttribute<>(new Coordinates(0, 0));
+                for (Node node : graph.nodes()) {
+                    attractionPoints.set(node, new Coordinates(positions.get(node)));
+                }
+                return new ModularForce.NodeAttractionToPoint2D(attractionPoints, false);
+            case "RandomForce2D":
+                return new ModularForce.RandomForce2D(delta, seed);
+            default:
+                throw new IllegalArgumentException("Unknown force " + force);
+        }
+    }
+
+    @Benchmark
+    public ModularStatistics iterate() {
+        return modularFdl.iterate(1);
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import ocotillo.dygraph.extra.SpaceTimeCubeSynchroniser;
+import ocotillo.dygraph.extra.SpaceTimeCubeSynchroniser.StcsBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the construction of the space-time cube of the graph, and the
+ * update of the original graph from the mirror one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SynchroniserBenchmark {
+
+    private SpaceTimeCubeSynchroniser synchroniser;
+
+    @Setup
+    public void setUp(GraphState state) {
+        synchroniser = new StcsBuilder(state.dyGraph(), state.timeFactor).build();
+    }
+
+    @Benchmark
+    public SpaceTimeCubeSynchroniser build(GraphState state) {
+        return new StcsBuilder(state.dyGraph(), state.timeFactor).build();
+    }
+
+    @Benchmark
+    public SpaceTimeCubeSynchroniser updateOriginal() {
+        synchroniser.updateOriginal();
+        return synchroniser;
+    }
+}
@@ -9,5 +9,5 @@ module MultiDynNos {
 	requires java.desktop;
 	requires lombok;
 	requires commons.exec;
-	requires ejml; 
+	requires jdk.jfr;
 }
\ No newline at end of file
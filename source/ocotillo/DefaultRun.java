@@ -46,7 +46,6 @@ import ocotillo.samples.parsers.RampInfectionMap;
 import ocotillo.samples.parsers.RealityMining;
 import ocotillo.samples.parsers.RugbyTweets;
 import ocotillo.samples.parsers.VanDeBunt;
-import ocotillo.serialization.ParserTools;
 
 /**
  * Default code for run target.
@@ -203,9 +202,17 @@ public class DefaultRun {
 		sfdp,
 		manualTau, 
 		bendTransfer,		
+		inProcess,
+		adaptiveIterations,
 		help,
 		verbose,
-		output;
+		output,
+		workers,
+		timeout,
+		seed,
+		threads,
+		profile,
+		jfr;
 		//, vanillaTuning;
 
 		public static void printHelp() {
@@ -235,12 +242,28 @@ public class DefaultRun {
 				return new CMDLineOption("SFDP", "--sfdp", "Flattens graphs and executes the experiment using SFDP"); 
 			case output:
 				return new CMDLineOption("Output", "--out", "The path where to save the statistics file");		
+			case workers:
+				return new CMDLineOption("Workers (MultiDynNoS only)", "--workers", "Number of configurations computed concurrently (default 1).");
+			case timeout:
+				return new CMDLineOption("Timeout (MultiDynNoS only)", "--timeout", "Maximum running time in seconds of each configuration (default " + Experiment.TIMEOUT + ").");
+			case seed:
+				return new CMDLineOption("Seed (MultiDynNoS only)", "--seed", "Random seed of the layouts, for reproducible runs (default random).");
+			case threads:
+				return new CMDLineOption("Threads (MultiDynNoS only)", "--threads", "Number of threads used to compute the forces of each configuration (default 1).");
+			case profile:
+				return new CMDLineOption("Profile (MultiDynNoS only)", "--profile", "The folder where to save the running time of each phase, as CSV and JSON, for each configuration.");
+			case jfr:
+				return new CMDLineOption("JFR Events (MultiDynNoS only)", "--jfr", "Emits the running time of each phase as JFR events.");
 			case verbose:
 				return new CMDLineOption("Verbose", "--verbose", "Extra output on console during computation");	
 			case manualTau:
 				return new CMDLineOption("Dataset Tau (MultiDynNoS only)", "--manualTau", "Use the time factor suggested in the dataset code (if available)");
 			case bendTransfer:	
 				return new CMDLineOption("Bend Transfer (MultiDynNoS only)", "--bT", "Enables Bend Transfer (default Disabled).");
+			case adaptiveIterations:
+				return new CMDLineOption("Adaptive Iterations (MultiDynNoS only)", "--aI", "Stops the layout of each level once it converges (default Disabled).");
+			case inProcess:
+				return new CMDLineOption("In-process layout (MultiDynNoS only)", "--inProcess", "Also computes the configurations using the in-process static layout (default Disabled).");
 //			case vanillaTuning:	
 //				return new CMDLineOption("Use Vanilla Tuning (MultiDynNoS only)", "--vT", "Sets layout tuning to vanilla MultiDynNoS.");				
 			default: return null;
@@ -264,11 +287,25 @@ public class DefaultRun {
 				return sfdp;	
 			case "out":
 				return output;
+			case "workers":
+				return workers;
+			case "timeout":
+				return timeout;
+			case "seed":
+				return seed;
+			case "threads":
+				return threads;
+			case "profile":
+				return profile;
+			case "jfr":
+				return jfr;
 			case "verbose":
 				return verbose;
 			case "manualTau":
 				return manualTau;	
 			case "bT": return bendTransfer;
+			case "inProcess": return inProcess;
+			case "aI": return adaptiveIterations;
 			//case "vT": return vanillaTuning;				
 			default: return null;			
 			}			
@@ -432,6 +469,12 @@ public class DefaultRun {
 			Boolean executeSingle = false;
 			Boolean executeVisone = false;
 			Boolean verbose = false;
+			int workers = 1;
+			long timeout = Experiment.TIMEOUT;
+			Long seed = null;
+			int threads = 1;
+			File profileFolder = null;
+			boolean jfrEvents = false;
 
 			String experimentPrefix = "";
 			String welcomeMessage = "";
@@ -489,6 +532,47 @@ public class DefaultRun {
 					}
 					break;
 				} 
+				case workers: {
+					if(i+1 < args.length) {
+						i++;
+						workers = Integer.parseInt(args[i]);
+						welcomeMessage += "\nWorkers: " + workers;
+					}
+					break;
+				}
+				case timeout: {
+					if(i+1 < args.length) {
+						i++;
+						timeout = Long.parseLong(args[i]);
+						welcomeMessage += "\nTimeout: " + timeout + "s";
+					}
+					break;
+				}
+				case seed: {
+					if(i+1 < args.length) {
+						i++;
+						seed = Long.parseLong(args[i]);
+						welcomeMessage += "\nSeed: " + seed;
+					}
+					break;
+				}
+				case threads: {
+					if(i+1 < args.length) {
+						i++;
+						threads = Integer.parseInt(args[i]);
+						welcomeMessage += "\nThreads: " + threads;
+					}
+					break;
+				}
+				case profile: {
+					if(i+1 < args.length) {
+						i++;
+						profileFolder = new File(args[i]);
+						welcomeMessage += "\nProfile: " + profileFolder;
+					}
+					break;
+				}
+				case jfr: jfrEvents = true; welcomeMessage += "\nJFR Events Enabled"; break;
 				case visone: {					
 					executeVisone = true;
 					visoneTimes.put("Bunt", "0.128");
@@ -506,6 +590,12 @@ public class DefaultRun {
 				case bendTransfer: {
 					multiLevelOptions.add(MetricsCalculationOptions.bendTransfer); experimentPrefix += "bendTransfer_"; welcomeMessage += "\nBend Transfer Enabled"; break;
 				}
+				case adaptiveIterations: {
+					multiLevelOptions.add(MetricsCalculationOptions.adaptiveIterations); experimentPrefix += "adaptiveIterations_"; welcomeMessage += "\nAdaptive Iterations Enabled"; break;
+				}
+				case inProcess: {
+					multiLevelOptions.add(MetricsCalculationOptions.inProcess); experimentPrefix += "inProcess_"; welcomeMessage += "\nIn-process Layout Enabled"; break;
+				}
 //				case vanillaTuning: {
 //					multiLevelOptions.add(MetricsCalculationOptions.vanillaTuning); experimentPrefix += "multiVanillaTuning_"; break;
 //				}				
@@ -523,12 +613,18 @@ public class DefaultRun {
 
 			String fileName = "Experiment_" + experimentPrefix + "_" + date + "_" + time + (executeMulti ? "_wMulti" : "") + "_data.csv";
 
+			if(outputFolder.charAt(outputFolder.length() - 1) != File.separatorChar)
+				outputFolder += File.separator; 
+
+			ExperimentScheduler scheduler = new ExperimentScheduler(workers, timeout, new File(outputFolder + fileName));
+			scheduler.writeLines(lines);
+
 			for(String graphName : expNames) {
 				System.out.println("\n### Starting " + graphName + " Experiment ###");
 				if(executeVisone && visoneTimes.containsKey(graphName)) {
 					HashSet<MetricsCalculationOptions> vis_multilevelOptions = new HashSet<>(multiLevelOptions);
 					vis_multilevelOptions.add(MetricsCalculationOptions.manualTau); //forces manualTau
-					lines.addAll(
+					scheduler.writeLines(
 							((Experiment) Class.forName("ocotillo.Experiment$"+graphName).getDeclaredConstructor(new Class[] {HashSet.class}).newInstance(vis_multilevelOptions)).computeVisoneMetrics(visoneTimes.get(graphName))
 							);
 				}
@@ -540,7 +636,7 @@ public class DefaultRun {
 						exp = ((Experiment) Class.forName("ocotillo.Experiment$"+graphName).getDeclaredConstructor().newInstance());
 						Logger.getInstance().log("Reverting to original constructor");
 					}
-					lines.addAll(
+					scheduler.writeLines(
 							exp.computeDynNoSliceMetrics(discreteExperiment.contains(graphName))
 							);                		
 				}if(executeMulti) {
@@ -551,23 +647,21 @@ public class DefaultRun {
 						exp = ((Experiment) Class.forName("ocotillo.Experiment$"+graphName).getDeclaredConstructor().newInstance());
 						Logger.getInstance().log("Reverting to original constructor");							
 					}						
-					lines.addAll(
-							exp.computeMultiLevelMetrics(discreteExperiment.contains(graphName), verbose)
-							);                		
+					if(seed != null)
+						exp.withSeed(seed);
+					exp.withParallelism(threads);
+					exp.withProfile(profileFolder, jfrEvents);
+					exp.computeMultiLevelMetrics(discreteExperiment.contains(graphName), verbose, scheduler);
 				}
 				if(executeSFDP) {
-					lines.addAll(
+					scheduler.writeLines(
 							((Experiment) Class.forName("ocotillo.Experiment$"+graphName).getDeclaredConstructor().newInstance()).computeSFDPMetrics()
 							);                		
 				}               	
 
 			}
 
-			if(outputFolder.charAt(outputFolder.length() - 1) != File.separatorChar)
-				outputFolder += File.separator; 
-
-			ParserTools.writeFileLines(lines,
-					new File(outputFolder + fileName));
+			scheduler.awaitCompletion();
 
 			System.out.println("\n##### Experiments complete! #####");
 
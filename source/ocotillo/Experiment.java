@@ -34,6 +34,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -81,6 +82,7 @@ import ocotillo.graph.StdAttribute;
 import ocotillo.graph.StdAttribute.ControlPoints;
 import ocotillo.graph.extra.GraphMetric;
 import ocotillo.graph.layout.fdl.modular.ModularConstraint;
+import ocotillo.graph.layout.fdl.modular.ModularInstrumentation;
 import ocotillo.graph.layout.fdl.modular.ModularMetric;
 import ocotillo.graph.layout.fdl.modular.ModularPostProcessing;
 import ocotillo.graph.layout.fdl.modular.ModularStatistics;
@@ -112,6 +114,7 @@ import ocotillo.samples.parsers.PreloadedGraphParser;
 import ocotillo.samples.parsers.RealityMining;
 import ocotillo.samples.parsers.RugbyTweets;
 import ocotillo.samples.parsers.VanDeBunt;
+import ocotillo.serialization.ocb.OcbSerializer;
 import ocotillo.various.ColorCollection;
 
 /**
@@ -119,7 +122,7 @@ import ocotillo.various.ColorCollection;
  */
 public abstract class Experiment {
 
-	private static final long TIMEOUT = 9000;
+	public static final long TIMEOUT = 9000;
 
 	protected final String name;
 	protected final String directory;
@@ -130,6 +133,11 @@ public abstract class Experiment {
 	protected final boolean automaticTau;
 	HashSet<MetricsCalculationOptions> opts;
 	protected HashSet<Callable<ModularStatistics>> callables = new HashSet<Callable<ModularStatistics>>();
+	private Long seed = null;
+	private int threads = 1;
+	private File profileFolder = null;
+	private boolean jfrEvents = false;
+	private File continuousSnapshot = null;
 
 	private final static String STAT_SEPARATOR = ";";
 
@@ -350,6 +358,14 @@ public abstract class Experiment {
 			multiDyn.addLayerPostProcessingDrawingOption(
 					new MultiLevelDrawingOption<ModularPostProcessing>(postProcessing));
 
+		if (seed != null)
+			multiDyn.withSeed(seed);
+		multiDyn.withParallelism(threads);
+		if (opts != null && opts.contains(MetricsCalculationOptions.adaptiveIterations))
+			multiDyn.adaptiveIterationParameters();
+		if (jfrEvents)
+			multiDyn.withInstrumentation(new ModularInstrumentation().enableJfrEvents());
+
 		multiDyn.build();    
 		return multiDyn;
 	}
@@ -377,10 +393,65 @@ public abstract class Experiment {
 			multiDyn.addLayerPostProcessingDrawingOption(
 					new MultiLevelDrawingOption<ModularPostProcessing>(postProcessing));
 
+		if (seed != null)
+			multiDyn.withSeed(seed);
+		multiDyn.withParallelism(threads);
+		if (opts != null && opts.contains(MetricsCalculationOptions.adaptiveIterations))
+			multiDyn.adaptiveIterationParameters();
+		if (jfrEvents)
+			multiDyn.withInstrumentation(new ModularInstrumentation().enableJfrEvents());
+
 		multiDyn.build();    
 		return multiDyn;
 	}
 
+	/**
+	 * Fixes the seed of the multi-level layouts, so that every configuration is reproducible.
+	 * Without a seed, each layout draws (and logs) its own.
+	 * @param seed the random seed
+	 * @return the experiment
+	 */
+	public Experiment withSeed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * Sets the number of threads used to compute the forces of each multi-level layout.
+	 * @param threads the number of threads
+	 * @return the experiment
+	 */
+	public Experiment withParallelism(int threads) {
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Saves the running times of the phases of each multi-level configuration.
+	 * @param profileFolder the folder where to save a CSV and a JSON file per configuration, or null
+	 * @param jfrEvents if to also emit the phases as JFR events
+	 * @return the experiment
+	 */
+	public Experiment withProfile(File profileFolder, boolean jfrEvents) {
+		this.profileFolder = profileFolder;
+		this.jfrEvents = jfrEvents;
+		return this;
+	}
+
+	/**
+	 * Saves the phase running times of a multi-level run, if a profile folder is set.
+	 * @param multiDyn the completed run
+	 * @param type the configuration of the run
+	 */
+	private void saveProfile(MultiLevelDynNoSlice multiDyn, String type) {
+		if (profileFolder == null)
+			return;
+		profileFolder.mkdirs();
+		String prefix = (name + "_" + type).replace(' ', '_');
+		multiDyn.getInstrumentation().saveCsv(new File(profileFolder, prefix + "_profile.csv"));
+		multiDyn.getInstrumentation().saveJson(new File(profileFolder, prefix + "_profile.json"));
+	}
+
 	/**
 	 * Compute the metrics for the current experiment for VisOne.
 	 * @param visoneTime
@@ -508,7 +579,7 @@ public abstract class Experiment {
 
 			StaticSumPresenceFlattener dyg = new StaticSumPresenceFlattener();
 			Graph flattened = dyg.flattenDyGraph(contGraph);
-			SfdpBuilder sfdp = new SfdpBuilder();
+			SfdpBuilder sfdp = new SfdpBuilder().withCommandLine(AVAILABLE_STATIC_LAYOUTS.sfdp);
 			SfdpExecutor sfdpInstance = sfdp.build();
 			Logger.getInstance().log("Flattened graph has " + flattened.nodeCount() + " nodes and " + flattened.edgeCount() + " edges");
 			long epochStart = System.currentTimeMillis();
@@ -551,7 +622,19 @@ public abstract class Experiment {
 	 * @return
 	 */
 	public List<String> computeMultiLevelMetrics(boolean discrete, boolean verbose) {
-		List<String> lines = new ArrayList<>();
+		ExperimentScheduler scheduler = new ExperimentScheduler(1, TIMEOUT, null);
+		computeMultiLevelMetrics(discrete, verbose, scheduler);
+		return scheduler.awaitCompletion();
+	}
+
+	/**
+	 * Queues the configurations of the MultiLevelDynNoSlice experiment in a scheduler.
+	 * Each configuration works on its own copy of the parsed dataset, so that they can run concurrently.
+	 * @param discrete if to run the discrete experiment (for timesliced graph) as well.
+	 * @param verbose if to log the progress of the layouts.
+	 * @param scheduler the scheduler that runs the configurations and collects the lines.
+	 */
+	public void computeMultiLevelMetrics(boolean discrete, boolean verbose, ExperimentScheduler scheduler) {
 		List<Double> snapTimes = readSnapTimes(discretise());
 		HashSet<String> methodologies = new HashSet<String>();
 
@@ -562,6 +645,12 @@ public abstract class Experiment {
 		HashSet<AVAILABLE_STATIC_LAYOUTS> singleLevelLayouts = new HashSet<AVAILABLE_STATIC_LAYOUTS>();
 		singleLevelLayouts.add(AVAILABLE_STATIC_LAYOUTS.fdp);
 		singleLevelLayouts.add(AVAILABLE_STATIC_LAYOUTS.sfdp);
+		if(opts != null && opts.contains(MetricsCalculationOptions.inProcess))
+			singleLevelLayouts.add(AVAILABLE_STATIC_LAYOUTS.inprocess);
+
+		/*Computed once here, as the dataset caches them lazily and is shared by the concurrent configurations*/
+		double suggestedTimeFactor = dataset.getSuggestedTimeFactor(false, null);
+		Interval suggestedInterval = dataset.getSuggestedInterval(automaticTau, loadMode);
 
 		System.out.println("\n# Starting Multi-Level Experiment #");
 
@@ -585,18 +674,21 @@ public abstract class Experiment {
 				}
 
 				if(discrete) {
-					System.out.println("\t\tExecuting Discrete Multi-Level Algorithm");
+					String type = "multid-" + AVAILABLE_STATIC_LAYOUTS.toString(singleLevel) + s;
 					MultiLevelDynNoSlice discMultiDyn = getMultiLevelDiscreteLayoutAlgorithm(discretise(), gc, singleLevel, ps, null, verbose);
-					callables.clear();
-					callables.add(new Callable<ModularStatistics>() {
-						public ModularStatistics call() throws Exception {
-							discMultiDyn.runMultiLevelLayout();
-							return discMultiDyn.getComputationStatistics();
-						}
-					});
+					DyGraph multiContDiscrete;
 					try {
-						ExecutorService exec = Executors.newSingleThreadExecutor();
-						ModularStatistics multiDiscStats = exec.invokeAny(callables, TIMEOUT, TimeUnit.SECONDS);
+						multiContDiscrete = getContinuousCopy();
+					}catch (URISyntaxException uri) {
+						System.out.println("ERROR: Can't load graph!");
+						continue;
+					}
+					scheduler.submit(name + " " + type, () -> {
+						System.out.println("\t\tExecuting Discrete Multi-Level Algorithm (" + name + " " + type + ")");
+						discMultiDyn.runMultiLevelLayout();
+						stopIfInterrupted();
+						saveProfile(discMultiDyn, type);
+						ModularStatistics multiDiscStats = discMultiDyn.getComputationStatistics();
 						SpaceTimeCubeSynchroniser discMultiDynSyncro = discMultiDyn.getSyncro();
 						double multiDiscTime = multiDiscStats.getTotalRunningTime().toMillis()/1000.0d;      
 						System.out.println("\t\t\tDone in " + (int)multiDiscTime + "s, computing metrics.");
@@ -604,42 +696,32 @@ public abstract class Experiment {
 						double multiDiscreteScaling = computeIdealScaling(discMultiDyn.getDrawnGraph(), snapTimes);
 						applyIdealScaling(discMultiDynSyncro, multiDiscreteScaling);
 
-						DyGraph multiContDiscrete = getContinuousCopy();
 						copyNodeLayoutFromTo(discMultiDyn.getDrawnGraph(), multiContDiscrete);
 
 						String extraLines = stringifyMultiLevelMetrics(discMultiDyn.getComputationStatistics().getMetrics());
+						stopIfInterrupted();
 
-						String line = name + STAT_SEPARATOR + "multid-" + AVAILABLE_STATIC_LAYOUTS.toString(singleLevel) + s + STAT_SEPARATOR + multiDiscTime + STAT_SEPARATOR 
-								+ dataset.getSuggestedTimeFactor(false, null) + STAT_SEPARATOR + discMultiDyn.tau + STAT_SEPARATOR
+						return name + STAT_SEPARATOR + type + STAT_SEPARATOR + multiDiscTime + STAT_SEPARATOR 
+								+ suggestedTimeFactor + STAT_SEPARATOR + discMultiDyn.tau + STAT_SEPARATOR
 								+ 1 / multiDiscreteScaling + STAT_SEPARATOR
-								+ computeOtherMetrics(discMultiDyn.getDrawnGraph(), snapTimes, discMultiDynSyncro) + STAT_SEPARATOR + extraLines;
-
-						//System.out.println(line);
-
-						lines.add(line);
-					}catch (InterruptedException | ExecutionException e) {
-						e.printStackTrace();
-					}catch (TimeoutException timeout) {
-						System.out.println("Timeout reached!");
+								+ computeOtherMetrics(discMultiDyn.getDrawnGraph(), snapTimes, discMultiDynSyncro, suggestedInterval) + STAT_SEPARATOR + extraLines;
+					});
+				}else {
+					String type = "multic-" + AVAILABLE_STATIC_LAYOUTS.toString(singleLevel) + "_" + s;
+					MultiLevelDynNoSlice contMultiDyn;
+					try {
+						contMultiDyn = getMultiLevelContinuousLayoutAlgorithm(getContinuousCopy(), gc, singleLevel, ps, null, verbose);
 					}catch (URISyntaxException uri) {
 						System.out.println("ERROR: Can't load graph!");
+						continue;
 					}
-				}else {
-
-					System.out.println("\t\tExecuting Continuous Multi-Level Algorithm");     
-
-					try {			
-						MultiLevelDynNoSlice contMultiDyn = getMultiLevelContinuousLayoutAlgorithm(getContinuousCopy(), gc, singleLevel, ps, null, verbose);
-						callables.clear();
-						callables.add(new Callable<ModularStatistics>() {
-							public ModularStatistics call() throws Exception {
-								contMultiDyn.runMultiLevelLayout();
-								return contMultiDyn.getComputationStatistics();
-							}
-						});
-
-						ExecutorService exec = Executors.newSingleThreadExecutor();
-						ModularStatistics multiContStats = exec.invokeAny(callables, TIMEOUT, TimeUnit.SECONDS);
+					DyGraph multiDiscContinuous = discretise();
+					scheduler.submit(name + " " + type, () -> {
+						System.out.println("\t\tExecuting Continuous Multi-Level Algorithm (" + name + " " + type + ")");
+						contMultiDyn.runMultiLevelLayout();
+						stopIfInterrupted();
+						saveProfile(contMultiDyn, type);
+						ModularStatistics multiContStats = contMultiDyn.getComputationStatistics();
 
 						double multiContTime = multiContStats.getTotalRunningTime().toMillis()/1000.0d;
 
@@ -652,27 +734,28 @@ public abstract class Experiment {
 
 						Logger.getInstance().log("Applied scaling " + 1/multiContinuousScaling);
 
-						DyGraph multiDiscContinuous = discretise();
 						copyNodeLayoutFromTo(contMultiDyn.getDrawnGraph(), multiDiscContinuous);	           
 
 						String extraLines = stringifyMultiLevelMetrics(contMultiDyn.getComputationStatistics().getMetrics()) + STAT_SEPARATOR + dataset.eventsProcessed;
-						String line = name + ";" + "multic-" + AVAILABLE_STATIC_LAYOUTS.toString(singleLevel) + "_" + s + ";" + multiContTime + STAT_SEPARATOR 
-								+ dataset.getSuggestedTimeFactor(false, null) + STAT_SEPARATOR + contMultiDyn.tau + STAT_SEPARATOR								
+						stopIfInterrupted();
+						return name + ";" + type + ";" + multiContTime + STAT_SEPARATOR 
+								+ suggestedTimeFactor + STAT_SEPARATOR + contMultiDyn.tau + STAT_SEPARATOR								
 								+ 1 / multiContinuousScaling + STAT_SEPARATOR
-								+ computeOtherMetrics(contMultiDyn.getDrawnGraph(), snapTimes, contMultiDynSyncro) + STAT_SEPARATOR + extraLines;
-
-						lines.add(line); 
-					}catch (InterruptedException | ExecutionException e) {
-						e.printStackTrace();
-					}catch (TimeoutException timeout) {
-						System.out.println("Timeout reached!");
-					}catch (URISyntaxException uri) {
-						System.out.println("Can't load graph");
-					}
+								+ computeOtherMetrics(contMultiDyn.getDrawnGraph(), snapTimes, contMultiDynSyncro, suggestedInterval) + STAT_SEPARATOR + extraLines;
+					});
 				}
 			}
 		}
-		return lines;
+	}
+
+	/**
+	 * Stops a scheduled configuration whose thread has been interrupted, before
+	 * spending time on results that would be discarded.
+	 * @throws CancellationException if the thread has been interrupted
+	 */
+	private static void stopIfInterrupted() {
+		if(Thread.currentThread().isInterrupted())
+			throw new CancellationException("Experiment configuration interrupted");
 	}
 
 	private String stringifyMultiLevelMetrics(List<ModularMetric> list) {
@@ -717,16 +800,32 @@ public abstract class Experiment {
 	 * @return the metrics text.
 	 */
 	public String computeOtherMetrics(DyGraph graph, List<Double> snapTimes, SpaceTimeCubeSynchroniser synchroniser) {
+		return computeOtherMetrics(graph, snapTimes, synchroniser, dataset.getSuggestedInterval(automaticTau, loadMode));
+	}
+
+	/**
+	 * Computes the other metrics of interest.
+	 *
+	 * @param graph the graph to test.
+	 * @param snapTimes the snapshot times.
+	 * @param synchro the synchroniser.
+	 * @param suggestedInterval the suggested interval of the dataset, used for the crowding.
+	 * @return the metrics text.
+	 */
+	public String computeOtherMetrics(DyGraph graph, List<Double> snapTimes, SpaceTimeCubeSynchroniser synchroniser, Interval suggestedInterval) {
 
 		int slicesForOff = snapTimes.size() + (snapTimes.size() - 1) * 10;
 		Interval interval = Interval.newClosed(snapTimes.get(0), snapTimes.get(snapTimes.size() - 1));
 
+		GraphMetric.NodeDistancesCache distanceCache = new GraphMetric.NodeDistancesCache();
 		DyGraphMetric<Double> stressOn = new DyGraphMetric.AverageSnapshotMetricCalculation(
-				new GraphMetric.StressMetric.Builder().withScaling(delta).build(), interval, snapTimes.size());
+				new GraphMetric.StressMetric.Builder().withScaling(delta).withDistanceCache(distanceCache).build(),
+				interval, snapTimes.size());
 		DyGraphMetric<Double> stressOff = new DyGraphMetric.AverageSnapshotMetricCalculation(
-				new GraphMetric.StressMetric.Builder().withScaling(delta).build(), interval, slicesForOff);
+				new GraphMetric.StressMetric.Builder().withScaling(delta).withDistanceCache(distanceCache).build(),
+				interval, slicesForOff);
 		StcGraphMetric<Double> nodeMovement = new StcGraphMetric.AverageNodeMovement2D();
-		StcGraphMetric<Integer> crowding = new StcGraphMetric.Crowding(dataset.getSuggestedInterval(automaticTau, loadMode), 600);
+		StcGraphMetric<Integer> crowding = new StcGraphMetric.Crowding(suggestedInterval, 600);
 
 		return stressOn.computeMetric(graph) + STAT_SEPARATOR + stressOff.computeMetric(graph) + STAT_SEPARATOR
 				+ nodeMovement.computeMetric(synchroniser) + STAT_SEPARATOR + crowding.computeMetric(synchroniser);
@@ -736,24 +835,12 @@ public abstract class Experiment {
 	public double computeIdealScaling(DyGraph graph, List<Double> snapTimes) {
 		Interval interval = Interval.newClosed(snapTimes.get(0), snapTimes.get(snapTimes.size() - 1));
 
-		double bestScaling = 0;
-		double bestStress = Double.POSITIVE_INFINITY;
+		Logger.getInstance().log("\tComputing best scaling");
 
-		Logger.getInstance().log("\tIterating to get best scaling");
-
-		for (int i = -20; i <= 20; i++) {
-
-			double scaling = Math.pow(1.1, i);
-			DyGraphMetric<Double> stressMetric = new DyGraphMetric.AverageSnapshotMetricCalculation(
-					new GraphMetric.StressMetric.Builder().withScaling(delta * scaling).build(),
-					interval, snapTimes.size());
-			double stress = stressMetric.computeMetric(graph);
-			if (stress < bestStress) {
-				bestStress = stress;
-				bestScaling = scaling;
-			}
-		}
-		return bestScaling;
+		DyGraphMetric<Double> scalingMetric = new DyGraphMetric.IdealStressScalingCalculation(
+				new GraphMetric.StressScalingStatisticsMetric.Builder().withScaling(delta).build(),
+				interval, snapTimes.size());
+		return scalingMetric.computeMetric(graph);
 	}
 
 	public static void applyIdealScaling(DyGraph graph, double idealScaling) {
@@ -1002,12 +1089,35 @@ public abstract class Experiment {
 	public abstract DyGraph discretise();
 
 	/**
-	 * Gets a copy of the continuous graph.
+	 * Gets a copy of the continuous graph. The dataset is parsed once and stored in a temporary ocb file,
+	 * from which the following copies are read.
 	 *
 	 * @return a copy of the continuous graph.
 	 */
 	public DyGraph getContinuousCopy() throws URISyntaxException{
-		return parserInstance.parse(loadMode).dygraph;
+		OcbSerializer serializer = new OcbSerializer();
+		try {
+			return serializer.readDynamicFile(continuousSnapshot());
+		} catch (IOException e) {
+			System.out.println("Cannot use the dataset snapshot, parsing the dataset again: " + e.getMessage());
+			return parserInstance.parse(loadMode).dygraph;
+		}
+	}
+
+	/**
+	 * Gets the ocb snapshot of the parsed dataset, writing it on the first call.
+	 *
+	 * @return the snapshot file.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	private synchronized File continuousSnapshot() throws IOException, URISyntaxException {
+		if(continuousSnapshot == null) {
+			File snapshot = File.createTempFile(name + "_snapshot", ".ocb");
+			snapshot.deleteOnExit();
+			new OcbSerializer().writeFile(parserInstance.parse(loadMode).dygraph, snapshot);
+			continuousSnapshot = snapshot;
+		}
+		return continuousSnapshot;
 	}
 
 	/**
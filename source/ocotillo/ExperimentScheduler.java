@@ -0,0 +1,143 @@
+/**
+ * Copyright  2020 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package ocotillo;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ocotillo.serialization.ParserTools;
+
+/**
+ * Runs independent experiment configurations on a bounded pool of workers.
+ * Each job produces a line of statistics, which is appended to the output file
+ * (if any) as soon as the job completes. A job that runs longer than the timeout
+ * is interrupted and its line discarded. Jobs and watchdog agree on the outcome
+ * through a shared state, so that an interrupt never outlives the job it targets.
+ */
+public class ExperimentScheduler {
+
+	private static final int RUNNING = 0;
+	private static final int INTERRUPTING = 1;
+	private static final int TIMED_OUT = 2;
+	private static final int DONE = 3;
+
+	private final ExecutorService workers;
+	private final ScheduledExecutorService watchdog;
+	private final long timeout;
+	private final File outputFile;
+
+	private final List<Future<?>> jobs = new ArrayList<Future<?>>();
+	private final List<String> lines = Collections.synchronizedList(new ArrayList<String>());
+
+	/**
+	 * Builds the scheduler.
+	 * @param workers the number of jobs executed concurrently
+	 * @param timeout the maximum running time of each job, in seconds
+	 * @param outputFile the file where to append the lines, or null to only collect them
+	 */
+	public ExperimentScheduler(int workers, long timeout, File outputFile) {
+		if(workers < 1)
+			throw new IllegalArgumentException("The number of workers must be positive: " + workers);
+		this.workers = Executors.newFixedThreadPool(workers);
+		this.watchdog = Executors.newSingleThreadScheduledExecutor();
+		this.timeout = timeout;
+		this.outputFile = outputFile;
+	}
+
+	/**
+	 * Queues a job. The timeout starts when a worker picks the job up.
+	 * @param description the job description, used in the console messages
+	 * @param job the job, which returns the line of statistics or null
+	 */
+	public void submit(String description, Callable<String> job) {
+		jobs.add(workers.submit(() -> {
+			Thread worker = Thread.currentThread();
+			AtomicInteger state = new AtomicInteger(RUNNING);
+			ScheduledFuture<?> alarm = watchdog.schedule(() -> {
+				if(state.compareAndSet(RUNNING, INTERRUPTING)) {
+					worker.interrupt();
+					state.set(TIMED_OUT);
+				}
+			}, timeout, TimeUnit.SECONDS);
+			String line = null;
+			Exception failure = null;
+			try {
+				line = job.call();
+			} catch (Exception e) {
+				failure = e;
+			} finally {
+				alarm.cancel(false);
+				if(!state.compareAndSet(RUNNING, DONE)) {
+					while(state.get() != TIMED_OUT)
+						Thread.onSpinWait();
+				}
+				Thread.interrupted();
+			}
+			if(state.get() == TIMED_OUT)
+				System.out.println("Timeout reached for " + description + "!");
+			else if(failure != null) {
+				System.out.println("ERROR: " + description + " failed!");
+				failure.printStackTrace();
+			} else if(line != null)
+				writeLines(Collections.singletonList(line));
+		}));
+	}
+
+	/**
+	 * Appends lines to the output file and to the collected lines.
+	 * @param newLines the lines to append
+	 */
+	public synchronized void writeLines(List<String> newLines) {
+		lines.addAll(newLines);
+		if(outputFile != null)
+			ParserTools.appendFileLines(newLines, outputFile);
+	}
+
+	/**
+	 * Waits for all the queued jobs and releases the workers.
+	 * @return the lines collected so far, in completion order
+	 */
+	public List<String> awaitCompletion() {
+		for(Future<?> job : jobs) {
+			try {
+				job.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch (ExecutionException e) {
+				e.printStackTrace();
+			}
+		}
+		jobs.clear();
+		workers.shutdown();
+		watchdog.shutdownNow();
+		synchronized(lines) {
+			return new ArrayList<String>(lines);
+		}
+	}
+}
@@ -15,10 +15,10 @@
  */
 package ocotillo.dygraph;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
@@ -102,10 +102,10 @@ public class Evolution<T> implements Iterable<Function<T>> {
 	 * @return the first (left) value of the first interval.
 	 */
 	public T getFirstValue() {
-		List<Function<T>> orderedList = intervalTree.inOrderTraversal();
-		if(orderedList.size() == 0)
+		Function<T> first = intervalTree.first();
+		if(first == null)
 			return getDefaultValue();
-		return orderedList.get(0).leftValue();
+		return first.leftValue();
 	}	
 	
 	/**
@@ -114,10 +114,10 @@ public class Evolution<T> implements Iterable<Function<T>> {
 	 * @return the last (right) value of the last interval or the default value if undefined.
 	 */
 	public T getLastValue() {
-		List<Function<T>> orderedList = intervalTree.inOrderTraversal();
-		if(orderedList.size() == 0)
+		Function<T> last = intervalTree.last();
+		if(last == null)
 			return getDefaultValue();
-		return orderedList.get(orderedList.size()-1).rightValue();
+		return last.rightValue();
 	}
 
 	/**
@@ -237,10 +237,9 @@ public class Evolution<T> implements Iterable<Function<T>> {
 	 * @return The collection of intervals
 	 */
 	public Collection<Function<T>> getAllIntervals() {
-		LinkedList<Function<T>> list = new LinkedList<Function<T>>();
-		Iterator<Function<T>> it = iterator();
-		while(it.hasNext())
-			list.add(it.next());
+		List<Function<T>> list = new ArrayList<Function<T>>(size());
+		for(Function<T> function : this)
+			list.add(function);
 		return list;
 	}
 	
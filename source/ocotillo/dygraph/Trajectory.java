@@ -0,0 +1,568 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Geom;
+import ocotillo.geometry.Interval;
+
+/**
+ * Immutable evolution of 2D coordinates made of piecewise-linear pieces. The
+ * points are stored in flat, time-sorted arrays and evaluated by binary
+ * search, rather than as individual functions in an interval tree. Each
+ * piece corresponds to a set of consecutive linear functions, and is
+ * equivalent to an evolution of FunctionRect.Coordinates with linear
+ * interpolation whose first function takes the left closure of the piece,
+ * whose last function takes its right closure, and whose intermediate bounds
+ * are left-open and right-closed.
+ */
+public class Trajectory extends Evolution<Coordinates> {
+
+	private final double[] times;
+	private final double[] xs;
+	private final double[] ys;
+	private final int[] pieceStarts;
+	private final boolean[] leftClosed;
+	private final boolean[] rightClosed;
+
+	/**
+	 * Builds a trajectory from its flat representation.
+	 *
+	 * @param defaultValue the value returned for an undefined point.
+	 * @param times the point times.
+	 * @param xs the point x coordinates.
+	 * @param ys the point y coordinates.
+	 * @param pieceStarts the index of the first point of each piece, followed
+	 * by the total number of points.
+	 * @param leftClosed the left closure of each piece.
+	 * @param rightClosed the right closure of each piece.
+	 */
+	private Trajectory(Coordinates defaultValue, double[] times, double[] xs, double[] ys,
+			int[] pieceStarts, boolean[] leftClosed, boolean[] rightClosed) {
+		super(defaultValue);
+		this.times = times;
+		this.xs = xs;
+		this.ys = ys;
+		this.pieceStarts = pieceStarts;
+		this.leftClosed = leftClosed;
+		this.rightClosed = rightClosed;
+	}
+
+	/**
+	 * Returns the number of linear pieces of the trajectory, that is the
+	 * number of appearances it describes.
+	 *
+	 * @return the number of pieces.
+	 */
+	public int pieceCount() {
+		return leftClosed.length;
+	}
+
+	/**
+	 * Returns the number of points stored in the trajectory.
+	 *
+	 * @return the number of points.
+	 */
+	public int pointCount() {
+		return times.length;
+	}
+
+	/**
+	 * Returns the time of a point.
+	 *
+	 * @param index the index of the point.
+	 * @return its time.
+	 */
+	public double timeAt(int index) {
+		return times[index];
+	}
+
+	/**
+	 * Returns the position of a point.
+	 *
+	 * @param index the index of the point.
+	 * @return its position.
+	 */
+	public Coordinates pointAt(int index) {
+		return new Coordinates(xs[index], ys[index]);
+	}
+
+	/**
+	 * Returns the index of the first point of a piece.
+	 *
+	 * @param piece the index of the piece.
+	 * @return the index of its first point.
+	 */
+	public int pieceStart(int piece) {
+		return pieceStarts[piece];
+	}
+
+	/**
+	 * Checks if the start time of a piece belongs to it.
+	 *
+	 * @param piece the index of the piece.
+	 * @return true if the piece is left closed.
+	 */
+	public boolean isPieceLeftClosed(int piece) {
+		return leftClosed[piece];
+	}
+
+	/**
+	 * Checks if the end time of a piece belongs to it.
+	 *
+	 * @param piece the index of the piece.
+	 * @return true if the piece is right closed.
+	 */
+	public boolean isPieceRightClosed(int piece) {
+		return rightClosed[piece];
+	}
+
+	@Override
+	public boolean isDefinedAt(double x) {
+		return pieceContaining(x) >= 0;
+	}
+
+	@Override
+	public Coordinates getFirstValue() {
+		if (times.length == 0) {
+			return getDefaultValue();
+		}
+		return pointAt(0);
+	}
+
+	@Override
+	public Coordinates getLastValue() {
+		if (times.length == 0) {
+			return getDefaultValue();
+		}
+		return pointAt(times.length - 1);
+	}
+
+	@Override
+	public Coordinates valueAt(double x) {
+		int piece = pieceContaining(x);
+		if (piece < 0) {
+			return getDefaultValue();
+		}
+		int last = pieceStarts[piece + 1] - 1;
+		int right = firstPointNotBefore(x, pieceStarts[piece] + 1, last);
+		int left = right - 1;
+
+		double width = times[right] - times[left];
+		if (Geom.eXD.almostZero(width)) {
+			return pointAt(left);
+		}
+		double interpolation = (x - times[left]) / width;
+		if (Geom.eXD.almostZero(interpolation)) {
+			return pointAt(left);
+		} else if (Geom.eXD.almostEqual(interpolation, 1.0)) {
+			return pointAt(right);
+		} else {
+			double complement = 1 - interpolation;
+			return new Coordinates(xs[right] - (xs[right] - xs[left]) * complement,
+					ys[right] - (ys[right] - ys[left]) * complement);
+		}
+	}
+
+	/**
+	 * Finds the piece that contains a given time.
+	 *
+	 * @param x the time.
+	 * @return the index of the piece, or -1 if no piece contains the time.
+	 */
+	private int pieceContaining(double x) {
+		int low = 0;
+		int high = pieceCount() - 1;
+		int candidate = -1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (times[pieceStarts[middle]] <= x) {
+				candidate = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		for (int piece = candidate + 1; piece >= candidate - 1; piece--) {
+			if (piece >= 0 && piece < pieceCount() && pieceContains(piece, x)) {
+				return piece;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks if a piece contains a given time, with the same tolerance used by
+	 * intervals.
+	 *
+	 * @param piece the piece index.
+	 * @param x the time.
+	 * @return true if the piece contains the time.
+	 */
+	private boolean pieceContains(int piece, double x) {
+		double start = times[pieceStarts[piece]];
+		double end = times[pieceStarts[piece + 1] - 1];
+		if (start < x && x < end) {
+			return true;
+		}
+		return (leftClosed[piece] && Geom.eXD.almostEqual(start, x))
+				|| (rightClosed[piece] && Geom.eXD.almostEqual(end, x));
+	}
+
+	/**
+	 * Finds the first point in a range whose time is not before the given
+	 * one, or the last point of the range if there is none.
+	 *
+	 * @param x the time.
+	 * @param from the first index of the range.
+	 * @param to the last index of the range.
+	 * @return the index of the point.
+	 */
+	private int firstPointNotBefore(double x, int from, int to) {
+		int low = from;
+		int high = to;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (times[middle] < x) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Builds the linear function between a point and the next one.
+	 *
+	 * @param piece the piece containing the points.
+	 * @param index the index of the first point.
+	 * @return the function.
+	 */
+	private Function<Coordinates> segment(int piece, int index) {
+		boolean segmentLeftClosed = index == pieceStarts[piece] ? leftClosed[piece] : false;
+		boolean segmentRightClosed = index + 2 == pieceStarts[piece + 1] ? rightClosed[piece] : true;
+		return new FunctionRect.Coordinates(
+				Interval.newCustom(times[index], times[index + 1], segmentLeftClosed, segmentRightClosed),
+				pointAt(index), pointAt(index + 1), Interpolation.Std.linear);
+	}
+
+	@Override
+	public Set<Function<Coordinates>> getOverlappingIntervals(Function<Coordinates> func) {
+		Set<Function<Coordinates>> overlapping = new HashSet<>();
+		for (Function<Coordinates> function : this) {
+			if (function.interval().overlapsWith(func.interval())) {
+				overlapping.add(function);
+			}
+		}
+		return overlapping;
+	}
+
+	@Override
+	public boolean contains(Function<Coordinates> function) {
+		for (Function<Coordinates> segment : this) {
+			if (segment.equals(function)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public int size() {
+		return times.length - pieceCount();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return times.length == 0;
+	}
+
+	@Override
+	public Iterator<Function<Coordinates>> iterator() {
+		return new Iterator<Function<Coordinates>>() {
+
+			private int piece = 0;
+			private int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				return index + 1 < times.length;
+			}
+
+			@Override
+			public Function<Coordinates> next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				Function<Coordinates> function = segment(piece, index);
+				index++;
+				if (index + 1 == pieceStarts[piece + 1]) {
+					index++;
+					piece++;
+				}
+				return function;
+			}
+		};
+	}
+
+	@Override
+	public void insert(Function<Coordinates> function) {
+		throw new UnsupportedOperationException("Trajectories are immutable.");
+	}
+
+	@Override
+	public void insertAll(Collection<Function<Coordinates>> functionSet) {
+		throw new UnsupportedOperationException("Trajectories are immutable.");
+	}
+
+	@Override
+	public void delete(Function<Coordinates> function) {
+		throw new UnsupportedOperationException("Trajectories are immutable.");
+	}
+
+	@Override
+	public void deleteAll(Collection<Function<Coordinates>> functionSet) {
+		throw new UnsupportedOperationException("Trajectories are immutable.");
+	}
+
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException("Trajectories are immutable.");
+	}
+
+	@Override
+	public void copyFrom(Evolution<Coordinates> otherEvolution) {
+		throw new UnsupportedOperationException("Trajectories are immutable.");
+	}
+
+	/**
+	 * Checks the equality with another trajectory. Generic evolutions are
+	 * never equal to a trajectory, see {@link #sameFunctionsAs(Evolution)}
+	 * to compare them.
+	 *
+	 * @param obj the other object.
+	 * @return true if the other object is a trajectory with the same pieces.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Trajectory)) {
+			return false;
+		}
+		Trajectory other = (Trajectory) obj;
+		return Objects.equals(getDefaultValue(), other.getDefaultValue())
+				&& Arrays.equals(times, other.times)
+				&& Arrays.equals(xs, other.xs)
+				&& Arrays.equals(ys, other.ys)
+				&& Arrays.equals(pieceStarts, other.pieceStarts)
+				&& Arrays.equals(leftClosed, other.leftClosed)
+				&& Arrays.equals(rightClosed, other.rightClosed);
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = Objects.hashCode(getDefaultValue());
+		hash = 31 * hash + Arrays.hashCode(times);
+		hash = 31 * hash + Arrays.hashCode(xs);
+		hash = 31 * hash + Arrays.hashCode(ys);
+		hash = 31 * hash + Arrays.hashCode(pieceStarts);
+		hash = 31 * hash + Arrays.hashCode(leftClosed);
+		hash = 31 * hash + Arrays.hashCode(rightClosed);
+		return hash;
+	}
+
+	/**
+	 * Checks if a generic evolution describes the same movement as this
+	 * trajectory, that is, if it has the same default value and consists of
+	 * the same linear functions.
+	 *
+	 * @param other the other evolution.
+	 * @return true if the evolution has the same functions.
+	 */
+	public boolean sameFunctionsAs(Evolution<Coordinates> other) {
+		if (other instanceof Trajectory) {
+			return equals(other);
+		}
+		if (!Objects.equals(getDefaultValue(), other.getDefaultValue()) || size() != other.size()) {
+			return false;
+		}
+		Iterator<Function<Coordinates>> otherFunctions = other.iterator();
+		for (Function<Coordinates> function : this) {
+			Function<Coordinates> otherFunction = otherFunctions.next();
+			if (!(otherFunction instanceof FunctionRect)
+					|| ((FunctionRect<?>) otherFunction).interpolation() != Interpolation.Std.linear.get()
+					|| !function.interval().equals(otherFunction.interval())
+					|| !function.leftValue().equals(otherFunction.leftValue())
+					|| !function.rightValue().equals(otherFunction.rightValue())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Builder for trajectories. Each piece is started with a point, extended
+	 * with one or more points in non-decreasing time order and then ended.
+	 * Pieces can be added in any order, but must not overlap.
+	 */
+	public static class Builder {
+
+		private final Coordinates defaultValue;
+		private final List<double[]> pieces = new ArrayList<>();
+		private final List<boolean[]> closures = new ArrayList<>();
+		private double[] current;
+		private int currentSize;
+		private boolean currentLeftClosed;
+
+		/**
+		 * Constructs a trajectory builder.
+		 *
+		 * @param defaultValue the value returned for an undefined point.
+		 */
+		public Builder(Coordinates defaultValue) {
+			this.defaultValue = defaultValue;
+		}
+
+		/**
+		 * Starts a new piece.
+		 *
+		 * @param time the start time of the piece.
+		 * @param position the position at the start time.
+		 * @param leftClosed whether the start time belongs to the piece.
+		 * @return the builder.
+		 */
+		public Builder startPiece(double time, Coordinates position, boolean leftClosed) {
+			if (current != null) {
+				throw new IllegalStateException("The previous piece has not been ended.");
+			}
+			current = new double[3 * 4];
+			currentSize = 0;
+			currentLeftClosed = leftClosed;
+			addPoint(time, position);
+			return this;
+		}
+
+		/**
+		 * Extends the current piece with a linear segment.
+		 *
+		 * @param time the time of the segment end.
+		 * @param position the position at the segment end.
+		 * @return the builder.
+		 */
+		public Builder lineTo(double time, Coordinates position) {
+			if (current == null) {
+				throw new IllegalStateException("No piece has been started.");
+			}
+			if (time < current[3 * (currentSize - 1)]) {
+				throw new IllegalArgumentException("The points of a piece must be in non-decreasing time order.");
+			}
+			addPoint(time, position);
+			return this;
+		}
+
+		/**
+		 * Ends the current piece.
+		 *
+		 * @param rightClosed whether the end time belongs to the piece.
+		 * @return the builder.
+		 */
+		public Builder endPiece(boolean rightClosed) {
+			if (current == null) {
+				throw new IllegalStateException("No piece has been started.");
+			}
+			if (currentSize < 2) {
+				throw new IllegalStateException("A piece requires at least two points.");
+			}
+			pieces.add(Arrays.copyOf(current, 3 * currentSize));
+			closures.add(new boolean[]{currentLeftClosed, rightClosed});
+			current = null;
+			return this;
+		}
+
+		/**
+		 * Builds the trajectory.
+		 *
+		 * @return the trajectory.
+		 */
+		public Trajectory build() {
+			if (current != null) {
+				throw new IllegalStateException("The last piece has not been ended.");
+			}
+			Integer[] order = new Integer[pieces.size()];
+			int pointCount = 0;
+			for (int i = 0; i < order.length; i++) {
+				order[i] = i;
+				pointCount += pieces.get(i).length / 3;
+			}
+			Arrays.sort(order, (a, b) -> Double.compare(pieces.get(a)[0], pieces.get(b)[0]));
+
+			double[] times = new double[pointCount];
+			double[] xs = new double[pointCount];
+			double[] ys = new double[pointCount];
+			int[] pieceStarts = new int[order.length + 1];
+			boolean[] leftClosed = new boolean[order.length];
+			boolean[] rightClosed = new boolean[order.length];
+			int point = 0;
+			for (int i = 0; i < order.length; i++) {
+				double[] piece = pieces.get(order[i]);
+				if (i > 0 && (piece[0] < times[point - 1]
+						|| (piece[0] == times[point - 1] && rightClosed[i - 1] && closures.get(order[i])[0]))) {
+					throw new IllegalArgumentException("The pieces of a trajectory must not overlap.");
+				}
+				pieceStarts[i] = point;
+				leftClosed[i] = closures.get(order[i])[0];
+				rightClosed[i] = closures.get(order[i])[1];
+				for (int j = 0; j < piece.length; j += 3) {
+					times[point] = piece[j];
+					xs[point] = piece[j + 1];
+					ys[point] = piece[j + 2];
+					point++;
+				}
+			}
+			pieceStarts[order.length] = pointCount;
+			return new Trajectory(defaultValue, times, xs, ys, pieceStarts, leftClosed, rightClosed);
+		}
+
+		/**
+		 * Appends a point to the current piece.
+		 *
+		 * @param time the point time.
+		 * @param position the point position.
+		 */
+		private void addPoint(double time, Coordinates position) {
+			if (3 * (currentSize + 1) > current.length) {
+				current = Arrays.copyOf(current, 2 * current.length);
+			}
+			current[3 * currentSize] = time;
+			current[3 * currentSize + 1] = position.x();
+			current[3 * currentSize + 2] = position.y();
+			currentSize++;
+		}
+	}
+}
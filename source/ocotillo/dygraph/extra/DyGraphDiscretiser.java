@@ -17,6 +17,7 @@ package ocotillo.dygraph.extra;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -28,6 +29,7 @@ import ocotillo.dygraph.DyEdgeAttribute;
 import ocotillo.dygraph.DyGraph;
 import ocotillo.dygraph.DyNodeAttribute;
 import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.Function;
 import ocotillo.dygraph.FunctionConst;
 import ocotillo.dygraph.FunctionRect;
 import ocotillo.dygraph.Interpolation;
@@ -140,6 +142,9 @@ public class DyGraphDiscretiser {
     /**
      * Discretise a continuous dynamic graph by providing the intervals to
      * flatten. A time step is created by flattening the events in the interval.
+     * The presence intervals of all elements are swept together with the input
+     * intervals, so that each element is only considered in the time steps
+     * where it is present.
      *
      * @param original the continuous dynamic graph.
      * @param intervals the intervals.
@@ -147,6 +152,7 @@ public class DyGraphDiscretiser {
      */
     public static DyGraph discretiseWithIntervals(DyGraph original, List<Interval> intervals) {
         DiscretisationData data = new DiscretisationData(original);
+        List<Interval> outputIntervals = new ArrayList<>(intervals.size());
         for (int i = 0; i < intervals.size(); i++) {
             double leftBound = i > 0
                     ? (intervals.get(i - 1).rightBound() + intervals.get(i).leftBound()) / 2.0
@@ -154,48 +160,237 @@ public class DyGraphDiscretiser {
             double rightBound = i < intervals.size() - 1
                     ? (intervals.get(i).rightBound() + intervals.get(i + 1).leftBound()) / 2.0
                     : intervals.get(i).rightBound() + (intervals.get(i).rightBound() - intervals.get(i).leftBound()) * 0.2;
-            Interval outputInterval = Interval.newRightClosed(leftBound, rightBound);
-//            System.out.print(i + ";");
-            applyBlockAttributes(data, intervals.get(i), outputInterval);
+            outputIntervals.add(Interval.newRightClosed(leftBound, rightBound));
+        }
+
+        List<Node> nodes = new ArrayList<>(original.nodes());
+        List<List<Interval>> nodePresences = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            nodePresences.add(data.simplifiedNodePresence.get(node));
+        }
+        int[][] nodeSteps = presenceSteps(nodePresences, intervals);
+        for (int i = 0; i < nodes.size(); i++) {
+            applyNodeAttributes(data, nodes.get(i), nodeSteps[i], outputIntervals);
+        }
+
+        List<Edge> edges = new ArrayList<>(original.edges());
+        List<List<Interval>> edgePresences = new ArrayList<>(edges.size());
+        for (Edge edge : edges) {
+            edgePresences.add(data.simplifiedEdgePresence.get(edge));
+        }
+        int[][] edgeSteps = presenceSteps(edgePresences, intervals);
+        for (int i = 0; i < edges.size(); i++) {
+            data.discreteEdgePresence.get(edges.get(i)).insertAll(presenceFunctions(edgeSteps[i], outputIntervals));
         }
         return data.discrete;
-    }    
+    }
 
     /**
-     * Applies the time step to the discrete graph.
+     * Applies all the time steps to a node of the discrete graph.
      *
      * @param data the discretisation data.
-     * @param inputInterval the interval containing the information to flatten.
-     * @param outputInterval the interval describing the time step in the output
-     * graph.
+     * @param node the node.
+     * @param steps the time steps in which the node is present.
+     * @param outputIntervals the intervals describing the time steps in the
+     * output graph.
      */
-    private static void applyBlockAttributes(DiscretisationData data, Interval inputInterval, Interval outputInterval) {
-//        int presentNodes = 0;
-//        int presentEdges = 0;
+    private static void applyNodeAttributes(DiscretisationData data, Node node, int[] steps, List<Interval> outputIntervals) {
+        data.discreteNodePresence.get(node).insertAll(presenceFunctions(steps, outputIntervals));
 
-    	for (Node node : data.original.nodes()) {
-            if (data.isPresentInInterval(node, inputInterval)) {
-                data.discreteNodePresence.get(node).insert(new FunctionConst<>(outputInterval, true));
-//                presentNodes++;
-            }
-            data.discreteNodePositions.get(node).insert(new FunctionRect.Coordinates(outputInterval,
-                    data.originalNodePositions.get(node).valueAt(outputInterval.leftBound()),
-                    data.originalNodePositions.get(node).valueAt(outputInterval.rightBound()),
+        Evolution<Coordinates> originalPosition = data.originalNodePositions.get(node);
+        Evolution<String> originalLabel = data.originalNodeLabels.get(node);
+        Evolution<Double> originalLabelSize = data.originalNodeLabelSizes.get(node);
+        List<Function<Coordinates>> positions = new ArrayList<>(outputIntervals.size());
+        List<Function<String>> labels = new ArrayList<>(outputIntervals.size());
+        List<Function<Double>> labelSizes = new ArrayList<>(outputIntervals.size());
+        for (Interval outputInterval : outputIntervals) {
+            positions.add(new FunctionRect.Coordinates(outputInterval,
+                    originalPosition.valueAt(outputInterval.leftBound()),
+                    originalPosition.valueAt(outputInterval.rightBound()),
                     Interpolation.Std.linear));
-            data.discreteNodeLabels.get(node).insert(new FunctionConst<>(outputInterval,
-                    data.originalNodeLabels.get(node).valueAt(outputInterval.rightBound())));
-            data.discreteNodeLabelSizes.get(node).insert(new FunctionConst<>(outputInterval,
-                    data.originalNodeLabelSizes.get(node).valueAt(outputInterval.rightBound())));
+            labels.add(new FunctionConst<>(outputInterval, originalLabel.valueAt(outputInterval.rightBound())));
+            labelSizes.add(new FunctionConst<>(outputInterval, originalLabelSize.valueAt(outputInterval.rightBound())));
+        }
+        data.discreteNodePositions.get(node).insertAll(positions);
+        data.discreteNodeLabels.get(node).insertAll(labels);
+        data.discreteNodeLabelSizes.get(node).insertAll(labelSizes);
+    }
+
+    /**
+     * Builds the presence functions of an element in the discrete graph.
+     *
+     * @param steps the time steps in which the element is present.
+     * @param outputIntervals the intervals describing the time steps in the
+     * output graph.
+     * @return the presence functions.
+     */
+    private static List<Function<Boolean>> presenceFunctions(int[] steps, List<Interval> outputIntervals) {
+        List<Function<Boolean>> functions = new ArrayList<>(steps.length);
+        for (int step : steps) {
+            functions.add(new FunctionConst<>(outputIntervals.get(step), true));
+        }
+        return functions;
+    }
+
+    /**
+     * Computes the time steps in which each element is present. The bounds of
+     * the presence intervals and of the input intervals are sorted once and
+     * swept together. When an interval opens, it is only tested against the
+     * intervals of the other kind that are currently open.
+     *
+     * @param presences the presence intervals of each element.
+     * @param intervals the input intervals.
+     * @return for each element, the sorted indices of the input intervals in
+     * which it is present.
+     */
+    private static int[][] presenceSteps(List<List<Interval>> presences, List<Interval> intervals) {
+        int presenceCount = 0;
+        for (List<Interval> elementPresence : presences) {
+            presenceCount += elementPresence.size();
+        }
+        Interval[] presenceIntervals = new Interval[presenceCount];
+        int[] owners = new int[presenceCount];
+        int index = 0;
+        for (int element = 0; element < presences.size(); element++) {
+            for (Interval presence : presences.get(element)) {
+                presenceIntervals[index] = presence;
+                owners[index] = element;
+                index++;
+            }
+        }
+
+        int itemCount = presenceCount + intervals.size();
+        double[] lefts = new double[itemCount];
+        double[] rights = new double[itemCount];
+        for (int item = 0; item < itemCount; item++) {
+            Interval interval = item < presenceCount ? presenceIntervals[item] : intervals.get(item - presenceCount);
+            lefts[item] = interval.leftBound();
+            rights[item] = interval.rightBound();
         }
-        for (Edge edge : data.original.edges()) {
-            if (data.isPresentInInterval(edge, inputInterval)) {
-            	data.discreteEdgePresence.get(edge).insert(new FunctionConst<>(outputInterval, true));
-//                presentEdges++;
+
+        // Event 2 * item opens an item, event 2 * item + 1 closes it. Openings
+        // precede closings at the same time, so touching intervals are tested.
+        Integer[] events = new Integer[2 * itemCount];
+        for (int event = 0; event < events.length; event++) {
+            events[event] = event;
+        }
+        Arrays.sort(events, (a, b) -> {
+            double timeA = (a & 1) == 0 ? lefts[a >> 1] : rights[a >> 1];
+            double timeB = (b & 1) == 0 ? lefts[b >> 1] : rights[b >> 1];
+            int comparison = Double.compare(timeA, timeB);
+            return comparison != 0 ? comparison : Integer.compare(a & 1, b & 1);
+        });
+
+        int[][] steps = new int[presences.size()][];
+        int[] stepCounts = new int[presences.size()];
+        for (int element = 0; element < steps.length; element++) {
+            steps[element] = new int[4];
+        }
+        ActiveSet openPresences = new ActiveSet(presenceCount);
+        ActiveSet openIntervals = new ActiveSet(intervals.size());
+        for (int event : events) {
+            int item = event >> 1;
+            boolean closing = (event & 1) == 1;
+            if (item < presenceCount) {
+                if (closing) {
+                    openPresences.remove(item);
+                } else {
+                    for (int i = 0; i < openIntervals.size; i++) {
+                        addStepIfOverlapping(presenceIntervals, owners, intervals, item, openIntervals.items[i], steps, stepCounts);
+                    }
+                    openPresences.add(item);
+                }
+            } else {
+                int interval = item - presenceCount;
+                if (closing) {
+                    openIntervals.remove(interval);
+                } else {
+                    for (int i = 0; i < openPresences.size; i++) {
+                        addStepIfOverlapping(presenceIntervals, owners, intervals, openPresences.items[i], interval, steps, stepCounts);
+                    }
+                    openIntervals.add(interval);
+                }
             }
         }
-        //System.out.println(presentNodes + ";" + presentEdges);
+
+        for (int element = 0; element < steps.length; element++) {
+            int[] elementSteps = steps[element];
+            Arrays.sort(elementSteps, 0, stepCounts[element]);
+            int distinct = 0;
+            for (int i = 0; i < stepCounts[element]; i++) {
+                if (distinct == 0 || elementSteps[distinct - 1] != elementSteps[i]) {
+                    elementSteps[distinct++] = elementSteps[i];
+                }
+            }
+            steps[element] = Arrays.copyOf(elementSteps, distinct);
+        }
+        return steps;
     }
-    
+
+    /**
+     * Records a time step for the owner of a presence interval if the presence
+     * interval overlaps with the input interval of the step.
+     *
+     * @param presenceIntervals the presence intervals.
+     * @param owners the element owning each presence interval.
+     * @param intervals the input intervals.
+     * @param presence the index of the presence interval.
+     * @param interval the index of the input interval.
+     * @param steps the steps recorded for each element.
+     * @param stepCounts the number of steps recorded for each element.
+     */
+    private static void addStepIfOverlapping(Interval[] presenceIntervals, int[] owners, List<Interval> intervals,
+            int presence, int interval, int[][] steps, int[] stepCounts) {
+        if (presenceIntervals[presence].overlapsWith(intervals.get(interval))) {
+            int element = owners[presence];
+            if (stepCounts[element] == steps[element].length) {
+                steps[element] = Arrays.copyOf(steps[element], 2 * steps[element].length);
+            }
+            steps[element][stepCounts[element]++] = interval;
+        }
+    }
+
+    /**
+     * A set of indices with constant time insertion and removal.
+     */
+    private static class ActiveSet {
+
+        private final int[] items;
+        private final int[] positions;
+        private int size = 0;
+
+        /**
+         * Builds an empty set for the indices from 0 to capacity - 1.
+         *
+         * @param capacity the number of indices.
+         */
+        private ActiveSet(int capacity) {
+            this.items = new int[capacity];
+            this.positions = new int[capacity];
+        }
+
+        /**
+         * Adds an index to the set.
+         *
+         * @param item the index.
+         */
+        private void add(int item) {
+            positions[item] = size;
+            items[size++] = item;
+        }
+
+        /**
+         * Removes an index from the set.
+         *
+         * @param item the index.
+         */
+        private void remove(int item) {
+            int last = items[--size];
+            items[positions[item]] = last;
+            positions[last] = positions[item];
+        }
+    }
+
     private void updateVisibleEdgesList(List<Interval> visibleEdges, double snapTime) {
     	visibleEdges.removeIf(new Predicate<Interval>() {
 			@Override
@@ -130,8 +130,10 @@ public interface DyGraphMetric<T> {
         public Double computeMetric(DyGraph graph) {
             double result = 0;
             int samples = 0;
+            DyPresenceIndex.Cursor cursor = new DyPresenceIndex(graph).cursor(Double.NEGATIVE_INFINITY);
             for (double snapshotTime : snapshotTimes) {
-                Graph staticGraph = graph.snapshotAt(snapshotTime);
+                cursor.moveTo(snapshotTime);
+                Graph staticGraph = cursor.snapshot();
                 double metricValue = metric.computeMetric(staticGraph);
                 if (!Double.isNaN(metricValue)) {
                     result += metricValue;
@@ -141,4 +143,64 @@ public interface DyGraphMetric<T> {
             return result / samples;
         }
     }
+
+    /**
+     * Computes the scaling that minimises the average stress on a set of
+     * dynamic graph snapshots. The stress statistics of each snapshot are
+     * accumulated once and the optimal scaling is obtained in closed form,
+     * rather than evaluating the stress for a range of candidate scalings.
+     * Snapshots without edges are ignored, as in the stress metric.
+     */
+    public static class IdealStressScalingCalculation implements DyGraphMetric<Double> {
+
+        private final GraphMetric<GraphMetric.StressScalingStatistics> metric;
+        private final List<Double> snapshotTimes;
+
+        /**
+         * Builds a calculator for the ideal stress scaling.
+         *
+         * @param metric the static graph stress statistics metric.
+         * @param interval the interval of activity of the dynamic graph.
+         * @param numberOfSnapshots the number of snapshots to take.
+         */
+        public IdealStressScalingCalculation(GraphMetric<GraphMetric.StressScalingStatistics> metric, Interval interval, int numberOfSnapshots) {
+            this.metric = metric;
+            this.snapshotTimes = interval.sample(numberOfSnapshots);
+        }
+
+        /**
+         * Builds a calculator for the ideal stress scaling.
+         *
+         * @param metric the static graph stress statistics metric.
+         * @param snapshotTimes the times to use to create the snapshots.
+         */
+        public IdealStressScalingCalculation(GraphMetric<GraphMetric.StressScalingStatistics> metric, List<Double> snapshotTimes) {
+            this.metric = metric;
+            this.snapshotTimes = snapshotTimes;
+        }
+
+        @Override
+        public Double computeMetric(DyGraph graph) {
+            return computeStatistics(graph).idealScaling();
+        }
+
+        /**
+         * Accumulates the stress scaling statistics of all snapshots.
+         *
+         * @param graph the input graph.
+         * @return the accumulated statistics.
+         */
+        public GraphMetric.StressScalingStatistics computeStatistics(DyGraph graph) {
+            GraphMetric.StressScalingStatistics statistics = new GraphMetric.StressScalingStatistics();
+            DyPresenceIndex.Cursor cursor = new DyPresenceIndex(graph).cursor(Double.NEGATIVE_INFINITY);
+            for (double snapshotTime : snapshotTimes) {
+                cursor.moveTo(snapshotTime);
+                Graph staticGraph = cursor.snapshot();
+                if (staticGraph.edgeCount() > 0) {
+                    statistics.add(metric.computeMetric(staticGraph));
+                }
+            }
+            return statistics;
+        }
+    }
 }
@@ -0,0 +1,546 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.extra;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyGraphAttribute;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.Evolution;
+import ocotillo.geometry.Geom;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Attribute;
+import ocotillo.graph.Edge;
+import ocotillo.graph.EdgeAttribute;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.StdAttribute;
+import ocotillo.structures.IntervalTree;
+
+/**
+ * Time index of the presence of the elements of a dynamic graph. The
+ * presence intervals of all nodes and edges are collected once, so that the
+ * elements alive at a time or in an interval are found without scanning the
+ * whole graph. A cursor allows to move between snapshot times by only
+ * applying the elements that appear or disappear in between. The index
+ * reflects the presence of the graph at the time of its construction.
+ */
+public class DyPresenceIndex {
+
+    private final DyGraph graph;
+    private final Timeline<Node> nodeTimeline;
+    private final Timeline<Edge> edgeTimeline;
+    private final int[] edgeSources;
+    private final int[] edgeTargets;
+    private final int[][] incidentEdges;
+
+    /**
+     * Builds the presence index of a dynamic graph.
+     *
+     * @param graph the dynamic graph.
+     */
+    public DyPresenceIndex(DyGraph graph) {
+        this.graph = graph;
+        this.nodeTimeline = new Timeline<>(new ArrayList<>(graph.nodes()), graph.nodeAttribute(StdAttribute.dyPresence));
+        this.edgeTimeline = new Timeline<>(new ArrayList<>(graph.edges()), graph.edgeAttribute(StdAttribute.dyPresence));
+
+        Map<Node, Integer> nodeIndices = new HashMap<>();
+        for (Node node : nodeTimeline.elements) {
+            nodeIndices.put(node, nodeIndices.size());
+        }
+        int edgeCount = edgeTimeline.elements.size();
+        edgeSources = new int[edgeCount];
+        edgeTargets = new int[edgeCount];
+        int[] degrees = new int[nodeIndices.size()];
+        for (int i = 0; i < edgeCount; i++) {
+            Edge edge = edgeTimeline.elements.get(i);
+            edgeSources[i] = nodeIndices.get(edge.source());
+            edgeTargets[i] = nodeIndices.get(edge.target());
+            degrees[edgeSources[i]]++;
+            if (edgeTargets[i] != edgeSources[i]) {
+                degrees[edgeTargets[i]]++;
+            }
+        }
+        incidentEdges = new int[degrees.length][];
+        for (int i = 0; i < degrees.length; i++) {
+            incidentEdges[i] = new int[degrees[i]];
+            degrees[i] = 0;
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            incidentEdges[edgeSources[i]][degrees[edgeSources[i]]++] = i;
+            if (edgeTargets[i] != edgeSources[i]) {
+                incidentEdges[edgeTargets[i]][degrees[edgeTargets[i]]++] = i;
+            }
+        }
+    }
+
+    /**
+     * Gets the nodes present at the given time.
+     *
+     * @param time the time.
+     * @return the present nodes.
+     */
+    public Set<Node> nodesAt(double time) {
+        return nodeTimeline.aliveIn(Interval.newClosed(time, time));
+    }
+
+    /**
+     * Gets the edges present at the given time. The presence of their
+     * extremities is not considered.
+     *
+     * @param time the time.
+     * @return the present edges.
+     */
+    public Set<Edge> edgesAt(double time) {
+        return edgeTimeline.aliveIn(Interval.newClosed(time, time));
+    }
+
+    /**
+     * Gets the nodes present at some point of the given interval.
+     *
+     * @param interval the interval.
+     * @return the nodes present in the interval.
+     */
+    public Set<Node> nodesIn(Interval interval) {
+        return nodeTimeline.aliveIn(interval);
+    }
+
+    /**
+     * Gets the edges present at some point of the given interval. The
+     * presence of their extremities is not considered.
+     *
+     * @param interval the interval.
+     * @return the edges present in the interval.
+     */
+    public Set<Edge> edgesIn(Interval interval) {
+        return edgeTimeline.aliveIn(interval);
+    }
+
+    /**
+     * Returns a static graph of the dynamic graph at a given time, as
+     * computed by DyGraph.snapshotAt. Only the present elements are visited.
+     *
+     * @param time the time of the snapshot.
+     * @return the static graph at that time.
+     */
+    public Graph snapshotAt(double time) {
+        return cursor(time).snapshot();
+    }
+
+    /**
+     * Builds a cursor positioned at the given time.
+     *
+     * @param time the initial time.
+     * @return the cursor.
+     */
+    public Cursor cursor(double time) {
+        return new Cursor(this, time);
+    }
+
+    /**
+     * A position in time over a presence index. Moving the cursor only
+     * processes the presence intervals that start or end between the old and
+     * the new time.
+     */
+    public static class Cursor {
+
+        private final DyPresenceIndex index;
+        private final boolean[] nodeRecordActive;
+        private final boolean[] edgeRecordActive;
+        private final int[] nodeActiveCount;
+        private final int[] edgeActiveCount;
+        private final Set<Node> nodes = new HashSet<>();
+        private final Set<Edge> edges = new HashSet<>();
+        private double time;
+
+        /**
+         * Builds a cursor positioned at the given time.
+         *
+         * @param index the presence index.
+         * @param time the initial time.
+         */
+        private Cursor(DyPresenceIndex index, double time) {
+            this.index = index;
+            this.nodeRecordActive = new boolean[index.nodeTimeline.records.length];
+            this.edgeRecordActive = new boolean[index.edgeTimeline.records.length];
+            this.nodeActiveCount = new int[index.nodeTimeline.elements.size()];
+            this.edgeActiveCount = new int[index.edgeTimeline.elements.size()];
+            this.time = time;
+
+            Interval point = Interval.newClosed(time, time);
+            for (Record record : index.nodeTimeline.tree.getAllOverlapping(point)) {
+                nodeRecordActive[record.id] = true;
+                if (nodeActiveCount[record.element]++ == 0) {
+                    nodes.add(index.nodeTimeline.elements.get(record.element));
+                }
+            }
+            for (Record record : index.edgeTimeline.tree.getAllOverlapping(point)) {
+                edgeRecordActive[record.id] = true;
+                edgeActiveCount[record.element]++;
+                updateEdge(record.element);
+            }
+        }
+
+        /**
+         * Gets the current time of the cursor.
+         *
+         * @return the current time.
+         */
+        public double time() {
+            return time;
+        }
+
+        /**
+         * Moves the cursor to the given time.
+         *
+         * @param newTime the new time.
+         */
+        public void moveTo(double newTime) {
+            List<Integer> changedNodes = index.nodeTimeline.update(time, newTime, nodeRecordActive, nodeActiveCount);
+            List<Integer> changedEdges = index.edgeTimeline.update(time, newTime, edgeRecordActive, edgeActiveCount);
+            time = newTime;
+
+            for (int node : changedNodes) {
+                if (nodeActiveCount[node] > 0) {
+                    nodes.add(index.nodeTimeline.elements.get(node));
+                } else {
+                    nodes.remove(index.nodeTimeline.elements.get(node));
+                }
+                for (int edge : index.incidentEdges[node]) {
+                    updateEdge(edge);
+                }
+            }
+            for (int edge : changedEdges) {
+                updateEdge(edge);
+            }
+        }
+
+        /**
+         * Updates the membership of an edge in the current snapshot.
+         *
+         * @param edge the index of the edge.
+         */
+        private void updateEdge(int edge) {
+            boolean present = edgeActiveCount[edge] > 0
+                    && nodeActiveCount[index.edgeSources[edge]] > 0
+                    && nodeActiveCount[index.edgeTargets[edge]] > 0;
+            if (present) {
+                edges.add(index.edgeTimeline.elements.get(edge));
+            } else {
+                edges.remove(index.edgeTimeline.elements.get(edge));
+            }
+        }
+
+        /**
+         * Gets the nodes present at the current time. The returned set is
+         * updated as the cursor moves.
+         *
+         * @return the present nodes.
+         */
+        public Set<Node> nodes() {
+            return nodes;
+        }
+
+        /**
+         * Gets the edges present at the current time, whose extremities are
+         * also present. The returned set is updated as the cursor moves.
+         *
+         * @return the present edges.
+         */
+        public Set<Edge> edges() {
+            return edges;
+        }
+
+        /**
+         * Returns a static graph of the dynamic graph at the current time, as
+         * computed by DyGraph.snapshotAt. The attributes are only evaluated
+         * for the present elements.
+         *
+         * @return the static graph at the current time.
+         */
+        public Graph snapshot() {
+            Graph snapshot = new Graph();
+            for (Node node : nodes) {
+                snapshot.add(node);
+            }
+            for (Edge edge : edges) {
+                snapshot.add(edge);
+            }
+            for (Map.Entry<String, ?> entry : index.graph.graphAttributes().entrySet()) {
+                if (!StdAttribute.isReservedForDynamic(entry.getKey())) {
+                    DyGraphAttribute<?> attribute = (DyGraphAttribute<?>) entry.getValue();
+                    snapshot.setAttribute(Attribute.Type.graph, entry.getKey(), attribute.snapshotAt(time));
+                }
+            }
+            for (Map.Entry<String, ?> entry : index.graph.nodeAttributes().entrySet()) {
+                if (!StdAttribute.isReservedForDynamic(entry.getKey())) {
+                    snapshot.setAttribute(Attribute.Type.node, entry.getKey(),
+                            snapshotNodeAttribute((DyNodeAttribute<?>) entry.getValue(), nodes, time));
+                }
+            }
+            for (Map.Entry<String, ?> entry : index.graph.edgeAttributes().entrySet()) {
+                if (!StdAttribute.isReservedForDynamic(entry.getKey())) {
+                    snapshot.setAttribute(Attribute.Type.edge, entry.getKey(),
+                            snapshotEdgeAttribute((DyEdgeAttribute<?>) entry.getValue(), edges, time));
+                }
+            }
+            return snapshot;
+        }
+
+        /**
+         * Takes the snapshot of a node attribute for the given nodes.
+         *
+         * @param <V> the type of value.
+         * @param attribute the dynamic attribute.
+         * @param nodes the nodes to consider.
+         * @param time the time of the snapshot.
+         * @return the static attribute.
+         */
+        private static <V> NodeAttribute<V> snapshotNodeAttribute(DyNodeAttribute<V> attribute, Collection<Node> nodes, double time) {
+            NodeAttribute<V> snapshotAttribute = new NodeAttribute<>(attribute.getDefault().getDefaultValue());
+            for (Node node : nodes) {
+                if (!attribute.isDefault(node)) {
+                    snapshotAttribute.set(node, attribute.get(node).valueAt(time));
+                }
+            }
+            return snapshotAttribute;
+        }
+
+        /**
+         * Takes the snapshot of an edge attribute for the given edges.
+         *
+         * @param <V> the type of value.
+         * @param attribute the dynamic attribute.
+         * @param edges the edges to consider.
+         * @param time the time of the snapshot.
+         * @return the static attribute.
+         */
+        private static <V> EdgeAttribute<V> snapshotEdgeAttribute(DyEdgeAttribute<V> attribute, Collection<Edge> edges, double time) {
+            EdgeAttribute<V> snapshotAttribute = new EdgeAttribute<>(attribute.getDefault().getDefaultValue());
+            for (Edge edge : edges) {
+                if (!attribute.isDefault(edge)) {
+                    snapshotAttribute.set(edge, attribute.get(edge).valueAt(time));
+                }
+            }
+            return snapshotAttribute;
+        }
+    }
+
+    /**
+     * The presence intervals of a set of elements, stored both in an interval
+     * tree and as lists of records sorted by left and right bound.
+     *
+     * @param <K> the type of element.
+     */
+    private static class Timeline<K> {
+
+        private final List<K> elements;
+        private final Record[] records;
+        private final IntervalTree<Record> tree = new IntervalTree<>();
+        private final double[] sortedLefts;
+        private final int[] recordsByLeft;
+        private final double[] sortedRights;
+        private final int[] recordsByRight;
+
+        /**
+         * Builds the timeline of a set of elements.
+         *
+         * @param elements the elements.
+         * @param presence the presence attribute of the elements.
+         */
+        private Timeline(List<K> elements, Attribute<?> presence) {
+            this.elements = elements;
+            List<Record> recordList = new ArrayList<>();
+            for (int i = 0; i < elements.size(); i++) {
+                for (Interval interval : EvolutionAnalyser.getIntervalsWithValue(presenceOf(presence, elements.get(i)), true)) {
+                    recordList.add(new Record(recordList.size(), i, interval));
+                }
+            }
+            records = recordList.toArray(new Record[recordList.size()]);
+            tree.insertAll(recordList);
+
+            recordsByLeft = sortedRecords(records, true);
+            recordsByRight = sortedRecords(records, false);
+            sortedLefts = new double[records.length];
+            sortedRights = new double[records.length];
+            for (int i = 0; i < records.length; i++) {
+                sortedLefts[i] = records[recordsByLeft[i]].interval.leftBound();
+                sortedRights[i] = records[recordsByRight[i]].interval.rightBound();
+            }
+        }
+
+        /**
+         * Gets the presence evolution of an element.
+         *
+         * @param presence the presence attribute.
+         * @param element the element.
+         * @return the presence evolution.
+         */
+        @SuppressWarnings("unchecked")
+        private static Evolution<Boolean> presenceOf(Attribute<?> presence, Object element) {
+            if (presence instanceof DyNodeAttribute) {
+                return ((DyNodeAttribute<Boolean>) presence).get((Node) element);
+            } else {
+                return ((DyEdgeAttribute<Boolean>) presence).get((Edge) element);
+            }
+        }
+
+        /**
+         * Sorts the records by one of their bounds.
+         *
+         * @param records the records.
+         * @param byLeft true to sort by left bound, false to sort by right
+         * bound.
+         * @return the record ids in sorted order.
+         */
+        private static int[] sortedRecords(Record[] records, boolean byLeft) {
+            Integer[] order = new Integer[records.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> byLeft
+                    ? Double.compare(records[a].interval.leftBound(), records[b].interval.leftBound())
+                    : Double.compare(records[a].interval.rightBound(), records[b].interval.rightBound()));
+            int[] result = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                result[i] = order[i];
+            }
+            return result;
+        }
+
+        /**
+         * Gets the elements present at some point of the given interval.
+         *
+         * @param interval the interval.
+         * @return the present elements.
+         */
+        private Set<K> aliveIn(Interval interval) {
+            Set<K> result = new HashSet<>();
+            for (Record record : tree.getAllOverlapping(interval)) {
+                result.add(elements.get(record.element));
+            }
+            return result;
+        }
+
+        /**
+         * Updates the active records when moving from a time to another. Only
+         * the records with a bound between the two times, extended by the
+         * geometry epsilon, can change their state.
+         *
+         * @param oldTime the previous time.
+         * @param newTime the new time.
+         * @param active the active state of each record.
+         * @param activeCount the number of active records of each element.
+         * @return the elements whose presence might have changed.
+         */
+        private List<Integer> update(double oldTime, double newTime, boolean[] active, int[] activeCount) {
+            List<Integer> changed = new ArrayList<>();
+            double margin = 2 * Geom.eXD.getEpsilon();
+            double low = Math.min(oldTime, newTime) - margin;
+            double high = Math.max(oldTime, newTime) + margin;
+            Interval point = Interval.newClosed(newTime, newTime);
+            for (int i = firstNotBelow(sortedLefts, low); i < sortedLefts.length && sortedLefts[i] <= high; i++) {
+                updateRecord(records[recordsByLeft[i]], point, active, activeCount, changed);
+            }
+            for (int i = firstNotBelow(sortedRights, low); i < sortedRights.length && sortedRights[i] <= high; i++) {
+                updateRecord(records[recordsByRight[i]], point, active, activeCount, changed);
+            }
+            return changed;
+        }
+
+        /**
+         * Updates the state of a record for the given time.
+         *
+         * @param record the record.
+         * @param point the closed interval of the time.
+         * @param active the active state of each record.
+         * @param activeCount the number of active records of each element.
+         * @param changed the list of elements whose presence might have
+         * changed.
+         */
+        private static void updateRecord(Record record, Interval point, boolean[] active, int[] activeCount, List<Integer> changed) {
+            boolean nowActive = record.interval.overlapsWith(point);
+            if (nowActive != active[record.id]) {
+                active[record.id] = nowActive;
+                int previousCount = activeCount[record.element];
+                activeCount[record.element] += nowActive ? 1 : -1;
+                if (previousCount == 0 || activeCount[record.element] == 0) {
+                    changed.add(record.element);
+                }
+            }
+        }
+
+        /**
+         * Finds the first position of a sorted array whose value is not below
+         * the given one.
+         *
+         * @param values the sorted values.
+         * @param value the value.
+         * @return the first position with a value greater or equal to the
+         * given one.
+         */
+        private static int firstNotBelow(double[] values, double value) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[middle] < value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * A presence interval of an element.
+     */
+    private static class Record implements IntervalTree.Data {
+
+        private final int id;
+        private final int element;
+        private final Interval interval;
+
+        /**
+         * Builds a presence record.
+         *
+         * @param id the record id.
+         * @param element the index of the element.
+         * @param interval the presence interval.
+         */
+        private Record(int id, int element, Interval interval) {
+            this.id = id;
+            this.element = element;
+            this.interval = interval;
+        }
+
+        @Override
+        public Interval interval() {
+            return interval;
+        }
+    }
+}
@@ -26,6 +26,7 @@ import ocotillo.dygraph.Evolution;
 import ocotillo.dygraph.Function;
 import ocotillo.dygraph.FunctionRect;
 import ocotillo.dygraph.Interpolation;
+import ocotillo.dygraph.Trajectory;
 import ocotillo.geometry.Coordinates;
 import ocotillo.geometry.Interval;
 import ocotillo.graph.Edge;
@@ -57,6 +58,9 @@ public class SpaceTimeCubeSynchroniser {
     private final NodeAttribute<Coordinates> mirrorPositions;
     private final EdgeAttribute<ControlPoints> mirrorBends;
 
+    private final SpaceTimeCubeSynchroniser coarserLevel;
+    private final Map<Node, Node> coarserNodes;
+
     private final Map<Node, IntervalTree<MirrorLine>> directNodeMap = new HashMap<>();
     private final Map<Edge, IntervalTree<MirrorConnection>> directEdgeMap = new HashMap<>();
     private final Map<Element, MirrorLine> reverseMap = new HashMap<>();
@@ -71,6 +75,8 @@ public class SpaceTimeCubeSynchroniser {
 
         private final DyGraph dyGraph;
         private final double timeFactor;
+        private SpaceTimeCubeSynchroniser coarserLevel;
+        private Map<Node, Node> coarserNodes;
 
         /**
          * Constructs a space-time-cube synchroniser builder.
@@ -84,13 +90,33 @@ public class SpaceTimeCubeSynchroniser {
             this.timeFactor = timeFactor;
         }
 
+        /**
+         * Derives the mirror lines from the ones of a coarser dynamic graph,
+         * where each node of the coarser graph stands for a group of nodes of
+         * this graph. A mirror line copies the bends of the coarser line that
+         * contains it, translated to the position of its node at the start of
+         * the appearance, instead of reading them from the node trajectory.
+         * Nodes that are not mapped, or whose appearance is not covered by a
+         * coarser line, are mirrored from their trajectory as usual.
+         *
+         * @param coarserLevel the synchroniser of the coarser graph.
+         * @param coarserNodes the map from the nodes of this graph to the
+         * coarser nodes that contain them.
+         * @return the builder.
+         */
+        public StcsBuilder withCoarserLevel(SpaceTimeCubeSynchroniser coarserLevel, Map<Node, Node> coarserNodes) {
+            this.coarserLevel = coarserLevel;
+            this.coarserNodes = coarserNodes;
+            return this;
+        }
+
         /**
          * Builds the space-time cube synchroniser.
          *
          * @return the synchroniser instance.
          */
         public SpaceTimeCubeSynchroniser build() {
-            return new SpaceTimeCubeSynchroniser(dyGraph, timeFactor);
+            return new SpaceTimeCubeSynchroniser(dyGraph, timeFactor, coarserLevel, coarserNodes);
         }
     }
 
@@ -100,10 +126,15 @@ public class SpaceTimeCubeSynchroniser {
      * @param dyGraph the dynamic graph.
      * @param timeFactor the conversion factor of time. This indicates how many
      * space units correspond to a time unit.
+     * @param coarserLevel the synchroniser of the coarser graph, or null.
+     * @param coarserNodes the map from the nodes to the coarser ones, or null.
      */
-    private SpaceTimeCubeSynchroniser(DyGraph dyGraph, double timeFactor) {
+    private SpaceTimeCubeSynchroniser(DyGraph dyGraph, double timeFactor,
+            SpaceTimeCubeSynchroniser coarserLevel, Map<Node, Node> coarserNodes) {
         this.originalGraph = dyGraph;
         this.timeFactor = timeFactor;
+        this.coarserLevel = coarserLevel;
+        this.coarserNodes = coarserNodes;
 
         this.dyNodePresence = dyGraph.nodeAttribute(StdAttribute.dyPresence);
         this.dyEdgePresence = dyGraph.edgeAttribute(StdAttribute.dyPresence);
@@ -122,26 +153,30 @@ public class SpaceTimeCubeSynchroniser {
         for (Node node : originalGraph.nodes()) {
             Evolution<Boolean> presence = dyNodePresence.get(node);
             List<Interval> appearances = EvolutionAnalyser.getIntervalsWithValue(presence, true);
-            IntervalTree<MirrorLine> mirrorEdges = new IntervalTree<>();
+            List<MirrorLine> nodeMirrorLines = new ArrayList<>(appearances.size());
             for (Interval appearance : appearances) {
                 MirrorLine mirrorEdge = new MirrorLine(node, appearance);
-                mirrorEdges.insert(mirrorEdge);
+                nodeMirrorLines.add(mirrorEdge);
                 reverseMap.put(mirrorEdge.mirrorEdge, mirrorEdge);
                 reverseMap.put(mirrorEdge.mirrorSource, mirrorEdge);
                 reverseMap.put(mirrorEdge.mirrorTarget, mirrorEdge);
                 mirrorLineList.add(mirrorEdge);
             }
+            IntervalTree<MirrorLine> mirrorEdges = new IntervalTree<>();
+            mirrorEdges.insertAll(nodeMirrorLines);
             directNodeMap.put(node, mirrorEdges);
         }
         for (Edge edge : originalGraph.edges()) {
             Evolution<Boolean> presence = dyEdgePresence.get(edge);
             List<Interval> appearances = EvolutionAnalyser.getIntervalsWithValue(presence, true);
-            IntervalTree<MirrorConnection> mirrorConnections = new IntervalTree<>();
+            List<MirrorConnection> edgeMirrorConnections = new ArrayList<>(appearances.size());
             for (Interval appearance : appearances) {
                 MirrorConnection mirrorConnection = new MirrorConnection(edge, appearance);
-                mirrorConnections.insert(mirrorConnection);
+                edgeMirrorConnections.add(mirrorConnection);
                 mirrorConnectionList.add(mirrorConnection);
             }
+            IntervalTree<MirrorConnection> mirrorConnections = new IntervalTree<>();
+            mirrorConnections.insertAll(edgeMirrorConnections);
             directEdgeMap.put(edge, mirrorConnections);
         }
     }
@@ -208,13 +243,11 @@ public class SpaceTimeCubeSynchroniser {
     public void updateOriginal() {
         originalGraph.startBulkNotification();
         for (Node node : originalGraph.nodes()) {
-            Evolution<Coordinates> evolution = new Evolution<>(dyNodePositions.get(node).getDefaultValue());
-            dyNodePositions.set(node, evolution);
+            Trajectory.Builder builder = new Trajectory.Builder(dyNodePositions.get(node).getDefaultValue());
             for (MirrorLine mirrorEdge : directNodeMap.get(node)) {
-                for (Function<Coordinates> function : mirrorEdge.computeFunctions()) {
-                    evolution.insert(function);
-                }
+                mirrorEdge.appendTo(builder);
             }
+            dyNodePositions.set(node, builder.build());
         }
         originalGraph.stopBulkNotification();
     }
@@ -271,6 +304,12 @@ public class SpaceTimeCubeSynchroniser {
             mirrorTarget = mirrorGraph.newNode();
             mirrorEdge = mirrorGraph.newEdge(mirrorSource, mirrorTarget);
 
+            MirrorLine coarserLine = coarserLine(original, appearance);
+            if (coarserLine != null) {
+                copyCoarserLine(coarserLine);
+                return;
+            }
+
             Coordinates startPos = dyNodePositions.get(original).valueAt(appearance.leftBound());
             mirrorPositions.set(mirrorSource, new Coordinates(startPos.x(), startPos.y(), timeToSpace(appearance.leftBound())));
             Coordinates endPos = dyNodePositions.get(original).valueAt(appearance.rightBound());
@@ -287,6 +326,68 @@ public class SpaceTimeCubeSynchroniser {
             mirrorBends.set(mirrorEdge, new ControlPoints(bends));
         }
 
+        /**
+         * Finds the line of the coarser level that contains the given
+         * appearance of a node.
+         *
+         * @param original the node in the original dynamic graph.
+         * @param appearance the appearance interval.
+         * @return the coarser line, or null if not available.
+         */
+        private MirrorLine coarserLine(Node original, Interval appearance) {
+            if (coarserLevel == null || !coarserNodes.containsKey(original)) {
+                return null;
+            }
+            IntervalTree<MirrorLine> coarserLines = coarserLevel.mirrorLines(coarserNodes.get(original));
+            if (coarserLines == null) {
+                return null;
+            }
+            double middlePoint = (appearance.leftBound() + appearance.rightBound()) / 2.0;
+            MirrorLine coarserLine = coarserLines.getAnyContaining(middlePoint);
+            if (coarserLine == null
+                    || coarserLine.mirrorInterval.leftBound() > mirrorInterval.leftBound()
+                    || coarserLine.mirrorInterval.rightBound() < mirrorInterval.rightBound()) {
+                return null;
+            }
+            return coarserLine;
+        }
+
+        /**
+         * Sets extremities and bends of this line by translating the portion
+         * of a coarser line in the mirror interval, so that the line starts
+         * from the position of the original node at the appearance start.
+         *
+         * @param coarserLine the coarser line containing this one.
+         */
+        private void copyCoarserLine(MirrorLine coarserLine) {
+            double spaceStart = mirrorInterval.leftBound();
+            double spaceEnd = mirrorInterval.rightBound();
+            Coordinates coarserStart = coarserLine.positionAtMirrorTime(spaceStart);
+            Coordinates coarserEnd = coarserLine.positionAtMirrorTime(spaceEnd);
+            Coordinates startPos = dyNodePositions.get(original).valueAt(interval.leftBound());
+            Coordinates offset = new Coordinates(startPos.x() - coarserStart.x(), startPos.y() - coarserStart.y(), 0);
+
+            mirrorPositions.set(mirrorSource, new Coordinates(startPos.x(), startPos.y(), spaceStart));
+            mirrorPositions.set(mirrorTarget, new Coordinates(coarserEnd.x() + offset.x(), coarserEnd.y() + offset.y(), spaceEnd));
+
+            List<Coordinates> bends = new ArrayList<>();
+            for (Coordinates bend : coarserLine.controlPoints()) {
+                if (spaceStart < bend.z() && bend.z() < spaceEnd) {
+                    bends.add(bend.plus(offset));
+                }
+            }
+            mirrorBends.set(mirrorEdge, new ControlPoints(bends));
+        }
+
+        /**
+         * Gets the bends of this mirror line without copying them.
+         *
+         * @return the line bends.
+         */
+        private ControlPoints controlPoints() {
+            return mirrorBends.get(mirrorEdge);
+        }
+
         /**
          * The original node.
          *
@@ -415,6 +516,21 @@ public class SpaceTimeCubeSynchroniser {
                     previousPos, finalPos, Interpolation.Std.linear));
             return result;
         }
+
+        /**
+         * Appends the piecewise-linear trajectory of the original node during
+         * the appearance to a trajectory builder, as a single piece.
+         *
+         * @param builder the trajectory builder.
+         */
+        public void appendTo(Trajectory.Builder builder) {
+            builder.startPiece(interval.leftBound(), mirrorPositions.get(mirrorSource), interval.isLeftClosed());
+            for (Coordinates bend : mirrorBends.get(mirrorEdge)) {
+                builder.lineTo(spaceToTime(bend.z()), bend);
+            }
+            builder.lineTo(interval.rightBound(), mirrorPositions.get(mirrorTarget));
+            builder.endPiece(interval.isRightClosed());
+        }
     }
 
     /**
@@ -16,17 +16,16 @@
 package ocotillo.dygraph.extra;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.Trajectory;
 import ocotillo.dygraph.extra.SpaceTimeCubeSynchroniser.MirrorLine;
 import ocotillo.geometry.Coordinates;
 import ocotillo.geometry.Geom;
 import ocotillo.geometry.Interval;
-import ocotillo.graph.Graph;
 import ocotillo.graph.Node;
-import ocotillo.graph.NodeAttribute;
 import ocotillo.graph.StdAttribute;
+import ocotillo.structures.LongHashSet;
 
 /**
  * Describes the computation of a space-time cube graph metric.
@@ -66,7 +65,10 @@ public interface StcGraphMetric<T> {
 
     /**
      * Computes the number of times two distinct nodes overlap while moving in
-     * the space-time cube.
+     * the space-time cube. The node trajectories are sampled directly from
+     * the mirror lines, the overlapping pairs at each sample are found by
+     * sweep and prune on the x axis, and the current overlaps are tracked as
+     * pairs of node indices packed in long values.
      */
     public static class Crowding implements StcGraphMetric<Integer> {
 
@@ -86,45 +88,92 @@ public interface StcGraphMetric<T> {
 
         @Override
         public Integer computeMetric(SpaceTimeCubeSynchroniser syncroniser) {
-            Set<String> currentOverlaps = new HashSet<>();
+            DyNodeAttribute<Coordinates> sizes = syncroniser.originalGraph().nodeAttribute(StdAttribute.nodeSize);
+            List<Node> nodes = new ArrayList<>(syncroniser.originalGraph().nodes());
+            int nodeCount = nodes.size();
+
+            Trajectory[] trajectories = new Trajectory[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                Trajectory.Builder builder = new Trajectory.Builder(new Coordinates(0, 0));
+                for (MirrorLine line : syncroniser.mirrorLines(nodes.get(i))) {
+                    line.appendTo(builder);
+                }
+                trajectories[i] = builder.build();
+            }
+
+            double[] xs = new double[nodeCount];
+            double[] ys = new double[nodeCount];
+            double[] extents = new double[nodeCount];
+            double[] minXs = new double[nodeCount];
+            int[] order = new int[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                order[i] = i;
+            }
+
+            LongHashSet currentOverlaps = new LongHashSet();
+            LongHashSet nextOverlaps = new LongHashSet();
             int crowdingCount = 0;
             for (double time : interval.sample(samples)) {
-                Graph snapshot = syncroniser.originalGraph().snapshotAt(time);
-                NodeAttribute<Coordinates> positions = snapshot.nodeAttribute(StdAttribute.nodePosition);
-                NodeAttribute<Coordinates> sizes = snapshot.nodeAttribute(StdAttribute.nodeSize);
-
-                for (String pair : new ArrayList<>(currentOverlaps)) {
-                    String[] nodes = pair.split("\\|");
-                    if (!snapshot.hasNode(nodes[0]) || !snapshot.hasNode(nodes[1])) {
-                        currentOverlaps.remove(pair);
+                for (int i = 0; i < nodeCount; i++) {
+                    if (trajectories[i].isDefinedAt(time)) {
+                        Coordinates position = trajectories[i].valueAt(time);
+                        Coordinates size = sizes.get(nodes.get(i)).valueAt(time);
+                        xs[i] = position.x();
+                        ys[i] = position.y();
+                        extents[i] = Math.max(size.x(), size.y());
+                        minXs[i] = xs[i] - extents[i] / 2.0;
+                    } else {
+                        minXs[i] = Double.POSITIVE_INFINITY;
                     }
                 }
+                sortByMinX(order, minXs);
 
-                List<Node> nodes = new ArrayList<>(snapshot.nodes());
-                for (int i = 0; i < nodes.size(); ++i) {
-                    for (int j = i + 1; j < nodes.size(); ++j) {
-                        Node a = nodes.get(i);
-                        Node b = nodes.get(j);
-                        Coordinates aPos = positions.get(a);
-                        Coordinates bPos = positions.get(b);
-                        Coordinates aSize = sizes.get(a);
-                        Coordinates bSize = sizes.get(b);
-                        String pair = a.id() + "|" + b.id();
-                        double collisionDistance = (Math.max(aSize.x(), aSize.y())
-                                + Math.max(bSize.x(), bSize.y())) / 2.0;
-                        double actualDistance = Geom.e2D.magnitude(bPos.minus(aPos));
-                        if (actualDistance < collisionDistance) {
+                for (int a = 0; a < nodeCount && minXs[order[a]] != Double.POSITIVE_INFINITY; a++) {
+                    int i = order[a];
+                    double maxX = xs[i] + extents[i] / 2.0;
+                    for (int b = a + 1; b < nodeCount && minXs[order[b]] <= maxX; b++) {
+                        int j = order[b];
+                        double collisionDistance = (extents[i] + extents[j]) / 2.0;
+                        double dx = xs[j] - xs[i];
+                        double dy = ys[j] - ys[i];
+                        if (Math.sqrt(dx * dx + dy * dy) < collisionDistance) {
+                            long pair = ((long) Math.min(i, j) << 32) | Math.max(i, j);
+                            nextOverlaps.add(pair);
                             if (!currentOverlaps.contains(pair)) {
-                                currentOverlaps.add(pair);
                                 crowdingCount++;
                             }
-                        } else {
-                            currentOverlaps.remove(pair);
                         }
                     }
                 }
+
+                LongHashSet swap = currentOverlaps;
+                currentOverlaps = nextOverlaps;
+                nextOverlaps = swap;
+                nextOverlaps.clear();
             }
             return crowdingCount;
         }
+
+        /**
+         * Sorts the node indices by the left bound of their extent. As the
+         * nodes move little between consecutive samples, the order of the
+         * previous sample is almost sorted, and an insertion sort runs in
+         * nearly linear time.
+         *
+         * @param order the node indices in the previous order.
+         * @param minXs the left bounds of the node extents.
+         */
+        private static void sortByMinX(int[] order, double[] minXs) {
+            for (int a = 1; a < order.length; a++) {
+                int index = order[a];
+                double key = minXs[index];
+                int b = a - 1;
+                while (b >= 0 && minXs[order[b]] > key) {
+                    order[b + 1] = order[b];
+                    b--;
+                }
+                order[b + 1] = index;
+            }
+        }
     }
 }
@@ -17,6 +17,7 @@ package ocotillo.dygraph.layout.fdl.modular;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Map;
 import ocotillo.dygraph.DyEdgeAttribute;
 import ocotillo.dygraph.DyGraph;
 import ocotillo.dygraph.DyNodeAttribute;
@@ -26,6 +27,7 @@ import ocotillo.geometry.Coordinates;
 import ocotillo.geometry.Geom;
 import ocotillo.geometry.GeomE;
 import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
 import ocotillo.graph.NodeAttribute;
 import ocotillo.graph.StdAttribute;
 import ocotillo.graph.layout.fdl.modular.*;
@@ -52,6 +54,9 @@ public class DyModularFdl {
     protected final ModularFdl modularFdl;
     protected final GeomE geometry;
 
+    private final ModularInstrumentation instrumentation;
+    private final int instrumentationLevel;
+
     /**
      * A builder for ModularFdl instances.
      */
@@ -66,6 +71,16 @@ public class DyModularFdl {
         private final Collection<ModularPreMovement> preMovements = new ArrayList<>();
         private final Collection<ModularPostProcessing> postProcessings = new ArrayList<>();
         private final Collection<ModularMetric> metrics = new ArrayList<>();
+        private boolean arrayEngine = false;
+        private int parallelism = 1;
+        private double gridCellSize = Double.NaN;
+        private double maxDisplacementTolerance = Double.NaN;
+        private double meanDisplacementTolerance = Double.NaN;
+        private int minIterations = 0;
+        private SpaceTimeCubeSynchroniser coarserLevel;
+        private Map<Node, Node> coarserNodes;
+        private ModularInstrumentation instrumentation = null;
+        private int instrumentationLevel = ModularInstrumentation.NO_INDEX;
 
         /**
          * Constructs an ModularFdl builder.
@@ -157,6 +172,110 @@ public class DyModularFdl {
             return this;
         }
 
+        /**
+         * Computes forces, constraints and movements on primitive arrays
+         * indexed by node rather than on node attributes.
+         *
+         * @return the builder.
+         */
+        public DyModularFdlBuilder enableArrayEngine() {
+            arrayEngine = true;
+            return this;
+        }
+
+        /**
+         * Computes forces, constraints and movements on node attributes.
+         * This is the default behaviour.
+         *
+         * @return the builder.
+         */
+        public DyModularFdlBuilder disableArrayEngine() {
+            arrayEngine = false;
+            return this;
+        }
+
+        /**
+         * Indicates the number of threads used to compute the forces.
+         *
+         * @param parallelism the number of threads.
+         * @return the builder.
+         */
+        public DyModularFdlBuilder withParallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("The number of threads must be positive: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Uses a grid locator with the given cell size to find the elements
+         * close to each other.
+         *
+         * @param cellSize the side of the grid cells.
+         * @return the builder.
+         */
+        public DyModularFdlBuilder withGridLocator(double cellSize) {
+            if (!(cellSize > 0)) {
+                throw new IllegalArgumentException("The cell size must be positive: " + cellSize);
+            }
+            this.gridCellSize = cellSize;
+            return this;
+        }
+
+        /**
+         * Stops the iterations as soon as both the maximum and the mean
+         * displacement of the mirror nodes are within the given tolerances.
+         * The number of iterations passed to iterate becomes an upper bound.
+         *
+         * @param maxDisplacementTolerance the tolerance on the maximum
+         * displacement.
+         * @param meanDisplacementTolerance the tolerance on the mean
+         * displacement.
+         * @param minIterations the number of iterations to perform before
+         * checking the convergence.
+         * @return the builder.
+         */
+        public DyModularFdlBuilder withConvergence(double maxDisplacementTolerance, double meanDisplacementTolerance, int minIterations) {
+            this.maxDisplacementTolerance = maxDisplacementTolerance;
+            this.meanDisplacementTolerance = meanDisplacementTolerance;
+            this.minIterations = minIterations;
+            return this;
+        }
+
+        /**
+         * Warm starts the layout from the mirror of a coarser dynamic graph,
+         * where each coarser node stands for a group of nodes of this graph.
+         * The mirror lines of the group members are derived from the line of
+         * their coarser node rather than from their trajectories.
+         *
+         * @param coarserLevel the synchroniser of the coarser graph.
+         * @param coarserNodes the map from the nodes of this graph to the
+         * coarser nodes that contain them.
+         * @return the builder.
+         */
+        public DyModularFdlBuilder withCoarserLevel(SpaceTimeCubeSynchroniser coarserLevel, Map<Node, Node> coarserNodes) {
+            this.coarserLevel = coarserLevel;
+            this.coarserNodes = coarserNodes;
+            return this;
+        }
+
+        /**
+         * Records the running time of the mirror construction and of each
+         * phase of the iterations.
+         *
+         * @param instrumentation the instrumentation that collects the
+         * measurements.
+         * @param level the level the measurements refer to, or
+         * ModularInstrumentation.NO_INDEX.
+         * @return the builder.
+         */
+        public DyModularFdlBuilder withInstrumentation(ModularInstrumentation instrumentation, int level) {
+            this.instrumentation = instrumentation;
+            this.instrumentationLevel = level;
+            return this;
+        }
+
         /**
          * Builds the ModularFdl instance.
          *
@@ -167,7 +286,9 @@ public class DyModularFdl {
 
             DyModularFdl dyModularFdl = new DyModularFdl(originalGraph, timeFactor,
                     forces, constraints, preMovements, postProcessings, metrics,
-                    thermostat, geometry);
+                    thermostat, geometry, arrayEngine, parallelism, gridCellSize,
+                    maxDisplacementTolerance, meanDisplacementTolerance, minIterations,
+                    coarserLevel, coarserNodes, instrumentation, instrumentationLevel);
 
             for (ModularForce force : forces) {
                 if (force instanceof DyModularForce) {
@@ -206,14 +327,42 @@ public class DyModularFdl {
      * @param metrics the metrics to compute.
      * @param preMovements the pre-movement steps.
      * @param postProcessings the post-processing steps.
+     * @param arrayEngine true to use the array engine.
+     * @param parallelism the number of threads used to compute the forces.
+     * @param gridCellSize the cell size of the grid locator, or NaN to use
+     * the default locator.
+     * @param maxDisplacementTolerance the convergence tolerance on the
+     * maximum displacement, or NaN to always perform all iterations.
+     * @param meanDisplacementTolerance the convergence tolerance on the mean
+     * displacement.
+     * @param minIterations the iterations to perform before checking the
+     * convergence.
+     * @param coarserLevel the synchroniser of the coarser graph used to warm
+     * start the mirror, or null.
+     * @param coarserNodes the map from the nodes to the coarser ones, or null.
+     * @param instrumentation the instrumentation that times the phases, or
+     * null.
+     * @param instrumentationLevel the level the measurements refer to.
      */
     private DyModularFdl(DyGraph originalGraph, double timeFactor,
             Collection<ModularForce> forces, Collection<ModularConstraint> constraints,
             Collection<ModularPreMovement> preMovements, Collection<ModularPostProcessing> postProcessings,
             Collection<ModularMetric> metrics,
-            ModularThermostat thermostat, GeomE geometry) {
+            ModularThermostat thermostat, GeomE geometry, boolean arrayEngine, int parallelism, double gridCellSize,
+            double maxDisplacementTolerance, double meanDisplacementTolerance, int minIterations,
+            SpaceTimeCubeSynchroniser coarserLevel, Map<Node, Node> coarserNodes,
+            ModularInstrumentation instrumentation, int instrumentationLevel) {
+
+        this.instrumentation = instrumentation;
+        this.instrumentationLevel = instrumentationLevel;
 
-        this.synchronizer = new StcsBuilder(originalGraph, timeFactor).build();
+        ModularInstrumentation.Timer timer = startTimer(ModularInstrumentation.MIRROR_BUILD);
+        StcsBuilder stcsBuilder = new StcsBuilder(originalGraph, timeFactor);
+        if (coarserLevel != null) {
+            stcsBuilder.withCoarserLevel(coarserLevel, coarserNodes);
+        }
+        this.synchronizer = stcsBuilder.build();
+        stopTimer(timer);
 
         this.originalGraph = originalGraph;
         this.mirrorGraph = synchronizer.mirrorGraph();
@@ -226,7 +375,7 @@ public class DyModularFdl {
         this.mirrorPositions = mirrorGraph.nodeAttribute(StdAttribute.nodePosition);
         this.mirrorSizes = mirrorGraph.nodeAttribute(StdAttribute.nodeSize);
 
-        this.modularFdl = new ModularFdlBuilder(mirrorGraph)
+        ModularFdlBuilder modularFdlBuilder = new ModularFdlBuilder(mirrorGraph)
                 .withForces(forces)
                 .withConstraints(constraints)
                 .withPreMovmements(preMovements)
@@ -234,7 +383,41 @@ public class DyModularFdl {
                 .withMetrics(metrics)
                 .withThermostat(thermostat)
                 .withGeometry(geometry)
-                .build();
+                .withParallelism(parallelism);
+        if (arrayEngine) {
+            modularFdlBuilder.enableArrayEngine();
+        }
+        if (!Double.isNaN(gridCellSize)) {
+            modularFdlBuilder.withGridLocator(gridCellSize);
+        }
+        if (!Double.isNaN(maxDisplacementTolerance)) {
+            modularFdlBuilder.withConvergence(maxDisplacementTolerance, meanDisplacementTolerance, minIterations);
+        }
+        if (instrumentation != null) {
+            modularFdlBuilder.withInstrumentation(instrumentation, instrumentationLevel);
+        }
+        this.modularFdl = modularFdlBuilder.build();
+    }
+
+    /**
+     * Starts a timer for a phase, if the instrumentation is enabled.
+     *
+     * @param phase the phase name.
+     * @return the running timer, or null.
+     */
+    private ModularInstrumentation.Timer startTimer(String phase) {
+        return instrumentation != null ? instrumentation.start(phase, instrumentationLevel, ModularInstrumentation.NO_INDEX) : null;
+    }
+
+    /**
+     * Stops a timer started by startTimer.
+     *
+     * @param timer the timer, or null.
+     */
+    private static void stopTimer(ModularInstrumentation.Timer timer) {
+        if (timer != null) {
+            timer.stop();
+        }
     }
 
     /**
@@ -245,7 +428,9 @@ public class DyModularFdl {
      */
     public ModularStatistics iterate(int numberOfIterations) {
         ModularStatistics stats = modularFdl.iterate(numberOfIterations);
+        ModularInstrumentation.Timer timer = startTimer(ModularInstrumentation.SYNCHRONISATION);
         synchronizer.updateOriginal();
+        stopTimer(timer);
         return stats;
     }
 
@@ -259,4 +444,12 @@ public class DyModularFdl {
     public SpaceTimeCubeSynchroniser getSyncro() {
         return synchronizer;
     }
+
+    /**
+     * Terminates the DyModularFdl instance, releasing the resources of the
+     * underlying ModularFdl.
+     */
+    public void close() {
+        modularFdl.close();
+    }
 }
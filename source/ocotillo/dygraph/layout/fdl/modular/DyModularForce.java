@@ -71,9 +71,25 @@ public abstract class DyModularForce extends ModularForce {
     public static class TimeStraightning extends DyModularForce {
 
         protected final double desiredDistance;
+        protected final double clusterOpening;
 
         public TimeStraightning(double desiredDistance) {
+            this(desiredDistance, 0.3);
+        }
+
+        /**
+         * Builds a time straightening force with a custom approximation of
+         * the interactions between distant bends.
+         *
+         * @param desiredDistance the desired distance.
+         * @param clusterOpening the maximum ratio between the extent of two
+         * clusters of bends and their distance, both in time and in space,
+         * for the clusters to interact through their centroids. With 0, every
+         * pair of bends is computed exactly.
+         */
+        public TimeStraightning(double desiredDistance, double clusterOpening) {
             this.desiredDistance = desiredDistance / 5.0;
+            this.clusterOpening = clusterOpening;
         }
 
         @Override
@@ -145,30 +161,360 @@ public abstract class DyModularForce extends ModularForce {
 
         /**
          * Force that prevents trajectories to have an angle too acute with
-         * respect to the plane.
+         * respect to the plane. Each bend is pulled towards every other bend
+         * of the same node. The bend sequence is split in a binary partition
+         * of consecutive bends, and two clusters that are far apart compared
+         * with their extent interact through their centroids. Each cluster
+         * only meets a few clusters of similar size close to it in time, so
+         * the cost is linear in the number of bends.
          *
          * @param forces the forces.
          * @param allBends the list of bends in the trajectories of this node.
          */
         private void computeStraightningComponent(NodeAttribute<Coordinates> forces, List<Node> allBends) {
-            for (int i = 0; i < allBends.size() - 1; i++) {
-                for (int j = i + 1; j < allBends.size(); j++) {
-                    Node source = allBends.get(i);
-                    Node target = allBends.get(j);
-                    Coordinates sourcePos = mirrorPositions().get(source);
-                    Coordinates targetPos = mirrorPositions().get(target);
-                    Coordinates vector3D = targetPos.minus(sourcePos);
-                    Coordinates vector2D = vector3D.restr(2);
-                    if (dyModularFdl.geometry.almostZero(vector3D.z())
-                            || dyModularFdl.geometry.almostZero(vector2D)) {
-                        continue;
-                    }
-                    double angle = Math.max(dyModularFdl.geometry.betweenAngle(vector3D, vector2D), 0.01);
-                    Coordinates force = vector2D.times((Math.PI / 2.0 - angle) / angle);
-                    forces.set(source, forces.get(source).plus(force));
-                    forces.set(target, forces.get(target).plus(force.minus()));
+            BendSequence sequence = new BendSequence(allBends);
+            if (sequence.size > 1) {
+                sequence.buildClusters();
+                addInnerForces(sequence, 0, 0, sequence.size);
+                sequence.distributeClusterForces(0, 0, sequence.size);
+            }
+
+            for (int i = 0; i < sequence.size; i++) {
+                if (sequence.forceXs[i] != 0 || sequence.forceYs[i] != 0) {
+                    Node bend = allBends.get(i);
+                    forces.set(bend, forces.get(bend).plus(new Coordinates(sequence.forceXs[i], sequence.forceYs[i])));
+                }
+            }
+        }
+
+        /**
+         * Adds the forces between the bends of a cluster.
+         *
+         * @param sequence the bend sequence.
+         * @param cluster the index of the cluster.
+         * @param start the first bend of the cluster.
+         * @param end the bend after the last one of the cluster.
+         */
+        private void addInnerForces(BendSequence sequence, int cluster, int start, int end) {
+            if (end - start == 1) {
+                return;
+            }
+            int middle = (start + end) / 2;
+            int left = cluster + 1;
+            int right = cluster + 2 * (middle - start);
+            addInnerForces(sequence, left, start, middle);
+            addInnerForces(sequence, right, middle, end);
+            addClusterForces(sequence, left, start, middle, right, middle, end);
+        }
+
+        /**
+         * Adds the forces between the bends of two disjoint clusters. If the
+         * clusters are far apart compared with their extent, both in time and
+         * in space, they interact through their centroids. Otherwise, the
+         * largest cluster is split. Spatial
+         * distances below the desired distance are not considered close, so
+         * that clusters of almost still bends are still approximated.
+         *
+         * @param sequence the bend sequence.
+         * @param first the index of the first cluster.
+         * @param firstStart the first bend of the first cluster.
+         * @param firstEnd the bend after the last one of the first cluster.
+         * @param second the index of the second cluster.
+         * @param secondStart the first bend of the second cluster.
+         * @param secondEnd the bend after the last one of the second cluster.
+         */
+        private void addClusterForces(BendSequence sequence, int first, int firstStart, int firstEnd,
+                int second, int secondStart, int secondEnd) {
+            int firstCount = firstEnd - firstStart;
+            int secondCount = secondEnd - secondStart;
+            if (firstCount == 1 && secondCount == 1) {
+                addPairForce(sequence, first, sequence.xs[firstStart], sequence.ys[firstStart], sequence.zs[firstStart],
+                        second, sequence.xs[secondStart], sequence.ys[secondStart], sequence.zs[secondStart], 1, 1);
+                return;
+            }
+
+            double timeDistance = Math.max(sequence.clusterMinZs[second] - sequence.clusterMaxZs[first],
+                    sequence.clusterMinZs[first] - sequence.clusterMaxZs[second]);
+            double timeExtent = Math.max(sequence.clusterMaxZs[first] - sequence.clusterMinZs[first],
+                    sequence.clusterMaxZs[second] - sequence.clusterMinZs[second]);
+            if (timeDistance > 0 && timeExtent <= clusterOpening * timeDistance) {
+                double firstX = sequence.clusterXs[first] / firstCount;
+                double firstY = sequence.clusterYs[first] / firstCount;
+                double secondX = sequence.clusterXs[second] / secondCount;
+                double secondY = sequence.clusterYs[second] / secondCount;
+                double spaceDistance = Math.sqrt(Math.pow(secondX - firstX, 2) + Math.pow(secondY - firstY, 2));
+                double spaceExtent = Math.max(sequence.clusterExtents[first], sequence.clusterExtents[second]);
+                if (spaceExtent <= clusterOpening * Math.max(spaceDistance, desiredDistance)) {
+                    addPairForce(sequence, first, firstX, firstY, sequence.clusterZs[first] / firstCount,
+                            second, secondX, secondY, sequence.clusterZs[second] / secondCount, firstCount, secondCount);
+                    return;
                 }
             }
+
+            if (firstCount >= secondCount) {
+                int middle = (firstStart + firstEnd) / 2;
+                addClusterForces(sequence, first + 1, firstStart, middle, second, secondStart, secondEnd);
+                addClusterForces(sequence, first + 2 * (middle - firstStart), middle, firstEnd, second, secondStart, secondEnd);
+            } else {
+                int middle = (secondStart + secondEnd) / 2;
+                addClusterForces(sequence, first, firstStart, firstEnd, second + 1, secondStart, middle);
+                addClusterForces(sequence, first, firstStart, firstEnd, second + 2 * (middle - secondStart), middle, secondEnd);
+            }
+        }
+
+        /**
+         * Adds the force between two bends, or two clusters of bends located
+         * at their centroids. Each cluster receives the force exerted by all
+         * the bends of the other one, together with its derivatives with
+         * respect to the position of the receiving bend, so that the force
+         * can be corrected for the offset of each bend from the centroid.
+         *
+         * @param sequence the bend sequence.
+         * @param first the index of the first cluster.
+         * @param firstX the x coordinate of the first centroid.
+         * @param firstY the y coordinate of the first centroid.
+         * @param firstZ the z coordinate of the first centroid.
+         * @param second the index of the second cluster.
+         * @param secondX the x coordinate of the second centroid.
+         * @param secondY the y coordinate of the second centroid.
+         * @param secondZ the z coordinate of the second centroid.
+         * @param firstCount the number of bends in the first cluster.
+         * @param secondCount the number of bends in the second cluster.
+         */
+        private void addPairForce(BendSequence sequence, int first, double firstX, double firstY, double firstZ,
+                int second, double secondX, double secondY, double secondZ, int firstCount, int secondCount) {
+            double vectorX = secondX - firstX;
+            double vectorY = secondY - firstY;
+            double vectorZ = secondZ - firstZ;
+            double factor = pairFactor(vectorX, vectorY, vectorZ);
+            if (factor == 0) {
+                return;
+            }
+            sequence.clusterForceXs[first] += vectorX * factor * secondCount;
+            sequence.clusterForceYs[first] += vectorY * factor * secondCount;
+            sequence.clusterForceXs[second] -= vectorX * factor * firstCount;
+            sequence.clusterForceYs[second] -= vectorY * factor * firstCount;
+            if (firstCount == 1 && secondCount == 1) {
+                return;
+            }
+
+            // The derivatives of the force on a bend with respect to its own
+            // position are the same for both ends of the pair.
+            double planarDistance = Math.sqrt(vectorX * vectorX + vectorY * vectorY);
+            double timeDistance = Math.abs(vectorZ);
+            double angle = Math.atan2(timeDistance, planarDistance);
+            double factorByPlanar = 0;
+            double factorByTime = 0;
+            if (angle > 0.01) {
+                double common = Math.PI / (2.0 * angle * angle * (planarDistance * planarDistance + timeDistance * timeDistance));
+                factorByPlanar = common * timeDistance / planarDistance;
+                factorByTime = -common * planarDistance * Math.signum(vectorZ);
+            }
+            double derivativeXX = -(factor + factorByPlanar * vectorX * vectorX);
+            double derivativeXY = -(factorByPlanar * vectorX * vectorY);
+            double derivativeYY = -(factor + factorByPlanar * vectorY * vectorY);
+            double derivativeXZ = -vectorX * factorByTime;
+            double derivativeYZ = -vectorY * factorByTime;
+            sequence.addDerivatives(first, secondCount, derivativeXX, derivativeXY, derivativeYY, derivativeXZ, derivativeYZ);
+            sequence.addDerivatives(second, firstCount, derivativeXX, derivativeXY, derivativeYY, derivativeXZ, derivativeYZ);
+        }
+
+        /**
+         * Computes the factor that multiplies the planar component of the
+         * vector between two bends to obtain the force on the first bend.
+         *
+         * @param vectorX the x component of the vector.
+         * @param vectorY the y component of the vector.
+         * @param vectorZ the z component of the vector.
+         * @return the force factor, zero if the bends are at the same time or
+         * in the same planar position.
+         */
+        private double pairFactor(double vectorX, double vectorY, double vectorZ) {
+            if (dyModularFdl.geometry.almostZero(vectorZ)
+                    || (dyModularFdl.geometry.almostZero(vectorX) && dyModularFdl.geometry.almostZero(vectorY))) {
+                return 0;
+            }
+            double angle = Math.max(Math.atan2(Math.abs(vectorZ), Math.sqrt(vectorX * vectorX + vectorY * vectorY)), 0.01);
+            return (Math.PI / 2.0 - angle) / angle;
+        }
+
+        /**
+         * The positions of the bends of a node and the straightening forces
+         * acting on them. The clusters are the nodes of a binary partition of
+         * the sequence, stored in pre-order: the cluster of a range of m
+         * bends occupies 2m - 1 consecutive cells.
+         */
+        private class BendSequence {
+
+            private final int size;
+            private final double[] xs;
+            private final double[] ys;
+            private final double[] zs;
+            private final double[] forceXs;
+            private final double[] forceYs;
+            private double[] clusterXs;
+            private double[] clusterYs;
+            private double[] clusterZs;
+            private double[] clusterMinZs;
+            private double[] clusterMaxZs;
+            private double[] clusterExtents;
+            private double[] clusterMinXs;
+            private double[] clusterMaxXs;
+            private double[] clusterMinYs;
+            private double[] clusterMaxYs;
+            private double[] clusterForceXs;
+            private double[] clusterForceYs;
+            private double[] clusterDerivativeXXs;
+            private double[] clusterDerivativeXYs;
+            private double[] clusterDerivativeYYs;
+            private double[] clusterDerivativeXZs;
+            private double[] clusterDerivativeYZs;
+
+            private BendSequence(List<Node> bends) {
+                size = bends.size();
+                xs = new double[size];
+                ys = new double[size];
+                zs = new double[size];
+                forceXs = new double[size];
+                forceYs = new double[size];
+                for (int i = 0; i < size; i++) {
+                    Coordinates position = mirrorPositions().get(bends.get(i));
+                    xs[i] = position.x();
+                    ys[i] = position.y();
+                    zs[i] = position.z();
+                }
+            }
+
+            /**
+             * Computes coordinate sums and time extent of each cluster.
+             */
+            private void buildClusters() {
+                int clusterCount = 2 * size - 1;
+                clusterXs = new double[clusterCount];
+                clusterYs = new double[clusterCount];
+                clusterZs = new double[clusterCount];
+                clusterMinZs = new double[clusterCount];
+                clusterMaxZs = new double[clusterCount];
+                clusterExtents = new double[clusterCount];
+                clusterMinXs = new double[clusterCount];
+                clusterMaxXs = new double[clusterCount];
+                clusterMinYs = new double[clusterCount];
+                clusterMaxYs = new double[clusterCount];
+                clusterForceXs = new double[clusterCount];
+                clusterForceYs = new double[clusterCount];
+                clusterDerivativeXXs = new double[clusterCount];
+                clusterDerivativeXYs = new double[clusterCount];
+                clusterDerivativeYYs = new double[clusterCount];
+                clusterDerivativeXZs = new double[clusterCount];
+                clusterDerivativeYZs = new double[clusterCount];
+                buildCluster(0, 0, size);
+            }
+
+            /**
+             * Adds to a cluster the derivatives of the force it receives with
+             * respect to the position of the receiving bend.
+             *
+             * @param cluster the index of the cluster.
+             * @param multiplicity the number of bends exerting the force.
+             * @param xx the derivative of the x component along x.
+             * @param xy the derivative of the x component along y, equal to
+             * the one of the y component along x.
+             * @param yy the derivative of the y component along y.
+             * @param xz the derivative of the x component along z.
+             * @param yz the derivative of the y component along z.
+             */
+            private void addDerivatives(int cluster, int multiplicity, double xx, double xy, double yy, double xz, double yz) {
+                clusterDerivativeXXs[cluster] += xx * multiplicity;
+                clusterDerivativeXYs[cluster] += xy * multiplicity;
+                clusterDerivativeYYs[cluster] += yy * multiplicity;
+                clusterDerivativeXZs[cluster] += xz * multiplicity;
+                clusterDerivativeYZs[cluster] += yz * multiplicity;
+            }
+
+            /**
+             * Moves the forces received by a cluster, expanded around its
+             * centroid, down to the centroids of its sub-clusters and finally
+             * to its bends.
+             *
+             * @param cluster the index of the cluster.
+             * @param start the first bend of the cluster.
+             * @param end the bend after the last one of the cluster.
+             */
+            private void distributeClusterForces(int cluster, int start, int end) {
+                if (end - start == 1) {
+                    forceXs[start] += clusterForceXs[cluster];
+                    forceYs[start] += clusterForceYs[cluster];
+                    return;
+                }
+                int middle = (start + end) / 2;
+                int left = cluster + 1;
+                int right = cluster + 2 * (middle - start);
+                shiftClusterForces(cluster, end - start, left, middle - start);
+                shiftClusterForces(cluster, end - start, right, end - middle);
+                distributeClusterForces(left, start, middle);
+                distributeClusterForces(right, middle, end);
+            }
+
+            /**
+             * Adds the forces received by a cluster to one of its
+             * sub-clusters, moving them from the centroid of the cluster to
+             * the one of the sub-cluster.
+             *
+             * @param cluster the index of the cluster.
+             * @param count the number of bends in the cluster.
+             * @param child the index of the sub-cluster.
+             * @param childCount the number of bends in the sub-cluster.
+             */
+            private void shiftClusterForces(int cluster, int count, int child, int childCount) {
+                double shiftX = clusterXs[child] / childCount - clusterXs[cluster] / count;
+                double shiftY = clusterYs[child] / childCount - clusterYs[cluster] / count;
+                double shiftZ = clusterZs[child] / childCount - clusterZs[cluster] / count;
+                clusterForceXs[child] += clusterForceXs[cluster] + clusterDerivativeXXs[cluster] * shiftX
+                        + clusterDerivativeXYs[cluster] * shiftY + clusterDerivativeXZs[cluster] * shiftZ;
+                clusterForceYs[child] += clusterForceYs[cluster] + clusterDerivativeXYs[cluster] * shiftX
+                        + clusterDerivativeYYs[cluster] * shiftY + clusterDerivativeYZs[cluster] * shiftZ;
+                addDerivatives(child, 1, clusterDerivativeXXs[cluster], clusterDerivativeXYs[cluster],
+                        clusterDerivativeYYs[cluster], clusterDerivativeXZs[cluster], clusterDerivativeYZs[cluster]);
+            }
+
+            /**
+             * Computes coordinate sums and time extent of a cluster and of
+             * its sub-clusters.
+             *
+             * @param cluster the index of the cluster.
+             * @param start the first bend of the cluster.
+             * @param end the bend after the last one of the cluster.
+             */
+            private void buildCluster(int cluster, int start, int end) {
+                if (end - start == 1) {
+                    clusterXs[cluster] = xs[start];
+                    clusterYs[cluster] = ys[start];
+                    clusterZs[cluster] = zs[start];
+                    clusterMinZs[cluster] = zs[start];
+                    clusterMaxZs[cluster] = zs[start];
+                    clusterMinXs[cluster] = xs[start];
+                    clusterMaxXs[cluster] = xs[start];
+                    clusterMinYs[cluster] = ys[start];
+                    clusterMaxYs[cluster] = ys[start];
+                    return;
+                }
+                int middle = (start + end) / 2;
+                int left = cluster + 1;
+                int right = cluster + 2 * (middle - start);
+                buildCluster(left, start, middle);
+                buildCluster(right, middle, end);
+                clusterXs[cluster] = clusterXs[left] + clusterXs[right];
+                clusterYs[cluster] = clusterYs[left] + clusterYs[right];
+                clusterZs[cluster] = clusterZs[left] + clusterZs[right];
+                clusterMinZs[cluster] = Math.min(clusterMinZs[left], clusterMinZs[right]);
+                clusterMaxZs[cluster] = Math.max(clusterMaxZs[left], clusterMaxZs[right]);
+                clusterMinXs[cluster] = Math.min(clusterMinXs[left], clusterMinXs[right]);
+                clusterMaxXs[cluster] = Math.max(clusterMaxXs[left], clusterMaxXs[right]);
+                clusterMinYs[cluster] = Math.min(clusterMinYs[left], clusterMinYs[right]);
+                clusterMaxYs[cluster] = Math.max(clusterMaxYs[left], clusterMaxYs[right]);
+                clusterExtents[cluster] = Math.sqrt(Math.pow(clusterMaxXs[cluster] - clusterMinXs[cluster], 2)
+                        + Math.pow(clusterMaxYs[cluster] - clusterMinYs[cluster], 2));
+            }
         }
     }
 
@@ -416,7 +762,6 @@ public abstract class DyModularForce extends ModularForce {
         public double finalExponent = 3;
 
         protected final double desiredDistance;
-        private NodeAttribute<Coordinates> forces;
 
         /**
          * Builds an edge repulsion force.
@@ -429,11 +774,47 @@ public abstract class DyModularForce extends ModularForce {
 
         @Override
         protected NodeAttribute<Coordinates> computeForces() {
-            forces = new NodeAttribute<>(new Coordinates(0, 0, 0));
+            ForceAccumulator accumulator = new ForceAccumulator();
+            accumulateForces(collectSegmentTasks(), (task, taskAccumulator) -> {
+                for (Edge secondSegm : task.outer) {
+                    Edge secondLine = synchronizer().getOriginalEdge(secondSegm);
+                    Node secondDyNode = stcSynchronizer().getOriginalNode(secondLine);
+
+                    if (task.dyNode != secondDyNode) {
+                        Node c = secondSegm.source();
+                        Node d = secondSegm.target();
+                        Coordinates cPos = mirrorPositions().get(c);
+                        Coordinates dPos = mirrorPositions().get(d);
+
+                        if (task.a != null) {
+                            applyNodeEdgeRepulsion(taskAccumulator, task.a, task.aPos, c, cPos, d, dPos);
+                        }
+                        if (task.b != null) {
+                            applyNodeEdgeRepulsion(taskAccumulator, task.b, task.bPos, c, cPos, d, dPos);
+                        }
+                    }
+                }
+            }, accumulator);
+
+            NodeAttribute<Coordinates> forces = accumulator.toNodeAttribute(new Coordinates(0, 0, 0));
             for (Node node : mirrorGraph().nodes()) {
-                forces.set(node, new Coordinates(0, 0, 0));
+                if (forces.isDefault(node)) {
+                    forces.set(node, new Coordinates(0, 0, 0));
+                }
             }
+            return forces;
+        }
 
+        /**
+         * Selects, for each segment, the extremities that still need to be
+         * repelled and the segments that repel them. Each node is repelled
+         * only once, by the segments close to the first seed that contains
+         * it.
+         *
+         * @return the segment tasks.
+         */
+        private List<SegmentTask> collectSegmentTasks() {
+            List<SegmentTask> tasks = new ArrayList<>();
             Set<Node> nodesDone = new HashSet<>();
             for (Edge seed : mirrorGraph().edges()) {
                 if (!nodesDone.contains(seed.source()) || !nodesDone.contains(seed.target())) {
@@ -443,45 +824,58 @@ public abstract class DyModularForce extends ModularForce {
                     inner.add(seed);
 
                     for (Edge firstSegm : inner) {
-                        Edge firstLine = synchronizer().getOriginalEdge(firstSegm);
-                        Node firstDyNode = stcSynchronizer().getOriginalNode(firstLine);
-
                         Node a = firstSegm.source();
                         Node b = firstSegm.target();
                         if (!nodesDone.contains(a) || !nodesDone.contains(b)) {
-                            Coordinates aPos = mirrorPositions().get(a);
-                            Coordinates bPos = mirrorPositions().get(b);
-
-                            for (Edge secondSegm : outer) {
-                                Edge secondLine = synchronizer().getOriginalEdge(secondSegm);
-                                Node secondDyNode = stcSynchronizer().getOriginalNode(secondLine);
-
-                                if (firstDyNode != secondDyNode) {
-                                    Node c = secondSegm.source();
-                                    Node d = secondSegm.target();
-                                    Coordinates cPos = mirrorPositions().get(c);
-                                    Coordinates dPos = mirrorPositions().get(d);
-
-                                    if (!nodesDone.contains(a)) {
-                                        applyNodeEdgeRepulsion(a, aPos, c, cPos, d, dPos);
-                                    }
-                                    if (!nodesDone.contains(b)) {
-                                        applyNodeEdgeRepulsion(b, bPos, c, cPos, d, dPos);
-                                    }
-                                }
-                            }
+                            Edge firstLine = synchronizer().getOriginalEdge(firstSegm);
+                            Node firstDyNode = stcSynchronizer().getOriginalNode(firstLine);
+                            tasks.add(new SegmentTask(nodesDone.contains(a) ? null : a,
+                                    nodesDone.contains(b) ? null : b,
+                                    firstDyNode, outer));
                             nodesDone.add(a);
                             nodesDone.add(b);
                         }
                     }
                 }
             }
-            return forces;
+            return tasks;
+        }
+
+        /**
+         * The repulsion exerted by a set of segments on the extremities of
+         * another segment.
+         */
+        private class SegmentTask {
+
+            private final Node a;
+            private final Node b;
+            private final Coordinates aPos;
+            private final Coordinates bPos;
+            private final Node dyNode;
+            private final Collection<Edge> outer;
+
+            /**
+             * Builds a segment task.
+             *
+             * @param a the first extremity, or null if already repelled.
+             * @param b the second extremity, or null if already repelled.
+             * @param dyNode the dynamic node the segment belongs to.
+             * @param outer the repelling segments.
+             */
+            private SegmentTask(Node a, Node b, Node dyNode, Collection<Edge> outer) {
+                this.a = a;
+                this.b = b;
+                this.aPos = a != null ? mirrorPositions().get(a) : null;
+                this.bPos = b != null ? mirrorPositions().get(b) : null;
+                this.dyNode = dyNode;
+                this.outer = outer;
+            }
         }
 
         /**
          * Applies the repulsive force between a point an a segment.
          *
+         * @param accumulator the accumulator that receives the forces.
          * @param a the point.
          * @param aPos the position of a.
          * @param c the first segment extremity.
@@ -489,7 +883,7 @@ public abstract class DyModularForce extends ModularForce {
          * @param d the second segment extremity.
          * @param dPos the position of c.
          */
-        private void applyNodeEdgeRepulsion(Node a, Coordinates aPos, Node c, Coordinates cPos, Node d, Coordinates dPos) {
+        private void applyNodeEdgeRepulsion(ForceAccumulator accumulator, Node a, Coordinates aPos, Node c, Coordinates cPos, Node d, Coordinates dPos) {
             if (Geom.e3D.almostEqual(aPos, cPos) || Geom.e3D.almostEqual(aPos, dPos)) {
                 return;
             }
@@ -500,13 +894,13 @@ public abstract class DyModularForce extends ModularForce {
                 Coordinates projection = relation.projection() != null ? relation.projection() : aPos;
                 double balance = Geom.e3D.magnitude(projection.minus(cPos))
                         / Geom.e3D.magnitude(dPos.minus(cPos));
-                forces.set(a, baseForce.minus().plusIP(forces.get(a)));
-                forces.set(c, baseForce.times(1 - balance).plusIP(forces.get(c)));
-                forces.set(d, baseForce.times(balance).plusIP(forces.get(d)));
+                accumulator.add(a, baseForce.minus());
+                accumulator.add(c, baseForce.times(1 - balance));
+                accumulator.add(d, baseForce.times(balance));
             } else {
-                forces.set(a, baseForce.minus().plusIP(forces.get(a)));
-                forces.set(c, baseForce.plus(forces.get(c)));
-                forces.set(d, baseForce.plus(forces.get(d)));
+                accumulator.add(a, baseForce.minus());
+                accumulator.add(c, baseForce);
+                accumulator.add(d, baseForce);
             }
         }
 
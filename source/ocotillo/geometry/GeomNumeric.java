@@ -16,6 +16,7 @@
 package ocotillo.geometry;
 
 import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Library of geometry related numeric functions.
@@ -48,6 +49,32 @@ public class GeomNumeric {
         return randomDouble(maxValue - minValue) + minValue;
     }
 
+    /**
+     * Generates a new random value from the given generator.
+     *
+     * @param random the random generator.
+     * @param maxValue the maximum value.
+     * @return a random double.
+     */
+    public static double randomDouble(SplittableRandom random, double maxValue) {
+        return random.nextDouble() * maxValue;
+    }
+
+    /**
+     * Generates a new random value from the given generator.
+     *
+     * @param random the random generator.
+     * @param minValue the minimum value.
+     * @param maxValue the maximum value.
+     * @return a random double.
+     */
+    public static double randomDouble(SplittableRandom random, double minValue, double maxValue) {
+        if (minValue > maxValue) {
+            throw new IllegalArgumentException("The minimum value provided is greater than the maximum value.");
+        }
+        return randomDouble(random, maxValue - minValue) + minValue;
+    }
+
     /**
      * Transforms an angle expressed in radians into degrees.
      *
@@ -17,8 +17,9 @@ package ocotillo.graph;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -28,11 +29,11 @@ import java.util.Set;
  */
 public class GraphWithElements {
 
-    private final Map<String, Node> nodeMap = new HashMap<>();
-    private final Map<String, Edge> edgeMap = new HashMap<>();
+    private final Map<String, Node> nodeMap = new LinkedHashMap<>();
+    private final Map<String, Edge> edgeMap = new LinkedHashMap<>();
 
-    private final Map<Node, Set<Edge>> incomingMap = new HashMap<>();
-    private final Map<Node, Set<Edge>> outgoingMap = new HashMap<>();
+    private final Map<Node, Set<Edge>> incomingMap = new LinkedHashMap<>();
+    private final Map<Node, Set<Edge>> outgoingMap = new LinkedHashMap<>();
 
     private final Set<Element> changedElements = new HashSet<>();
     private final Set<Observer.GraphElements> elementObservers = new HashSet<>();
@@ -228,8 +229,8 @@ public class GraphWithElements {
         if (element instanceof Node) {
             Node node = (Node) element;
             nodeMap.put(node.id(), node);
-            incomingMap.put(node, new HashSet<>());
-            outgoingMap.put(node, new HashSet<>());
+            incomingMap.put(node, new LinkedHashSet<>());
+            outgoingMap.put(node, new LinkedHashSet<>());
         }
 
         if (element instanceof Edge) {
@@ -412,7 +413,7 @@ public class GraphWithElements {
      * @return the incoming and outgoing edges from a node.
      */
     public Collection<Edge> inOutEdges(Node node) {
-        Set<Edge> edges = new HashSet<>();
+        Set<Edge> edges = new LinkedHashSet<>();
         edges.addAll(inEdges(node));
         edges.addAll(outEdges(node));
         return edges;
@@ -426,7 +427,7 @@ public class GraphWithElements {
      * @return all the edges from source to target.
      */
     public Collection<Edge> fromToEdges(Node source, Node target) {
-        Set<Edge> edges = new HashSet<>(outEdges(source));
+        Set<Edge> edges = new LinkedHashSet<>(outEdges(source));
         edges.retainAll(inEdges(target));
         return edges;
     }
@@ -456,9 +457,9 @@ public class GraphWithElements {
      * @return all edges between the nodes.
      */
     public Collection<Edge> betweenEdges(Node first, Node second) {
-        Set<Edge> firstToSecond = new HashSet<>(outEdges(first));
+        Set<Edge> firstToSecond = new LinkedHashSet<>(outEdges(first));
         firstToSecond.retainAll(inEdges(second));
-        Set<Edge> secondToFirst = new HashSet<>(outEdges(second));
+        Set<Edge> secondToFirst = new LinkedHashSet<>(outEdges(second));
         secondToFirst.retainAll(inEdges(first));
         firstToSecond.addAll(secondToFirst);
         return firstToSecond;
@@ -16,9 +16,15 @@
 package ocotillo.graph.extra;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 import ocotillo.geometry.Coordinates;
 import ocotillo.geometry.Geom;
 import ocotillo.geometry.GeomE;
@@ -107,9 +113,16 @@ public interface GraphMetric<T> {
      */
     public static class NodeTheoreticalDistancesMetric implements GraphMetric<NodeDistances> {
 
+        /**
+         * The minimum number of nodes for which the shortest paths from
+         * different sources are computed in parallel.
+         */
+        private static final int parallelThreshold = 64;
+
         private final String weightAttributeId;
         private final EdgeAttribute<Double> weightAttribute;
         private final boolean asDirectedGraph;
+        private final NodeDistancesCache cache;
 
         /**
          * Builder for node distances metric.
@@ -119,6 +132,7 @@ public interface GraphMetric<T> {
             private String weightAttributeId;
             private EdgeAttribute<Double> weightAttribute;
             private boolean asDirectedGraph = false;
+            private NodeDistancesCache cache;
 
             /**
              * Indicates an attribute id to use to extract edge weights,
@@ -167,7 +181,19 @@ public interface GraphMetric<T> {
              * @return the metrics.
              */
             public NodeTheoreticalDistancesMetric build() {
-                return new NodeTheoreticalDistancesMetric(weightAttributeId, weightAttribute, asDirectedGraph);
+                return new NodeTheoreticalDistancesMetric(weightAttributeId, weightAttribute, asDirectedGraph, cache);
+            }
+
+            /**
+             * Indicates a cache where to store and look up the computed
+             * distances. Default is no cache.
+             *
+             * @param cache the distances cache.
+             * @return the builder.
+             */
+            public Builder withCache(NodeDistancesCache cache) {
+                this.cache = cache;
+                return this;
             }
         }
 
@@ -179,17 +205,17 @@ public interface GraphMetric<T> {
          * @param weightAttribute the weight attribute.
          * @param asDirectedGraph true if the graph edges should be considered
          * as directed edges.
+         * @param cache the distances cache, or null if not used.
          */
-        private NodeTheoreticalDistancesMetric(String weightAttributeId, EdgeAttribute<Double> weightAttribute, boolean asDirectedGraph) {
+        private NodeTheoreticalDistancesMetric(String weightAttributeId, EdgeAttribute<Double> weightAttribute, boolean asDirectedGraph, NodeDistancesCache cache) {
             this.weightAttributeId = weightAttributeId;
             this.weightAttribute = weightAttribute;
             this.asDirectedGraph = asDirectedGraph;
+            this.cache = cache;
         }
 
         @Override
         public NodeDistances computeMetric(Graph graph) {
-            NodeDistances result = new NodeDistances(graph);
-
             EdgeAttribute<Double> weight;
             if (weightAttribute != null) {
                 weight = weightAttribute;
@@ -199,27 +225,272 @@ public interface GraphMetric<T> {
                 weight = new EdgeAttribute<>(1.0);
             }
 
+            if (cache != null) {
+                return cache.get(graph, weight, asDirectedGraph, () -> computeDistances(graph, weight));
+            }
+            return computeDistances(graph, weight);
+        }
+
+        /**
+         * Computes the shortest distances from each node with a breadth first
+         * search, when all edges have unit weight, or with Dijkstra's
+         * algorithm otherwise.
+         *
+         * @param graph the input graph.
+         * @param weight the edge weights.
+         * @return the node distances.
+         */
+        private NodeDistances computeDistances(Graph graph, EdgeAttribute<Double> weight) {
+            NodeDistances result = new NodeDistances(graph);
+            int nodeCount = result.distances.length;
+
+            int[] offsets = new int[nodeCount + 1];
+            for (Edge edge : graph.edges()) {
+                offsets[result.directMap.get(edge.source()) + 1]++;
+                if (!asDirectedGraph) {
+                    offsets[result.directMap.get(edge.target()) + 1]++;
+                }
+            }
+            for (int i = 0; i < nodeCount; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            int[] neighbours = new int[offsets[nodeCount]];
+            double[] lengths = new double[offsets[nodeCount]];
+            int[] filled = Arrays.copyOf(offsets, nodeCount);
+            boolean unitWeights = true;
             for (Edge edge : graph.edges()) {
                 int sourceIdx = result.directMap.get(edge.source());
                 int targetIdx = result.directMap.get(edge.target());
-                result.distances[sourceIdx][targetIdx] = weight.get(edge);
+                double length = weight.get(edge);
+                if (length < 0) {
+                    throw new IllegalArgumentException("Negative edge weights are not supported: " + length);
+                }
+                unitWeights &= length == 1.0;
+                neighbours[filled[sourceIdx]] = targetIdx;
+                lengths[filled[sourceIdx]++] = length;
                 if (!asDirectedGraph) {
-                    result.distances[targetIdx][sourceIdx] = weight.get(edge);
+                    neighbours[filled[targetIdx]] = sourceIdx;
+                    lengths[filled[targetIdx]++] = length;
                 }
             }
-            for (int i = 0; i < result.distances.length; i++) {
-                for (int j = 0; j < result.distances.length; j++) {
-                    for (int k = 0; k < result.distances.length; k++) {
-                        result.distances[i][j] = Math.min(result.distances[i][j],
-                                result.distances[i][k] + result.distances[k][j]);
-                        if (!asDirectedGraph) {
-                            result.distances[j][i] = result.distances[i][j];
-                        }
+
+            boolean breadthFirst = unitWeights;
+            IntStream sources = IntStream.range(0, nodeCount);
+            if (nodeCount >= parallelThreshold) {
+                sources = sources.parallel();
+            }
+            sources.forEach(source -> {
+                if (breadthFirst) {
+                    breadthFirstSearch(source, offsets, neighbours, result.distances[source]);
+                } else {
+                    dijkstra(source, offsets, neighbours, lengths, result.distances[source]);
+                }
+            });
+
+            if (!asDirectedGraph) {
+                for (int i = 0; i < nodeCount; i++) {
+                    for (int j = i + 1; j < nodeCount; j++) {
+                        double distance = Math.min(result.distances[i][j], result.distances[j][i]);
+                        result.distances[i][j] = distance;
+                        result.distances[j][i] = distance;
                     }
                 }
             }
             return result;
         }
+
+        /**
+         * Computes the hop distances from a source node.
+         *
+         * @param source the source node index.
+         * @param offsets the offsets of each node's neighbours.
+         * @param neighbours the neighbour indices.
+         * @param distances the distances from the source, initially infinite
+         * except for the source itself.
+         */
+        private static void breadthFirstSearch(int source, int[] offsets, int[] neighbours, double[] distances) {
+            int[] queue = new int[distances.length];
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = source;
+            while (head < tail) {
+                int current = queue[head++];
+                double nextDistance = distances[current] + 1;
+                for (int k = offsets[current]; k < offsets[current + 1]; k++) {
+                    int neighbour = neighbours[k];
+                    if (distances[neighbour] == Double.POSITIVE_INFINITY) {
+                        distances[neighbour] = nextDistance;
+                        queue[tail++] = neighbour;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Computes the weighted distances from a source node with a binary
+         * heap whose outdated entries are skipped when extracted.
+         *
+         * @param source the source node index.
+         * @param offsets the offsets of each node's neighbours.
+         * @param neighbours the neighbour indices.
+         * @param lengths the edge lengths.
+         * @param distances the distances from the source, initially infinite
+         * except for the source itself.
+         */
+        private static void dijkstra(int source, int[] offsets, int[] neighbours, double[] lengths, double[] distances) {
+            double[] heapKeys = new double[neighbours.length + 1];
+            int[] heapNodes = new int[neighbours.length + 1];
+            boolean[] settled = new boolean[distances.length];
+            int heapSize = 0;
+            heapKeys[0] = 0;
+            heapNodes[0] = source;
+            heapSize++;
+            while (heapSize > 0) {
+                double key = heapKeys[0];
+                int current = heapNodes[0];
+                heapSize--;
+                siftDown(heapKeys, heapNodes, heapSize, heapKeys[heapSize], heapNodes[heapSize]);
+                if (settled[current]) {
+                    continue;
+                }
+                settled[current] = true;
+                for (int k = offsets[current]; k < offsets[current + 1]; k++) {
+                    int neighbour = neighbours[k];
+                    double candidate = key + lengths[k];
+                    if (!settled[neighbour] && candidate < distances[neighbour]) {
+                        distances[neighbour] = candidate;
+                        int position = heapSize++;
+                        while (position > 0 && heapKeys[(position - 1) / 2] > candidate) {
+                            heapKeys[position] = heapKeys[(position - 1) / 2];
+                            heapNodes[position] = heapNodes[(position - 1) / 2];
+                            position = (position - 1) / 2;
+                        }
+                        heapKeys[position] = candidate;
+                        heapNodes[position] = neighbour;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Places an entry in the heap starting from the root.
+         *
+         * @param heapKeys the heap keys.
+         * @param heapNodes the heap nodes.
+         * @param heapSize the heap size.
+         * @param key the key of the entry.
+         * @param node the node of the entry.
+         */
+        private static void siftDown(double[] heapKeys, int[] heapNodes, int heapSize, double key, int node) {
+            if (heapSize == 0) {
+                return;
+            }
+            int position = 0;
+            int child = 1;
+            while (child < heapSize) {
+                if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                    child++;
+                }
+                if (key <= heapKeys[child]) {
+                    break;
+                }
+                heapKeys[position] = heapKeys[child];
+                heapNodes[position] = heapNodes[child];
+                position = child;
+                child = 2 * position + 1;
+            }
+            heapKeys[position] = key;
+            heapNodes[position] = node;
+        }
+    }
+
+    /**
+     * Stores the theoretical distances computed for the graphs, typically
+     * the snapshots of a dynamic graph, that the metrics using it evaluate.
+     * Two graphs share their distances if they contain the same nodes and the
+     * same edges with the same weights, so that metrics repeatedly computed
+     * on the same snapshots, for instance with different scalings, do not
+     * compute them again.
+     */
+    public static class NodeDistancesCache {
+
+        private final Map<DistancesKey, NodeDistances> distances = new HashMap<>();
+
+        /**
+         * Gets the distances for a graph, computing them if not available.
+         *
+         * @param graph the graph.
+         * @param weight the edge weights.
+         * @param asDirectedGraph true if the graph edges are considered as
+         * directed edges.
+         * @param computation the computation of the distances.
+         * @return the node distances.
+         */
+        private NodeDistances get(Graph graph, EdgeAttribute<Double> weight, boolean asDirectedGraph, Supplier<NodeDistances> computation) {
+            DistancesKey key = new DistancesKey(graph, weight, asDirectedGraph);
+            synchronized (this) {
+                NodeDistances cached = distances.get(key);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            NodeDistances computed = computation.get();
+            synchronized (this) {
+                NodeDistances cached = distances.putIfAbsent(key, computed);
+                return cached != null ? cached : computed;
+            }
+        }
+
+        /**
+         * Returns the number of graphs whose distances are stored.
+         *
+         * @return the number of stored distances.
+         */
+        public synchronized int size() {
+            return distances.size();
+        }
+
+        /**
+         * Clears the cache.
+         */
+        public synchronized void clear() {
+            distances.clear();
+        }
+
+        /**
+         * Identifies the graphs that have the same theoretical distances.
+         */
+        private static class DistancesKey {
+
+            private final Set<Node> nodes;
+            private final Map<Edge, Double> edgeWeights;
+            private final boolean asDirectedGraph;
+
+            private DistancesKey(Graph graph, EdgeAttribute<Double> weight, boolean asDirectedGraph) {
+                this.nodes = new HashSet<>(graph.nodes());
+                this.edgeWeights = new HashMap<>();
+                for (Edge edge : graph.edges()) {
+                    edgeWeights.put(edge, weight.get(edge));
+                }
+                this.asDirectedGraph = asDirectedGraph;
+            }
+
+            @Override
+            public boolean equals(Object obj) {
+                if (!(obj instanceof DistancesKey)) {
+                    return false;
+                }
+                DistancesKey other = (DistancesKey) obj;
+                return asDirectedGraph == other.asDirectedGraph
+                        && nodes.equals(other.nodes)
+                        && edgeWeights.equals(other.edgeWeights);
+            }
+
+            @Override
+            public int hashCode() {
+                return Objects.hash(nodes, edgeWeights, asDirectedGraph);
+            }
+        }
     }
 
     /**
@@ -324,6 +595,7 @@ public interface GraphMetric<T> {
         private final boolean asDirectedGraph;
         private final double scalingFactor;
         private final GeomE geometry;
+        private final NodeDistancesCache distanceCache;
 
         /**
          * Builder for the metric.
@@ -335,6 +607,7 @@ public interface GraphMetric<T> {
             private boolean asDirectedGraph = false;
             private double scalingFactor = 1.0;
             private GeomE geometry = Geom.e2D;
+            private NodeDistancesCache distanceCache;
 
             /**
              * Indicates an attribute id to use to extract edge weights,
@@ -404,13 +677,26 @@ public interface GraphMetric<T> {
                 return this;
             }
 
+            /**
+             * Indicates a cache for the theoretical distances, which can be
+             * shared by metrics computed on the same graphs. Default is no
+             * cache.
+             *
+             * @param distanceCache the distances cache.
+             * @return the builder.
+             */
+            public Builder withDistanceCache(NodeDistancesCache distanceCache) {
+                this.distanceCache = distanceCache;
+                return this;
+            }
+
             /**
              * Builds the metrics.
              *
              * @return the metrics.
              */
             public StressMetric build() {
-                return new StressMetric(weightAttributeId, weightAttribute, asDirectedGraph, scalingFactor, geometry);
+                return new StressMetric(weightAttributeId, weightAttribute, asDirectedGraph, scalingFactor, geometry, distanceCache);
             }
         }
 
@@ -424,13 +710,15 @@ public interface GraphMetric<T> {
          * as directed edges.
          * @param scalingFactor the scaling factor.
          * @param geometry the geometry to be used.
+         * @param distanceCache the distances cache, or null if not used.
          */
-        private StressMetric(String weightAttributeId, EdgeAttribute<Double> weightAttribute, boolean asDirectedGraph, double scalingFactor, GeomE geometry) {
+        private StressMetric(String weightAttributeId, EdgeAttribute<Double> weightAttribute, boolean asDirectedGraph, double scalingFactor, GeomE geometry, NodeDistancesCache distanceCache) {
             this.weightAttributeId = weightAttributeId;
             this.weightAttribute = weightAttribute;
             this.asDirectedGraph = asDirectedGraph;
             this.scalingFactor = scalingFactor;
             this.geometry = geometry;
+            this.distanceCache = distanceCache;
         }
 
         @Override
@@ -444,6 +732,7 @@ public interface GraphMetric<T> {
                             .withWeight(weightAttribute)
                             .withWeight(weightAttributeId)
                             .withDirectedEdges(asDirectedGraph)
+                            .withCache(distanceCache)
                             .build();
             NodeSpacialDistancesMetric spacialDistMetric
                     = new NodeSpacialDistancesMetric(geometry);
@@ -478,6 +767,7 @@ public interface GraphMetric<T> {
         private final boolean asDirectedGraph;
         private final double scalingFactor;
         private final GeomE geometry;
+        private final NodeDistancesCache distanceCache;
 
         /**
          * Builder for the metric.
@@ -489,6 +779,7 @@ public interface GraphMetric<T> {
             private boolean asDirectedGraph = false;
             private double scalingFactor = 1.0;
             private GeomE geometry = Geom.e2D;
+            private NodeDistancesCache distanceCache;
 
             /**
              * Indicates an attribute id to use to extract edge weights,
@@ -558,13 +849,26 @@ public interface GraphMetric<T> {
                 return this;
             }
 
+            /**
+             * Indicates a cache for the theoretical distances, which can be
+             * shared by metrics computed on the same graphs. Default is no
+             * cache.
+             *
+             * @param distanceCache the distances cache.
+             * @return the builder.
+             */
+            public Builder withDistanceCache(NodeDistancesCache distanceCache) {
+                this.distanceCache = distanceCache;
+                return this;
+            }
+
             /**
              * Builds the metrics.
              *
              * @return the metrics.
              */
             public IdealStressScalingMetric build() {
-                return new IdealStressScalingMetric(weightAttributeId, weightAttribute, asDirectedGraph, scalingFactor, geometry);
+                return new IdealStressScalingMetric(weightAttributeId, weightAttribute, asDirectedGraph, scalingFactor, geometry, distanceCache);
             }
         }
 
@@ -578,13 +882,15 @@ public interface GraphMetric<T> {
          * as directed edges.
          * @param scalingFactor the scaling factor.
          * @param geometry the geometry to be used.
+         * @param distanceCache the distances cache, or null if not used.
          */
-        private IdealStressScalingMetric(String weightAttributeId, EdgeAttribute<Double> weightAttribute, boolean asDirectedGraph, double scalingFactor, GeomE geometry) {
+        private IdealStressScalingMetric(String weightAttributeId, EdgeAttribute<Double> weightAttribute, boolean asDirectedGraph, double scalingFactor, GeomE geometry, NodeDistancesCache distanceCache) {
             this.weightAttributeId = weightAttributeId;
             this.weightAttribute = weightAttribute;
             this.asDirectedGraph = asDirectedGraph;
             this.scalingFactor = scalingFactor;
             this.geometry = geometry;
+            this.distanceCache = distanceCache;
         }
 
         @Override
@@ -594,6 +900,7 @@ public interface GraphMetric<T> {
                             .withWeight(weightAttribute)
                             .withWeight(weightAttributeId)
                             .withDirectedEdges(asDirectedGraph)
+                            .withCache(distanceCache)
                             .build();
             NodeSpacialDistancesMetric spacialDistMetric
                     = new NodeSpacialDistancesMetric(geometry);
@@ -618,4 +925,256 @@ public interface GraphMetric<T> {
             return num / den;
         }
     }
+
+    /**
+     * Stores the sufficient statistics to find the scaling that minimises the
+     * stress metric. With r the ratio between the scaled spacial distance and
+     * the theoretical distance of a connected pair of nodes, the stress
+     * obtained by further dividing the spacial distances by k is
+     * Sum(1 - r/k)^2, which is minimised by k = Sum(r^2) / Sum(r).
+     */
+    public static class StressScalingStatistics {
+
+        private long pairs;
+        private double sumRatios;
+        private double sumSquaredRatios;
+
+        /**
+         * Adds the ratio of a pair of nodes.
+         *
+         * @param ratio the ratio between spacial and theoretical distance.
+         */
+        public void add(double ratio) {
+            pairs++;
+            sumRatios += ratio;
+            sumSquaredRatios += ratio * ratio;
+        }
+
+        /**
+         * Adds the statistics of another graph to these ones.
+         *
+         * @param other the other statistics.
+         */
+        public void add(StressScalingStatistics other) {
+            pairs += other.pairs;
+            sumRatios += other.sumRatios;
+            sumSquaredRatios += other.sumSquaredRatios;
+        }
+
+        /**
+         * Returns the number of pairs of nodes considered.
+         *
+         * @return the number of pairs.
+         */
+        public long pairs() {
+            return pairs;
+        }
+
+        /**
+         * Returns the sum of the distance ratios.
+         *
+         * @return the sum of the ratios.
+         */
+        public double sumRatios() {
+            return sumRatios;
+        }
+
+        /**
+         * Returns the sum of the squared distance ratios.
+         *
+         * @return the sum of the squared ratios.
+         */
+        public double sumSquaredRatios() {
+            return sumSquaredRatios;
+        }
+
+        /**
+         * Returns the scaling that minimises the stress, or 1 if no pair of
+         * nodes has a positive spacial distance.
+         *
+         * @return the ideal scaling.
+         */
+        public double idealScaling() {
+            if (sumRatios <= 0) {
+                return 1.0;
+            }
+            return sumSquaredRatios / sumRatios;
+        }
+
+        /**
+         * Returns the stress obtained with a given scaling, as computed by the
+         * stress metric with the same scaling factor multiplied by it.
+         *
+         * @param scaling the scaling.
+         * @return the stress.
+         */
+        public double stress(double scaling) {
+            return pairs - 2 * sumRatios / scaling + sumSquaredRatios / (scaling * scaling);
+        }
+    }
+
+    /**
+     * Computes the stress scaling statistics of a graph in a single pass. The
+     * contribute of a disconnected pair of nodes is discarded.
+     */
+    public static class StressScalingStatisticsMetric implements GraphMetric<StressScalingStatistics> {
+
+        private final String weightAttributeId;
+        private final EdgeAttribute<Double> weightAttribute;
+        private final boolean asDirectedGraph;
+        private final double scalingFactor;
+        private final GeomE geometry;
+        private final NodeDistancesCache distanceCache;
+
+        /**
+         * Builder for the metric.
+         */
+        public static class Builder {
+
+            private String weightAttributeId;
+            private EdgeAttribute<Double> weightAttribute;
+            private boolean asDirectedGraph = false;
+            private double scalingFactor = 1.0;
+            private GeomE geometry = Geom.e2D;
+            private NodeDistancesCache distanceCache;
+
+            /**
+             * Indicates an attribute id to use to extract edge weights,
+             *
+             * @param attributeId the id of the attribute.
+             * @return the builder.
+             */
+            public Builder withWeight(String attributeId) {
+                if (weightAttribute != null && attributeId != null) {
+                    throw new IllegalStateException("Weight id and attribute are mutually exclusive.");
+                }
+                this.weightAttributeId = attributeId;
+                return this;
+            }
+
+            /**
+             * Indicates an attribute to use to extract edge weights,
+             *
+             * @param weightAttribute the edge weight attribute.
+             * @return the builder.
+             */
+            public Builder withWeight(EdgeAttribute<Double> weightAttribute) {
+                if (weightAttributeId != null && weightAttribute != null) {
+                    throw new IllegalStateException("Weight id and attribute are mutually exclusive.");
+                }
+                this.weightAttribute = weightAttribute;
+                return this;
+            }
+
+            /**
+             * Indicates whether the edges should be considered directed or
+             * undirected. Default is undirected.
+             *
+             * @param asDirectedGraph true if edges must be interpreted as
+             * directed.
+             * @return the builder.
+             */
+            public Builder withDirectedEdges(boolean asDirectedGraph) {
+                this.asDirectedGraph = asDirectedGraph;
+                return this;
+            }
+
+            /**
+             * The scaling to be used in the physical graph, as in the stress
+             * metric. Default is 1.
+             *
+             * @param scalingFactor the scaling factor.
+             * @return the builder.
+             */
+            public Builder withScaling(double scalingFactor) {
+                this.scalingFactor = scalingFactor;
+                return this;
+            }
+
+            /**
+             * Indicates the geometry to be used to compute the spacial distance
+             * between nodes. Default is Euclidean 2D.
+             *
+             * @param geometry the geometry to be used.
+             * @return the builder.
+             */
+            public Builder withGeometry(GeomE geometry) {
+                this.geometry = geometry;
+                return this;
+            }
+
+            /**
+             * Indicates a cache for the theoretical distances, which can be
+             * shared by metrics computed on the same graphs. Default is no
+             * cache.
+             *
+             * @param distanceCache the distances cache.
+             * @return the builder.
+             */
+            public Builder withDistanceCache(NodeDistancesCache distanceCache) {
+                this.distanceCache = distanceCache;
+                return this;
+            }
+
+            /**
+             * Builds the metrics.
+             *
+             * @return the metrics.
+             */
+            public StressScalingStatisticsMetric build() {
+                return new StressScalingStatisticsMetric(weightAttributeId, weightAttribute, asDirectedGraph, scalingFactor, geometry, distanceCache);
+            }
+        }
+
+        /**
+         * Create a metric that compute the stress scaling statistics.
+         *
+         * @param weightAttributeId the id of the attribute containing the edge
+         * weights.
+         * @param weightAttribute the weight attribute.
+         * @param asDirectedGraph true if the graph edges should be considered
+         * as directed edges.
+         * @param scalingFactor the scaling factor.
+         * @param geometry the geometry to be used.
+         * @param distanceCache the distances cache, or null if not used.
+         */
+        private StressScalingStatisticsMetric(String weightAttributeId, EdgeAttribute<Double> weightAttribute, boolean asDirectedGraph, double scalingFactor, GeomE geometry, NodeDistancesCache distanceCache) {
+            this.weightAttributeId = weightAttributeId;
+            this.weightAttribute = weightAttribute;
+            this.asDirectedGraph = asDirectedGraph;
+            this.scalingFactor = scalingFactor;
+            this.geometry = geometry;
+            this.distanceCache = distanceCache;
+        }
+
+        @Override
+        public StressScalingStatistics computeMetric(Graph graph) {
+            NodeTheoreticalDistancesMetric theoreticalDistMetric
+                    = new NodeTheoreticalDistancesMetric.Builder()
+                            .withWeight(weightAttribute)
+                            .withWeight(weightAttributeId)
+                            .withDirectedEdges(asDirectedGraph)
+                            .withCache(distanceCache)
+                            .build();
+            NodeSpacialDistancesMetric spacialDistMetric
+                    = new NodeSpacialDistancesMetric(geometry);
+
+            NodeDistances theoreticalDist = theoreticalDistMetric.computeMetric(graph);
+            NodeDistances spacialDist = spacialDistMetric.computeMetric(graph);
+
+            StressScalingStatistics statistics = new StressScalingStatistics();
+            for (int i = 0; i < theoreticalDist.distances.length; i++) {
+                Node first = theoreticalDist.reverseMap[i];
+                for (int j = i + 1; j < theoreticalDist.distances.length; j++) {
+                    Node second = theoreticalDist.reverseMap[j];
+                    double a = theoreticalDist.distances[i][j];
+                    double b = spacialDist.get(first, second) / scalingFactor;
+                    if (a != Double.POSITIVE_INFINITY) {
+                        statistics.add(b / a);
+                    }
+                }
+            }
+            return statistics;
+        }
+    }
 }
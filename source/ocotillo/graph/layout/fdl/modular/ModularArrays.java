@@ -0,0 +1,456 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.graph.layout.fdl.modular;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.GeomE;
+import ocotillo.graph.Element;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.Observer;
+
+/**
+ * Structure-of-arrays storage for the ModularFdl array engine. Mirror nodes
+ * are mapped to dense indices, which are recomputed only when nodes are added
+ * or removed from the mirror graph. Positions, forces and movements are stored
+ * in flat arrays with the layout index * dim + coordinate, and constraints in
+ * an array with one value per node. Only the first dim coordinates are handled.
+ */
+public class ModularArrays {
+
+    private final Graph graph;
+    private final NodeAttribute<Coordinates> positionAttribute;
+    private final int dim;
+    private final Observer.GraphElements elementObserver;
+
+    private final Map<Node, Integer> indices = new HashMap<>();
+    private Node[] nodes = new Node[0];
+    private int size;
+    private boolean indexOutdated = true;
+
+    private double[] positions = new double[0];
+    private double[] forces = new double[0];
+    private double[] movements = new double[0];
+    private double[] constraints = new double[0];
+    private double defaultConstraint = Double.POSITIVE_INFINITY;
+    private double maxDisplacement;
+    private double totalDisplacement;
+
+    /**
+     * Constructs the arrays for a graph.
+     *
+     * @param graph the graph.
+     * @param positionAttribute the node positions.
+     * @param dim the number of coordinates to handle.
+     */
+    public ModularArrays(Graph graph, NodeAttribute<Coordinates> positionAttribute, int dim) {
+        this.graph = graph;
+        this.positionAttribute = positionAttribute;
+        this.dim = dim;
+        this.elementObserver = new Observer.GraphElements(graph) {
+            @Override
+            public void theseElementsChanged(Collection<Element> changedElements) {
+                for (Element element : changedElements) {
+                    if (element instanceof Node) {
+                        indexOutdated = true;
+                        return;
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Prepares the arrays for a new iteration. The node indices are
+     * recomputed if the graph nodes changed, the positions are loaded from
+     * the position attribute, and forces, movements and constraints are
+     * cleared.
+     */
+    protected void startIteration() {
+        if (indexOutdated) {
+            reindex();
+        }
+        for (int i = 0; i < size; i++) {
+            Coordinates position = positionAttribute.get(nodes[i]);
+            int base = i * dim;
+            for (int d = 0; d < dim; d++) {
+                positions[base + d] = position.get(d);
+            }
+        }
+        Arrays.fill(forces, 0, size * dim, 0);
+        Arrays.fill(movements, 0, size * dim, 0);
+        Arrays.fill(constraints, 0, size, Double.POSITIVE_INFINITY);
+        defaultConstraint = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Assigns a dense index to each graph node.
+     */
+    private void reindex() {
+        size = graph.nodeCount();
+        if (nodes.length < size) {
+            int capacity = Math.max(size, nodes.length * 2);
+            nodes = new Node[capacity];
+            positions = new double[capacity * dim];
+            forces = new double[capacity * dim];
+            movements = new double[capacity * dim];
+            constraints = new double[capacity];
+        }
+        indices.clear();
+        int index = 0;
+        for (Node node : graph.nodes()) {
+            nodes[index] = node;
+            indices.put(node, index);
+            index++;
+        }
+        Arrays.fill(nodes, size, nodes.length, null);
+        indexOutdated = false;
+    }
+
+    /**
+     * Returns the number of indexed nodes.
+     *
+     * @return the number of nodes.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of coordinates handled for each node.
+     *
+     * @return the dimension.
+     */
+    public int dim() {
+        return dim;
+    }
+
+    /**
+     * Returns the node with the given index.
+     *
+     * @param index the index.
+     * @return the node.
+     */
+    public Node node(int index) {
+        return nodes[index];
+    }
+
+    /**
+     * Returns the index of a node.
+     *
+     * @param node the node.
+     * @return the node index, or -1 if the node is not indexed.
+     */
+    public int index(Node node) {
+        Integer index = indices.get(node);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Returns a coordinate of the position of a node at the beginning of the
+     * iteration.
+     *
+     * @param index the node index.
+     * @param coordinate the coordinate.
+     * @return the coordinate value.
+     */
+    public double position(int index, int coordinate) {
+        return positions[index * dim + coordinate];
+    }
+
+    /**
+     * Returns a coordinate of the force currently applied to a node.
+     *
+     * @param index the node index.
+     * @param coordinate the coordinate.
+     * @return the coordinate value.
+     */
+    public double force(int index, int coordinate) {
+        return forces[index * dim + coordinate];
+    }
+
+    /**
+     * Adds a component to the force of a node.
+     *
+     * @param index the node index.
+     * @param coordinate the coordinate.
+     * @param value the value to add.
+     */
+    public void addForce(int index, int coordinate, double value) {
+        forces[index * dim + coordinate] += value;
+    }
+
+    /**
+     * Adds a force vector to the force of a node.
+     *
+     * @param index the node index.
+     * @param force the force to add.
+     */
+    public void addForce(int index, Coordinates force) {
+        int base = index * dim;
+        for (int d = 0; d < dim; d++) {
+            forces[base + d] += force.get(d);
+        }
+    }
+
+    /**
+     * Adds the forces contained in a node attribute.
+     *
+     * @param nodeForces the forces.
+     */
+    public void addForces(NodeAttribute<Coordinates> nodeForces) {
+        Coordinates defaultForce = nodeForces.getDefault();
+        boolean zeroDefault = true;
+        for (int d = 0; d < dim; d++) {
+            zeroDefault &= defaultForce.get(d) == 0;
+        }
+        if (zeroDefault) {
+            for (Node node : nodeForces.nonDefaultElements()) {
+                int index = index(node);
+                if (index != -1) {
+                    addForce(index, nodeForces.get(node));
+                }
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                addForce(i, nodeForces.get(nodes[i]));
+            }
+        }
+    }
+
+    /**
+     * Returns the force currently applied to a node as coordinates.
+     *
+     * @param index the node index.
+     * @return the force.
+     */
+    public Coordinates forceAsCoordinates(int index) {
+        return new Coordinates(Arrays.copyOfRange(forces, index * dim, index * dim + dim));
+    }
+
+    /**
+     * Returns the movement constraint of a node.
+     *
+     * @param index the node index.
+     * @return the maximum movement allowed.
+     */
+    public double constraint(int index) {
+        return constraints[index];
+    }
+
+    /**
+     * Returns the constraint applied to all nodes.
+     *
+     * @return the global maximum movement.
+     */
+    public double defaultConstraint() {
+        return defaultConstraint;
+    }
+
+    /**
+     * Limits the movement of a node.
+     *
+     * @param index the node index.
+     * @param maxMovement the maximum movement allowed.
+     */
+    public void limitMovement(int index, double maxMovement) {
+        constraints[index] = Math.min(constraints[index], maxMovement);
+    }
+
+    /**
+     * Limits the movement of all nodes.
+     *
+     * @param maxMovement the maximum movement allowed.
+     */
+    public void limitAllMovements(double maxMovement) {
+        if (maxMovement < defaultConstraint) {
+            defaultConstraint = maxMovement;
+            for (int i = 0; i < size; i++) {
+                constraints[i] = Math.min(constraints[i], maxMovement);
+            }
+        }
+    }
+
+    /**
+     * Limits the node movements according to the constraints contained in a
+     * node attribute.
+     *
+     * @param nodeConstraints the constraints.
+     */
+    public void limitMovements(NodeAttribute<Double> nodeConstraints) {
+        limitAllMovements(nodeConstraints.getDefault());
+        for (Node node : nodeConstraints.nonDefaultElements()) {
+            int index = index(node);
+            if (index != -1) {
+                limitMovement(index, nodeConstraints.get(node));
+            }
+        }
+    }
+
+    /**
+     * Returns a coordinate of the movement of a node.
+     *
+     * @param index the node index.
+     * @param coordinate the coordinate.
+     * @return the coordinate value.
+     */
+    public double movement(int index, int coordinate) {
+        return movements[index * dim + coordinate];
+    }
+
+    /**
+     * Computes the movements from forces and constraints.
+     *
+     * @param safetyFactor the factor applied to the constraints.
+     * @param geometry the geometry used to discard negligible movements.
+     */
+    protected void computeMovements(double safetyFactor, GeomE geometry) {
+        for (int i = 0; i < size; i++) {
+            int base = i * dim;
+            double squaredMagnitude = 0;
+            for (int d = 0; d < dim; d++) {
+                squaredMagnitude += forces[base + d] * forces[base + d];
+            }
+            double magnitude = Math.sqrt(squaredMagnitude);
+            double constraint = constraints[i] * safetyFactor;
+            if (geometry.almostZero(magnitude) || geometry.almostZero(constraint)) {
+                Arrays.fill(movements, base, base + dim, 0);
+                continue;
+            }
+            double scaling = magnitude > constraint ? constraint / magnitude : 1;
+            for (int d = 0; d < dim; d++) {
+                movements[base + d] = forces[base + d] * scaling;
+            }
+        }
+    }
+
+    /**
+     * Copies forces, constraints and movements into the given node
+     * attributes, for the modules that operate on them.
+     *
+     * @param nodeForces the force attribute.
+     * @param nodeConstraints the constraint attribute.
+     * @param nodeMovements the movement attribute.
+     */
+    protected void publish(NodeAttribute<Coordinates> nodeForces, NodeAttribute<Double> nodeConstraints,
+            NodeAttribute<Coordinates> nodeMovements) {
+        nodeForces.reset();
+        nodeConstraints.reset(defaultConstraint);
+        nodeMovements.reset();
+        for (int i = 0; i < size; i++) {
+            int base = i * dim;
+            if (!isZero(forces, base)) {
+                nodeForces.set(nodes[i], new Coordinates(Arrays.copyOfRange(forces, base, base + dim)));
+            }
+            if (constraints[i] != defaultConstraint) {
+                nodeConstraints.set(nodes[i], constraints[i]);
+            }
+            if (!isZero(movements, base)) {
+                nodeMovements.set(nodes[i], new Coordinates(Arrays.copyOfRange(movements, base, base + dim)));
+            }
+        }
+    }
+
+    /**
+     * Reads back the movements from the given node attribute.
+     *
+     * @param nodeMovements the movement attribute.
+     */
+    protected void readMovements(NodeAttribute<Coordinates> nodeMovements) {
+        for (int i = 0; i < size; i++) {
+            Coordinates movement = nodeMovements.get(nodes[i]);
+            int base = i * dim;
+            for (int d = 0; d < dim; d++) {
+                movements[base + d] = movement.get(d);
+            }
+        }
+    }
+
+    /**
+     * Applies the movements to the position attribute. Only the nodes that
+     * actually move are updated, and the coordinates after the first dim are
+     * preserved.
+     *
+     * @param measureDisplacement if to measure the node displacements.
+     */
+    protected void moveNodes(boolean measureDisplacement) {
+        maxDisplacement = 0;
+        totalDisplacement = 0;
+        for (int i = 0; i < size; i++) {
+            int base = i * dim;
+            if (!isZero(movements, base)) {
+                Coordinates newPosition = new Coordinates(positionAttribute.get(nodes[i]));
+                double squaredMagnitude = 0;
+                for (int d = 0; d < dim; d++) {
+                    newPosition.setAt(d, positions[base + d] + movements[base + d]);
+                    squaredMagnitude += movements[base + d] * movements[base + d];
+                }
+                positionAttribute.set(nodes[i], newPosition);
+                if (measureDisplacement) {
+                    double magnitude = Math.sqrt(squaredMagnitude);
+                    maxDisplacement = Math.max(maxDisplacement, magnitude);
+                    totalDisplacement += magnitude;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the largest node displacement of the last movement.
+     *
+     * @return the maximum displacement.
+     */
+    protected double maxDisplacement() {
+        return maxDisplacement;
+    }
+
+    /**
+     * Returns the sum of the node displacements of the last movement.
+     *
+     * @return the total displacement.
+     */
+    protected double totalDisplacement() {
+        return totalDisplacement;
+    }
+
+    /**
+     * Checks if a vector stored in an array is zero.
+     *
+     * @param values the array.
+     * @param base the first position of the vector.
+     * @return true if all the vector components are zero.
+     */
+    private boolean isZero(double[] values, int base) {
+        for (int d = 0; d < dim; d++) {
+            if (values[base + d] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Releases the observers registered on the graph.
+     */
+    protected void close() {
+        elementObserver.unregister();
+    }
+}
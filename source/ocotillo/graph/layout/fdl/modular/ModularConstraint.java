@@ -40,6 +40,17 @@ public abstract class ModularConstraint extends ModularElement {
      */
     protected abstract NodeAttribute<Double> computeConstraints();
 
+    /**
+     * Computes the movement constraints for all the nodes in the graph and
+     * applies them to the arrays of the array engine. By default, the
+     * constraints computed by computeConstraints() are copied in the arrays.
+     *
+     * @param arrays the arrays of the array engine.
+     */
+    protected void computeConstraints(ModularArrays arrays) {
+        arrays.limitMovements(computeConstraints());
+    }
+
     /**
      * Constraint that gradually decreases the global max movement for that the
      * nodes can perform at each iteration.
@@ -65,6 +76,11 @@ public abstract class ModularConstraint extends ModularElement {
         protected NodeAttribute<Double> computeConstraints() {
             return new NodeAttribute<>(initialMaxMovement * temperature());
         }
+
+        @Override
+        protected void computeConstraints(ModularArrays arrays) {
+            arrays.limitAllMovements(initialMaxMovement * temperature());
+        }
     }
 
     /**
@@ -15,6 +15,7 @@
  */
 package ocotillo.graph.layout.fdl.modular;
 
+import java.util.concurrent.ForkJoinPool;
 import ocotillo.geometry.Coordinates;
 import ocotillo.graph.Graph;
 import ocotillo.graph.NodeAttribute;
@@ -90,6 +91,16 @@ public class ModularElement {
         return modularFdl.thermostat.temperature;
     }
 
+    /**
+     * Returns the thread pool used to compute the forces in parallel.
+     *
+     * @return the thread pool, or null if the computation is sequential.
+     */
+    protected final ForkJoinPool forkJoinPool() {
+        assert (modularFdl != null) : "The ModularFdl element has not been attached yet.";
+        return modularFdl.forkJoinPool;
+    }
+
     /**
      * Returns the current forces.
      *
@@ -97,6 +108,7 @@ public class ModularElement {
      */
     protected final NodeAttribute<Coordinates> forces() {
         assert (modularFdl != null) : "The ModularFdl element has not been attached yet.";
+        modularFdl.updateAttributes();
         return modularFdl.forces;
     }
 
@@ -107,6 +119,7 @@ public class ModularElement {
      */
     protected final NodeAttribute<Double> constraints() {
         assert (modularFdl != null) : "The ModularFdl element has not been attached yet.";
+        modularFdl.updateAttributes();
         return modularFdl.constraints;
     }
 
@@ -117,6 +130,7 @@ public class ModularElement {
      */
     protected final NodeAttribute<Coordinates> movements() {
         assert (modularFdl != null) : "The ModularFdl element has not been attached yet.";
+        modularFdl.updateAttributes();
         return modularFdl.movements;
     }
 }
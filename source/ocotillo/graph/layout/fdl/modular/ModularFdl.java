@@ -18,6 +18,7 @@ package ocotillo.graph.layout.fdl.modular;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
 import ocotillo.geometry.Coordinates;
 import ocotillo.geometry.Geom;
 import ocotillo.geometry.GeomE;
@@ -30,6 +31,7 @@ import ocotillo.graph.extra.BendExplicitGraphSynchroniser.BegsBuilder;
 import ocotillo.graph.layout.locator.ElementLocator;
 import ocotillo.graph.layout.locator.ElementLocator.EdgePolicy;
 import ocotillo.graph.layout.locator.ElementLocator.NodePolicy;
+import ocotillo.graph.layout.locator.grid.GridLocator.GlBuilder;
 import ocotillo.graph.layout.locator.intervaltree.IntervalTreeLocator.ItlBuilder;
 
 /**
@@ -56,8 +58,56 @@ public class ModularFdl {
     private final Collection<ModularPostProcessing> postProcessingSteps;
     private final Collection<ModularMetric> metrics;
 
+    private final ModularArrays arrays;
+    private boolean attributesOutdated = false;
+    protected final ForkJoinPool forkJoinPool;
+
+    private final double maxDisplacementTolerance;
+    private final double meanDisplacementTolerance;
+    private final int minIterations;
+    private double maxDisplacement;
+    private double totalDisplacement;
+
+    private final ModularInstrumentation instrumentation;
+    private final int instrumentationLevel;
+
     public static final double safetyMovementFactor = 0.9;
 
+    /**
+     * The strategy used to compute node-node repulsion.
+     */
+    public enum RepulsionMode {
+        /**
+         * Only nodes closer than the force activity distance repel each
+         * other, as in ModularForce.NodeNodeRepulsion2D.
+         */
+        localNeighbourhood {
+            @Override
+            public ModularForce createForce(double nodeNodeDistance) {
+                return new ModularForce.NodeNodeRepulsion2D(nodeNodeDistance);
+            }
+        },
+        /**
+         * Close nodes repel each other exactly, while far nodes are
+         * approximated with a Barnes-Hut quadtree, as in
+         * ModularForce.BarnesHutNodeNodeRepulsion2D.
+         */
+        barnesHut {
+            @Override
+            public ModularForce createForce(double nodeNodeDistance) {
+                return new ModularForce.BarnesHutNodeNodeRepulsion2D(nodeNodeDistance);
+            }
+        };
+
+        /**
+         * Creates the node-node repulsion force of this strategy.
+         *
+         * @param nodeNodeDistance the distance at which the force intensifies.
+         * @return the force.
+         */
+        public abstract ModularForce createForce(double nodeNodeDistance);
+    }
+
     /**
      * A builder for ModularFdl instances.
      */
@@ -71,6 +121,14 @@ public class ModularFdl {
         private final Collection<ModularPreMovement> preMovements = new ArrayList<>();
         private final Collection<ModularPostProcessing> postProcessings = new ArrayList<>();
         private final Collection<ModularMetric> metrics = new ArrayList<>();
+        private boolean arrayEngine = false;
+        private int parallelism = 1;
+        private double gridCellSize = Double.NaN;
+        private double maxDisplacementTolerance = Double.NaN;
+        private double meanDisplacementTolerance = Double.NaN;
+        private int minIterations = 0;
+        private ModularInstrumentation instrumentation = null;
+        private int instrumentationLevel = ModularInstrumentation.NO_INDEX;
 
         /**
          * Constructs an ModularFdl builder.
@@ -126,6 +184,18 @@ public class ModularFdl {
             return this;
         }
 
+        /**
+         * Inserts a node-node repulsion force in the force system, computed
+         * with the given strategy.
+         *
+         * @param nodeNodeDistance the distance at which the force intensifies.
+         * @param mode the repulsion strategy.
+         * @return the builder.
+         */
+        public ModularFdlBuilder withNodeNodeRepulsion(double nodeNodeDistance, RepulsionMode mode) {
+            return withForce(mode.createForce(nodeNodeDistance));
+        }
+
         /**
          * Inserts the given constraint in the constraint system.
          *
@@ -214,13 +284,121 @@ public class ModularFdl {
             return this;
         }
 
+        /**
+         * Computes forces, constraints and movements on primitive arrays
+         * indexed by node rather than on node attributes. Forces and
+         * constraints that do not support the arrays directly are adapted
+         * automatically. Only the coordinates of the geometry dimension are
+         * considered.
+         *
+         * @return the builder.
+         */
+        public ModularFdlBuilder enableArrayEngine() {
+            this.arrayEngine = true;
+            return this;
+        }
+
+        /**
+         * Computes forces, constraints and movements on node attributes.
+         * This is the default behaviour.
+         *
+         * @return the builder.
+         */
+        public ModularFdlBuilder disableArrayEngine() {
+            this.arrayEngine = false;
+            return this;
+        }
+
+        /**
+         * Indicates the number of threads used to compute the forces. With
+         * more than one thread, the forces that support it split their work
+         * among the threads of a fork-join pool. The work is split and merged
+         * in the same way also with a single thread, so the results do not
+         * depend on the number of threads.
+         *
+         * @param parallelism the number of threads.
+         * @return the builder.
+         */
+        public ModularFdlBuilder withParallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("The number of threads must be positive: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Uses a grid locator to find the elements close to each other. The
+         * grid is updated incrementally at each iteration, and is usually
+         * faster than the default interval tree locator when the cell size is
+         * comparable to the distances used by the forces.
+         *
+         * @param cellSize the side of the grid cells.
+         * @return the builder.
+         */
+        public ModularFdlBuilder withGridLocator(double cellSize) {
+            if (!(cellSize > 0)) {
+                throw new IllegalArgumentException("The cell size must be positive: " + cellSize);
+            }
+            this.gridCellSize = cellSize;
+            return this;
+        }
+
+        /**
+         * Stops the iterations as soon as the layout converges, that is when
+         * both the maximum node displacement and the mean node displacement
+         * (the total displacement divided by the number of nodes) of an
+         * iteration are within the given tolerances. The number of
+         * iterations passed to iterate becomes an upper bound.
+         *
+         * @param maxDisplacementTolerance the tolerance on the maximum
+         * displacement.
+         * @param meanDisplacementTolerance the tolerance on the mean
+         * displacement.
+         * @param minIterations the number of iterations to perform before
+         * checking the convergence.
+         * @return the builder.
+         */
+        public ModularFdlBuilder withConvergence(double maxDisplacementTolerance, double meanDisplacementTolerance, int minIterations) {
+            if (!(maxDisplacementTolerance >= 0) || !(meanDisplacementTolerance >= 0)) {
+                throw new IllegalArgumentException("The displacement tolerances must be non negative: "
+                        + maxDisplacementTolerance + ", " + meanDisplacementTolerance);
+            }
+            if (minIterations < 0) {
+                throw new IllegalArgumentException("The minimum number of iterations must be non negative: " + minIterations);
+            }
+            this.maxDisplacementTolerance = maxDisplacementTolerance;
+            this.meanDisplacementTolerance = meanDisplacementTolerance;
+            this.minIterations = minIterations;
+            return this;
+        }
+
+        /**
+         * Records the running time of each phase of the iterations, that is
+         * the locator rebuild, each force, constraint, pre-movement and
+         * post-processing step, the node movement and the synchronisation.
+         *
+         * @param instrumentation the instrumentation that collects the
+         * measurements.
+         * @param level the level the measurements refer to, or
+         * ModularInstrumentation.NO_INDEX.
+         * @return the builder.
+         */
+        public ModularFdlBuilder withInstrumentation(ModularInstrumentation instrumentation, int level) {
+            this.instrumentation = instrumentation;
+            this.instrumentationLevel = level;
+            return this;
+        }
+
         /**
          * Builds the ModularFdl instance.
          *
          * @return the ModularFdl instance.
          */
         public ModularFdl build() {
-            ModularFdl modularFdl = new ModularFdl(graph, thermostat, geometry, forces, constraints, preMovements, postProcessings, metrics);
+            ModularFdl modularFdl = new ModularFdl(graph, thermostat, geometry, forces, constraints, preMovements, postProcessings, metrics,
+                    arrayEngine, parallelism, gridCellSize, maxDisplacementTolerance, meanDisplacementTolerance, minIterations,
+                    instrumentation, instrumentationLevel);
 
             thermostat.attachTo(modularFdl);
 
@@ -254,11 +432,26 @@ public class ModularFdl {
      * @param preMovements the pre-movement steps.
      * @param postProcessings the post-processing steps.
      * @param metrics the metrics.
+     * @param arrayEngine true to use the array engine.
+     * @param parallelism the number of threads used to compute the forces.
+     * @param gridCellSize the cell size of the grid locator, or NaN to use
+     * an interval tree locator.
+     * @param maxDisplacementTolerance the convergence tolerance on the
+     * maximum displacement, or NaN to always perform all iterations.
+     * @param meanDisplacementTolerance the convergence tolerance on the mean
+     * displacement.
+     * @param minIterations the iterations to perform before checking the
+     * convergence.
+     * @param instrumentation the instrumentation that times the phases, or
+     * null.
+     * @param instrumentationLevel the level the measurements refer to.
      */
     private ModularFdl(Graph originalGraph, ModularThermostat thermostat, GeomE geometry,
             Collection<ModularForce> forces, Collection<ModularConstraint> constraints,
             Collection<ModularPreMovement> preMovements, Collection<ModularPostProcessing> postProcessings,
-            Collection<ModularMetric> metrics) {
+            Collection<ModularMetric> metrics, boolean arrayEngine, int parallelism, double gridCellSize,
+            double maxDisplacementTolerance, double meanDisplacementTolerance, int minIterations,
+            ModularInstrumentation instrumentation, int instrumentationLevel) {
         if (!originalGraph.hasNodeAttribute(StdAttribute.nodeSize)) {
             originalGraph.nodeAttribute(StdAttribute.nodeSize);
         }
@@ -272,8 +465,13 @@ public class ModularFdl {
         this.mirrorPositions = synchronizer.getMirrorPositions();
         this.mirrorSizes = mirrorGraph.nodeAttribute(StdAttribute.nodeSize);
 
-        this.locator = new ItlBuilder(mirrorGraph, NodePolicy.nodesAsGlyphs, EdgePolicy.edgesAsGlyphs)
-                .withGeometry(geometry).disableAutoSync().build();
+        if (Double.isNaN(gridCellSize)) {
+            this.locator = new ItlBuilder(mirrorGraph, NodePolicy.nodesAsGlyphs, EdgePolicy.edgesAsGlyphs)
+                    .withGeometry(geometry).disableAutoSync().build();
+        } else {
+            this.locator = new GlBuilder(mirrorGraph, NodePolicy.nodesAsGlyphs, EdgePolicy.edgesAsGlyphs)
+                    .withGeometry(geometry).withCellSize(gridCellSize).disableAutoSync().build();
+        }
         this.thermostat = thermostat;
         this.geometry = geometry;
         this.forceSystem = forces;
@@ -281,10 +479,25 @@ public class ModularFdl {
         this.preMovementSteps = preMovements;
         this.postProcessingSteps = postProcessings;
         this.metrics = metrics;
+        this.arrays = arrayEngine ? new ModularArrays(mirrorGraph, mirrorPositions, geometry.geomDim()) : null;
+        this.forkJoinPool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        this.maxDisplacementTolerance = maxDisplacementTolerance;
+        this.meanDisplacementTolerance = meanDisplacementTolerance;
+        this.minIterations = minIterations;
+        this.instrumentation = instrumentation;
+        this.instrumentationLevel = instrumentationLevel;
+        if (forkJoinPool != null) {
+            // Standard attributes are created on first access, which is not
+            // safe when forces run concurrently.
+            mirrorGraph.nodeAttribute(StdAttribute.nodeShape);
+            mirrorGraph.edgeAttribute(StdAttribute.edgeWidth);
+        }
     }
 
     /**
-     * Execute the main cycle for the given number of iterations.
+     * Execute the main cycle for the given number of iterations, or until
+     * convergence if a convergence criterion has been set. The cycle also
+     * stops if the running thread is interrupted.
      *
      * @param numberOfIterations the number of iterations.
      * @return the statistics for this execution.
@@ -295,55 +508,139 @@ public class ModularFdl {
 
         synchronizer.updateMirror();
         for (int i = 0; i < numberOfIterations; i++) {
+            if (Thread.currentThread().isInterrupted()) {
+                stats.setStopReason(ModularStatistics.StopReason.interrupted);
+                break;
+            }
             long iterationStartTime = System.nanoTime();
+            ModularInstrumentation.Timer iterationTimer = startTimer(ModularInstrumentation.ITERATION, i);
 
             mirrorPositions.startBulkNotification();
             forces.reset();
             constraints.reset(Double.POSITIVE_INFINITY);
+            ModularInstrumentation.Timer timer = startTimer(ModularInstrumentation.LOCATOR_REBUILD, i);
             locator.rebuild();
+            stopTimer(timer);
             thermostat.updateTemperature(i, numberOfIterations);
 
-            computeForces();
-            computeConstraints();
-            computeMovements();
-
-            for (ModularPreMovement preMovement : preMovementSteps) {
-                preMovement.execute();
+            if (arrays != null) {
+                computeArrayIteration(i);
+                maxDisplacement = arrays.maxDisplacement();
+                totalDisplacement = arrays.totalDisplacement();
+            } else {
+                computeForces(i);
+                computeConstraints(i);
+                timer = startTimer(ModularInstrumentation.MOVEMENT, i);
+                computeMovements();
+                stopTimer(timer);
+
+                executePreMovements(i);
+
+                timer = startTimer(ModularInstrumentation.MOVEMENT, i);
+                moveNodes();
+                stopTimer(timer);
             }
 
-            moveNodes();
-
             for (ModularPostProcessing postProcessing : postProcessingSteps) {
+                timer = startTimer(ModularInstrumentation.POST_PROCESSING, postProcessing, i);
                 postProcessing.execute();
+                stopTimer(timer);
             }
 
             mirrorPositions.stopBulkNotification();
+            timer = startTimer(ModularInstrumentation.SYNCHRONISATION, i);
             synchronizer.updateOriginal();
+            stopTimer(timer);
 
+            stopTimer(iterationTimer);
+            if (instrumentation != null) {
+                instrumentation.count(ModularInstrumentation.ITERATIONS, instrumentationLevel, i, 1);
+            }
             stats.runAtIterationEnd(Duration.ofNanos(System.nanoTime() - iterationStartTime));
+
+            if (i + 1 >= minIterations && hasConverged()) {
+                stats.setStopReason(ModularStatistics.StopReason.converged);
+                break;
+            }
         }
 
         stats.runAtComputationEnd(Duration.ofNanos(System.nanoTime() - totalStartTime));
         return stats;
     }
 
+    /**
+     * Starts a timer for a phase of an iteration, if the instrumentation is
+     * enabled.
+     *
+     * @param phase the phase name.
+     * @param iteration the iteration.
+     * @return the running timer, or null.
+     */
+    private ModularInstrumentation.Timer startTimer(String phase, int iteration) {
+        return instrumentation != null ? instrumentation.start(phase, instrumentationLevel, iteration) : null;
+    }
+
+    /**
+     * Starts a timer for a module of the algorithm, if the instrumentation
+     * is enabled. The timer is named after the module class.
+     *
+     * @param prefix the prefix of the module type.
+     * @param module the module.
+     * @param iteration the iteration.
+     * @return the running timer, or null.
+     */
+    private ModularInstrumentation.Timer startTimer(String prefix, Object module, int iteration) {
+        return instrumentation != null ? instrumentation.start(prefix + module.getClass().getSimpleName(), instrumentationLevel, iteration) : null;
+    }
+
+    /**
+     * Stops a timer started by startTimer.
+     *
+     * @param timer the timer, or null.
+     */
+    private static void stopTimer(ModularInstrumentation.Timer timer) {
+        if (timer != null) {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Executes the pre-movement steps.
+     *
+     * @param iteration the current iteration.
+     */
+    private void executePreMovements(int iteration) {
+        for (ModularPreMovement preMovement : preMovementSteps) {
+            ModularInstrumentation.Timer timer = startTimer(ModularInstrumentation.PRE_MOVEMENT, preMovement, iteration);
+            preMovement.execute();
+            stopTimer(timer);
+        }
+    }
+
     /**
      * Computes the final force for each graph node.
+     *
+     * @param iteration the current iteration.
      */
-    private void computeForces() {
+    private void computeForces(int iteration) {
         for (ModularForce forceDefinition : forceSystem) {
+            ModularInstrumentation.Timer timer = startTimer(ModularInstrumentation.FORCE, forceDefinition, iteration);
             NodeAttribute<Coordinates> computedForces = forceDefinition.computeForces();
             for (Node node : mirrorGraph.nodes()) {
                 forces.set(node, computedForces.get(node).plus(forces.get(node)));
             }
+            stopTimer(timer);
         }
     }
 
     /**
      * Computes the final constraints for each graph node.
+     *
+     * @param iteration the current iteration.
      */
-    private void computeConstraints() {
+    private void computeConstraints(int iteration) {
         for (ModularConstraint constraintDefinition : constraintSystem) {
+            ModularInstrumentation.Timer timer = startTimer(ModularInstrumentation.CONSTRAINT, constraintDefinition, iteration);
             NodeAttribute<Double> computedconstraint = constraintDefinition.computeConstraints();
             constraints.setDefault(Math.min(constraints.getDefault(), computedconstraint.getDefault()));
             for (Node node : mirrorGraph.nodes()) {
@@ -351,6 +648,7 @@ public class ModularFdl {
                 nodeMovement = Math.min(nodeMovement, computedconstraint.get(node));
                 constraints.set(node, nodeMovement);
             }
+            stopTimer(timer);
         }
     }
 
@@ -374,11 +672,84 @@ public class ModularFdl {
     }
 
     /**
-     * Moves the graph nodes.
+     * Moves the graph nodes. The displacements are measured only when a
+     * convergence criterion has been set.
      */
     private void moveNodes() {
+        boolean measureDisplacement = !Double.isNaN(maxDisplacementTolerance);
+        maxDisplacement = 0;
+        totalDisplacement = 0;
         for (Node node : mirrorGraph.nodes()) {
-            mirrorPositions.set(node, movements.get(node).plus(mirrorPositions.get(node)));
+            Coordinates movement = movements.get(node);
+            mirrorPositions.set(node, movement.plus(mirrorPositions.get(node)));
+            if (measureDisplacement) {
+                double magnitude = geometry.magnitude(movement);
+                maxDisplacement = Math.max(maxDisplacement, magnitude);
+                totalDisplacement += magnitude;
+            }
+        }
+    }
+
+    /**
+     * Checks if the displacements of the last iteration satisfy the
+     * convergence criterion.
+     *
+     * @return true if the layout converged.
+     */
+    private boolean hasConverged() {
+        if (Double.isNaN(maxDisplacementTolerance)) {
+            return false;
+        }
+        int nodeCount = mirrorGraph.nodeCount();
+        double meanDisplacement = nodeCount > 0 ? totalDisplacement / nodeCount : 0;
+        return maxDisplacement <= maxDisplacementTolerance && meanDisplacement <= meanDisplacementTolerance;
+    }
+
+    /**
+     * Computes forces, constraints and movements with the array engine, and
+     * moves the graph nodes. The node attributes for forces, constraints and
+     * movements are only filled when a module accesses them.
+     *
+     * @param iteration the current iteration.
+     */
+    private void computeArrayIteration(int iteration) {
+        arrays.startIteration();
+        for (ModularForce forceDefinition : forceSystem) {
+            ModularInstrumentation.Timer timer = startTimer(ModularInstrumentation.FORCE, forceDefinition, iteration);
+            forceDefinition.computeForces(arrays);
+            attributesOutdated = true;
+            stopTimer(timer);
+        }
+        for (ModularConstraint constraintDefinition : constraintSystem) {
+            ModularInstrumentation.Timer timer = startTimer(ModularInstrumentation.CONSTRAINT, constraintDefinition, iteration);
+            constraintDefinition.computeConstraints(arrays);
+            attributesOutdated = true;
+            stopTimer(timer);
+        }
+        ModularInstrumentation.Timer timer = startTimer(ModularInstrumentation.MOVEMENT, iteration);
+        arrays.computeMovements(safetyMovementFactor, geometry);
+        attributesOutdated = true;
+        stopTimer(timer);
+
+        if (!preMovementSteps.isEmpty()) {
+            updateAttributes();
+            executePreMovements(iteration);
+            arrays.readMovements(movements);
+        }
+
+        timer = startTimer(ModularInstrumentation.MOVEMENT, iteration);
+        arrays.moveNodes(!Double.isNaN(maxDisplacementTolerance));
+        stopTimer(timer);
+    }
+
+    /**
+     * Fills the node attributes for forces, constraints and movements with
+     * the values in the array engine, if they are outdated.
+     */
+    protected void updateAttributes() {
+        if (arrays != null && attributesOutdated) {
+            arrays.publish(forces, constraints, movements);
+            attributesOutdated = false;
         }
     }
 
@@ -387,5 +758,11 @@ public class ModularFdl {
      */
     public void close() {
         locator.close();
+        if (arrays != null) {
+            arrays.close();
+        }
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdown();
+        }
     }
 }
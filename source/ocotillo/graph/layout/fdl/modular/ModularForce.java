@@ -16,11 +16,17 @@
 package ocotillo.graph.layout.fdl.modular;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import ocotillo.geometry.Coordinates;
 import ocotillo.geometry.Geom;
 import ocotillo.geometry.GeomNumeric;
@@ -32,6 +38,7 @@ import ocotillo.graph.StdAttribute;
 import ocotillo.graph.StdAttribute.NodeShape;
 import ocotillo.graph.extra.BendExplicitGraphSynchroniser.MirrorEdge;
 import ocotillo.graph.layout.Layout2D;
+import ocotillo.structures.QuadTree;
 
 /**
  * Force for the ModularFdl algorithm.
@@ -45,6 +52,219 @@ public abstract class ModularForce extends ModularElement {
      */
     protected abstract NodeAttribute<Coordinates> computeForces();
 
+    /**
+     * Computes the forces for all the nodes in the graph and adds them to the
+     * arrays of the array engine. By default, the forces computed by
+     * computeForces() are copied in the arrays.
+     *
+     * @param arrays the arrays of the array engine.
+     */
+    protected void computeForces(ModularArrays arrays) {
+        arrays.addForces(computeForces());
+    }
+
+    /**
+     * The maximum number of work items accumulated in a single range, both
+     * when forces are computed in parallel and in a single thread.
+     */
+    protected static final int parallelGrain = 64;
+
+    /**
+     * Computes the force contributions of a work item.
+     *
+     * @param <T> the type of the work items.
+     */
+    @FunctionalInterface
+    protected interface ForceTask<T> {
+
+        /**
+         * Computes the force contributions of the given item and adds them to
+         * the accumulator.
+         *
+         * @param item the work item.
+         * @param accumulator the accumulator.
+         */
+        public void accumulate(T item, ForceAccumulator accumulator);
+    }
+
+    /**
+     * Runs a force task on all the given work items and adds the results to
+     * the given accumulator. The items are split in ranges of at most
+     * parallelGrain elements, each range is processed with its own
+     * accumulator, and the accumulators are merged in range order. The ranges
+     * are processed by the thread pool of the ModularFdl instance if present,
+     * or in the calling thread otherwise. The result therefore does not
+     * depend on the number of threads or on their scheduling.
+     *
+     * @param <T> the type of the work items.
+     * @param items the work items.
+     * @param task the task to run on each item.
+     * @param accumulator the accumulator that receives the forces.
+     */
+    protected <T> void accumulateForces(List<T> items, ForceTask<T> task, ForceAccumulator accumulator) {
+        ForkJoinPool pool = forkJoinPool();
+        if (items.size() <= parallelGrain) {
+            for (T item : items) {
+                task.accumulate(item, accumulator);
+            }
+        } else if (pool == null) {
+            accumulator.addAll(new AccumulationTask<>(items, task, 0, items.size()).computeSerially());
+        } else {
+            accumulator.addAll(pool.invoke(new AccumulationTask<>(items, task, 0, items.size())));
+        }
+    }
+
+    /**
+     * Accumulates the forces applied to the graph nodes. An accumulator either
+     * stores the forces internally or adds them directly to the arrays of the
+     * array engine.
+     */
+    protected static class ForceAccumulator {
+
+        private final Map<Node, Coordinates> forces;
+        private final ModularArrays arrays;
+
+        /**
+         * Constructs an accumulator that stores the forces internally.
+         */
+        public ForceAccumulator() {
+            this.forces = new HashMap<>();
+            this.arrays = null;
+        }
+
+        /**
+         * Constructs an accumulator that adds the forces to the arrays of the
+         * array engine.
+         *
+         * @param arrays the arrays of the array engine.
+         */
+        public ForceAccumulator(ModularArrays arrays) {
+            this.forces = null;
+            this.arrays = arrays;
+        }
+
+        /**
+         * Adds a force to a node.
+         *
+         * @param node the node.
+         * @param force the force.
+         */
+        public void add(Node node, Coordinates force) {
+            if (arrays != null) {
+                arrays.addForce(arrays.index(node), force);
+            } else {
+                Coordinates current = forces.get(node);
+                if (current == null) {
+                    forces.put(node, new Coordinates(force));
+                } else {
+                    current.plusIP(force);
+                }
+            }
+        }
+
+        /**
+         * Adds the forces stored in another accumulator.
+         *
+         * @param other the other accumulator.
+         */
+        public void addAll(ForceAccumulator other) {
+            assert (other.forces != null) : "Only accumulators that store forces internally can be merged.";
+            for (Map.Entry<Node, Coordinates> entry : other.forces.entrySet()) {
+                add(entry.getKey(), entry.getValue());
+            }
+        }
+
+        /**
+         * Returns the accumulated forces as a node attribute.
+         *
+         * @param defaultForce the force of the nodes without contributions.
+         * @return the node attribute.
+         */
+        public NodeAttribute<Coordinates> toNodeAttribute(Coordinates defaultForce) {
+            assert (forces != null) : "The forces have been added to the array engine.";
+            NodeAttribute<Coordinates> attribute = new NodeAttribute<>(defaultForce);
+            for (Map.Entry<Node, Coordinates> entry : forces.entrySet()) {
+                attribute.set(entry.getKey(), entry.getValue());
+            }
+            return attribute;
+        }
+    }
+
+    /**
+     * Fork-join task that processes a range of work items.
+     *
+     * @param <T> the type of the work items.
+     */
+    private static class AccumulationTask<T> extends RecursiveTask<ForceAccumulator> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<T> items;
+        private final ForceTask<T> task;
+        private final int start;
+        private final int end;
+
+        /**
+         * Constructs a task for the given item range.
+         *
+         * @param items the work items.
+         * @param task the task to run on each item.
+         * @param start the first item of the range.
+         * @param end the item after the last one in the range.
+         */
+        private AccumulationTask(List<T> items, ForceTask<T> task, int start, int end) {
+            this.items = items;
+            this.task = task;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected ForceAccumulator compute() {
+            if (end - start <= parallelGrain) {
+                return accumulateRange();
+            }
+            int middle = (start + end) >>> 1;
+            AccumulationTask<T> left = new AccumulationTask<>(items, task, start, middle);
+            AccumulationTask<T> right = new AccumulationTask<>(items, task, middle, end);
+            left.fork();
+            ForceAccumulator rightAccumulator = right.compute();
+            ForceAccumulator leftAccumulator = left.join();
+            leftAccumulator.addAll(rightAccumulator);
+            return leftAccumulator;
+        }
+
+        /**
+         * Splits and merges the ranges as compute does, but processes them in
+         * the calling thread.
+         *
+         * @return the accumulator of the range.
+         */
+        private ForceAccumulator computeSerially() {
+            if (end - start <= parallelGrain) {
+                return accumulateRange();
+            }
+            int middle = (start + end) >>> 1;
+            ForceAccumulator leftAccumulator = new AccumulationTask<>(items, task, start, middle).computeSerially();
+            ForceAccumulator rightAccumulator = new AccumulationTask<>(items, task, middle, end).computeSerially();
+            leftAccumulator.addAll(rightAccumulator);
+            return leftAccumulator;
+        }
+
+        /**
+         * Processes the items of the range with a new accumulator.
+         *
+         * @return the accumulator of the range.
+         */
+        private ForceAccumulator accumulateRange() {
+            ForceAccumulator accumulator = new ForceAccumulator();
+            for (int i = start; i < end; i++) {
+                task.accumulate(items.get(i), accumulator);
+            }
+            return accumulator;
+        }
+    }
+
     /**
      * Returns the desired (or minimal, maximal) distance that this force aims
      * to achieve.
@@ -205,13 +425,27 @@ public abstract class ModularForce extends ModularElement {
 
         @Override
         protected NodeAttribute<Coordinates> computeForces() {
-            NodeAttribute<Coordinates> forces = new NodeAttribute<>(new Coordinates(0, 0));
-            for (Edge edge : edges()) {
+            ForceAccumulator accumulator = new ForceAccumulator();
+            accumulateEdgeForces(accumulator);
+            return accumulator.toNodeAttribute(new Coordinates(0, 0));
+        }
+
+        @Override
+        protected void computeForces(ModularArrays arrays) {
+            accumulateEdgeForces(new ForceAccumulator(arrays));
+        }
+
+        /**
+         * Computes the forces for all the edges involved in the computation.
+         *
+         * @param accumulator the accumulator that receives the forces.
+         */
+        private void accumulateEdgeForces(ForceAccumulator accumulator) {
+            accumulateForces(new ArrayList<>(edges()), (edge, edgeAccumulator) -> {
                 Coordinates[] compForces = computeForces(edge);
-                forces.set(edge.source(), compForces[0].plusIP(forces.get(edge.source())));
-                forces.set(edge.target(), compForces[1].plusIP(forces.get(edge.target())));
-            }
-            return forces;
+                edgeAccumulator.add(edge.source(), compForces[0]);
+                edgeAccumulator.add(edge.target(), compForces[1]);
+            }, accumulator);
         }
     }
 
@@ -272,8 +506,8 @@ public abstract class ModularForce extends ModularElement {
          * node.
          */
         protected Collection<Node> secondLevelNodes(Node node) {
-            Collection<Node> nodes = new HashSet<>(mirrorGraph().nodes());
-            pruneDistantNodes(nodes, node);
+            double distanceToConsider = distanceActivityFactor * nodeNodeDistance;
+            Collection<Node> nodes = locator().getCloseNodes(node, distanceToConsider);
             pruneLowerIdNodes(nodes, node);
             return nodes;
         }
@@ -337,15 +571,30 @@ public abstract class ModularForce extends ModularElement {
 
         @Override
         protected NodeAttribute<Coordinates> computeForces() {
-            NodeAttribute<Coordinates> forces = new NodeAttribute<>(new Coordinates(0, 0));
-            for (Node nodeA : firstLevelNodes()) {
+            ForceAccumulator accumulator = new ForceAccumulator();
+            accumulatePairForces(accumulator);
+            return accumulator.toNodeAttribute(new Coordinates(0, 0));
+        }
+
+        @Override
+        protected void computeForces(ModularArrays arrays) {
+            accumulatePairForces(new ForceAccumulator(arrays));
+        }
+
+        /**
+         * Computes the forces for all the node pairs involved in the
+         * computation.
+         *
+         * @param accumulator the accumulator that receives the forces.
+         */
+        private void accumulatePairForces(ForceAccumulator accumulator) {
+            accumulateForces(new ArrayList<>(firstLevelNodes()), (nodeA, nodeAccumulator) -> {
                 for (Node nodeB : secondLevelNodes(nodeA)) {
                     Coordinates[] compForces = computeForces(nodeA, nodeB);
-                    forces.set(nodeA, compForces[0].plusIP(forces.get(nodeA)));
-                    forces.set(nodeB, compForces[1].plusIP(forces.get(nodeB)));
+                    nodeAccumulator.add(nodeA, compForces[0]);
+                    nodeAccumulator.add(nodeB, compForces[1]);
                 }
-            }
-            return forces;
+            }, accumulator);
         }
     }
 
@@ -411,6 +660,221 @@ public abstract class ModularForce extends ModularElement {
         }
     }
 
+    /**
+     * Node-node repulsion that approximates the contribution of distant nodes
+     * with a Barnes-Hut quadtree. Nodes closer than the activity distance are
+     * found with the locator and repelled exactly as in NodeNodeRepulsion2D,
+     * while farther nodes are aggregated in quadtree cells and repel with the
+     * same force law computed on the cell centroid. Forces are accumulated in
+     * primitive arrays indexed by node.
+     */
+    public static class BarnesHutNodeNodeRepulsion2D extends NodeNodeRepulsion2D {
+
+        /**
+         * The ratio between cell size and distance under which a quadtree
+         * cell is approximated by its centroid.
+         */
+        public double theta = 0.8;
+        /**
+         * The factor applied to the contributions of far nodes.
+         */
+        public double farFieldFactor = 1;
+
+        private final QuadTree quadTree = new QuadTree();
+        private final Map<Node, Integer> nodeIndices = new HashMap<>();
+        private Node[] indexedNodes = new Node[0];
+        private double[] xs = new double[0];
+        private double[] ys = new double[0];
+        private double[] forceXs = new double[0];
+        private double[] forceYs = new double[0];
+        private int[] cellStack = new int[64];
+
+        /**
+         * Constructs a node-node repulsion with Barnes-Hut approximation of
+         * the far field.
+         *
+         * @param nodeNodeDistance the distance at which the force intensifies.
+         */
+        public BarnesHutNodeNodeRepulsion2D(double nodeNodeDistance) {
+            super(nodeNodeDistance);
+        }
+
+        @Override
+        protected NodeAttribute<Coordinates> computeForces() {
+            int nodeCount = computeIndexedForces();
+            NodeAttribute<Coordinates> forces = new NodeAttribute<>(new Coordinates(0, 0));
+            for (int i = 0; i < nodeCount; i++) {
+                if (forceXs[i] != 0 || forceYs[i] != 0) {
+                    forces.set(indexedNodes[i], new Coordinates(forceXs[i], forceYs[i]));
+                }
+            }
+            return forces;
+        }
+
+        @Override
+        protected void computeForces(ModularArrays arrays) {
+            int nodeCount = computeIndexedForces();
+            for (int i = 0; i < nodeCount; i++) {
+                int index = arrays.index(indexedNodes[i]);
+                arrays.addForce(index, 0, forceXs[i]);
+                arrays.addForce(index, 1, forceYs[i]);
+            }
+        }
+
+        /**
+         * Computes the forces in the internal arrays.
+         *
+         * @return the number of indexed nodes.
+         */
+        private int computeIndexedForces() {
+            int nodeCount = indexNodes();
+            double activityDistance = distanceActivityFactor * nodeNodeDistance;
+            double exponent = computeExponent();
+
+            for (int i = 0; i < nodeCount; i++) {
+                computeNearField(i, activityDistance, exponent);
+            }
+            if (farFieldFactor != 0) {
+                quadTree.rebuild(xs, ys, nodeCount);
+                for (int i = 0; i < nodeCount; i++) {
+                    computeFarField(i, activityDistance, exponent);
+                }
+            }
+            return nodeCount;
+        }
+
+        /**
+         * Assigns a dense index to the nodes involved in the computation and
+         * copies their positions in the coordinate arrays.
+         *
+         * @return the number of indexed nodes.
+         */
+        private int indexNodes() {
+            Collection<Node> nodes = firstLevelNodes();
+            int nodeCount = nodes.size();
+            if (indexedNodes.length < nodeCount) {
+                int capacity = Math.max(nodeCount, indexedNodes.length * 2);
+                indexedNodes = new Node[capacity];
+                xs = new double[capacity];
+                ys = new double[capacity];
+                forceXs = new double[capacity];
+                forceYs = new double[capacity];
+            }
+            nodeIndices.clear();
+            int index = 0;
+            for (Node node : nodes) {
+                Coordinates position = mirrorPositions().get(node);
+                indexedNodes[index] = node;
+                xs[index] = position.x();
+                ys[index] = position.y();
+                forceXs[index] = 0;
+                forceYs[index] = 0;
+                nodeIndices.put(node, index);
+                index++;
+            }
+            return nodeCount;
+        }
+
+        /**
+         * Computes the exact repulsion between a node and the nodes with
+         * higher index closer than the activity distance.
+         *
+         * @param i the node index.
+         * @param activityDistance the activity distance.
+         * @param exponent the force exponent.
+         */
+        private void computeNearField(int i, double activityDistance, double exponent) {
+            Node nodeA = indexedNodes[i];
+            for (Node nodeB : locator().getCloseNodes(nodeA, activityDistance)) {
+                Integer j = nodeIndices.get(nodeB);
+                if (j == null || j <= i) {
+                    continue;
+                }
+                double dx = xs[i] - xs[j];
+                double dy = ys[i] - ys[j];
+                double centreDistance = Math.sqrt(dx * dx + dy * dy);
+                if (centreDistance > activityDistance || Geom.e2D.almostZero(centreDistance)) {
+                    continue;
+                }
+                Distances distances = computeDistances2D(nodeA, nodeB, temperature());
+                double magnitude = Math.pow(distances.desiredDistance / distances.currentDistance, exponent) / centreDistance;
+                forceXs[i] += dx * magnitude;
+                forceYs[i] += dy * magnitude;
+                forceXs[j] -= dx * magnitude;
+                forceYs[j] -= dy * magnitude;
+            }
+        }
+
+        /**
+         * Computes the approximated repulsion exerted on a node by the nodes
+         * farther than the activity distance.
+         *
+         * @param i the node index.
+         * @param activityDistance the activity distance.
+         * @param exponent the force exponent.
+         */
+        private void computeFarField(int i, double activityDistance, double exponent) {
+            double x = xs[i];
+            double y = ys[i];
+            int stackSize = 0;
+            cellStack[stackSize++] = quadTree.root();
+            while (stackSize > 0) {
+                int cell = cellStack[--stackSize];
+                if (quadTree.pointCount(cell) == 0
+                        || quadTree.maxDistance(cell, x, y) <= activityDistance) {
+                    continue;
+                }
+                double minDistance = quadTree.minDistance(cell, x, y);
+                if (minDistance > activityDistance) {
+                    double dx = x - quadTree.centroidX(cell);
+                    double dy = y - quadTree.centroidY(cell);
+                    double centroidDistance = Math.sqrt(dx * dx + dy * dy);
+                    if (quadTree.cellSize(cell) < theta * centroidDistance) {
+                        applyFarContribution(i, dx, dy, centroidDistance, quadTree.pointCount(cell), exponent);
+                        continue;
+                    }
+                }
+                if (quadTree.isLeaf(cell)) {
+                    for (int k = 0; k < quadTree.pointCount(cell); k++) {
+                        int j = quadTree.point(cell, k);
+                        double dx = x - xs[j];
+                        double dy = y - ys[j];
+                        double distance = Math.sqrt(dx * dx + dy * dy);
+                        if (distance > activityDistance) {
+                            applyFarContribution(i, dx, dy, distance, 1, exponent);
+                        }
+                    }
+                } else {
+                    if (cellStack.length < stackSize + 4) {
+                        cellStack = Arrays.copyOf(cellStack, cellStack.length * 2);
+                    }
+                    for (int quadrant = 0; quadrant < 4; quadrant++) {
+                        int child = quadTree.child(cell, quadrant);
+                        if (child != -1) {
+                            cellStack[stackSize++] = child;
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds the contribution of a far group of nodes to the given node.
+         *
+         * @param i the node index.
+         * @param dx the x component of the vector from the group to the node.
+         * @param dy the y component of the vector from the group to the node.
+         * @param distance the distance between node and group.
+         * @param groupSize the number of nodes in the group.
+         * @param exponent the force exponent.
+         */
+        private void applyFarContribution(int i, double dx, double dy, double distance, int groupSize, double exponent) {
+            double magnitude = farFieldFactor * groupSize * Math.pow(nodeNodeDistance / distance, exponent) / distance;
+            forceXs[i] += dx * magnitude;
+            forceYs[i] += dy * magnitude;
+        }
+    }
+
     /**
      * Force that repels nearby edge-node pairs.
      */
@@ -533,16 +997,31 @@ public abstract class ModularForce extends ModularElement {
 
         @Override
         protected NodeAttribute<Coordinates> computeForces() {
-            NodeAttribute<Coordinates> forces = new NodeAttribute<>(new Coordinates(0, 0));
-            for (Edge edge : edges()) {
+            ForceAccumulator accumulator = new ForceAccumulator();
+            accumulateEdgeNodeForces(accumulator);
+            return accumulator.toNodeAttribute(new Coordinates(0, 0));
+        }
+
+        @Override
+        protected void computeForces(ModularArrays arrays) {
+            accumulateEdgeNodeForces(new ForceAccumulator(arrays));
+        }
+
+        /**
+         * Computes the forces for all the edge-node pairs involved in the
+         * computation.
+         *
+         * @param accumulator the accumulator that receives the forces.
+         */
+        private void accumulateEdgeNodeForces(ForceAccumulator accumulator) {
+            accumulateForces(new ArrayList<>(edges()), (edge, edgeAccumulator) -> {
                 for (Node node : nodes(edge)) {
                     Coordinates[] compForces = computeForces(edge, node);
-                    forces.set(edge.source(), compForces[0].plusIP(forces.get(edge.source())));
-                    forces.set(edge.target(), compForces[1].plusIP(forces.get(edge.target())));
-                    forces.set(node, compForces[2].plusIP(forces.get(node)));
+                    edgeAccumulator.add(edge.source(), compForces[0]);
+                    edgeAccumulator.add(edge.target(), compForces[1]);
+                    edgeAccumulator.add(node, compForces[2]);
                 }
-            }
-            return forces;
+            }, accumulator);
         }
     }
 
@@ -835,13 +1314,41 @@ public abstract class ModularForce extends ModularElement {
          */
         protected double maxMagnitude;
 
+        /**
+         * The generator of the random forces.
+         */
+        protected final SplittableRandom random;
+
         /**
          * Construct a random force generator.
          *
          * @param maxMagnitude the maximum magnitude for the random forces.
          */
         public RandomForce2D(double maxMagnitude) {
+            this(maxMagnitude, new SplittableRandom());
+        }
+
+        /**
+         * Construct a random force generator that always produces the same
+         * sequence of forces for the same seed.
+         *
+         * @param maxMagnitude the maximum magnitude for the random forces.
+         * @param seed the random seed.
+         */
+        public RandomForce2D(double maxMagnitude, long seed) {
+            this(maxMagnitude, new SplittableRandom(seed));
+        }
+
+        /**
+         * Construct a random force generator that draws from the given
+         * generator.
+         *
+         * @param maxMagnitude the maximum magnitude for the random forces.
+         * @param random the random generator.
+         */
+        public RandomForce2D(double maxMagnitude, SplittableRandom random) {
             this.maxMagnitude = maxMagnitude;
+            this.random = random;
         }
 
         /**
@@ -857,8 +1364,8 @@ public abstract class ModularForce extends ModularElement {
         protected NodeAttribute<Coordinates> computeForces() {
             NodeAttribute<Coordinates> forces = new NodeAttribute<>(new Coordinates(0, 0));
             for (Node node : nodes()) {
-                double magnitude = GeomNumeric.randomDouble(maxMagnitude);
-                double angle = GeomNumeric.randomDouble(2 * Math.PI);
+                double magnitude = GeomNumeric.randomDouble(random, maxMagnitude);
+                double angle = GeomNumeric.randomDouble(random, 2 * Math.PI);
                 Coordinates compForce = Geom.e2D.unitVector(angle).timesIP(magnitude);
                 forces.set(node, compForce.plusIP(forces.get(node)));
             }
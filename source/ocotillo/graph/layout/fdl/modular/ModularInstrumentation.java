@@ -0,0 +1,436 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.graph.layout.fdl.modular;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Collects named timers and counters of a layout computation. Each
+ * measurement refers to a level and an iteration, so that the cost of every
+ * phase can be followed through a multilevel computation. An instance can be
+ * shared by computations running on different threads. The measurements can
+ * be saved as CSV or JSON, and can be emitted as JFR events.
+ */
+public class ModularInstrumentation {
+
+    /**
+     * The index used when a measurement does not refer to a level or to an
+     * iteration.
+     */
+    public static final int NO_INDEX = -1;
+
+    public static final String PREPROCESSING = "preprocessing";
+    public static final String COARSENING = "coarsening";
+    public static final String STATIC_LAYOUT = "staticLayout";
+    public static final String PLACEMENT = "placement";
+    public static final String LEVEL = "level";
+    public static final String MIRROR_BUILD = "mirrorBuild";
+    public static final String ITERATION = "iteration";
+    public static final String LOCATOR_REBUILD = "locatorRebuild";
+    public static final String FORCE = "force:";
+    public static final String CONSTRAINT = "constraint:";
+    public static final String PRE_MOVEMENT = "preMovement:";
+    public static final String MOVEMENT = "movement";
+    public static final String POST_PROCESSING = "postProcessing:";
+    public static final String SYNCHRONISATION = "synchronisation";
+    public static final String ITERATIONS = "iterations";
+
+    private static final String SEPARATOR = ";";
+
+    private final ConcurrentLinkedQueue<Measurement> measurements = new ConcurrentLinkedQueue<>();
+    private volatile boolean jfrEvents = false;
+
+    /**
+     * The type of a measurement.
+     */
+    public enum Kind {
+        /**
+         * A running time, in nanoseconds.
+         */
+        timer,
+        /**
+         * A count of occurrences.
+         */
+        counter;
+    }
+
+    /**
+     * A value recorded by the instrumentation.
+     */
+    public static class Measurement {
+
+        private final Kind kind;
+        private final String name;
+        private final int level;
+        private final int iteration;
+        private final long value;
+        private final String thread;
+
+        private Measurement(Kind kind, String name, int level, int iteration, long value, String thread) {
+            this.kind = kind;
+            this.name = name;
+            this.level = level;
+            this.iteration = iteration;
+            this.value = value;
+            this.thread = thread;
+        }
+
+        /**
+         * Gets the type of the measurement.
+         *
+         * @return the kind.
+         */
+        public Kind kind() {
+            return kind;
+        }
+
+        /**
+         * Gets the name of the measured phase or counter.
+         *
+         * @return the name.
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Gets the level of the measurement.
+         *
+         * @return the level, or NO_INDEX.
+         */
+        public int level() {
+            return level;
+        }
+
+        /**
+         * Gets the iteration of the measurement.
+         *
+         * @return the iteration, or NO_INDEX.
+         */
+        public int iteration() {
+            return iteration;
+        }
+
+        /**
+         * Gets the value, in nanoseconds for timers.
+         *
+         * @return the value.
+         */
+        public long value() {
+            return value;
+        }
+
+        /**
+         * Gets the name of the thread that recorded the measurement.
+         *
+         * @return the thread name.
+         */
+        public String thread() {
+            return thread;
+        }
+    }
+
+    /**
+     * A running timer. Stopping it records its measurement.
+     */
+    public class Timer {
+
+        private final String name;
+        private final int level;
+        private final int iteration;
+        private final long startTime;
+        private final PhaseEvent event;
+
+        private Timer(String name, int level, int iteration) {
+            this.name = name;
+            this.level = level;
+            this.iteration = iteration;
+            if (jfrEvents) {
+                event = new PhaseEvent();
+                event.begin();
+            } else {
+                event = null;
+            }
+            this.startTime = System.nanoTime();
+        }
+
+        /**
+         * Stops the timer and records the elapsed time.
+         *
+         * @return the elapsed time in nanoseconds.
+         */
+        public long stop() {
+            long elapsed = System.nanoTime() - startTime;
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.phase = name;
+                    event.level = level;
+                    event.iteration = iteration;
+                    event.commit();
+                }
+            }
+            measurements.add(new Measurement(Kind.timer, name, level, iteration, elapsed, Thread.currentThread().getName()));
+            return elapsed;
+        }
+    }
+
+    /**
+     * The JFR event emitted by the timers.
+     */
+    @Name("ocotillo.LayoutPhase")
+    @Label("Layout Phase")
+    @Category("Ocotillo")
+    static class PhaseEvent extends Event {
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Level")
+        int level;
+
+        @Label("Iteration")
+        int iteration;
+    }
+
+    /**
+     * The JFR event emitted by the counters.
+     */
+    @Name("ocotillo.LayoutCounter")
+    @Label("Layout Counter")
+    @Category("Ocotillo")
+    static class CounterEvent extends Event {
+
+        @Label("Counter")
+        String counter;
+
+        @Label("Level")
+        int level;
+
+        @Label("Iteration")
+        int iteration;
+
+        @Label("Amount")
+        long amount;
+    }
+
+    /**
+     * Emits a JFR event for each timer and counter, so that the phases can
+     * be inspected together with the other events of a flight recording.
+     *
+     * @return the instrumentation.
+     */
+    public ModularInstrumentation enableJfrEvents() {
+        jfrEvents = true;
+        return this;
+    }
+
+    /**
+     * Stops emitting JFR events.
+     *
+     * @return the instrumentation.
+     */
+    public ModularInstrumentation disableJfrEvents() {
+        jfrEvents = false;
+        return this;
+    }
+
+    /**
+     * Starts a timer for a phase.
+     *
+     * @param name the phase name.
+     * @param level the level, or NO_INDEX.
+     * @param iteration the iteration, or NO_INDEX.
+     * @return the running timer.
+     */
+    public Timer start(String name, int level, int iteration) {
+        return new Timer(name, level, iteration);
+    }
+
+    /**
+     * Increments a counter.
+     *
+     * @param name the counter name.
+     * @param level the level, or NO_INDEX.
+     * @param iteration the iteration, or NO_INDEX.
+     * @param amount the increment.
+     */
+    public void count(String name, int level, int iteration, long amount) {
+        if (jfrEvents) {
+            CounterEvent event = new CounterEvent();
+            if (event.shouldCommit()) {
+                event.counter = name;
+                event.level = level;
+                event.iteration = iteration;
+                event.amount = amount;
+                event.commit();
+            }
+        }
+        measurements.add(new Measurement(Kind.counter, name, level, iteration, amount, Thread.currentThread().getName()));
+    }
+
+    /**
+     * Gets the measurements recorded so far, in recording order.
+     *
+     * @return the measurements.
+     */
+    public List<Measurement> measurements() {
+        return new ArrayList<>(measurements);
+    }
+
+    /**
+     * Sums the values recorded with a given name.
+     *
+     * @param name the phase or counter name.
+     * @return the total, in nanoseconds for timers.
+     */
+    public long total(String name) {
+        long total = 0;
+        for (Measurement measurement : measurements) {
+            if (measurement.name.equals(name)) {
+                total += measurement.value;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Sums the values recorded with a given name on a level.
+     *
+     * @param name the phase or counter name.
+     * @param level the level.
+     * @return the total, in nanoseconds for timers.
+     */
+    public long total(String name, int level) {
+        long total = 0;
+        for (Measurement measurement : measurements) {
+            if (measurement.level == level && measurement.name.equals(name)) {
+                total += measurement.value;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Sums the recorded values by name.
+     *
+     * @return the totals, sorted by name.
+     */
+    public Map<String, Long> totals() {
+        Map<String, Long> totals = new TreeMap<>();
+        for (Measurement measurement : measurements) {
+            totals.merge(measurement.name, measurement.value, Long::sum);
+        }
+        return totals;
+    }
+
+    /**
+     * Writes the measurements as semicolon-separated values, one per line.
+     *
+     * @param writer the destination.
+     * @throws IOException if the writer fails.
+     */
+    public void writeCsv(Writer writer) throws IOException {
+        writer.write("Kind" + SEPARATOR + "Name" + SEPARATOR + "Level" + SEPARATOR
+                + "Iteration" + SEPARATOR + "Value" + SEPARATOR + "Thread\n");
+        for (Measurement measurement : measurements) {
+            writer.write(measurement.kind + SEPARATOR + measurement.name + SEPARATOR
+                    + measurement.level + SEPARATOR + measurement.iteration + SEPARATOR
+                    + measurement.value + SEPARATOR + measurement.thread + "\n");
+        }
+    }
+
+    /**
+     * Writes the measurements as a JSON array of objects.
+     *
+     * @param writer the destination.
+     * @throws IOException if the writer fails.
+     */
+    public void writeJson(Writer writer) throws IOException {
+        writer.write("[");
+        boolean first = true;
+        for (Measurement measurement : measurements) {
+            writer.write(first ? "\n" : ",\n");
+            writer.write("  {\"kind\": \"" + measurement.kind
+                    + "\", \"name\": " + jsonString(measurement.name)
+                    + ", \"level\": " + measurement.level
+                    + ", \"iteration\": " + measurement.iteration
+                    + ", \"value\": " + measurement.value
+                    + ", \"thread\": " + jsonString(measurement.thread) + "}");
+            first = false;
+        }
+        writer.write("\n]\n");
+    }
+
+    /**
+     * Saves the measurements into a semicolon-separated values file.
+     *
+     * @param csvFile the CSV file.
+     */
+    public void saveCsv(File csvFile) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(csvFile))) {
+            writeCsv(writer);
+        } catch (IOException ex) {
+            System.err.println("The file " + csvFile.getName() + " is not writable.");
+        }
+    }
+
+    /**
+     * Saves the measurements into a JSON file.
+     *
+     * @param jsonFile the JSON file.
+     */
+    public void saveJson(File jsonFile) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(jsonFile))) {
+            writeJson(writer);
+        } catch (IOException ex) {
+            System.err.println("The file " + jsonFile.getName() + " is not writable.");
+        }
+    }
+
+    /**
+     * Quotes a string for JSON.
+     *
+     * @param string the string.
+     * @return the quoted string.
+     */
+    private static String jsonString(String string) {
+        StringBuilder builder = new StringBuilder("\"");
+        for (char character : string.toCharArray()) {
+            if (character == '"' || character == '\\') {
+                builder.append('\\').append(character);
+            } else if (character < 0x20) {
+                builder.append(String.format("\\u%04x", (int) character));
+            } else {
+                builder.append(character);
+            }
+        }
+        return builder.append('"').toString();
+    }
+}
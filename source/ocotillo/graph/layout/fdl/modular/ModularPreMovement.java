@@ -16,13 +16,16 @@
 package ocotillo.graph.layout.fdl.modular;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import ocotillo.geometry.Box;
 import ocotillo.geometry.Coordinates;
 import ocotillo.geometry.Geom;
 import ocotillo.graph.Node;
 import ocotillo.graph.layout.Layout2D;
-import org.ejml.simple.SimpleMatrix;
+import ocotillo.structures.SparseSymmetricMatrix;
 
 /**
  * Pre-movement step for the ModularFdl algorithm.
@@ -76,6 +79,8 @@ public abstract class ModularPreMovement extends ModularElement {
      */
     public static class VectorFieldSmoothing extends ModularPreMovement {
 
+        private static final double solverTolerance = 1e-10;
+
         private final int minGridDimension;
 
         private Box graphBox;
@@ -84,11 +89,14 @@ public abstract class ModularPreMovement extends ModularElement {
         private double cellDim;
         private final List<Node> constrainedNodes = new ArrayList<>();
 
-        private SimpleMatrix A;
-        private SimpleMatrix xB;
-        private SimpleMatrix yB;
-        private SimpleMatrix xV;
-        private SimpleMatrix yV;
+        private int cachedXDim = -1;
+        private int cachedYDim = -1;
+        private SparseSymmetricMatrix smoothnessMatrix;
+        private SparseSymmetricMatrix normalMatrix;
+        private double[] xB;
+        private double[] yB;
+        private double[] xV;
+        private double[] yV;
 
         /**
          * Constructs a vector field smoothing.
@@ -126,37 +134,88 @@ public abstract class ModularPreMovement extends ModularElement {
                 }
             }
 
+            if (xDim != cachedXDim || yDim != cachedYDim) {
+                cachedXDim = xDim;
+                cachedYDim = yDim;
+                buildSmoothnessMatrix();
+                int cornersCount = (xDim + 1) * (yDim + 1);
+                xB = new double[cornersCount];
+                yB = new double[cornersCount];
+                xV = new double[cornersCount];
+                yV = new double[cornersCount];
+            }
+        }
+
+        /**
+         * Builds the normal matrix of the smoothness equations, which only
+         * depends on the grid. The equations require each corner to be the
+         * average of its neighbours.
+         */
+        private void buildSmoothnessMatrix() {
             int cornersCount = (xDim + 1) * (yDim + 1);
-            A = new SimpleMatrix(constrainedNodes.size() + cornersCount, cornersCount);
-            xB = new SimpleMatrix(constrainedNodes.size() + cornersCount, 1);
-            yB = new SimpleMatrix(constrainedNodes.size() + cornersCount, 1);
+            List<Set<Integer>> pattern = new ArrayList<>(cornersCount);
+            for (int corner = 0; corner < cornersCount; corner++) {
+                pattern.add(new HashSet<>());
+            }
+            for (int corner = 0; corner < cornersCount; corner++) {
+                List<Integer> equationCorners = getNeighborCorners(corner);
+                equationCorners.add(corner);
+                for (int first : equationCorners) {
+                    pattern.get(first).addAll(equationCorners);
+                }
+            }
+            int[][] rowColumns = new int[cornersCount][];
+            for (int corner = 0; corner < cornersCount; corner++) {
+                rowColumns[corner] = pattern.get(corner).stream().mapToInt(Integer::intValue).toArray();
+            }
+
+            smoothnessMatrix = new SparseSymmetricMatrix(rowColumns);
+            for (int corner = 0; corner < cornersCount; corner++) {
+                List<Integer> neighbourCorners = getNeighborCorners(corner);
+                double neighbourCoeff = -1.0 / neighbourCorners.size();
+                smoothnessMatrix.add(corner, corner, 1);
+                for (int first : neighbourCorners) {
+                    smoothnessMatrix.add(corner, first, neighbourCoeff);
+                    smoothnessMatrix.add(first, corner, neighbourCoeff);
+                    for (int second : neighbourCorners) {
+                        smoothnessMatrix.add(first, second, neighbourCoeff * neighbourCoeff);
+                    }
+                }
+            }
+            normalMatrix = new SparseSymmetricMatrix(smoothnessMatrix);
         }
 
         /**
-         * Fills the value in the coefficient matrixes A and B
+         * Fills the values of the normal equations. The smoothness equations
+         * are taken from the cached matrix, while the equations that require
+         * the interpolated movement of each constrained node to be its
+         * current movement are added to it.
          */
         private void fillCoeffMatrixes() {
-            int rowIndex = 0;
+            normalMatrix.copyValuesFrom(smoothnessMatrix);
+            Arrays.fill(xB, 0);
+            Arrays.fill(yB, 0);
+            int[] corners = new int[4];
+            double[] weights = new double[4];
             for (Node node : constrainedNodes) {
                 NodeCellInfo cellInfo = getNodeCellInfo(node);
-                A.set(rowIndex, cellInfo.leftBottomCorner, (1 - cellInfo.xOffsetInCell) * (1 - cellInfo.yOffsetInCell));
-                A.set(rowIndex, cellInfo.rightBottomCorner, cellInfo.xOffsetInCell * (1 - cellInfo.yOffsetInCell));
-                A.set(rowIndex, cellInfo.leftTopCorner, (1 - cellInfo.xOffsetInCell) * cellInfo.yOffsetInCell);
-                A.set(rowIndex, cellInfo.rightTopCorner, cellInfo.xOffsetInCell * cellInfo.yOffsetInCell);
-
-                xB.set(rowIndex, 0, movements().get(node).x());
-                yB.set(rowIndex, 0, movements().get(node).y());
-                rowIndex++;
-            }
+                corners[0] = cellInfo.leftBottomCorner;
+                corners[1] = cellInfo.rightBottomCorner;
+                corners[2] = cellInfo.leftTopCorner;
+                corners[3] = cellInfo.rightTopCorner;
+                weights[0] = (1 - cellInfo.xOffsetInCell) * (1 - cellInfo.yOffsetInCell);
+                weights[1] = cellInfo.xOffsetInCell * (1 - cellInfo.yOffsetInCell);
+                weights[2] = (1 - cellInfo.xOffsetInCell) * cellInfo.yOffsetInCell;
+                weights[3] = cellInfo.xOffsetInCell * cellInfo.yOffsetInCell;
 
-            int cornersCount = (xDim + 1) * (yDim + 1);
-            for (int corner = 0; corner < cornersCount; corner++) {
-                List<Integer> neighbourCorners = getNeighborCorners(corner);
-                A.set(rowIndex, corner, 1);
-                for (int neighbourCorner : neighbourCorners) {
-                    A.set(rowIndex, neighbourCorner, -1.0 / neighbourCorners.size());
+                Coordinates movement = movements().get(node);
+                for (int i = 0; i < 4; i++) {
+                    xB[corners[i]] += weights[i] * movement.x();
+                    yB[corners[i]] += weights[i] * movement.y();
+                    for (int j = 0; j < 4; j++) {
+                        normalMatrix.add(corners[i], corners[j], weights[i] * weights[j]);
+                    }
                 }
-                rowIndex++;
             }
         }
 
@@ -229,10 +288,14 @@ public abstract class ModularPreMovement extends ModularElement {
          * system.
          */
         private void computeCornersVectors() {
-            SimpleMatrix tranA = A.transpose();
-            SimpleMatrix tildeA = (tranA.mult(A)).invert().mult(tranA);
-            xV = tildeA.mult(xB);
-            yV = tildeA.mult(yB);
+            if (constrainedNodes.isEmpty()) {
+                Arrays.fill(xV, 0);
+                Arrays.fill(yV, 0);
+                return;
+            }
+            int maxIterations = 2 * xV.length + 10;
+            normalMatrix.solve(xB, xV, solverTolerance, maxIterations);
+            normalMatrix.solve(yB, yV, solverTolerance, maxIterations);
         }
 
         /**
@@ -254,11 +317,11 @@ public abstract class ModularPreMovement extends ModularElement {
          * @param V the V vectors corresponding to the desired component.
          * @return the movement component for the node.
          */
-        private double computeComponent(NodeCellInfo cellInfo, SimpleMatrix V) {
-            double lb = (1 - cellInfo.xOffsetInCell) * (1 - cellInfo.yOffsetInCell) * V.get(cellInfo.leftBottomCorner);
-            double rb = cellInfo.xOffsetInCell * (1 - cellInfo.yOffsetInCell) * V.get(cellInfo.rightBottomCorner);
-            double lt = (1 - cellInfo.xOffsetInCell) * cellInfo.yOffsetInCell * V.get(cellInfo.leftTopCorner);
-            double rt = cellInfo.xOffsetInCell * cellInfo.yOffsetInCell * V.get(cellInfo.rightTopCorner);
+        private double computeComponent(NodeCellInfo cellInfo, double[] V) {
+            double lb = (1 - cellInfo.xOffsetInCell) * (1 - cellInfo.yOffsetInCell) * V[cellInfo.leftBottomCorner];
+            double rb = cellInfo.xOffsetInCell * (1 - cellInfo.yOffsetInCell) * V[cellInfo.rightBottomCorner];
+            double lt = (1 - cellInfo.xOffsetInCell) * cellInfo.yOffsetInCell * V[cellInfo.leftTopCorner];
+            double rt = cellInfo.xOffsetInCell * cellInfo.yOffsetInCell * V[cellInfo.rightTopCorner];
             return lb + rb + lt + rt;
         }
     }
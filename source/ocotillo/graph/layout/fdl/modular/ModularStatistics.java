@@ -30,6 +30,26 @@ public class ModularStatistics {
     private Duration totalRunningTime = Duration.ZERO;
     private final ModularMetric iterationRunningTimes;
     private final List<ModularMetric> metrics = new ArrayList<>();
+    private int iterationCount = 0;
+    private StopReason stopReason = StopReason.iterationLimit;
+
+    /**
+     * The reason why a computation stopped.
+     */
+    public enum StopReason {
+        /**
+         * All the requested iterations have been performed.
+         */
+        iterationLimit,
+        /**
+         * The node displacements fell below the convergence tolerances.
+         */
+        converged,
+        /**
+         * The thread running the computation has been interrupted.
+         */
+        interrupted;
+    }
 
     /**
      * Creates a set of statistics for a modular FDL algorithm.
@@ -58,6 +78,7 @@ public class ModularStatistics {
      * @param iterationRunningTime the running time of this iteration.
      */
     public void runAtIterationEnd(Duration iterationRunningTime) {
+        iterationCount++;
         for (ModularMetric metric : metrics) {
             if (metric != iterationRunningTimes) {
                 metric.runAtIterationEnd();
@@ -89,6 +110,33 @@ public class ModularStatistics {
         return totalRunningTime;
     }
 
+    /**
+     * Gets the number of iterations performed.
+     *
+     * @return the number of iterations.
+     */
+    public int getIterationCount() {
+        return iterationCount;
+    }
+
+    /**
+     * Gets the reason why the computation stopped.
+     *
+     * @return the stop reason.
+     */
+    public StopReason getStopReason() {
+        return stopReason;
+    }
+
+    /**
+     * Sets the reason why the computation stopped.
+     *
+     * @param stopReason the stop reason.
+     */
+    public void setStopReason(StopReason stopReason) {
+        this.stopReason = stopReason;
+    }
+
     /**
      * Gets the list of metrics.
      *
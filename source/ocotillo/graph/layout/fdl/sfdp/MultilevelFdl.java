@@ -0,0 +1,553 @@
+/**
+ * Copyright  2020 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.graph.layout.fdl.sfdp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import ocotillo.geometry.Coordinates;
+import ocotillo.graph.Edge;
+import ocotillo.graph.EdgeAttribute;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.StdAttribute;
+import ocotillo.structures.QuadTree;
+
+/**
+ * In-process multilevel spring-electrical layout in the style of sfdp. The
+ * graph is coarsened by heavy edge matching, the coarsest level is placed at
+ * random and each level is refined with spring-electrical forces, computing
+ * the repulsion with a Barnes-Hut quadtree, before being prolonged to the
+ * next finer level. The final layout is scaled so that the average edge
+ * length matches the desired one.
+ */
+public class MultilevelFdl {
+
+	private static final double STEP_COOLING = 0.9;
+	private static final int PROGRESS_STEPS = 5;
+	private static final double COARSENING_RATIO = 0.75;
+	private static final int MIN_COARSEST_SIZE = 2;
+	private static final int MAX_LEVELS = 50;
+	private static final int PARALLEL_THRESHOLD = 1024;
+
+	private final double desiredEdgeLength;
+	private final double repulsionStrength;
+	private final double theta;
+	private final int maxIterations;
+	private final double tolerance;
+	private final long seed;
+
+	/**
+	 * Builds a multilevel layout.
+	 */
+	public static class MultilevelFdlBuilder {
+
+		private double desiredEdgeLength = 1.0;
+		private double repulsionStrength = 0.2;
+		private double theta = 1.2;
+		private int maxIterations = 300;
+		private double tolerance = 0.01;
+		private long seed = 0;
+
+		/**
+		 * Indicates the desired distance between adjacent nodes.
+		 *
+		 * @param desiredEdgeLength the desired edge length.
+		 * @return the builder.
+		 */
+		public MultilevelFdlBuilder withDesiredEdgeLength(double desiredEdgeLength) {
+			this.desiredEdgeLength = desiredEdgeLength;
+			return this;
+		}
+
+		/**
+		 * Indicates the relative strength of the repulsive forces.
+		 *
+		 * @param repulsionStrength the repulsion strength.
+		 * @return the builder.
+		 */
+		public MultilevelFdlBuilder withRepulsionStrength(double repulsionStrength) {
+			this.repulsionStrength = repulsionStrength;
+			return this;
+		}
+
+		/**
+		 * Indicates the Barnes-Hut opening criterion. Quadtree cells whose
+		 * size over distance ratio is smaller than theta are approximated
+		 * with their centre of mass.
+		 *
+		 * @param theta the opening criterion.
+		 * @return the builder.
+		 */
+		public MultilevelFdlBuilder withTheta(double theta) {
+			this.theta = theta;
+			return this;
+		}
+
+		/**
+		 * Indicates the maximum number of iterations executed on each level.
+		 *
+		 * @param maxIterations the maximum number of iterations.
+		 * @return the builder.
+		 */
+		public MultilevelFdlBuilder withMaxIterations(int maxIterations) {
+			this.maxIterations = maxIterations;
+			return this;
+		}
+
+		/**
+		 * Indicates the step length, relative to the natural spring length,
+		 * under which a level is considered converged.
+		 *
+		 * @param tolerance the convergence tolerance.
+		 * @return the builder.
+		 */
+		public MultilevelFdlBuilder withTolerance(double tolerance) {
+			this.tolerance = tolerance;
+			return this;
+		}
+
+		/**
+		 * Indicates the seed used for the matching order and the initial
+		 * placement.
+		 *
+		 * @param seed the random seed.
+		 * @return the builder.
+		 */
+		public MultilevelFdlBuilder withSeed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		/**
+		 * Builds the multilevel layout.
+		 *
+		 * @return the multilevel layout.
+		 */
+		public MultilevelFdl build() {
+			return new MultilevelFdl(desiredEdgeLength, repulsionStrength, theta, maxIterations, tolerance, seed);
+		}
+	}
+
+	private MultilevelFdl(double desiredEdgeLength, double repulsionStrength, double theta, int maxIterations, double tolerance, long seed) {
+		if(desiredEdgeLength <= 0 || repulsionStrength <= 0)
+			throw new IllegalArgumentException("The desired edge length and the repulsion strength must be positive.");
+		this.desiredEdgeLength = desiredEdgeLength;
+		this.repulsionStrength = repulsionStrength;
+		this.theta = theta;
+		this.maxIterations = maxIterations;
+		this.tolerance = tolerance;
+		this.seed = seed;
+	}
+
+	/**
+	 * Computes the new positions for the given graph.
+	 *
+	 * @param graph the graph.
+	 */
+	public void execute(Graph graph) {
+		Node[] nodes = graph.nodes().toArray(new Node[0]);
+		Arrays.sort(nodes, Comparator.comparing(Node::id));
+		Map<Node, Integer> indices = new HashMap<Node, Integer>(2 * nodes.length);
+		for(int i = 0; i < nodes.length; i++)
+			indices.put(nodes[i], i);
+
+		EdgeAttribute<Double> edgeWeights = graph.hasEdgeAttribute(StdAttribute.weight) ? graph.edgeAttribute(StdAttribute.weight) : null;
+		int edgeCount = graph.edgeCount();
+		int[] sources = new int[edgeCount];
+		int[] targets = new int[edgeCount];
+		double[] weights = new double[edgeCount];
+		long[] keys = new long[edgeCount];
+		int e = 0;
+		for(Edge edge : graph.edges()) {
+			Double weight = edgeWeights != null ? edgeWeights.get(edge) : null;
+			keys[e] = ((long) indices.get(edge.source()) << 32) | indices.get(edge.target());
+			weights[e] = weight != null && weight > 0 ? weight : 1.0;
+			e++;
+		}
+		/* Sorting the edges makes the result depend only on the graph and the seed */
+		Integer[] order = new Integer[edgeCount];
+		for(e = 0; e < edgeCount; e++)
+			order[e] = e;
+		Arrays.sort(order, Comparator.comparingLong(index -> keys[index]));
+		double[] sortedWeights = new double[edgeCount];
+		for(e = 0; e < edgeCount; e++) {
+			sources[e] = (int) (keys[order[e]] >>> 32);
+			targets[e] = (int) keys[order[e]];
+			sortedWeights[e] = weights[order[e]];
+		}
+		weights = sortedWeights;
+
+		double[][] positions = layout(Level.fromEdges(nodes.length, sources, targets, weights));
+		NodeAttribute<Coordinates> nodePositions = graph.nodeAttribute(StdAttribute.nodePosition);
+		for(int i = 0; i < nodes.length; i++)
+			nodePositions.set(nodes[i], new Coordinates(positions[0][i], positions[1][i]));
+	}
+
+	/**
+	 * Computes the layout of a level hierarchy built on the given level.
+	 *
+	 * @param finest the finest level.
+	 * @return the x and y coordinates of the nodes of the finest level.
+	 */
+	private double[][] layout(Level finest) {
+		Random random = new Random(seed);
+		List<Level> levels = new ArrayList<Level>();
+		levels.add(finest);
+		Level current = finest;
+		while(current.size > MIN_COARSEST_SIZE && levels.size() < MAX_LEVELS) {
+			Level coarser = current.coarsen(random);
+			if(coarser.size > COARSENING_RATIO * current.size)
+				break;
+			levels.add(coarser);
+			current = coarser;
+		}
+
+		double k = desiredEdgeLength / Math.cbrt(repulsionStrength);
+		Level coarsest = levels.get(levels.size() - 1);
+		double side = k * Math.sqrt(coarsest.size);
+		double[] x = new double[coarsest.size];
+		double[] y = new double[coarsest.size];
+		for(int i = 0; i < coarsest.size; i++) {
+			x[i] = random.nextDouble() * side;
+			y[i] = random.nextDouble() * side;
+		}
+		refine(coarsest, x, y, k, k, true);
+
+		for(int l = levels.size() - 2; l >= 0; l--) {
+			Level finer = levels.get(l);
+			double scale = Math.sqrt(finer.size / (double) levels.get(l + 1).size);
+			double[] finerX = new double[finer.size];
+			double[] finerY = new double[finer.size];
+			for(int i = 0; i < finer.size; i++) {
+				int parent = finer.parents[i];
+				finerX[i] = x[parent] * scale + (random.nextDouble() - 0.5) * 0.1 * k;
+				finerY[i] = y[parent] * scale + (random.nextDouble() - 0.5) * 0.1 * k;
+			}
+			x = finerX;
+			y = finerY;
+			refine(finer, x, y, k, 0.1 * k, false);
+		}
+
+		double totalLength = 0;
+		for(int i = 0; i < finest.size; i++) {
+			for(int a = finest.adjacencyStart[i]; a < finest.adjacencyStart[i + 1]; a++) {
+				int j = finest.adjacency[a];
+				totalLength += Math.sqrt((x[i] - x[j]) * (x[i] - x[j]) + (y[i] - y[j]) * (y[i] - y[j]));
+			}
+		}
+		if(totalLength > 0) {
+			double scale = desiredEdgeLength * finest.adjacency.length / totalLength;
+			for(int i = 0; i < finest.size; i++) {
+				x[i] *= scale;
+				y[i] *= scale;
+			}
+		}
+		return new double[][]{x, y};
+	}
+
+	/**
+	 * Applies the spring-electrical forces to a level until convergence. The
+	 * coarsest level uses an adaptive step length, while the finer levels,
+	 * which start from the prolonged layout, are only cooled down.
+	 *
+	 * @param level the level.
+	 * @param x the x coordinates, modified in place.
+	 * @param y the y coordinates, modified in place.
+	 * @param k the natural spring length.
+	 * @param initialStep the initial maximum movement.
+	 * @param adaptive whether the step length can increase while the energy decreases.
+	 */
+	private void refine(Level level, double[] x, double[] y, double k, double initialStep, boolean adaptive) {
+		int n = level.size;
+		if(n < 2)
+			return;
+		double repulsion = repulsionStrength * k * k;
+		double step = initialStep;
+		double energy = Double.POSITIVE_INFINITY;
+		int progress = 0;
+		QuadTree tree = new QuadTree();
+		double[] fx = new double[n];
+		double[] fy = new double[n];
+		for(int iteration = 0; iteration < maxIterations; iteration++) {
+			tree.rebuild(x, y, n);
+			IntStream indices = IntStream.range(0, n);
+			if(n >= PARALLEL_THRESHOLD)
+				indices = indices.parallel();
+			indices.forEach(i -> computeForce(level, tree, i, x, y, k, repulsion, fx, fy));
+
+			double previousEnergy = energy;
+			energy = 0;
+			for(int i = 0; i < n; i++) {
+				double magnitude = Math.sqrt(fx[i] * fx[i] + fy[i] * fy[i]);
+				if(magnitude > 0) {
+					x[i] += step * fx[i] / magnitude;
+					y[i] += step * fy[i] / magnitude;
+				}
+				energy += magnitude * magnitude;
+			}
+
+			if(!adaptive) {
+				step *= STEP_COOLING;
+			} else if(energy < previousEnergy) {
+				progress++;
+				if(progress >= PROGRESS_STEPS) {
+					progress = 0;
+					step /= STEP_COOLING;
+				}
+			} else {
+				progress = 0;
+				step *= STEP_COOLING;
+			}
+			if(step < tolerance * k)
+				break;
+		}
+	}
+
+	/**
+	 * Computes the force acting on a node.
+	 *
+	 * @param level the level.
+	 * @param tree the quadtree of the current positions.
+	 * @param i the node index.
+	 * @param x the x coordinates.
+	 * @param y the y coordinates.
+	 * @param k the natural spring length.
+	 * @param repulsion the repulsion constant.
+	 * @param fx the x components of the forces, where the result is stored.
+	 * @param fy the y components of the forces, where the result is stored.
+	 */
+	private void computeForce(Level level, QuadTree tree, int i, double[] x, double[] y, double k, double repulsion, double[] fx, double[] fy) {
+		double[] force = new double[2];
+		repulsion(tree, i, x, y, repulsion, force);
+		for(int a = level.adjacencyStart[i]; a < level.adjacencyStart[i + 1]; a++) {
+			int j = level.adjacency[a];
+			double dx = x[i] - x[j];
+			double dy = y[i] - y[j];
+			double distance = Math.sqrt(dx * dx + dy * dy);
+			force[0] -= dx * distance / k;
+			force[1] -= dy * distance / k;
+		}
+		fx[i] = force[0];
+		fy[i] = force[1];
+	}
+
+	/**
+	 * Computes the repulsive force acting on a node, approximating the cells
+	 * that are small with respect to their distance with their centroid.
+	 *
+	 * @param tree the quadtree of the current positions.
+	 * @param i the node index.
+	 * @param x the x coordinates.
+	 * @param y the y coordinates.
+	 * @param strength the repulsion constant.
+	 * @param force the array where the force is stored.
+	 */
+	private void repulsion(QuadTree tree, int i, double[] x, double[] y, double strength, double[] force) {
+		double fx = 0;
+		double fy = 0;
+		int[] stack = new int[3 * QuadTree.maxDepth + 4];
+		int top = 0;
+		stack[top++] = tree.root();
+		while(top > 0) {
+			int cell = stack[--top];
+			int mass = tree.pointCount(cell);
+			if(mass == 0)
+				continue;
+			if(tree.minDistance(cell, x[i], y[i]) > 0) {
+				double dx = x[i] - tree.centroidX(cell);
+				double dy = y[i] - tree.centroidY(cell);
+				double distanceSquared = dx * dx + dy * dy;
+				double side = tree.cellSize(cell);
+				if(side * side < theta * theta * distanceSquared) {
+					double f = strength * mass / distanceSquared;
+					fx += dx * f;
+					fy += dy * f;
+					continue;
+				}
+			}
+			if(tree.isLeaf(cell)) {
+				for(int k = 0; k < mass; k++) {
+					int j = tree.point(cell, k);
+					double dx = x[i] - x[j];
+					double dy = y[i] - y[j];
+					double distanceSquared = dx * dx + dy * dy;
+					if(j != i && distanceSquared > 0) {
+						double f = strength / distanceSquared;
+						fx += dx * f;
+						fy += dy * f;
+					}
+				}
+			} else {
+				for(int q = 0; q < 4; q++) {
+					int child = tree.child(cell, q);
+					if(child != -1)
+						stack[top++] = child;
+				}
+			}
+		}
+		force[0] = fx;
+		force[1] = fy;
+	}
+
+	/**
+	 * A level of the hierarchy, stored as a symmetric adjacency structure
+	 * without self loops.
+	 */
+	private static class Level {
+
+		private final int size;
+		private final int[] adjacencyStart;
+		private final int[] adjacency;
+		private final double[] adjacencyWeight;
+		private int[] parents;
+
+		private Level(int size, int[] adjacencyStart, int[] adjacency, double[] adjacencyWeight) {
+			this.size = size;
+			this.adjacencyStart = adjacencyStart;
+			this.adjacency = adjacency;
+			this.adjacencyWeight = adjacencyWeight;
+		}
+
+		/**
+		 * Builds a level from a list of edges, merging parallel edges.
+		 *
+		 * @param size the number of nodes.
+		 * @param sources the edge sources.
+		 * @param targets the edge targets.
+		 * @param weights the edge weights.
+		 * @return the level.
+		 */
+		private static Level fromEdges(int size, int[] sources, int[] targets, double[] weights) {
+			int[] degree = new int[size + 1];
+			for(int e = 0; e < sources.length; e++) {
+				if(sources[e] != targets[e]) {
+					degree[sources[e] + 1]++;
+					degree[targets[e] + 1]++;
+				}
+			}
+			for(int i = 0; i < size; i++)
+				degree[i + 1] += degree[i];
+			int[] adjacency = new int[degree[size]];
+			double[] adjacencyWeight = new double[degree[size]];
+			int[] next = Arrays.copyOf(degree, size);
+			for(int e = 0; e < sources.length; e++) {
+				int s = sources[e];
+				int t = targets[e];
+				if(s != t) {
+					adjacency[next[s]] = t;
+					adjacencyWeight[next[s]++] = weights[e];
+					adjacency[next[t]] = s;
+					adjacencyWeight[next[t]++] = weights[e];
+				}
+			}
+			return new Level(size, degree, adjacency, adjacencyWeight).withoutParallelEdges();
+		}
+
+		/**
+		 * Merges the adjacency entries that refer to the same neighbour.
+		 *
+		 * @return the level with unique neighbours.
+		 */
+		private Level withoutParallelEdges() {
+			int[] position = new int[size];
+			Arrays.fill(position, -1);
+			int[] newStart = new int[size + 1];
+			int[] newAdjacency = new int[adjacency.length];
+			double[] newWeight = new double[adjacency.length];
+			int count = 0;
+			for(int i = 0; i < size; i++) {
+				newStart[i] = count;
+				for(int a = adjacencyStart[i]; a < adjacencyStart[i + 1]; a++) {
+					int j = adjacency[a];
+					if(position[j] >= newStart[i]) {
+						newWeight[position[j]] += adjacencyWeight[a];
+					} else {
+						position[j] = count;
+						newAdjacency[count] = j;
+						newWeight[count++] = adjacencyWeight[a];
+					}
+				}
+			}
+			newStart[size] = count;
+			return new Level(size, newStart, Arrays.copyOf(newAdjacency, count), Arrays.copyOf(newWeight, count));
+		}
+
+		/**
+		 * Builds the next coarser level by heavy edge matching. Each node is
+		 * matched, in random order, with the unmatched neighbour connected by
+		 * the heaviest edge.
+		 *
+		 * @param random the random generator.
+		 * @return the coarser level.
+		 */
+		private Level coarsen(Random random) {
+			int[] order = new int[size];
+			for(int i = 0; i < size; i++)
+				order[i] = i;
+			for(int i = size - 1; i > 0; i--) {
+				int j = random.nextInt(i + 1);
+				int swap = order[i];
+				order[i] = order[j];
+				order[j] = swap;
+			}
+
+			parents = new int[size];
+			Arrays.fill(parents, -1);
+			int coarseSize = 0;
+			for(int i : order) {
+				if(parents[i] >= 0)
+					continue;
+				int match = -1;
+				double matchWeight = Double.NEGATIVE_INFINITY;
+				for(int a = adjacencyStart[i]; a < adjacencyStart[i + 1]; a++) {
+					int j = adjacency[a];
+					if(parents[j] < 0 && adjacencyWeight[a] > matchWeight) {
+						match = j;
+						matchWeight = adjacencyWeight[a];
+					}
+				}
+				parents[i] = coarseSize;
+				if(match >= 0)
+					parents[match] = coarseSize;
+				coarseSize++;
+			}
+
+			int[] sources = new int[adjacency.length];
+			int[] targets = new int[adjacency.length];
+			double[] weights = new double[adjacency.length];
+			int count = 0;
+			for(int i = 0; i < size; i++) {
+				for(int a = adjacencyStart[i]; a < adjacencyStart[i + 1]; a++) {
+					int j = adjacency[a];
+					if(i < j && parents[i] != parents[j]) {
+						sources[count] = parents[i];
+						targets[count] = parents[j];
+						weights[count++] = adjacencyWeight[a];
+					}
+				}
+			}
+			return fromEdges(coarseSize, Arrays.copyOf(sources, count), Arrays.copyOf(targets, count), Arrays.copyOf(weights, count));
+		}
+	}
+}
@@ -21,6 +21,7 @@ import ocotillo.graph.Graph;
 import ocotillo.graph.Node;
 import ocotillo.graph.NodeAttribute;
 import ocotillo.graph.StdAttribute;
+import ocotillo.graph.layout.fdl.sfdp.MultilevelFdl.MultilevelFdlBuilder;
 import ocotillo.multilevel.logger.Logger;
 import ocotillo.serialization.dot.DotReader;
 import ocotillo.serialization.dot.DotReader.DotReaderBuilder;
@@ -45,7 +46,9 @@ import org.apache.commons.exec.DefaultExecutor;
 import org.apache.commons.exec.PumpStreamHandler;
 
 /**
- * Executor for GraphViz's Scalable Force Directed Placement algorithm.
+ * Executor for GraphViz's Scalable Force Directed Placement algorithm. The
+ * in-process layout option runs a multilevel force directed layout in the
+ * JVM instead of spawning the GraphViz executables.
  */
 public class SfdpExecutor {
 
@@ -59,11 +62,13 @@ public class SfdpExecutor {
 
 	public enum AVAILABLE_STATIC_LAYOUTS{
 		fdp,
-		sfdp;
+		sfdp,
+		inprocess;
 
 		public static String parse(AVAILABLE_STATIC_LAYOUTS c) {
 			switch(c) {
 			case fdp: return FDP_LINE;
+			case inprocess: throw new IllegalArgumentException("The in-process layout does not use a command line.");
 			case sfdp: 
 			default: return SFDP_LINE;
 			}
@@ -73,13 +78,15 @@ public class SfdpExecutor {
 			switch(c) {
 			case fdp: return "FDP";
 			case sfdp: return "SFDP";
+			case inprocess: return "In-process SFDP";
 			default: return "Invalid algorithm code";
 			}		
 		}
 	}
 
-	public final static AVAILABLE_STATIC_LAYOUTS DEFAULT_COMMAND_LINE = AVAILABLE_STATIC_LAYOUTS.sfdp;
+	public final static AVAILABLE_STATIC_LAYOUTS DEFAULT_COMMAND_LINE = AVAILABLE_STATIC_LAYOUTS.inprocess;
 	private final String COMMAND_LINE;
+	private final MultilevelFdl inProcessLayout;
 
 
 	private final String[] arguments;
@@ -95,6 +102,7 @@ public class SfdpExecutor {
 		private DotReader dotReader;
 		private DotWriter dotWriter;
 		private AVAILABLE_STATIC_LAYOUTS commandLine = DEFAULT_COMMAND_LINE;        
+		private MultilevelFdl inProcessLayout = new MultilevelFdlBuilder().build();
 
 		/**
 		 * Constructs a SfdpBuilder.
@@ -159,13 +167,24 @@ public class SfdpExecutor {
 			return this;
 		}
 
+		/**
+		 * Indicates the layout to use when the in-process option is selected.
+		 *
+		 * @param inProcessLayout the in-process layout.
+		 * @return the builder.
+		 */
+		public SfdpBuilder withInProcessLayout(MultilevelFdl inProcessLayout) {
+			this.inProcessLayout = inProcessLayout;
+			return this;
+		}
+
 		/**
 		 * Builds a sfdp executor.
 		 *
 		 * @return the sfdp executor.
 		 */
 		public SfdpExecutor build() {
-			return new SfdpExecutor(arguments, dotReader, dotWriter, commandLine);
+			return new SfdpExecutor(arguments, dotReader, dotWriter, commandLine, inProcessLayout);
 		}
 	}
 
@@ -175,8 +194,20 @@ public class SfdpExecutor {
 	 * @param arguments the arguments.
 	 * @param dotReader the dot reader.
 	 * @param dotWriter the dot writer.
+	 * @param commandLine the layout to execute.
+	 * @param inProcessLayout the layout used by the in-process option.
 	 */
-	private SfdpExecutor(String[] arguments, DotReader dotReader, DotWriter dotWriter, AVAILABLE_STATIC_LAYOUTS commandLine) {
+	private SfdpExecutor(String[] arguments, DotReader dotReader, DotWriter dotWriter, AVAILABLE_STATIC_LAYOUTS commandLine, MultilevelFdl inProcessLayout) {
+		this.arguments = arguments;
+		this.dotReader = dotReader;
+		this.dotWriter = dotWriter;
+
+		if(commandLine == AVAILABLE_STATIC_LAYOUTS.inprocess) {
+			this.COMMAND_LINE = null;
+			this.inProcessLayout = inProcessLayout;
+			return;
+		}
+		this.inProcessLayout = null;
 
 		Properties props = new Properties();
 		String prefix = DEFAULT_PREFIX;
@@ -199,9 +230,6 @@ public class SfdpExecutor {
 			prefix += " ";
 		this.COMMAND_LINE = prefix + AVAILABLE_STATIC_LAYOUTS.parse(commandLine);
 		log.log(this.COMMAND_LINE);
-		this.arguments = arguments;
-		this.dotReader = dotReader;
-		this.dotWriter = dotWriter;
 		checkExecutable();        
 	}
 
@@ -224,6 +252,10 @@ public class SfdpExecutor {
 	 * @param graph the graph.
 	 */
 	public void execute(Graph graph) {
+		if(inProcessLayout != null) {
+			inProcessLayout.execute(graph);
+			return;
+		}
 		List<String> dotInput = dotWriter.writeGraph(graph);
 		List<String> dotOutput = run(dotInput);
 		Graph generatedGraph = dotReader.parseFile(dotOutput);
@@ -0,0 +1,716 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.graph.layout.locator.grid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntSupplier;
+import ocotillo.geometry.Box;
+import ocotillo.geometry.Geom;
+import ocotillo.geometry.GeomE;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Element;
+import ocotillo.graph.ElementAttribute;
+import ocotillo.graph.Graph;
+import ocotillo.graph.GraphWithElements;
+import ocotillo.graph.Node;
+import ocotillo.graph.Observer;
+import ocotillo.graph.layout.locator.ElementLocatorAbst;
+
+/**
+ * Locator based on a uniform grid of cubic cells. Each element is registered
+ * in the cells overlapped by its box, and only the cells overlapped by the
+ * query box are inspected when answering a query. Elements whose box spans
+ * too many cells are kept in a separate list that is always inspected. An
+ * element is considered too large when it spans more cells than the elements
+ * of its kind in the graph: a rebuild runs about one query per element, so
+ * registering it in its cells is then more expensive than checking it in
+ * every query.
+ *
+ * When the locator is rebuilt, the element boxes are recomputed and only the
+ * elements that moved to different cells are updated in the grid. This makes
+ * the rebuild much cheaper than building a new structure when most elements
+ * move by less than a cell at each step, as in force-directed algorithms.
+ */
+public class GridLocator extends ElementLocatorAbst {
+
+    /**
+     * The number of cells in which an element is always registered, even in
+     * graphs with fewer elements.
+     */
+    public static final int maxCellsPerElement = 64;
+
+    private static final int coordinateBits = 21;
+    private static final int maxCellCoordinate = (1 << (coordinateBits - 1)) - 1;
+    private static final int hashedDimensions = 3;
+
+    private final double cellSize;
+    private final boolean autoSync;
+    private final Grid<Node> nodeGrid = new Grid<>(() -> graph.nodeCount());
+    private final Grid<Edge> edgeGrid = new Grid<>(() -> graph.edgeCount());
+
+    private Observer.GraphElements elementObserver;
+    private Observer.ElementAttributeChanges<Node> nodePositionObserver;
+    private Observer.ElementAttributeChanges<Node> nodeSizeObserver;
+    private Observer.ElementAttributeChanges<Edge> edgePointsObserver;
+    private Observer.ElementAttributeChanges<Edge> edgeWitdhObserver;
+
+    /**
+     * Builder for grid locator.
+     */
+    public static class GlBuilder {
+
+        private final Graph graph;
+        private final NodePolicy nodePolicy;
+        private final EdgePolicy edgePolicy;
+        private GeomE geometry = Geom.e2D;
+        private double cellSize = Double.NaN;
+        private boolean autoSync = true;
+
+        /**
+         * Construct a grid locator builder.
+         *
+         * @param graph the graph.
+         * @param nodePolicy the node policy.
+         * @param edgePolicy the edge policy.
+         */
+        public GlBuilder(Graph graph, NodePolicy nodePolicy, EdgePolicy edgePolicy) {
+            this.graph = graph;
+            this.nodePolicy = nodePolicy;
+            this.edgePolicy = edgePolicy;
+        }
+
+        /**
+         * Indicates the Euclidean geometry to be used.
+         *
+         * @param geometry the geometry.
+         * @return this builder.
+         */
+        public GlBuilder withGeometry(GeomE geometry) {
+            this.geometry = geometry;
+            return this;
+        }
+
+        /**
+         * Indicates the side of the grid cells. The best performance is
+         * usually obtained with cells comparable to the typical query radius.
+         * If not indicated, the side is estimated from the initial node
+         * distribution.
+         *
+         * @param cellSize the side of the cells.
+         * @return this builder.
+         */
+        public GlBuilder withCellSize(double cellSize) {
+            if (!(cellSize > 0)) {
+                throw new IllegalArgumentException("The cell size must be positive: " + cellSize);
+            }
+            this.cellSize = cellSize;
+            return this;
+        }
+
+        /**
+         * Enables automatic synchronisation.
+         *
+         * @return this builder.
+         */
+        public GlBuilder enableAutoSync() {
+            this.autoSync = true;
+            return this;
+        }
+
+        /**
+         * Disables automatic synchronisation. The structure must be updated
+         * using rebuild.
+         *
+         * @return this builder.
+         */
+        public GlBuilder disableAutoSync() {
+            this.autoSync = false;
+            return this;
+        }
+
+        /**
+         * Generates the grid locator.
+         *
+         * @return the locator.
+         */
+        public GridLocator build() {
+            return new GridLocator(graph, geometry, nodePolicy, edgePolicy, cellSize, autoSync);
+        }
+    }
+
+    /**
+     * Builds a grid locator.
+     *
+     * @param graph the graph.
+     * @param geometry the geometry to be used.
+     * @param nodePolicy the node policy.
+     * @param edgePolicy the edge policy.
+     * @param cellSize the cell size, or NaN to estimate it.
+     * @param autoSync the autoSync status.
+     */
+    private GridLocator(Graph graph, GeomE geometry, NodePolicy nodePolicy, EdgePolicy edgePolicy, double cellSize, boolean autoSync) {
+        super(graph, geometry, nodePolicy, edgePolicy);
+        this.cellSize = Double.isNaN(cellSize) ? estimateCellSize() : cellSize;
+        this.autoSync = autoSync;
+        build();
+
+        if (autoSync) {
+            elementObserver = new ElementObserver(graph);
+            nodePositionObserver = new NodePositionObserver(nodePositions);
+            nodeSizeObserver = new NodeSizeObserver(nodeSizes);
+            edgePointsObserver = new EdgeAttributeObserver(edgePoints);
+            edgeWitdhObserver = new EdgeAttributeObserver(edgeWidths);
+        }
+    }
+
+    /**
+     * Estimates a cell size so that the nodes are distributed in about as
+     * many cells as there are nodes.
+     *
+     * @return the cell size.
+     */
+    private double estimateCellSize() {
+        if (graph.nodeCount() == 0) {
+            return 1;
+        }
+        List<Box> boxes = new ArrayList<>(graph.nodeCount());
+        for (Node node : graph.nodes()) {
+            boxes.add(computeBox(node));
+        }
+        double side = Box.combine(boxes).maxDim() / Math.ceil(Math.pow(graph.nodeCount(), 1.0 / geomDim));
+        return side > 0 && !Double.isInfinite(side) ? side : 1;
+    }
+
+    /**
+     * Returns the side of the grid cells.
+     *
+     * @return the cell size.
+     */
+    public double cellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Initialises the structure by bulk loading all nodes and edges boxes.
+     */
+    private void build() {
+        nodeGrid.clear();
+        edgeGrid.clear();
+        nodeBoxes.clear();
+        edgeBoxes.clear();
+
+        if (nodePolicy != NodePolicy.ignoreNodes) {
+            for (Node node : graph.nodes()) {
+                updateBox(node);
+            }
+        }
+        if (edgePolicy != EdgePolicy.ignoreEdges) {
+            for (Edge edge : graph.edges()) {
+                updateBox(edge);
+            }
+        }
+    }
+
+    /**
+     * Updates the boxes of all the elements, moving in the grid only the
+     * elements whose cells changed, and removes the elements no longer in
+     * the graph.
+     */
+    private void update() {
+        if (nodePolicy != NodePolicy.ignoreNodes) {
+            for (Node node : graph.nodes()) {
+                updateBox(node);
+            }
+            if (nodeGrid.size() > graph.nodeCount()) {
+                for (Node node : nodeGrid.elements()) {
+                    if (!graph.has(node)) {
+                        updateBox(node);
+                    }
+                }
+            }
+        }
+        if (edgePolicy != EdgePolicy.ignoreEdges) {
+            for (Edge edge : graph.edges()) {
+                updateBox(edge);
+            }
+            if (edgeGrid.size() > graph.edgeCount()) {
+                for (Edge edge : edgeGrid.elements()) {
+                    if (!graph.has(edge)) {
+                        updateBox(edge);
+                    }
+                }
+            }
+        }
+        nodeBoxes.keySet().retainAll(nodeGrid.elements());
+        edgeBoxes.keySet().retainAll(edgeGrid.elements());
+    }
+
+    @Override
+    protected void updateBox(Node node) {
+        if (graph.has(node)) {
+            super.updateBox(node);
+            nodeGrid.put(node, nodeBoxes.get(node));
+        } else {
+            nodeBoxes.remove(node);
+            nodeGrid.remove(node);
+        }
+    }
+
+    @Override
+    protected void updateBox(Edge edge) {
+        if (graph.has(edge)) {
+            super.updateBox(edge);
+            edgeGrid.put(edge, edgeBoxes.get(edge));
+        } else {
+            edgeBoxes.remove(edge);
+            edgeGrid.remove(edge);
+        }
+    }
+
+    @Override
+    public void rebuild() {
+        if (!autoSync) {
+            update();
+        }
+    }
+
+    @Override
+    public Collection<Node> getNodesPartiallyInBox(Box box) {
+        return nodeGrid.query(box, nodeBoxes, false);
+    }
+
+    @Override
+    public Collection<Node> getNodesFullyInBox(Box box) {
+        return nodeGrid.query(box, nodeBoxes, true);
+    }
+
+    @Override
+    public Collection<Edge> getEdgesPartiallyInBox(Box box) {
+        return edgeGrid.query(box, edgeBoxes, false);
+    }
+
+    @Override
+    public Collection<Edge> getEdgesFullyInBox(Box box) {
+        return edgeGrid.query(box, edgeBoxes, true);
+    }
+
+    /**
+     * Returns the number of elements kept outside the cells, as they span
+     * too many of them.
+     *
+     * @return the number of large elements.
+     */
+    int largeElementCount() {
+        return nodeGrid.largeElements.size() + edgeGrid.largeElements.size();
+    }
+
+    @Override
+    public void close() {
+        if (autoSync) {
+            elementObserver.unregister();
+            nodePositionObserver.unregister();
+            nodeSizeObserver.unregister();
+            edgePointsObserver.unregister();
+            edgeWitdhObserver.unregister();
+        }
+    }
+
+    /**
+     * Computes the range of cells overlapped by a box. The range contains the
+     * minimum cell coordinates followed by the maximum ones.
+     *
+     * @param box the box.
+     * @return the cell range.
+     */
+    private int[] cellRange(Box box) {
+        int dims = Math.min(geomDim, hashedDimensions);
+        int[] range = new int[2 * dims];
+        for (int i = 0; i < dims; i++) {
+            range[i] = cellCoordinate(box.leftBound(i));
+            range[dims + i] = cellCoordinate(box.rightBound(i));
+        }
+        return range;
+    }
+
+    /**
+     * Computes the cell coordinate that contains the given value.
+     *
+     * @param value the value.
+     * @return the cell coordinate.
+     */
+    private int cellCoordinate(double value) {
+        double cell = Math.floor(value / cellSize);
+        if (cell > maxCellCoordinate) {
+            return maxCellCoordinate;
+        } else if (cell < -maxCellCoordinate) {
+            return -maxCellCoordinate;
+        } else if (Double.isNaN(cell)) {
+            return 0;
+        }
+        return (int) cell;
+    }
+
+    /**
+     * Computes the number of cells in a cell range.
+     *
+     * @param range the cell range.
+     * @return the number of cells.
+     */
+    private static long cellCount(int[] range) {
+        int dims = range.length / 2;
+        long count = 1;
+        for (int i = 0; i < dims; i++) {
+            count *= range[dims + i] - range[i] + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Computes the key of a cell.
+     *
+     * @param cell the cell coordinates.
+     * @return the key.
+     */
+    private static long cellKey(int[] cell) {
+        long mask = (1L << coordinateBits) - 1;
+        long key = 0;
+        for (int coordinate : cell) {
+            key = (key << coordinateBits) | (coordinate & mask);
+        }
+        return key;
+    }
+
+    /**
+     * Checks if a query box overlaps an element box. Boxes are considered
+     * closed, so that touching boxes overlap.
+     *
+     * @param query the query box.
+     * @param box the element box.
+     * @return true if the boxes overlap.
+     */
+    private boolean overlaps(Box query, Box box) {
+        for (int i = 0; i < geomDim; i++) {
+            if (box.leftBound(i) > query.rightBound(i) || box.rightBound(i) < query.leftBound(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if an element box is contained in a query box.
+     *
+     * @param query the query box.
+     * @param box the element box.
+     * @return true if the element box is contained in the query box.
+     */
+    private boolean contains(Box query, Box box) {
+        for (int i = 0; i < geomDim; i++) {
+            if (box.leftBound(i) < query.leftBound(i) || box.rightBound(i) > query.rightBound(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The grid cells for a type of element.
+     *
+     * @param <T> the type of element.
+     */
+    private class Grid<T extends Element> {
+
+        private final Map<Long, List<T>> cells = new HashMap<>();
+        private final Map<T, int[]> ranges = new LinkedHashMap<>();
+        private final Set<T> largeElements = new LinkedHashSet<>();
+        private final IntSupplier graphElementCount;
+
+        /**
+         * Builds a grid.
+         *
+         * @param graphElementCount the number of elements of this type in the
+         * graph.
+         */
+        private Grid(IntSupplier graphElementCount) {
+            this.graphElementCount = graphElementCount;
+        }
+
+        /**
+         * Returns the number of elements in the grid.
+         *
+         * @return the number of elements.
+         */
+        private int size() {
+            return ranges.size();
+        }
+
+        /**
+         * Returns the elements in the grid.
+         *
+         * @return the elements.
+         */
+        private Collection<T> elements() {
+            return new ArrayList<>(ranges.keySet());
+        }
+
+        /**
+         * Removes all the elements.
+         */
+        private void clear() {
+            cells.clear();
+            ranges.clear();
+            largeElements.clear();
+        }
+
+        /**
+         * Inserts or updates an element. The element is moved only if the
+         * cells overlapped by its box changed.
+         *
+         * @param element the element.
+         * @param box its box.
+         */
+        private void put(T element, Box box) {
+            int[] range = cellRange(box);
+            int[] previousRange = ranges.get(element);
+            if (previousRange != null) {
+                if (Arrays.equals(previousRange, range)) {
+                    return;
+                }
+                remove(element);
+            }
+            ranges.put(element, range);
+            if (cellCount(range) > Math.max(maxCellsPerElement, graphElementCount.getAsInt())) {
+                largeElements.add(element);
+            } else {
+                forEachCell(range, key -> cells.computeIfAbsent(key, k -> new ArrayList<>(4)).add(element));
+            }
+        }
+
+        /**
+         * Removes an element.
+         *
+         * @param element the element.
+         */
+        private void remove(T element) {
+            int[] range = ranges.remove(element);
+            if (range == null || largeElements.remove(element)) {
+                return;
+            }
+            forEachCell(range, key -> {
+                List<T> cell = cells.get(key);
+                cell.remove(element);
+                if (cell.isEmpty()) {
+                    cells.remove(key);
+                }
+            });
+        }
+
+        /**
+         * Finds the elements whose box overlaps or is contained in the query
+         * box.
+         *
+         * @param query the query box.
+         * @param boxes the element boxes.
+         * @param fully true to return only the elements contained in the
+         * query box.
+         * @return the elements found.
+         */
+        private Collection<T> query(Box query, Map<T, Box> boxes, boolean fully) {
+            Set<T> result = new LinkedHashSet<>();
+            int[] range = cellRange(query);
+            if (cellCount(range) > cells.size()) {
+                for (List<T> cell : cells.values()) {
+                    collect(cell, query, boxes, fully, result);
+                }
+            } else {
+                forEachCell(range, key -> {
+                    List<T> cell = cells.get(key);
+                    if (cell != null) {
+                        collect(cell, query, boxes, fully, result);
+                    }
+                });
+            }
+            collect(largeElements, query, boxes, fully, result);
+            return result;
+        }
+
+        /**
+         * Adds to the result the candidates that satisfy the query.
+         *
+         * @param candidates the candidates.
+         * @param query the query box.
+         * @param boxes the element boxes.
+         * @param fully true to accept only the elements contained in the
+         * query box.
+         * @param result the result.
+         */
+        private void collect(Collection<T> candidates, Box query, Map<T, Box> boxes, boolean fully, Set<T> result) {
+            for (T candidate : candidates) {
+                if (!result.contains(candidate)) {
+                    Box box = boxes.get(candidate);
+                    if (fully ? contains(query, box) : overlaps(query, box)) {
+                        result.add(candidate);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Runs an action on the keys of all cells in a range.
+         *
+         * @param range the cell range.
+         * @param action the action.
+         */
+        private void forEachCell(int[] range, CellAction action) {
+            int dims = range.length / 2;
+            int[] cell = Arrays.copyOf(range, dims);
+            while (true) {
+                action.run(cellKey(cell));
+                int i = 0;
+                while (i < dims && cell[i] == range[dims + i]) {
+                    cell[i] = range[i];
+                    i++;
+                }
+                if (i == dims) {
+                    return;
+                }
+                cell[i]++;
+            }
+        }
+    }
+
+    /**
+     * Action performed on a grid cell.
+     */
+    @FunctionalInterface
+    private interface CellAction {
+
+        /**
+         * Runs the action.
+         *
+         * @param key the cell key.
+         */
+        public void run(long key);
+    }
+
+    /**
+     * Observer for element insertion or removal.
+     */
+    private class ElementObserver extends Observer.GraphElements {
+
+        public ElementObserver(GraphWithElements observedGraph) {
+            super(observedGraph);
+        }
+
+        @Override
+        public void theseElementsChanged(Collection<Element> changedElements) {
+            for (Element element : changedElements) {
+                if (element instanceof Node && nodePolicy != NodePolicy.ignoreNodes) {
+                    updateBox((Node) element);
+                } else if (element instanceof Edge && edgePolicy != EdgePolicy.ignoreEdges) {
+                    updateBox((Edge) element);
+                }
+            }
+        }
+    }
+
+    /**
+     * Observer for changes in node position attribute.
+     */
+    private class NodePositionObserver extends Observer.ElementAttributeChanges<Node> {
+
+        public NodePositionObserver(ElementAttribute<Node, ?> attributeObserved) {
+            super(attributeObserved);
+        }
+
+        @Override
+        public void update(Collection<Node> changedElements) {
+            Set<Edge> changedEdges = new LinkedHashSet<>();
+            for (Node node : changedElements) {
+                if (nodePolicy != NodePolicy.ignoreNodes) {
+                    updateBox(node);
+                }
+                if (edgePolicy != EdgePolicy.ignoreEdges && graph.has(node)) {
+                    changedEdges.addAll(graph.inOutEdges(node));
+                }
+            }
+            for (Edge edge : changedEdges) {
+                updateBox(edge);
+            }
+        }
+
+        @Override
+        public void updateAll() {
+            GridLocator.this.update();
+        }
+    }
+
+    /**
+     * Observer for changes in node size attribute.
+     */
+    private class NodeSizeObserver extends Observer.ElementAttributeChanges<Node> {
+
+        public NodeSizeObserver(ElementAttribute<Node, ?> attributeObserved) {
+            super(attributeObserved);
+        }
+
+        @Override
+        public void update(Collection<Node> changedElements) {
+            if (nodePolicy != NodePolicy.ignoreNodes) {
+                for (Node node : changedElements) {
+                    updateBox(node);
+                }
+            }
+        }
+
+        @Override
+        public void updateAll() {
+            GridLocator.this.update();
+        }
+    }
+
+    /**
+     * Observer for changes in relevant edge attributes.
+     */
+    private class EdgeAttributeObserver extends Observer.ElementAttributeChanges<Edge> {
+
+        public EdgeAttributeObserver(ElementAttribute<Edge, ?> attributeObserved) {
+            super(attributeObserved);
+        }
+
+        @Override
+        public void update(Collection<Edge> changedElements) {
+            if (edgePolicy != EdgePolicy.ignoreEdges) {
+                for (Edge edge : changedElements) {
+                    updateBox(edge);
+                }
+            }
+        }
+
+        @Override
+        public void updateAll() {
+            GridLocator.this.update();
+        }
+    }
+}
@@ -15,8 +15,10 @@
  */
 package ocotillo.graph.layout.locator.intervaltree;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import ocotillo.geometry.Box;
 import ocotillo.geometry.Geom;
@@ -139,8 +141,9 @@ public class IntervalTreeLocator extends ElementLocatorAbst {
     }
 
     /**
-     * Initialises the structure by adding all nodes and edges boxes.
+     * Initialises the structure by bulk loading all nodes and edges boxes.
      */
+    @SuppressWarnings("unchecked")
     private void build() {
         nodeTree.clear();
         edgeTree.clear();
@@ -148,14 +151,22 @@ public class IntervalTreeLocator extends ElementLocatorAbst {
         edgeBoxes.clear();
 
         if (nodePolicy != NodePolicy.ignoreNodes) {
+            List<Boxed<Node>> boxedNodes = new ArrayList<>(graph.nodeCount());
             for (Node node : graph.nodes()) {
-                updateBox(node);
+                Box nodeBox = computeBox(node);
+                nodeBoxes.put(node, nodeBox);
+                boxedNodes.add((Boxed<Node>) nodeBox);
             }
+            nodeTree.insertAll(boxedNodes);
         }
         if (edgePolicy != EdgePolicy.ignoreEdges) {
+            List<Boxed<Edge>> boxedEdges = new ArrayList<>(graph.edgeCount());
             for (Edge edge : graph.edges()) {
-                updateBox(edge);
+                Box edgeBox = computeBox(edge);
+                edgeBoxes.put(edge, edgeBox);
+                boxedEdges.add((Boxed<Edge>) edgeBox);
             }
+            edgeTree.insertAll(boxedEdges);
         }
     }
 
@@ -21,6 +21,8 @@ import java.time.Duration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
 
 import ocotillo.dygraph.DyGraph;
 import ocotillo.dygraph.extra.SpaceTimeCubeSynchroniser;
@@ -30,18 +32,25 @@ import ocotillo.dygraph.layout.fdl.modular.DyModularForce;
 import ocotillo.dygraph.layout.fdl.modular.DyModularPreMovement;
 import ocotillo.geometry.Geom;
 import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
 import ocotillo.graph.layout.fdl.modular.ModularConstraint;
+import ocotillo.graph.layout.fdl.modular.ModularInstrumentation;
+import ocotillo.graph.layout.fdl.modular.ModularInstrumentation.Timer;
 import ocotillo.graph.layout.fdl.modular.ModularMetric;
 import ocotillo.graph.layout.fdl.modular.ModularPostProcessing;
 import ocotillo.graph.layout.fdl.modular.ModularStatistics;
+import ocotillo.graph.layout.fdl.sfdp.MultilevelFdl.MultilevelFdlBuilder;
 import ocotillo.graph.layout.fdl.sfdp.SfdpExecutor;
 import ocotillo.graph.layout.fdl.sfdp.SfdpExecutor.AVAILABLE_STATIC_LAYOUTS;
 import ocotillo.graph.layout.fdl.sfdp.SfdpExecutor.SfdpBuilder;
 import ocotillo.gui.quickview.DyQuickView;
 import ocotillo.multilevel.MultilevelMetrics.CoarseningTime;
 import ocotillo.multilevel.MultilevelMetrics.HierarchyDepth;
+import ocotillo.multilevel.MultilevelMetrics.LevelIterations;
+import ocotillo.multilevel.MultilevelMetrics.LevelStopReason;
 import ocotillo.multilevel.MultilevelMetrics.MultiLevelPreProcessTime;
 import ocotillo.multilevel.MultilevelMetrics.PlacementTime;
+import ocotillo.multilevel.coarsening.CoarseningHierarchy;
 import ocotillo.multilevel.coarsening.GraphCoarsener;
 import ocotillo.multilevel.cooling.MultiLevelCoolingStrategy;
 import ocotillo.multilevel.cooling.MultiLevelCoolingStrategy.LinearCoolingStrategy;
@@ -82,6 +91,10 @@ public class MultiLevelDynNoSlice {
 	public static final String MAX_ITERATIONS = "mIterations";	
 	public static final double MAX_ITERATIONS_DEFAULT = 75;	
 	public static final double MIN_ITERATIONS_DEFAULT = 20;	
+	public static final String CONVERGENCE_MAX_MOVEMENT = "cMaxMovement";
+	public static final String CONVERGENCE_MEAN_MOVEMENT = "cMeanMovement";
+	public static final String MIN_LEVEL_ITERATIONS = "mLevelIterations";
+	public static final double MIN_LEVEL_ITERATIONS_DEFAULT = 5;
 	
 	public static final double DEFAULT_TUNING_SLOPE = -0.07;
 	
@@ -91,6 +104,12 @@ public class MultiLevelDynNoSlice {
 	
 	public static final String BEND_TRANSFER = "EnableBendTransfer";
 	public static final String LIMIT_MINIMUM_TUNING = "MinimumTuning";
+	/**
+	 * Experimental. Derives the mirror lines of each level from the ones of the
+	 * coarser level, translated to the placed member positions. The
+	 * bend-explicit mirror and the locator are still rebuilt at every level.
+	 */
+	public static final String WARM_START = "EnableWarmStart";
 
 	DyGraph dynamicGraph;
 
@@ -107,11 +126,17 @@ public class MultiLevelDynNoSlice {
 	private int current_iteration;	
 
 	private ModularStatistics computationStats;
+	private LevelIterations levelIterations;
+	private LevelStopReason levelStopReasons;
 	private DyModularFdl currentAlgorithm;
     protected SpaceTimeCubeSynchroniser synchronizer;
     protected DyGraph drawnGraph;
     
     protected AVAILABLE_STATIC_LAYOUTS singleLevelLayout = SfdpExecutor.DEFAULT_COMMAND_LINE;
+    private long seed = new SplittableRandom().nextLong();
+    private int parallelism = 1;
+    private SplittableRandom random;
+    private ModularInstrumentation instrumentation;
 
 	Logger logger;
 
@@ -153,11 +178,57 @@ public class MultiLevelDynNoSlice {
 		return this;
 	}
 	
+	/**
+	 * Stops the layout of each level as soon as it converges, keeping MAX_ITERATIONS as upper bound.
+	 * A level converges when the maximum and the mean displacement of the space-time cube nodes fall
+	 * below a fraction of delta, after at least MIN_LEVEL_ITERATIONS iterations.
+	 * @return the layout
+	 */
+	public MultiLevelDynNoSlice adaptiveIterationParameters() {
+		addLayoutParameter(CONVERGENCE_MAX_MOVEMENT, new DynamicLayoutParameter(0.2*delta, new MultiLevelCoolingStrategy.IdentityCoolingStrategy()))
+		.addLayoutParameter(CONVERGENCE_MEAN_MOVEMENT, new DynamicLayoutParameter(0.05*delta, new MultiLevelCoolingStrategy.IdentityCoolingStrategy()))
+		.addLayoutParameter(MIN_LEVEL_ITERATIONS, new DynamicLayoutParameter(MIN_LEVEL_ITERATIONS_DEFAULT, new MultiLevelCoolingStrategy.IdentityCoolingStrategy()));
+		return this;
+	}
+	
 	public MultiLevelDynNoSlice withSingleLevelLayout(AVAILABLE_STATIC_LAYOUTS commandLine) {
 		this.singleLevelLayout = commandLine;
 		return this;
 	}
 
+	/**
+	 * Fixes the seed of the run. Placement and the in-process single level layout draw from
+	 * generators split from this seed, so that the same seed yields the same drawing.
+	 * @param seed the random seed
+	 * @return the layout
+	 */
+	public MultiLevelDynNoSlice withSeed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * Sets the number of threads used to compute the forces of each level.
+	 * @param parallelism the number of threads
+	 * @return the layout
+	 */
+	public MultiLevelDynNoSlice withParallelism(int parallelism) {
+		if(parallelism < 1)
+			throw new IllegalArgumentException("The number of threads must be positive: " + parallelism);
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * Sets where the running times of the phases are recorded. By default each run has its own instrumentation.
+	 * @param instrumentation the instrumentation, which can be shared by concurrent runs
+	 * @return the layout
+	 */
+	public MultiLevelDynNoSlice withInstrumentation(ModularInstrumentation instrumentation) {
+		this.instrumentation = instrumentation;
+		return this;
+	}
+
 	public MultiLevelDynNoSlice addOption(String key, Object value) {
 		optionsMap.put(key, value);
 		return this;
@@ -179,7 +250,11 @@ public class MultiLevelDynNoSlice {
 	}
 
 	public MultiLevelDynNoSlice build() {
+		random = new SplittableRandom(seed);
+		if(instrumentation == null)
+			instrumentation = new ModularInstrumentation();
 		placement.setCoarsener(gc);
+		placement.setRandom(random.split());
 
 		if(optionsMap.containsKey(LOG_OPTION)) {
 			Object eleme = optionsMap.get(LOG_OPTION);
@@ -193,6 +268,7 @@ public class MultiLevelDynNoSlice {
 		
 		logger.log("Coarsening | Selected " + this.gc.getDescription());
 		logger.log("Placement | Selected " + this.placement.getDescription());	
+		logger.log("Seed | " + seed);
 
 		return this;
 	}
@@ -233,88 +309,89 @@ public class MultiLevelDynNoSlice {
 
 		computationStats = new ModularStatistics(new HashSet<ModularMetric>());
 		long addedNanos = 0;
-		//HashSet<ModularMetric> computationMetrics = new HashSet<ModularMetric>();
-		//ModularStatistics iterationTimes = new ModularStatistics(new HashSet<ModularMetric>());
-
-		long startTime = System.nanoTime();
-		//double initialTime = startTime;
 
 		logger.log("Preprocessing...");
+		Timer timer = instrumentation.start(ModularInstrumentation.PREPROCESSING, ModularInstrumentation.NO_INDEX, ModularInstrumentation.NO_INDEX);
 		preprocess();
 		MultiLevelPreProcessTime mp = new MultiLevelPreProcessTime();
-		long endTime = System.nanoTime();
-		addedNanos += endTime - startTime;
-		mp.values().add(endTime - startTime);
+		long elapsed = timer.stop();
+		addedNanos += elapsed;
+		mp.values().add(elapsed);
 		computationStats.addMetric(mp);
-		startTime = endTime;
 
 		current_iteration = 1;
 
 		logger.log("Executing Coarsening");
 		CoarseningTime cp = new CoarseningTime();
+		timer = instrumentation.start(ModularInstrumentation.COARSENING, ModularInstrumentation.NO_INDEX, ModularInstrumentation.NO_INDEX);
 		gc.computeCoarsening();
-		endTime = System.nanoTime();
-		addedNanos += endTime - startTime;
-		cp.values().add(endTime - startTime);
+		elapsed = timer.stop();
+		addedNanos += elapsed;
+		cp.values().add(elapsed);
 		computationStats.addMetric(cp);
-		startTime = endTime;
 		HierarchyDepth hd = new HierarchyDepth();
 		hd.values().add(gc.getHierarchyDepth());
 		computationStats.addMetric(hd);
 
 		PlacementTime pt = new PlacementTime();
 		computationStats.addMetric(pt);
+		levelIterations = new LevelIterations();
+		computationStats.addMetric(levelIterations);
+		levelStopReasons = new LevelStopReason();
+		computationStats.addMetric(levelStopReasons);
 
 		logger.log("Computing default node positioning");
+		timer = instrumentation.start(ModularInstrumentation.PLACEMENT, currentLevel(), ModularInstrumentation.NO_INDEX);
 		nodesFirstPlacement();
-		endTime = System.nanoTime();
-		addedNanos += endTime - startTime;		
-		pt.values().add(endTime - startTime);
-		startTime = endTime;
+		elapsed = timer.stop();
+		addedNanos += elapsed;
+		pt.values().add(elapsed);
+		stopIfInterrupted();
 
 		Iterator<DyGraph> hierarchy = gc.getGraphIterator();
 
 		DyGraph currentGraph = hierarchy.next(); 
 
-		logger.log("Working on level " + (gc.getHierarchyDepth() - current_iteration));
+		logger.log("Working on level " + currentLevel());
 		printParameters();
 		//Run.animateGraphOnWindow(currentGraph, dynamicGraph.getComputedSuggestedInterval().leftBound(), dynamicGraph.getComputedSuggestedInterval(), "Level " + (gc.getHierarchyDepth() - current_iteration));
 
+		timer = instrumentation.start(ModularInstrumentation.LEVEL, currentLevel(), ModularInstrumentation.NO_INDEX);
 		if(currentGraph.nodes().size() > 1)		
 			computeDynamicLayout(currentGraph);
 		
 		//Run.animateGraphOnWindow(currentGraph, dynamicGraph.getComputedSuggestedInterval().leftBound(), dynamicGraph.getComputedSuggestedInterval(), "Level " + (gc.getHierarchyDepth() - current_iteration));
 
-		endTime = System.nanoTime();
-		addedNanos += endTime - startTime;				
-		computationStats.runAtIterationEnd(Duration.ofNanos(endTime - startTime));
-		logger.log("Elapsed: " + new DecimalFormat("#.00").format((endTime - startTime)/Math.pow(10, 9)) + "s");		
-		startTime = endTime;
+		elapsed = timer.stop();
+		addedNanos += elapsed;				
+		computationStats.runAtIterationEnd(Duration.ofNanos(elapsed));
+		logger.log("Elapsed: " + new DecimalFormat("#.00").format(elapsed/Math.pow(10, 9)) + "s");		
 		//Run.animateGraphOnWindow(currentGraph, dynamicGraph.getComputedSuggestedInterval().leftBound(), dynamicGraph.getComputedSuggestedInterval(), "Level " + (gc.getHierarchyDepth() - current_iteration));
 
 		current_iteration++;
 		logger.log("Round complete!");		
 		
 		while(hierarchy.hasNext()) {
+			stopIfInterrupted();
 			updateThermostats();
+			timer = instrumentation.start(ModularInstrumentation.PLACEMENT, currentLevel(), ModularInstrumentation.NO_INDEX);
 			DyGraph finerGraph = placeVertices(/*currentGraph.parentGraph()*/ hierarchy.next(), currentGraph);
 			
 			//Run.animateGraphOnWindow(finerGraph, dynamicGraph.getComputedSuggestedInterval().leftBound(), dynamicGraph.getComputedSuggestedInterval(), "Level " + (gc.getHierarchyDepth() - current_iteration));
 			
-			endTime = System.nanoTime();
-			addedNanos += endTime - startTime;    		
-			pt.values().add(endTime - startTime);
-			startTime = endTime;
+			elapsed = timer.stop();
+			addedNanos += elapsed;    		
+			pt.values().add(elapsed);
 
-			logger.log("Working on level " + (gc.getHierarchyDepth() - current_iteration));
+			logger.log("Working on level " + currentLevel());
 			printParameters();
 
+			timer = instrumentation.start(ModularInstrumentation.LEVEL, currentLevel(), ModularInstrumentation.NO_INDEX);
 			computeDynamicLayout(finerGraph);    
-			endTime = System.nanoTime();
-			addedNanos += endTime - startTime;		    		
-			computationStats.runAtIterationEnd(Duration.ofNanos(endTime - startTime));
-			logger.log("Elapsed: " + new DecimalFormat("#.00").format((endTime - startTime)/Math.pow(10, 9)) + "s");
-			startTime = endTime;
+			elapsed = timer.stop();
+			addedNanos += elapsed;		    		
+			computationStats.runAtIterationEnd(Duration.ofNanos(elapsed));
+			logger.log("Elapsed: " + new DecimalFormat("#.00").format(elapsed/Math.pow(10, 9)) + "s");
 
 			current_iteration++;
 			logger.log("Round complete!");
@@ -332,6 +409,24 @@ public class MultiLevelDynNoSlice {
 
 	}
 
+	/**
+	 * Stops the computation if the running thread has been interrupted, as
+	 * the layout of the current level has been cut short.
+	 * @throws CancellationException if the thread has been interrupted
+	 */
+	private void stopIfInterrupted() {
+		if(Thread.currentThread().isInterrupted())
+			throw new CancellationException("Multi-level layout interrupted at level " + currentLevel());
+	}
+
+	/**
+	 * Gets the level currently drawn, where 0 is the finest level.
+	 * @return the current level
+	 */
+	private int currentLevel() {
+		return gc.getHierarchyDepth() - current_iteration;
+	}
+
 	private void printParameters() {
 		//double iterations = Math.max(Math.ceil(parametersMap.get(MAX_ITERATIONS).getCurrentValue()), MIN_ITERATIONS_DEFAULT);
 		logger.log("\tParameters:\n"
@@ -342,10 +437,13 @@ public class MultiLevelDynNoSlice {
 	}
 
 	private Graph computeStaticLayout(Graph currentGraph) {
-		SfdpBuilder sfdp = new SfdpBuilder().withCommandLine(singleLevelLayout);
+		SfdpBuilder sfdp = new SfdpBuilder().withCommandLine(singleLevelLayout)
+				.withInProcessLayout(new MultilevelFdlBuilder().withSeed(random.nextLong()).build());
 		logger.log("Using " + AVAILABLE_STATIC_LAYOUTS.toString(singleLevelLayout) + " for first layout");
 		SfdpExecutor sfdpInstance = sfdp.build();
+		Timer timer = instrumentation.start(ModularInstrumentation.STATIC_LAYOUT, ModularInstrumentation.NO_INDEX, ModularInstrumentation.NO_INDEX);
 		sfdpInstance.execute(currentGraph);	
+		timer.stop();
 		return currentGraph;
 	}
 
@@ -362,7 +460,19 @@ public class MultiLevelDynNoSlice {
 				.withForce(new DyModularForce.ConnectionAttraction(delta))
 				.withForce(new DyModularForce.EdgeRepulsion(delta))
 				.withConstraint(new ModularConstraint.DecreasingMaxMovement(parametersMap.get(INITIAL_MAX_MOVEMENT).getCurrentValue()))
-				.withConstraint(new ModularConstraint.MovementAcceleration(parametersMap.get(INITIAL_MAX_MOVEMENT).getCurrentValue(), Geom.e3D));
+				.withConstraint(new ModularConstraint.MovementAcceleration(parametersMap.get(INITIAL_MAX_MOVEMENT).getCurrentValue(), Geom.e3D))
+				.withGridLocator(2 * delta)
+				.withParallelism(parallelism)
+				.withInstrumentation(instrumentation, currentLevel());
+
+		if(parametersMap.containsKey(CONVERGENCE_MAX_MOVEMENT))
+			algorithmBuilder.withConvergence(parametersMap.get(CONVERGENCE_MAX_MOVEMENT).getCurrentValue(),
+					parametersMap.get(CONVERGENCE_MEAN_MOVEMENT).getCurrentValue(),
+					(int) Math.ceil(parametersMap.get(MIN_LEVEL_ITERATIONS).getCurrentValue()));
+
+		if(synchronizer != null && Boolean.TRUE.equals(optionsMap.get(WARM_START))
+				&& gc.getLevel(synchronizer.originalGraph()) == gc.getLevel(currentGraph) + 1)
+			algorithmBuilder.withCoarserLevel(synchronizer, getCoarserNodes(currentGraph));
 
 		if(fdlPostProcessingOptions != null)
 			for(MultiLevelDrawingOption<ModularPostProcessing> opt : fdlPostProcessingOptions){
@@ -378,11 +488,41 @@ public class MultiLevelDynNoSlice {
 
 		currentAlgorithm = algorithmBuilder.build();
 		
-		currentAlgorithm.iterate((int) Math.ceil(parametersMap.get(MAX_ITERATIONS).getCurrentValue()));		
+		ModularStatistics levelStats;
+		try {
+			levelStats = currentAlgorithm.iterate((int) Math.ceil(parametersMap.get(MAX_ITERATIONS).getCurrentValue()));
+		} finally {
+			currentAlgorithm.close();
+		}
+		levelIterations.values().add(levelStats.getIterationCount());
+		levelStopReasons.values().add(levelStats.getStopReason());
+		logger.log("Stopped after " + levelStats.getIterationCount() + " iterations (" + levelStats.getStopReason() + ")");
 		
 		synchronizer = currentAlgorithm.getSyncro();
 	}
 
+	/**
+	 * Maps each node of a level to the node of the upper level that contains it.
+	 * @param finerGraph the graph of the level
+	 * @return the map from the nodes of the level to the ones of the upper level
+	 */
+	private HashMap<Node, Node> getCoarserNodes(DyGraph finerGraph) {
+		CoarseningHierarchy levels = gc.getLevelHierarchy();
+		int level = gc.getLevel(finerGraph);
+		HashMap<Node, Node> coarserNodes = new HashMap<Node, Node>();
+		for(int index = 0; index < levels.nodeCount(level); index++)
+			coarserNodes.put(levels.node(level, index), levels.node(level + 1, levels.parent(level, index)));
+		return coarserNodes;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public ModularInstrumentation getInstrumentation() {
+		return instrumentation;
+	}
+
 	public ModularStatistics getComputationStatistics() {
 		return computationStats;
 	}
@@ -28,6 +28,7 @@ import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
 import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.extra.DyPresenceIndex;
 import ocotillo.dygraph.rendering.Animation;
 import ocotillo.graph.Graph;
 import ocotillo.gui.GraphCanvas;
@@ -99,8 +100,10 @@ public class DyQuickView extends JFrame {
             content.remove(frameCanvas);
         }
         frameCanvases.clear();
+        DyPresenceIndex.Cursor cursor = new DyPresenceIndex(dyGraph).cursor(Double.NEGATIVE_INFINITY);
         for (Double frameTiming : animation.frames()) {
-            Graph snapshot = dyGraph.snapshotAt(frameTiming);
+            cursor.moveTo(frameTiming);
+            Graph snapshot = cursor.snapshot();
             GraphCanvas frameCanvas = new GraphCanvas(snapshot);
             frameCanvases.add(frameCanvas);
             content.add(frameCanvas);
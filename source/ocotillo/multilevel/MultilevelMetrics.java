@@ -59,6 +59,22 @@ public class MultilevelMetrics {
 			return "Layout Time";
 		}	
 	}
+	
+	public static class LevelIterations extends ModularMetric{
+		
+		@Override
+		public String metricName() {
+			return "Level Iterations";
+		}	
+	}
+	
+	public static class LevelStopReason extends ModularMetric{
+		
+		@Override
+		public String metricName() {
+			return "Level Stop Reason";
+		}	
+	}
 
 
 }
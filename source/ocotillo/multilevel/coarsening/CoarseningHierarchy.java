@@ -0,0 +1,280 @@
+/**
+ * Copyright  2020 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package ocotillo.multilevel.coarsening;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ocotillo.graph.Node;
+
+/**
+ * Compact representation of a coarsening hierarchy. The nodes of each level
+ * are identified by an integer index, each node stores the index of the group
+ * it belongs to in the next coarser level, and the members of the groups of a
+ * level are stored as contiguous ranges of indices of the finer level, with
+ * the group leader always in first position. Level 0 is the finest one.
+ */
+public class CoarseningHierarchy {
+
+	private final List<Level> levels = new ArrayList<Level>();
+
+	/**
+	 * Sets the finest level of the hierarchy, discarding any other level.
+	 * @param nodes the nodes of the finest level
+	 */
+	public void setFinestLevel(Iterable<Node> nodes) {
+		List<Node> list = new ArrayList<Node>();
+		for(Node n : nodes)
+			list.add(n);
+		levels.clear();
+		levels.add(new Level(list.toArray(new Node[0])));
+	}
+
+	/**
+	 * Starts the grouping of the nodes of the current coarsest level.
+	 * @return the builder of the new level
+	 */
+	public LevelBuilder newLevel() {
+		return new LevelBuilder(levels.get(levels.size() - 1));
+	}
+
+	/**
+	 * Adds a level on top of the hierarchy.
+	 * @param builder the builder containing the groups of the new level
+	 */
+	public void addLevel(LevelBuilder builder) {
+		Level finer = levels.get(levels.size() - 1);
+		if(builder.finer != finer)
+			throw new IllegalArgumentException("The groups do not refer to the current coarsest level.");
+		for(int i = 0; i < builder.parents.length; i++)
+			if(builder.parents[i] < 0)
+				throw new IllegalStateException("The node " + finer.nodes[i].id() + " has not been assigned to a group.");
+
+		int groupCount = builder.groupCount;
+		int[] childStart = new int[groupCount + 1];
+		for(int parent : builder.parents)
+			childStart[parent + 1]++;
+		for(int g = 0; g < groupCount; g++)
+			childStart[g + 1] += childStart[g];
+
+		int[] children = new int[builder.parents.length];
+		int[] next = new int[groupCount];
+		for(int g = 0; g < groupCount; g++) {
+			children[childStart[g]] = builder.leaders[g];
+			next[g] = childStart[g] + 1;
+		}
+		for(int i = 0; i < builder.parents.length; i++) {
+			int g = builder.parents[i];
+			if(builder.leaders[g] != i)
+				children[next[g]++] = i;
+		}
+
+		finer.parents = builder.parents;
+		Level coarser = new Level(Arrays.copyOf(builder.nodes, groupCount));
+		coarser.childStart = childStart;
+		coarser.children = children;
+		levels.add(coarser);
+	}
+
+	/**
+	 * Gets the number of levels of the hierarchy.
+	 * @return the number of levels
+	 */
+	public int depth() {
+		return levels.size();
+	}
+
+	/**
+	 * Gets the number of nodes of a level.
+	 * @param level the level
+	 * @return the number of nodes
+	 */
+	public int nodeCount(int level) {
+		return levels.get(level).nodes.length;
+	}
+
+	/**
+	 * Gets a node of a level.
+	 * @param level the level
+	 * @param index the index of the node in the level
+	 * @return the node
+	 */
+	public Node node(int level, int index) {
+		return levels.get(level).nodes[index];
+	}
+
+	/**
+	 * Gets the index of a node in a level.
+	 * @param level the level
+	 * @param node the node
+	 * @return the index of the node, or -1 if the node is not in the level
+	 */
+	public int indexOf(int level, Node node) {
+		Integer index = levels.get(level).indices.get(node);
+		return index != null ? index : -1;
+	}
+
+	/**
+	 * Gets the group that contains a node in the next coarser level.
+	 * @param level the level of the node
+	 * @param index the index of the node
+	 * @return the index of the group in level + 1, or -1 if the level is the coarsest
+	 */
+	public int parent(int level, int index) {
+		int[] parents = levels.get(level).parents;
+		return parents != null ? parents[index] : -1;
+	}
+
+	/**
+	 * Gets the position of the first member of a group. Members are stored in
+	 * the range [groupStart, groupEnd) and can be retrieved with member().
+	 * @param level the level of the group, greater than 0
+	 * @param index the index of the group
+	 * @return the position of the group leader
+	 */
+	public int groupStart(int level, int index) {
+		return levels.get(level).childStart[index];
+	}
+
+	/**
+	 * Gets the position following the last member of a group.
+	 * @param level the level of the group, greater than 0
+	 * @param index the index of the group
+	 * @return the end of the member range
+	 */
+	public int groupEnd(int level, int index) {
+		return levels.get(level).childStart[index + 1];
+	}
+
+	/**
+	 * Gets a group member.
+	 * @param level the level of the group, greater than 0
+	 * @param position the position of the member, as given by groupStart and groupEnd
+	 * @return the index of the member in level - 1
+	 */
+	public int member(int level, int position) {
+		return levels.get(level).children[position];
+	}
+
+	/**
+	 * Gets the size of a group.
+	 * @param level the level of the group, greater than 0
+	 * @param index the index of the group
+	 * @return the number of members of the group
+	 */
+	public int groupSize(int level, int index) {
+		int[] childStart = levels.get(level).childStart;
+		return childStart[index + 1] - childStart[index];
+	}
+
+	/**
+	 * Gets the leader of a group, that is the finer node it has been generated from.
+	 * @param level the level of the group, greater than 0
+	 * @param index the index of the group
+	 * @return the index of the leader in level - 1
+	 */
+	public int leader(int level, int index) {
+		Level current = levels.get(level);
+		return current.children[current.childStart[index]];
+	}
+
+	/**
+	 * A level of the hierarchy.
+	 */
+	private static class Level {
+
+		private final Node[] nodes;
+		private final Map<Node, Integer> indices;
+		private int[] parents;
+		private int[] childStart;
+		private int[] children;
+
+		private Level(Node[] nodes) {
+			this.nodes = nodes;
+			this.indices = new HashMap<Node, Integer>(2 * nodes.length);
+			for(int i = 0; i < nodes.length; i++)
+				indices.put(nodes[i], i);
+		}
+	}
+
+	/**
+	 * Collects the groups of the nodes of the coarsest level that will form
+	 * the next level.
+	 */
+	public static class LevelBuilder {
+
+		private final Level finer;
+		private final int[] parents;
+		private Node[] nodes = new Node[16];
+		private int[] leaders = new int[16];
+		private int groupCount = 0;
+
+		private LevelBuilder(Level finer) {
+			this.finer = finer;
+			this.parents = new int[finer.nodes.length];
+			Arrays.fill(parents, -1);
+		}
+
+		/**
+		 * Creates a new group.
+		 * @param leader the finer node the group is generated from
+		 * @param groupNode the node representing the group in the new level
+		 * @return the index of the group
+		 */
+		public int newGroup(Node leader, Node groupNode) {
+			if(groupCount == nodes.length) {
+				nodes = Arrays.copyOf(nodes, 2 * groupCount);
+				leaders = Arrays.copyOf(leaders, 2 * groupCount);
+			}
+			int group = groupCount++;
+			nodes[group] = groupNode;
+			leaders[group] = indexOf(leader);
+			assign(leader, group);
+			return group;
+		}
+
+		/**
+		 * Adds a finer node to a group.
+		 * @param member the finer node
+		 * @param group the index of the group
+		 */
+		public void assign(Node member, int group) {
+			int index = indexOf(member);
+			if(parents[index] >= 0)
+				throw new IllegalArgumentException("The node " + member.id() + " has already been assigned to a group.");
+			parents[index] = group;
+		}
+
+		/**
+		 * Gets the number of groups created so far.
+		 * @return the number of groups
+		 */
+		public int groupCount() {
+			return groupCount;
+		}
+
+		private int indexOf(Node node) {
+			Integer index = finer.indices.get(node);
+			if(index == null)
+				throw new IllegalArgumentException("The node " + node.id() + " is not in the current coarsest level.");
+			return index;
+		}
+	}
+}
@@ -18,13 +18,11 @@ package ocotillo.multilevel.coarsening;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import ocotillo.dygraph.DyEdgeAttribute;
 import ocotillo.dygraph.DyGraph;
@@ -50,12 +48,8 @@ public abstract class GraphCoarsener {
 	//protected final Graph rootGraph;
 	//protected DyGraph coarserGraph;	
 	protected LinkedList<DyGraph> hierarchy;
-	protected Map<String, String> currentLevelEdgeAssociations = new HashMap<String, String>();
-	protected Map<String, Set<String>> currentLevelNodeGroups = new HashMap<String, Set<String>>();
-
-
-	protected Map<String, Set<String>> groupingMasterMap = new HashMap<String, Set<String>>();
-	protected Map<String, String> edgeAssociationMasterMap = new HashMap<String, String>();
+	protected CoarseningHierarchy levels = new CoarseningHierarchy();
+	protected CoarseningHierarchy.LevelBuilder currentLevelGroups;
 
 	protected int current_level = 0;
 
@@ -67,10 +61,10 @@ public abstract class GraphCoarsener {
 
 		DyGraph coarserGraph = new DyGraph();
 
-		/*COPY AND SETUP OF THE ORIGINAL GRAPH -- NECESSARY FOR NODE ID TRANSLATION*/
+		/*COPY AND SETUP OF THE ORIGINAL GRAPH*/
 
 		for(Node n : original.nodes()) {
-			Node newNode = coarserGraph.newNode(GraphCoarsener.translateNodeId(n.id(), 0));
+			Node newNode = coarserGraph.newNode(n.id());
 			for(String s : original.nodeAttributes().keySet()) {
 				DyNodeAttribute<Object> newAttribute;
 				try{
@@ -84,8 +78,8 @@ public abstract class GraphCoarsener {
 			}
 		}
 		for(Edge e : original.edges()) {
-			Edge newEdge = coarserGraph.newEdge(coarserGraph.getNode(translateNodeId(e.source().id(), 0)), 
-					coarserGraph.getNode(translateNodeId(e.target().id(), 0)));
+			Edge newEdge = coarserGraph.newEdge(e.id(), coarserGraph.getNode(e.source().id()), 
+					coarserGraph.getNode(e.target().id()));
 			for(String s : original.edgeAttributes().keySet()) {
 				DyEdgeAttribute<Object> newAttribute;
 				try{
@@ -103,6 +97,7 @@ public abstract class GraphCoarsener {
 		coarserGraph.graphAttributes().putAll(original.graphAttributes());
 		hierarchy = new LinkedList<DyGraph>();
 		hierarchy.add(coarserGraph);
+		levels.setFinestLevel(coarserGraph.nodes());
 		/* COPY END */
 
 		Logger.getInstance().log("Set up graph with " + coarserGraph.nodeCount() + " nodes and " + coarserGraph.edgeCount() + " edges");
@@ -135,6 +130,7 @@ public abstract class GraphCoarsener {
 	protected abstract void initialize();
 
 	private DyGraph computeNewLevel(DyGraph lastLevel) {
+		currentLevelGroups = levels.newLevel();
 		DyGraph newLevel = computeNewVertexSet(lastLevel);
 		//## SANITY CHECK: IF NODE COUNT DID NOT DECREASE -- PROBABLY A LOOP	
 		//## STOPPING CONDITION: If the new level has 95% or more vertices of the last level
@@ -142,13 +138,11 @@ public abstract class GraphCoarsener {
 				|| (newLevel.nodeCount()/(float)lastLevel.nodeCount() > CHANGE_TRESHOLD && hierarchy.size() > 1)) 
 			newLevel = null;
 		else {
+			levels.addLevel(currentLevelGroups);
 			mergeNodePresenceAndWeight(newLevel, lastLevel, new Evolution.EvolutionORMerge());
 			generateEdges(newLevel, lastLevel);
-			groupingMasterMap.putAll(currentLevelNodeGroups);
-			edgeAssociationMasterMap.putAll(currentLevelEdgeAssociations);
 		}
-		currentLevelEdgeAssociations.clear();
-		currentLevelNodeGroups.clear();
+		currentLevelGroups = null;
 		return newLevel;
 	}
 
@@ -160,17 +154,16 @@ public abstract class GraphCoarsener {
 		DyNodeAttribute<Double> newLevelNodeWeight = newLevel.nodeAttribute(StdAttribute.weight);
 
 
-		for(String s : currentLevelNodeGroups.keySet()) {
-			Node newLevelNode = newLevel.getNode(s);
-			Node lastLevelTopNode = lastLevel.getNode(getTranslatedNodeId(s, current_level-1));
+		for(int group = 0; group < levels.nodeCount(current_level); group++) {
+			Node newLevelNode = levels.node(current_level, group);
+			int groupStart = levels.groupStart(current_level, group);
+			Node lastLevelTopNode = levels.node(current_level-1, levels.member(current_level, groupStart));
 			double totalWeight = lastLevelNodeWeight.get(lastLevelTopNode).getDefaultValue();
 			Evolution<Boolean> lastNodePresence = lastLevelPresence.get(lastLevelTopNode);								
 			Evolution<Boolean> newNodePresence = new Evolution<Boolean>(lastNodePresence.getDefaultValue());//newLevelPresence.get(newLevelNode);
 			newNodePresence.insertAll(duplicatePresenceEvolution(lastNodePresence));
-			for(String n : currentLevelNodeGroups.get(s)) {
-				Node lastLevelGroupNode = lastLevel.getNode(n);
-				if(nodeIdInverseTranslation(n).equals(nodeIdInverseTranslation(newLevelNode.id())))
-					continue;
+			for(int position = groupStart + 1; position < levels.groupEnd(current_level, group); position++) {
+				Node lastLevelGroupNode = levels.node(current_level-1, levels.member(current_level, position));
 				totalWeight += lastLevelNodeWeight.get(lastLevelGroupNode).getDefaultValue();				
 				lastNodePresence = lastLevelPresence.get(lastLevelGroupNode);
 				computeMergedPresence(newNodePresence, lastNodePresence, eval);
@@ -240,11 +233,12 @@ public abstract class GraphCoarsener {
 		DyEdgeAttribute<Boolean> lastLevelEdgePresence = lastLevel.edgeAttribute(StdAttribute.dyPresence);
 		DyEdgeAttribute<Boolean> newLevelEdgePresence = newLevel.edgeAttribute(StdAttribute.dyPresence);
 
+		int lastLevelIndex = current_level - 1;
 		for(Node sourceLowerNode : lastLevel.nodes()) {
-			Node sourceUpperNode = newLevel.getNode(currentLevelEdgeAssociations.get(sourceLowerNode.id()));
-			for(Edge e : lastLevel.outEdges(sourceLowerNode)) {
+			Node sourceUpperNode = levels.node(current_level, levels.parent(lastLevelIndex, levels.indexOf(lastLevelIndex, sourceLowerNode)));
+			for(Edge e : sortedOutEdges(lastLevel, sourceLowerNode)) {
 				Node targetLowerNode = e.otherEnd(sourceLowerNode);
-				Node targetUpperNode = newLevel.getNode(currentLevelEdgeAssociations.get(targetLowerNode.id()));
+				Node targetUpperNode = levels.node(current_level, levels.parent(lastLevelIndex, levels.indexOf(lastLevelIndex, targetLowerNode)));
 				if(sourceUpperNode.equals(targetUpperNode))
 					continue;
 				Edge newLevelEdge = newLevel.betweenEdge(sourceUpperNode, targetUpperNode);
@@ -265,6 +259,25 @@ public abstract class GraphCoarsener {
 	}
 
 
+	/**
+	 * Gets the outgoing edges of a node sorted by the id of the other end, and then by edge id.
+	 * The edge sets of a graph have no stable order, so the coarseners visit the neighbours
+	 * in this order to build the same hierarchy on every run.
+	 * @param level the level graph
+	 * @param node the node
+	 * @return the sorted outgoing edges
+	 */
+	protected static List<Edge> sortedOutEdges(DyGraph level, Node node) {
+		List<Edge> edges = new ArrayList<Edge>(level.outEdges(node));
+		Collections.sort(edges, new Comparator<Edge>() {
+			public int compare(Edge a, Edge b) {
+				int neighborOrder = a.otherEnd(node).compareTo(b.otherEnd(node));
+				return neighborOrder != 0 ? neighborOrder : a.compareTo(b);
+			}
+		});
+		return edges;
+	}
+
 	/**
 	 * Get how many levels the hierarchy has. 
 	 * @return
@@ -290,21 +303,27 @@ public abstract class GraphCoarsener {
 	}
 
 	/**
-	 * When a node on level n+1 is created, it will represent a group of nodes from level n. With this function, the members of that group can be recovered.  
-	 * @param id The node of the id to look for.
-	 * @return The members of the group belonging to the provided node.
+	 * When a node on level n+1 is created, it will represent a group of nodes from level n. The hierarchy
+	 * keeps, for each level, the group of each node and the members of each group, identified by their index in the level.
+	 * @return The hierarchy computed by the coarsening.
 	 */
-	public Set<String> getGroupMembers(String id){
-		return groupingMasterMap.get(id);
+	public CoarseningHierarchy getLevelHierarchy() {
+		return levels;
 	}
 
 	/**
-	 * A method to get, from the current coarsening, which is the group leader of the parameter node.
-	 * @param id the node whose group leader we are looking for
-	 * @return the group leader id
+	 * Get the position of a graph in the hierarchy, where 0 is the finest level.
+	 * @param graph the graph of the level
+	 * @return the level of the graph, or -1 if the graph is not part of the hierarchy
 	 */
-	public String getGroupLeader(String id) {
-		return edgeAssociationMasterMap.get(id);
+	public int getLevel(DyGraph graph) {
+		int level = 0;
+		for(DyGraph current : hierarchy) {
+			if(current == graph)
+				return level;
+			level++;
+		}
+		return -1;
 	}
 
 	/**
@@ -320,62 +339,6 @@ public abstract class GraphCoarsener {
 	 */
 	//protected abstract boolean stoppingCondition();	
 
-	public static String getTranslatedNodeId(String nodeId, int level) {
-		return nodeId.split("__")[0]+"__"+level;
-	}
-
-	public static String translateNodeId(String nodeId, int level) {
-		return nodeId+"__"+level;
-	}
-
-	public static String nodeIdInverseTranslation(String nodeId) {
-		return nodeId.split("__")[0];
-	} 
-
-	/**
-	 * Check if two nodes are homologues across two adjacent levels
-	 * @param nodeIdA
-	 * @param nodeIdB
-	 * @return
-	 */
-	public static boolean checkNodeIdEquivalence(String nodeIdA, String nodeIdB) {
-		return nodeIdInverseTranslation(nodeIdA).equals(nodeIdInverseTranslation(nodeIdB));
-	}
-
-	public static class NodeWeightComparator implements Comparator<Node>{
-
-		private final DyGraph lastLevel;
-		private final DyNodeAttribute<Double> lastLevelNodeWeight;
-		private final DyEdgeAttribute<Double> lastLevelEdgeWeight;
-
-		public NodeWeightComparator(DyGraph lastLevel, DyEdgeAttribute<Double> lastLevelEdgeWeight,
-				ocotillo.dygraph.DyNodeAttribute<Double> lastLevelNodeWeight) {
-			this.lastLevel = lastLevel;
-			this.lastLevelEdgeWeight = lastLevelEdgeWeight;
-			this.lastLevelNodeWeight = lastLevelNodeWeight;
-		}
-
-		@Override
-		public int compare(Node a, Node b) {
-			double weightA = lastLevelNodeWeight.get(a).getDefaultValue();
-			double weightB = lastLevelNodeWeight.get(b).getDefaultValue();
-
-			for(Edge e : lastLevel.outEdges(a))
-				weightA += lastLevelEdgeWeight.get(e).getDefaultValue();
-
-			for(Edge e : lastLevel.outEdges(b))
-				weightB += lastLevelEdgeWeight.get(e).getDefaultValue();
-
-			if(weightA > weightB)
-				return -1;
-			else if(weightA < weightB)
-				return 1;				
-			return 0;				
-		}
-
-	}
-
-
 	public static class BooleanFunctionComparator implements Comparator<Function<Boolean>>{
 
 		@Override
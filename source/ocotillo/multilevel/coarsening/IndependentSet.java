@@ -20,7 +20,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
 
 import ocotillo.dygraph.DyEdgeAttribute;
@@ -45,28 +44,20 @@ public class IndependentSet extends GraphCoarsener {
 		DyNodeAttribute<Double> lastLevelNodeWeight = lastLevel.nodeAttribute(StdAttribute.weight);
 		DyEdgeAttribute<Double> lastLevelEdgeWeight = lastLevel.edgeAttribute(StdAttribute.weight);
 
-		List<Node> nodes = new ArrayList<Node>(lastLevel.nodes());
-
-		Collections.sort(nodes, new GraphCoarsener.NodeWeightComparator(lastLevel, lastLevelEdgeWeight, lastLevelNodeWeight));
+		NodeRanking ranking = new NodeRanking(lastLevel, lastLevelEdgeWeight, lastLevelNodeWeight);
 
 		DyGraph newLevel = new DyGraph();
 
-		while(!nodes.isEmpty()) {
-			Node topNode = nodes.remove(0);
-			Node newLevelNode = newLevel.newNode((getTranslatedNodeId(topNode.id(), current_level)));			
-
-			currentLevelEdgeAssociations.put(topNode.id(), newLevelNode.id());
-			HashSet<String> newLevelNodeGroup = new HashSet<String>();
-			newLevelNodeGroup.add(topNode.id());
-			for(Edge e : getCollectionOfNeighbors(lastLevel.outEdges(topNode), lastLevelEdgeWeight)) {
+		while(ranking.hasNext()) {
+			Node topNode = ranking.next();
+			Node newLevelNode = newLevel.newNode(topNode.id());
+			int group = currentLevelGroups.newGroup(topNode, newLevelNode);
+			for(Edge e : getCollectionOfNeighbors(sortedOutEdges(lastLevel, topNode), lastLevelEdgeWeight)) {
 				Node neighbor = e.otherEnd(topNode);
-				if(nodes.contains(neighbor)) {
-					nodes.remove(neighbor);
-					currentLevelEdgeAssociations.put(neighbor.id(), newLevelNode.id());
-					newLevelNodeGroup.add(neighbor.id());
+				if(ranking.assign(neighbor)) {
+					currentLevelGroups.assign(neighbor, group);
 				}				
 			}		
-			currentLevelNodeGroups.put(newLevelNode.id(), newLevelNodeGroup);
 		}
 		return newLevel;
 	}
@@ -0,0 +1,118 @@
+/**
+ * Copyright  2020 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package ocotillo.multilevel.coarsening;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Node;
+
+/**
+ * Visits the nodes of a level in order of decreasing score, that is the node
+ * weight plus the weight of its outgoing edges, and keeps track of the nodes
+ * already assigned to a group. The scores are computed once, and nodes with
+ * the same score are visited in id order.
+ */
+public class NodeRanking {
+
+	private final Node[] nodes;
+	private final Map<Node, Integer> indices;
+	private final BitSet assigned;
+	private int cursor = 0;
+
+	/**
+	 * Ranks the nodes of a level.
+	 * @param level the level graph
+	 * @param edgeWeight the edge weights of the level
+	 * @param nodeWeight the node weights of the level
+	 */
+	public NodeRanking(DyGraph level, DyEdgeAttribute<Double> edgeWeight, DyNodeAttribute<Double> nodeWeight) {
+		Node[] levelNodes = level.nodes().toArray(new Node[0]);
+		double[] scores = new double[levelNodes.length];
+		Integer[] order = new Integer[levelNodes.length];
+		for(int i = 0; i < levelNodes.length; i++) {
+			double score = nodeWeight.get(levelNodes[i]).getDefaultValue();
+			for(Edge e : GraphCoarsener.sortedOutEdges(level, levelNodes[i]))
+				score += edgeWeight.get(e).getDefaultValue();
+			scores[i] = score;
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> {
+			if(scores[a] > scores[b])
+				return -1;
+			else if(scores[a] < scores[b])
+				return 1;
+			return levelNodes[a].compareTo(levelNodes[b]);
+		});
+
+		nodes = new Node[levelNodes.length];
+		indices = new HashMap<Node, Integer>(2 * levelNodes.length);
+		for(int i = 0; i < levelNodes.length; i++) {
+			nodes[i] = levelNodes[order[i]];
+			indices.put(nodes[i], i);
+		}
+		assigned = new BitSet(levelNodes.length);
+	}
+
+	/**
+	 * Checks if there are nodes not yet assigned.
+	 * @return true if at least a node is not assigned
+	 */
+	public boolean hasNext() {
+		cursor = assigned.nextClearBit(cursor);
+		return cursor < nodes.length;
+	}
+
+	/**
+	 * Gets the unassigned node with the highest score and marks it as assigned.
+	 * @return the node
+	 */
+	public Node next() {
+		if(!hasNext())
+			throw new IllegalStateException("All the nodes have already been assigned.");
+		assigned.set(cursor);
+		return nodes[cursor];
+	}
+
+	/**
+	 * Checks if a node has already been assigned.
+	 * @param node the node
+	 * @return true if the node is assigned
+	 */
+	public boolean isAssigned(Node node) {
+		return assigned.get(indices.get(node));
+	}
+
+	/**
+	 * Marks a node as assigned.
+	 * @param node the node
+	 * @return true if the node was not assigned before
+	 */
+	public boolean assign(Node node) {
+		int index = indices.get(node);
+		if(assigned.get(index))
+			return false;
+		assigned.set(index);
+		return true;
+	}
+}
@@ -16,15 +16,10 @@
 
 package ocotillo.multilevel.coarsening;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.List;
-
 import ocotillo.dygraph.DyEdgeAttribute;
 import ocotillo.dygraph.DyGraph;
 import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.Evolution;
 import ocotillo.graph.Edge;
 import ocotillo.graph.Node;
 import ocotillo.graph.StdAttribute;
@@ -56,44 +51,34 @@ public class SolarMerger extends GraphCoarsener {
 		DyNodeAttribute<Double> lastLevelNodeWeight = lastLevel.nodeAttribute(StdAttribute.weight);
 		DyEdgeAttribute<Double> lastLevelEdgeWeight = lastLevel.edgeAttribute(StdAttribute.weight);
 		DyNodeAttribute<Byte> lastLevelNodeStatus = lastLevel.nodeAttribute(STATUS_NODE_ATTRIBUTE_NAME);
-		List<Node> nodes = new ArrayList<Node>(lastLevel.nodes());
-
-		Collections.sort(nodes, new GraphCoarsener.NodeWeightComparator(lastLevel, lastLevelEdgeWeight, lastLevelNodeWeight));
+		NodeRanking ranking = new NodeRanking(lastLevel, lastLevelEdgeWeight, lastLevelNodeWeight);
 
 		DyGraph newLevel = new DyGraph();
 		newLevel.newNodeAttribute(STATUS_NODE_ATTRIBUTE_NAME, UNASSIGNED_STATE);
 
-		while(!nodes.isEmpty()) {
-			Node topNode = nodes.remove(0);
-			Node newLevelNode = newLevel.newNode((getTranslatedNodeId(topNode.id(), current_level)));			
-
-			currentLevelEdgeAssociations.put(topNode.id(), newLevelNode.id());
-			HashSet<String> newLevelNodeGroup = new HashSet<String>();
-			newLevelNodeGroup.add(topNode.id());
+		while(ranking.hasNext()) {
+			Node topNode = ranking.next();
+			Node newLevelNode = newLevel.newNode(topNode.id());
+			int group = currentLevelGroups.newGroup(topNode, newLevelNode);
 			
-			lastLevelNodeStatus.get(topNode).setDefaultValue(SUN);
+			lastLevelNodeStatus.set(topNode, new Evolution<Byte>(SUN));
 			
-			for(Edge e : lastLevel.outEdges(topNode)) {
+			for(Edge e : sortedOutEdges(lastLevel, topNode)) {
 				Node neighbor = e.otherEnd(topNode);
-				if(nodes.contains(neighbor)) {
-					nodes.remove(neighbor);
-					currentLevelEdgeAssociations.put(neighbor.id(), newLevelNode.id());
-					newLevelNodeGroup.add(neighbor.id());
-					lastLevelNodeStatus.get(neighbor).setDefaultValue(PLANET);
+				if(ranking.assign(neighbor)) {
+					currentLevelGroups.assign(neighbor, group);
+					lastLevelNodeStatus.set(neighbor, new Evolution<Byte>(PLANET));
 					
-					for(Edge eE : lastLevel.outEdges(neighbor)) {
+					for(Edge eE : sortedOutEdges(lastLevel, neighbor)) {
 						Node neighborOfNeighbor = eE.otherEnd(neighbor);
 						
-						if(nodes.contains(neighborOfNeighbor)) {
-							nodes.remove(neighborOfNeighbor);
-							currentLevelEdgeAssociations.put(neighborOfNeighbor.id(), newLevelNode.id());
-							newLevelNodeGroup.add(neighborOfNeighbor.id());
-							lastLevelNodeStatus.get(neighborOfNeighbor).setDefaultValue(MOON);
+						if(ranking.assign(neighborOfNeighbor)) {
+							currentLevelGroups.assign(neighborOfNeighbor, group);
+							lastLevelNodeStatus.set(neighborOfNeighbor, new Evolution<Byte>(MOON));
 						}
 					}
 				}				
 			}		
-			currentLevelNodeGroups.put(newLevelNode.id(), newLevelNodeGroup);
 		}
 		
 		return newLevel;
@@ -98,7 +98,7 @@ public abstract class DyGraphFlattener {
 				Node src = dyE.source();
 				Node tgt = dyE.target();
 
-				Edge e = flattenedGraph.newEdge(
+				Edge e = flattenedGraph.newEdge(dyE.id(),
 						flattenedGraph.getNode(src.id()),
 						flattenedGraph.getNode(tgt.id()));
 				
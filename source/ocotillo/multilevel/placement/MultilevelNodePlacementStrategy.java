@@ -19,6 +19,7 @@ package ocotillo.multilevel.placement;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.SplittableRandom;
 import java.util.function.Function;
 
 import ocotillo.dygraph.DyGraph;
@@ -30,14 +31,17 @@ import ocotillo.graph.Graph;
 import ocotillo.graph.Node;
 import ocotillo.graph.NodeAttribute;
 import ocotillo.graph.StdAttribute;
+import ocotillo.multilevel.coarsening.CoarseningHierarchy;
 import ocotillo.multilevel.coarsening.GraphCoarsener;
 
 public abstract class MultilevelNodePlacementStrategy {
 
 	protected GraphCoarsener coarsener;
 	private DyGraph currentUpperLevelGraph;
+	private int currentUpperLevel;
 	protected double fuzzyness;
 	private boolean bendTransfer = false;
+	protected SplittableRandom random = new SplittableRandom();
 	
 	protected final double FUZZYNESS_DEFAULT = 0.05d;
 	
@@ -68,8 +72,59 @@ public abstract class MultilevelNodePlacementStrategy {
 		this.coarsener = coarsener;
 	}
 
-	protected Node getNodeFromUpperLevel(String id) {
-		return currentUpperLevelGraph.getNode(id);
+	/**
+	 * Sets the generator used to perturb the placed nodes.
+	 * The strategy is then deterministic for a given generator state.
+	 * @param random the random generator
+	 */
+	public void setRandom(SplittableRandom random) {
+		this.random = random;
+	}
+
+	/**
+	 * Makes the placement reproducible by seeding its random generator.
+	 * @param seed the random seed
+	 * @return the placement strategy
+	 */
+	public MultilevelNodePlacementStrategy withSeed(long seed) {
+		setRandom(new SplittableRandom(seed));
+		return this;
+	}
+
+	/**
+	 * Gets a node of the upper level.
+	 * @param group the index of the node in the upper level
+	 * @return the node
+	 */
+	protected Node getNodeFromUpperLevel(int group) {
+		return coarsener.getLevelHierarchy().node(currentUpperLevel, group);
+	}
+
+	/**
+	 * Gets the group that contains a node of the finer level.
+	 * @param lowerLevelNode the node of the finer level
+	 * @return the index of the group in the upper level
+	 */
+	protected int getGroupOf(Node lowerLevelNode) {
+		CoarseningHierarchy levels = coarsener.getLevelHierarchy();
+		return levels.parent(currentUpperLevel - 1, levels.indexOf(currentUpperLevel - 1, lowerLevelNode));
+	}
+
+	/**
+	 * Gets the number of finer level nodes in a group.
+	 * @param group the index of the group in the upper level
+	 * @return the size of the group
+	 */
+	protected int getGroupSize(int group) {
+		return coarsener.getLevelHierarchy().groupSize(currentUpperLevel, group);
+	}
+
+	private void setCurrentUpperLevel(DyGraph upperLevel) {
+		int level = coarsener.getLevel(upperLevel);
+		if(level < 1)
+			throw new IllegalArgumentException("The upper level graph is not a coarse level of the current hierarchy.");
+		this.currentUpperLevelGraph = upperLevel;
+		this.currentUpperLevel = level;
 	}
 	
 //	protected Coordinates getStaticUpperLevelCoordinatesOfNode(Node n) {
@@ -113,10 +168,12 @@ public abstract class MultilevelNodePlacementStrategy {
 	
 	private void place(DyGraph finerLevel, DyGraph upperLevel) {
 		DyNodeAttribute<Coordinates> finerLevelNodeCoordinates = finerLevel.nodeAttribute(StdAttribute.nodePosition);		
-		this.currentUpperLevelGraph = upperLevel;
-		for(Node n : upperLevel.nodes()) {				
-			for(String id : coarsener.getGroupMembers(n.id())) {
-				Node lowerLevelNode = finerLevel.getNode(id);
+		setCurrentUpperLevel(upperLevel);
+		CoarseningHierarchy levels = coarsener.getLevelHierarchy();
+		for(int group = 0; group < levels.nodeCount(currentUpperLevel); group++) {
+			Node n = levels.node(currentUpperLevel, group);
+			for(int position = levels.groupStart(currentUpperLevel, group); position < levels.groupEnd(currentUpperLevel, group); position++) {
+				Node lowerLevelNode = levels.node(currentUpperLevel - 1, levels.member(currentUpperLevel, position));
 				finerLevelNodeCoordinates.set(lowerLevelNode, new Evolution<Coordinates>(
 						computeNewCoordinates(lowerLevelNode, n, finerLevel, (Node node) -> getUpperLevelCoordinatesOfNode(node))));
 			}
@@ -127,8 +184,10 @@ public abstract class MultilevelNodePlacementStrategy {
 		
 		DyNodeAttribute<Coordinates> upperLevelNodeCoordinates = upperLevel.nodeAttribute(StdAttribute.nodePosition);
 		DyNodeAttribute<Coordinates> finerLevelNodeCoordinates = finerLevel.nodeAttribute(StdAttribute.nodePosition);		
-		this.currentUpperLevelGraph = upperLevel;
-		for(Node upperLevelNode : upperLevel.nodes()) {	
+		setCurrentUpperLevel(upperLevel);
+		CoarseningHierarchy levels = coarsener.getLevelHierarchy();
+		for(int group = 0; group < levels.nodeCount(currentUpperLevel); group++) {
+			Node upperLevelNode = levels.node(currentUpperLevel, group);
 			LinkedList<Coordinates> deltas = new LinkedList<Coordinates>();
 			deltas.add(new Coordinates(0.0d, 0.0d));
 			Evolution<Coordinates> currEv = upperLevelNodeCoordinates.get(upperLevelNode);
@@ -158,9 +217,10 @@ public abstract class MultilevelNodePlacementStrategy {
 					ind++;
 				}
 			}
-			for(String id : coarsener.getGroupMembers(upperLevelNode.id())) {
-				Node lowerLevelNode = finerLevel.getNode(id);
-				if(GraphCoarsener.checkNodeIdEquivalence(lowerLevelNode.id(), upperLevelNode.id())) { 
+			int groupStart = levels.groupStart(currentUpperLevel, group);
+			for(int position = groupStart; position < levels.groupEnd(currentUpperLevel, group); position++) {
+				Node lowerLevelNode = levels.node(currentUpperLevel - 1, levels.member(currentUpperLevel, position));
+				if(position == groupStart) { //The group leader keeps the trajectory of its group
 					Evolution<Coordinates> copy = new Evolution<Coordinates>(currEv.getDefaultValue());
 					copy.copyFrom(currEv);
 					finerLevelNodeCoordinates.set(lowerLevelNode, copy);
@@ -201,7 +261,7 @@ public abstract class MultilevelNodePlacementStrategy {
 		
 			Coordinates upperClusterCoordinates = getUpperLevelCoords.apply(upperLevelNode); //upperLevelNodeCoordinates.get(upperLevelNode).getLastValue();
 			
-			return new Coordinates(upperClusterCoordinates.x() + Math.random()*fuzzyness, upperClusterCoordinates.y() + Math.random()*fuzzyness);
+			return new Coordinates(upperClusterCoordinates.x() + random.nextDouble()*fuzzyness, upperClusterCoordinates.y() + random.nextDouble()*fuzzyness);
 		}
 
 		@Override
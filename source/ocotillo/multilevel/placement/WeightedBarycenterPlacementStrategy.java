@@ -27,7 +27,6 @@ import ocotillo.dygraph.DyNodeAttribute;
 import ocotillo.geometry.Coordinates;
 import ocotillo.graph.Edge;
 import ocotillo.graph.Node;
-import ocotillo.multilevel.coarsening.GraphCoarsener;
 import ocotillo.multilevel.coarsening.SolarMerger;
 
 public class WeightedBarycenterPlacementStrategy extends MultilevelNodePlacementStrategy {
@@ -54,21 +53,22 @@ public class WeightedBarycenterPlacementStrategy extends MultilevelNodePlacement
 	protected Coordinates computeNewCoordinates(Node lowerLevelNode, Node upperLevelNode, DyGraph finerLevel,
 			Function<Node, Coordinates> getUpperLevelCoords) {
 		Coordinates ownUpperClusterCoordinates = getUpperLevelCoords.apply(upperLevelNode); //upperLevelNodeCoordinates.get(upperLevelNode).getLastValue();
-		HashMap<String, HashSet<String>> neighborsMap = new HashMap<String, HashSet<String>>();
+		HashMap<Integer, HashSet<Node>> neighborsMap = new HashMap<Integer, HashSet<Node>>();
 		Coordinates result = new Coordinates(0.0, 0.0);
+		int ownGroup = getGroupOf(lowerLevelNode);
 
 		for(Edge e : finerLevel.inOutEdges(lowerLevelNode)) {
 			Node otherEnd = e.otherEnd(lowerLevelNode);
-			String otherGroupLeader = coarsener.getGroupLeader(otherEnd.id());
-			if(otherGroupLeader.equals(upperLevelNode.id()))
+			int otherGroup = getGroupOf(otherEnd);
+			if(otherGroup == ownGroup)
 				continue;
 			else {
-				if(!neighborsMap.containsKey(otherGroupLeader)) {
-					HashSet<String> set = new HashSet<String>();
-					set.add(otherEnd.id());
-					neighborsMap.put(otherGroupLeader, set);
+				if(!neighborsMap.containsKey(otherGroup)) {
+					HashSet<Node> set = new HashSet<Node>();
+					set.add(otherEnd);
+					neighborsMap.put(otherGroup, set);
 				}else
-					neighborsMap.get(otherGroupLeader).add(otherEnd.id());
+					neighborsMap.get(otherGroup).add(otherEnd);
 			}		
 		}
 		//System.out.println("Placing new vertex " + lowerLevelNode.id());
@@ -76,15 +76,15 @@ public class WeightedBarycenterPlacementStrategy extends MultilevelNodePlacement
 
 		if(neighborsMap.size() == 0) {
 			//System.out.println("\tMy neighbors all belong to the same cluster -- randomizing around my master");
-			double angle = Math.random()*(2*Math.PI);
+			double angle = random.nextDouble()*(2*Math.PI);
 			result.setX(ownUpperClusterCoordinates.x()+Math.cos(angle)*opt_distance);
 			result.setY(ownUpperClusterCoordinates.y()+Math.sin(angle)*opt_distance);
 		}else{
 
 			float totalSum = 0;
-			for(Set<String> set : neighborsMap.values())
+			for(Set<Node> set : neighborsMap.values())
 				totalSum += set.size();
-			for(Entry<String, HashSet<String>> current : neighborsMap.entrySet()) {
+			for(Entry<Integer, HashSet<Node>> current : neighborsMap.entrySet()) {
 				Coordinates otherUpperClusterCoordinates = getUpperLevelCoords.apply(getNodeFromUpperLevel(current.getKey()));
 				int currentSize = current.getValue().size();
 				//System.out.println("\t\tAnother cluster is: " + otherUpperClusterCoordinates + " with weight " + current.getValue().size());
@@ -108,14 +108,14 @@ public class WeightedBarycenterPlacementStrategy extends MultilevelNodePlacement
 
 		//System.out.println("\tCOMPUTED COORDINATES (no fuzzyness): " + result);
 
-		result.setX(result.x()+Math.random()*fuzzyness*(Math.random()>0.5 ? 1 : -1));
-		result.setY(result.y()+Math.random()*fuzzyness*(Math.random()>0.5 ? 1 : -1));
+		result.setX(result.x()+random.nextDouble()*fuzzyness*(random.nextBoolean() ? 1 : -1));
+		result.setY(result.y()+random.nextDouble()*fuzzyness*(random.nextBoolean() ? 1 : -1));
 		return result;
 
 	}
 
 	protected float getOwnClusterWeight(float totalSum, Node lowerLevelNode, DyGraph finerLevel) {
-		return coarsener.getGroupMembers(coarsener.getGroupLeader(lowerLevelNode.id())).size();
+		return getGroupSize(getGroupOf(lowerLevelNode));
 	}
 
 	public static class SolarMergerPlacementStrategy extends WeightedBarycenterPlacementStrategy {
@@ -59,11 +59,14 @@ public class DynNoSliceRun extends Run{
                 .withConstraint(new ModularConstraint.DecreasingMaxMovement(2 * delta))
                 .withConstraint(new ModularConstraint.MovementAcceleration(2 * delta, Geom.e3D))
                 .withPostProcessing(new FlexibleTimeTrajectories(delta * 1.5, delta * 2.0, Geom.e3D))
+                .withGridLocator(2 * delta)
+                .withParallelism(threads)
                 .build();
 
         	Logger.getInstance().log("Starting layout");
         
         	algorithm.iterate(defaultNumberOfIterations);
+        	algorithm.close();
         	
         	long endEpoch = System.currentTimeMillis();
         	
@@ -53,8 +53,17 @@ public class MultiDynNoSliceRun extends Run {
 				.setFlattener(new DyGraphFlattener.StaticSumPresenceFlattener())
 				.defaultLayoutParameters(LIMIT_MINIMUM_TUNING.LIMITED)
 				.addLayerPostProcessingDrawingOption(new MultiLevelDrawingOption.FlexibleTimeTrajectoriesPostProcessing(0, MultiLevelDynNoSlice.TRAJECTORY_OPTIMIZATION_INTERVAL))
-				.withSingleLevelLayout(AVAILABLE_STATIC_LAYOUTS.sfdp)
-				.addOption(MultiLevelDynNoSlice.LOG_OPTION, true).build();
+				.withSingleLevelLayout(AVAILABLE_STATIC_LAYOUTS.inprocess)
+				.withParallelism(threads)
+				.addOption(MultiLevelDynNoSlice.LOG_OPTION, true);
+
+		if(seed != null)
+			multiDyn.withSeed(seed);
+		if(adaptiveIterations)
+			multiDyn.adaptiveIterationParameters();
+		if(warmStart)
+			multiDyn.addOption(MultiLevelDynNoSlice.WARM_START, true);
+		multiDyn.build();
 
 		DyGraph result = multiDyn.runMultiLevelLayout();
 
@@ -53,6 +53,10 @@ public abstract class Run {
 	protected final String graphName;
 	protected boolean bendTransfer = false;
 	protected boolean vanillaTuning = false;
+	protected Long seed = null;
+	protected int threads = 1;
+	protected boolean adaptiveIterations = false;
+	protected boolean warmStart = false;
 	
 	Logger logger;
 
@@ -133,6 +137,31 @@ public abstract class Run {
 				case bendTransfer: {
 					bendTransfer = true; welcomeMessage += "Bend Transfer Active\n"; break;
 				}
+				case seed: {
+					try {
+						seed = Long.parseLong(argv[i+1]);
+						welcomeMessage += "Set seed " + seed + " from CLI\n";
+					} catch (NumberFormatException e) {
+						System.err.println("Cannot parse seed correctly. Using a random seed. \n");
+					}
+					break;
+				}
+				case adaptiveIterations: {
+					adaptiveIterations = true; welcomeMessage += "Adaptive Iterations Active\n"; break;
+				}
+				case warmStart: {
+					warmStart = true; welcomeMessage += "Warm Start Active (experimental)\n"; break;
+				}
+				case threads: {
+					try {
+						int possibleThreads = Integer.parseInt(argv[i+1]);
+						threads = possibleThreads > 0 ? possibleThreads : 1;
+						welcomeMessage += "Set threads " + threads + " from CLI\n";
+					} catch (NumberFormatException e) {
+						System.err.println("Cannot parse threads correctly. Using a single thread. \n");
+					}
+					break;
+				}
 //				case vanillaTuning: {
 //					vanillaTuning = true; System.out.println("Vanilla Tuning Active"); break;
 //				}
@@ -390,7 +419,7 @@ public abstract class Run {
 		text,
 		autoTau,
 		tau, 
-		verbose, bendTransfer;
+		verbose, bendTransfer, seed, threads, adaptiveIterations, warmStart;
 		//, vanillaTuning;
 
 		public static void printHelp() {
@@ -417,6 +446,14 @@ public abstract class Run {
 					return new CMDLineOption("Verbose", "-v", "Prints extra information about the drawing process on the console.");
 			case bendTransfer:	
 				return new CMDLineOption("Bend Transfer (MultiDynNoS only)", "-bT", "Enables Bend Transfer (default Disabled).");
+			case seed:
+				return new CMDLineOption("Seed (MultiDynNoS only)", "-s", "Random seed of the layout, for reproducible drawings (default random).");
+			case adaptiveIterations:
+				return new CMDLineOption("Adaptive Iterations (MultiDynNoS only)", "-aI", "Stops the layout of each level once it converges (default Disabled).");
+			case warmStart:
+				return new CMDLineOption("Warm Start (MultiDynNoS only)", "-wS", "Experimental. Derives the trajectories of each level from the ones of the coarser level (default Disabled).");
+			case threads:
+				return new CMDLineOption("Threads", "-p", "Number of threads used to compute the forces (default 1).");
 //			case vanillaTuning:	
 //				return new CMDLineOption("Use Vanilla Tuning (MultiDynNoS only)", "-vT", "Sets layout tuning to vanilla MultiDynNoS.");
 				//			case nodes: 
@@ -438,6 +475,10 @@ public abstract class Run {
 			case "o": return text;
 			case "T": return autoTau;
 			case "v": return verbose;
+			case "s": return seed;
+			case "p": return threads;
+			case "aI": return adaptiveIterations;
+			case "wS": return warmStart;
 			default: return null;
 			}
 		}
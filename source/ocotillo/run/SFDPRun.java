@@ -20,6 +20,7 @@ import ocotillo.Experiment;
 import ocotillo.dygraph.DyGraph;
 import ocotillo.graph.Graph;
 import ocotillo.graph.layout.fdl.sfdp.SfdpExecutor;
+import ocotillo.graph.layout.fdl.sfdp.SfdpExecutor.AVAILABLE_STATIC_LAYOUTS;
 import ocotillo.graph.layout.fdl.sfdp.SfdpExecutor.SfdpBuilder;
 import ocotillo.multilevel.flattener.DyGraphFlattener.StaticSumPresenceFlattener;
 import ocotillo.multilevel.logger.Logger;
@@ -46,7 +47,7 @@ public class SFDPRun extends Run {
 	protected DyGraph run() {		
 		StaticSumPresenceFlattener dyg = new StaticSumPresenceFlattener();
 		Graph flattened = dyg.flattenDyGraph(dygraph);
-		SfdpBuilder sfdp = new SfdpBuilder();
+		SfdpBuilder sfdp = new SfdpBuilder().withCommandLine(AVAILABLE_STATIC_LAYOUTS.sfdp);
 		SfdpExecutor sfdpInstance = sfdp.build();
 		Logger.getInstance().log("Flattened graph has " + flattened.nodeCount() + " nodes and " + flattened.edgeCount() + " edges");
 
@@ -0,0 +1,312 @@
+/**
+ * Copyright  2020 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package ocotillo.samples.parsers;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.FunctionConst;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+
+/**
+ * Builds a dynamic graph from a stream of edge events. Each event has a time
+ * and makes its edge and extremities present for a right-closed interval. The intervals are
+ * collected per element and added to the presence evolutions in batches,
+ * after merging the overlapping and contiguous ones, so that the evolutions
+ * do not hold one function per event.
+ */
+public class EventGraphBuilder {
+
+	private final DyGraph graph = new DyGraph();
+	private final DyNodeAttribute<Boolean> presence = graph.nodeAttribute(StdAttribute.dyPresence);
+	private final DyNodeAttribute<String> label = graph.nodeAttribute(StdAttribute.label);
+	private final DyNodeAttribute<Coordinates> position = graph.nodeAttribute(StdAttribute.nodePosition);
+	private final DyNodeAttribute<Color> color = graph.nodeAttribute(StdAttribute.color);
+	private final DyEdgeAttribute<Boolean> edgePresence = graph.edgeAttribute(StdAttribute.dyPresence);
+	private final DyEdgeAttribute<Color> edgeColor = graph.edgeAttribute(StdAttribute.color);
+
+	private final Map<String, Node> nodeMap = new HashMap<>();
+	private final Map<Node, PendingPresence> nodePending = new HashMap<>();
+	private final Map<Edge, PendingPresence> edgePending = new HashMap<>();
+	private final List<PendingPresence> dirty = new ArrayList<>();
+
+	private final Interval timeWindow;
+	private final int batchSize;
+	private final Color nodeColor;
+	private final Color defaultEdgeColor;
+	private double minTime = Double.POSITIVE_INFINITY;
+	private double maxTime = Double.NEGATIVE_INFINITY;
+	private long eventsProcessed = 0;
+	private int eventsInBatch = 0;
+
+	/**
+	 * Constructs an event graph builder.
+	 *
+	 * @param timeWindow the window of the event times, or null to accept all events.
+	 * @param batchSize the number of events after which the presences are updated.
+	 * @param nodeColor the node colour.
+	 * @param edgeColor the edge colour.
+	 */
+	public EventGraphBuilder(Interval timeWindow, int batchSize, Color nodeColor, Color edgeColor) {
+		this.timeWindow = timeWindow;
+		this.batchSize = batchSize;
+		this.nodeColor = nodeColor;
+		this.defaultEdgeColor = edgeColor;
+	}
+
+	/**
+	 * Adds an event between two nodes, creating them and their edge if
+	 * needed. Events whose time is outside the time window are discarded.
+	 *
+	 * @param idSource the source node id.
+	 * @param idTarget the target node id.
+	 * @param time the time of the event.
+	 * @param start the start of the event presence.
+	 * @param end the end of the event presence.
+	 * @return true if the event has been added, false if discarded.
+	 */
+	public boolean addEvent(String idSource, String idTarget, double time, double start, double end) {
+		if (timeWindow != null && (time < timeWindow.leftBound() || time > timeWindow.rightBound())) {
+			return false;
+		}
+
+		Node source = getOrCreateNode(idSource);
+		Node target = getOrCreateNode(idTarget);
+		Edge edge = graph.betweenEdge(source, target);
+		if (edge == null) {
+			edge = graph.newEdge(source, target);
+			edgePresence.set(edge, new Evolution<>(false));
+			edgeColor.set(edge, new Evolution<>(defaultEdgeColor));
+			edgePending.put(edge, new PendingPresence(edgePresence.get(edge)));
+		}
+
+		addPending(nodePending.get(source), start, end);
+		addPending(nodePending.get(target), start, end);
+		addPending(edgePending.get(edge), start, end);
+
+		minTime = Math.min(minTime, time);
+		maxTime = Math.max(maxTime, time);
+		eventsProcessed++;
+		eventsInBatch++;
+		if (eventsInBatch >= batchSize) {
+			flush();
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the pending intervals to the presence evolutions.
+	 */
+	public void flush() {
+		for (PendingPresence pending : dirty) {
+			pending.flush();
+		}
+		dirty.clear();
+		eventsInBatch = 0;
+	}
+
+	/**
+	 * Gets the graph built so far. Pending intervals are flushed first.
+	 *
+	 * @return the dynamic graph.
+	 */
+	public DyGraph graph() {
+		flush();
+		return graph;
+	}
+
+	/**
+	 * Gets the number of events added.
+	 *
+	 * @return the number of events.
+	 */
+	public long eventsProcessed() {
+		return eventsProcessed;
+	}
+
+	/**
+	 * Gets the earliest time among the accepted events.
+	 *
+	 * @return the minimum event time.
+	 */
+	public double minTime() {
+		return minTime;
+	}
+
+	/**
+	 * Gets the latest time among the accepted events.
+	 *
+	 * @return the maximum event time.
+	 */
+	public double maxTime() {
+		return maxTime;
+	}
+
+	/**
+	 * Removes the nodes without edges.
+	 *
+	 * @return the number of removed nodes.
+	 */
+	public long removeIsolatedNodes() {
+		long removedNodes = 0;
+		for (Node n : new ArrayList<>(graph.nodes())) {
+			if (graph.outEdges(n).size() == 0 && graph.inEdges(n).size() == 0) {
+				graph.remove(n);
+				removedNodes++;
+			}
+		}
+		return removedNodes;
+	}
+
+	/**
+	 * Gets a node, creating it at the first occurrence of its id.
+	 *
+	 * @param id the node id.
+	 * @return the node.
+	 */
+	private Node getOrCreateNode(String id) {
+		Node node = nodeMap.get(id);
+		if (node == null) {
+			node = graph.newNode(id);
+			presence.set(node, new Evolution<>(false));
+			label.set(node, new Evolution<>(id));
+			position.set(node, new Evolution<>(new Coordinates(0, 0)));
+			color.set(node, new Evolution<>(nodeColor));
+			nodeMap.put(id, node);
+			nodePending.put(node, new PendingPresence(presence.get(node)));
+		}
+		return node;
+	}
+
+	/**
+	 * Adds an interval to the pending ones of an element.
+	 *
+	 * @param pending the pending intervals.
+	 * @param start the interval start.
+	 * @param end the interval end.
+	 */
+	private void addPending(PendingPresence pending, double start, double end) {
+		if (pending.size == 0) {
+			dirty.add(pending);
+		}
+		pending.add(start, end);
+	}
+
+	/**
+	 * The intervals of an element waiting to be added to its presence.
+	 */
+	private static class PendingPresence {
+
+		private final Evolution<Boolean> evolution;
+		private double[] starts = new double[4];
+		private double[] ends = new double[4];
+		private int size = 0;
+		private boolean sorted = true;
+
+		private PendingPresence(Evolution<Boolean> evolution) {
+			this.evolution = evolution;
+		}
+
+		private void add(double start, double end) {
+			if (size == starts.length) {
+				starts = Arrays.copyOf(starts, size * 2);
+				ends = Arrays.copyOf(ends, size * 2);
+			}
+			sorted = sorted && (size == 0 || starts[size - 1] <= start);
+			starts[size] = start;
+			ends[size] = end;
+			size++;
+		}
+
+		/**
+		 * Merges the overlapping and contiguous intervals and inserts them
+		 * in the evolution.
+		 */
+		private void flush() {
+			if (!sorted) {
+				sort(0, size - 1);
+			}
+			double currentStart = starts[0];
+			double currentEnd = ends[0];
+			for (int i = 1; i < size; i++) {
+				if (starts[i] <= currentEnd) {
+					currentEnd = Math.max(currentEnd, ends[i]);
+				} else {
+					evolution.insert(new FunctionConst<>(Interval.newRightClosed(currentStart, currentEnd), true));
+					currentStart = starts[i];
+					currentEnd = ends[i];
+				}
+			}
+			evolution.insert(new FunctionConst<>(Interval.newRightClosed(currentStart, currentEnd), true));
+			size = 0;
+			sorted = true;
+		}
+
+		/**
+		 * Sorts the intervals by start.
+		 *
+		 * @param low the first index.
+		 * @param high the last index.
+		 */
+		private void sort(int low, int high) {
+			while (low < high) {
+				double pivot = starts[(low + high) >>> 1];
+				int i = low;
+				int j = high;
+				while (i <= j) {
+					while (starts[i] < pivot) {
+						i++;
+					}
+					while (starts[j] > pivot) {
+						j--;
+					}
+					if (i <= j) {
+						swap(i++, j--);
+					}
+				}
+				if (j - low < high - i) {
+					sort(low, j);
+					low = i;
+				} else {
+					sort(i, high);
+					high = j;
+				}
+			}
+		}
+
+		private void swap(int i, int j) {
+			double start = starts[i];
+			starts[i] = starts[j];
+			starts[j] = start;
+			double end = ends[i];
+			ends[i] = ends[j];
+			ends[j] = end;
+		}
+	}
+}
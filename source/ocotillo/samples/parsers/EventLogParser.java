@@ -0,0 +1,139 @@
+/**
+ * Copyright  2020 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package ocotillo.samples.parsers;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+import ocotillo.geometry.Interval;
+import ocotillo.serialization.EventLogReader;
+
+/**
+ * A parser for datasets stored as logs of edge events. The log is streamed
+ * line by line into an event graph builder, and the number of events and the
+ * time window to load can be configured.
+ */
+public abstract class EventLogParser extends PreloadedGraphParser {
+
+	public static final long NO_EVENT_LIMIT = Long.MAX_VALUE;
+	public static final int DEFAULT_BATCH_SIZE = 4096;
+
+	public static final Color NODE_COLOR = new Color(141, 211, 199);
+	public static final Color EDGE_COLOR = Color.BLACK;
+
+	protected long eventLimit;
+	protected Interval timeWindow = null;
+	protected int batchSize = DEFAULT_BATCH_SIZE;
+
+	/**
+	 * Handles a line of the event log.
+	 */
+	protected interface EventHandler {
+
+		/**
+		 * Reads the event in the current line and adds it to the builder, or
+		 * ignores the line if it does not describe a valid event.
+		 *
+		 * @param line the reader positioned on the line.
+		 * @param builder the event graph builder.
+		 */
+		public void handle(EventLogReader line, EventGraphBuilder builder);
+	}
+
+	/**
+	 * Constructs an event log parser.
+	 *
+	 * @param defaultEventLimit the number of events loaded by default.
+	 */
+	protected EventLogParser(long defaultEventLimit) {
+		this.eventLimit = defaultEventLimit;
+	}
+
+	/**
+	 * Sets the maximum number of events to load.
+	 *
+	 * @param eventLimit the event limit.
+	 * @return this parser.
+	 */
+	public EventLogParser withEventLimit(long eventLimit) {
+		this.eventLimit = eventLimit;
+		return this;
+	}
+
+	/**
+	 * Loads all the events of the log.
+	 *
+	 * @return this parser.
+	 */
+	public EventLogParser withoutEventLimit() {
+		return withEventLimit(NO_EVENT_LIMIT);
+	}
+
+	/**
+	 * Loads only the events whose time is in a window, expressed in the
+	 * time unit of the suggested interval of the dataset.
+	 *
+	 * @param timeWindow the time window, or null for no window.
+	 * @return this parser.
+	 */
+	public EventLogParser withTimeWindow(Interval timeWindow) {
+		this.timeWindow = timeWindow;
+		return this;
+	}
+
+	/**
+	 * Sets the number of events after which the pending presences are
+	 * added to the graph.
+	 *
+	 * @param batchSize the batch size.
+	 * @return this parser.
+	 */
+	public EventLogParser withBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	/**
+	 * Streams the event log into a new event graph builder, until the end of
+	 * the log or the event limit.
+	 *
+	 * @param dataPath the path of the log.
+	 * @param separator the token separator.
+	 * @param headerLines the number of header lines to skip.
+	 * @param handler the line handler.
+	 * @return the builder, with all the presences flushed.
+	 * @throws URISyntaxException if the log cannot be read.
+	 */
+	protected EventGraphBuilder readEvents(String dataPath, char separator, int headerLines, EventHandler handler) throws URISyntaxException {
+		EventGraphBuilder builder = new EventGraphBuilder(timeWindow, batchSize, NODE_COLOR, EDGE_COLOR);
+		try (EventLogReader reader = EventLogReader.open(dataPath, separator)) {
+			reader.skipLines(headerLines);
+			while (builder.eventsProcessed() < eventLimit && reader.nextLine()) {
+				handler.handle(reader, builder);
+			}
+		} catch (IOException e) {
+			System.out.println("Error while reading stream!");
+			throw new URISyntaxException(dataPath, "Stream reading error");
+		} catch (RuntimeException e) {
+			System.out.println("General Error while reading stream!");
+			throw new URISyntaxException(dataPath, String.valueOf(e.getMessage()));
+		}
+		builder.flush();
+		return builder;
+	}
+}
@@ -0,0 +1,346 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.serialization;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reads a delimited event log one line at a time. The lines are tokenized in
+ * place on a single separator character, so that reading a line does not
+ * allocate and numeric tokens can be parsed without creating strings. Empty
+ * lines are skipped.
+ */
+public class EventLogReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Reader reader;
+    private final char separator;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int bufferPosition = 0;
+    private int bufferLimit = 0;
+    private char[] line = new char[256];
+    private int lineLength = 0;
+    private int[] tokenStarts = new int[16];
+    private int[] tokenEnds = new int[16];
+    private int tokenCount = 0;
+    private long lineNumber = 0;
+
+    /**
+     * Constructs a reader for an input stream.
+     *
+     * @param in the input stream.
+     * @param separator the token separator.
+     */
+    public EventLogReader(InputStream in, char separator) {
+        this(new InputStreamReader(in), separator);
+    }
+
+    /**
+     * Constructs a reader for a character stream.
+     *
+     * @param reader the character stream.
+     * @param separator the token separator.
+     */
+    public EventLogReader(Reader reader, char separator) {
+        this.reader = reader;
+        this.separator = separator;
+    }
+
+    /**
+     * Opens an event log from the class path or, if not found there, from the
+     * file system.
+     *
+     * @param path the path of the log.
+     * @param separator the token separator.
+     * @return the reader.
+     * @throws FileNotFoundException if the log cannot be found.
+     */
+    public static EventLogReader open(String path, char separator) throws FileNotFoundException {
+        InputStream in = EventLogReader.class.getClassLoader().getResourceAsStream(path);
+        if (in == null) {
+            in = new FileInputStream(new File(path));
+        }
+        return new EventLogReader(in, separator);
+    }
+
+    /**
+     * Moves to the next non empty line.
+     *
+     * @return true if a line has been read, false at the end of the stream.
+     * @throws IOException if the stream cannot be read.
+     */
+    public boolean nextLine() throws IOException {
+        while (readLine()) {
+            if (lineLength > 0) {
+                tokenize();
+                return true;
+            }
+        }
+        tokenCount = 0;
+        return false;
+    }
+
+    /**
+     * Skips a number of lines, such as the header of the log.
+     *
+     * @param count the number of lines to skip.
+     * @throws IOException if the stream cannot be read.
+     */
+    public void skipLines(int count) throws IOException {
+        for (int i = 0; i < count && nextLine(); i++) {
+        }
+    }
+
+    /**
+     * Gets the number of the current line, counting from one and including
+     * skipped and empty lines.
+     *
+     * @return the line number.
+     */
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Gets the number of tokens in the current line.
+     *
+     * @return the token count.
+     */
+    public int tokenCount() {
+        return tokenCount;
+    }
+
+    /**
+     * Gets a token of the current line.
+     *
+     * @param index the token index.
+     * @return the token.
+     */
+    public String token(int index) {
+        checkIndex(index);
+        return new String(line, tokenStarts[index], tokenEnds[index] - tokenStarts[index]);
+    }
+
+    /**
+     * Checks if a token of the current line is equal to a given value.
+     *
+     * @param index the token index.
+     * @param value the value.
+     * @return true if the token is equal to the value.
+     */
+    public boolean tokenEquals(int index, String value) {
+        return tokenMatches(index, value, false);
+    }
+
+    /**
+     * Checks if a token of the current line is equal to a given value,
+     * ignoring the case.
+     *
+     * @param index the token index.
+     * @param value the value.
+     * @return true if the token is equal to the value ignoring the case.
+     */
+    public boolean tokenEqualsIgnoreCase(int index, String value) {
+        return tokenMatches(index, value, true);
+    }
+
+    /**
+     * Checks if two tokens of the current line are equal.
+     *
+     * @param first the first token index.
+     * @param second the second token index.
+     * @return true if the tokens are equal.
+     */
+    public boolean tokensEqual(int first, int second) {
+        checkIndex(first);
+        checkIndex(second);
+        return Arrays.equals(line, tokenStarts[first], tokenEnds[first],
+                line, tokenStarts[second], tokenEnds[second]);
+    }
+
+    /**
+     * Parses a token of the current line as a long.
+     *
+     * @param index the token index.
+     * @return the parsed value.
+     * @throws NumberFormatException if the token is not an integer.
+     */
+    public long longToken(int index) {
+        checkIndex(index);
+        int position = tokenStarts[index];
+        int end = tokenEnds[index];
+        boolean negative = position < end && line[position] == '-';
+        if (negative || (position < end && line[position] == '+')) {
+            position++;
+        }
+        if (position == end) {
+            throw new NumberFormatException("For input string: \"" + token(index) + "\"");
+        }
+        long value = 0;
+        for (; position < end; position++) {
+            int digit = line[position] - '0';
+            if (digit < 0 || digit > 9 || value < (Long.MIN_VALUE + digit) / 10) {
+                throw new NumberFormatException("For input string: \"" + token(index) + "\"");
+            }
+            value = value * 10 - digit;
+        }
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                throw new NumberFormatException("For input string: \"" + token(index) + "\"");
+            }
+            value = -value;
+        }
+        return value;
+    }
+
+    /**
+     * Parses a token of the current line as a double. Integer tokens are
+     * parsed in place, the others through Double.parseDouble.
+     *
+     * @param index the token index.
+     * @return the parsed value.
+     * @throws NumberFormatException if the token is not a number.
+     */
+    public double doubleToken(int index) {
+        checkIndex(index);
+        int end = tokenEnds[index];
+        int position = tokenStarts[index];
+        if (position < end && (line[position] == '-' || line[position] == '+')) {
+            position++;
+        }
+        boolean integer = position < end && end - position < 18;
+        for (; integer && position < end; position++) {
+            integer = line[position] >= '0' && line[position] <= '9';
+        }
+        return integer ? longToken(index) : Double.parseDouble(token(index));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Reads the next line, without its terminator, into the line buffer.
+     *
+     * @return false at the end of the stream.
+     * @throws IOException if the stream cannot be read.
+     */
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        boolean read = false;
+        while (true) {
+            if (bufferPosition == bufferLimit) {
+                bufferLimit = reader.read(buffer, 0, BUFFER_SIZE);
+                bufferPosition = 0;
+                if (bufferLimit <= 0) {
+                    bufferLimit = 0;
+                    if (read) {
+                        lineNumber++;
+                    }
+                    return read;
+                }
+            }
+            char character = buffer[bufferPosition++];
+            read = true;
+            if (character == '\n') {
+                lineNumber++;
+                return true;
+            }
+            if (character == '\r') {
+                if (bufferPosition == bufferLimit) {
+                    bufferLimit = reader.read(buffer, 0, BUFFER_SIZE);
+                    bufferPosition = 0;
+                    bufferLimit = Math.max(bufferLimit, 0);
+                }
+                if (bufferPosition < bufferLimit && buffer[bufferPosition] == '\n') {
+                    bufferPosition++;
+                }
+                lineNumber++;
+                return true;
+            }
+            if (lineLength == line.length) {
+                line = Arrays.copyOf(line, line.length * 2);
+            }
+            line[lineLength++] = character;
+        }
+    }
+
+    /**
+     * Finds the token boundaries of the current line.
+     */
+    private void tokenize() {
+        tokenCount = 0;
+        int start = 0;
+        for (int i = 0; i <= lineLength; i++) {
+            if (i == lineLength || line[i] == separator) {
+                if (tokenCount == tokenStarts.length) {
+                    tokenStarts = Arrays.copyOf(tokenStarts, tokenCount * 2);
+                    tokenEnds = Arrays.copyOf(tokenEnds, tokenCount * 2);
+                }
+                tokenStarts[tokenCount] = start;
+                tokenEnds[tokenCount] = i;
+                tokenCount++;
+                start = i + 1;
+            }
+        }
+    }
+
+    /**
+     * Compares a token with a value.
+     *
+     * @param index the token index.
+     * @param value the value.
+     * @param ignoreCase whether to ignore the case.
+     * @return true if the token matches the value.
+     */
+    private boolean tokenMatches(int index, String value, boolean ignoreCase) {
+        checkIndex(index);
+        int length = tokenEnds[index] - tokenStarts[index];
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char tokenChar = line[tokenStarts[index] + i];
+            char valueChar = value.charAt(i);
+            if (tokenChar != valueChar && (!ignoreCase
+                    || Character.toLowerCase(tokenChar) != Character.toLowerCase(valueChar))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Verifies that a token exists in the current line.
+     *
+     * @param index the token index.
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= tokenCount) {
+            throw new IndexOutOfBoundsException("Line " + lineNumber + " has no token " + index);
+        }
+    }
+}
@@ -99,6 +99,23 @@ public class ParserTools {
         }
     }
 
+    /**
+     * Appends the given lines at the end of a file, creating it if needed.
+     *
+     * @param lines the text lines.
+     * @param file the file.
+     */
+    public static void appendFileLines(List<String> lines, File file) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, true))) {
+            for (String line : lines) {
+                writer.write(line.replace(".", ",")); //added for Excel file compatibility
+                writer.newLine();
+            }
+        } catch (IOException ex) {
+            System.err.println("The file " + file.getName() + " is not writable.");
+        }
+    }
+
     /**
      * Parses a string with escaped sequences. The escaped characters or
      * sequences must be provided as a regular expression. Even when multiple
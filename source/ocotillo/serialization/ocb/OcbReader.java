@@ -0,0 +1,417 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.serialization.ocb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.Function;
+import ocotillo.dygraph.FunctionConst;
+import ocotillo.dygraph.Interpolation;
+import ocotillo.dygraph.Trajectory;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Attribute;
+import ocotillo.graph.Node;
+import ocotillo.serialization.oco.OcoConverterSet;
+import ocotillo.serialization.oco.OcoValueConverter;
+
+/**
+ * Reader for ocb files. The file is memory mapped when the reader is opened,
+ * and only its header and attribute directory are read at that time. Node
+ * and edge tables are decoded when a graph is first built, and each
+ * attribute section is decoded only when that attribute is requested, so
+ * that the pages of the unused attributes are never loaded.
+ */
+public class OcbReader {
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final OcoConverterSet converters;
+    private final Map<Attribute.Type, Map<String, Integer>> directory = new EnumMap<>(Attribute.Type.class);
+    private final int nodeCount;
+    private final int edgeCount;
+    private String[] nodeIds;
+    private String[] edgeIds;
+    private int[] edgeSources;
+    private int[] edgeTargets;
+
+    /**
+     * Opens an ocb file.
+     *
+     * @param file the file.
+     * @param converters the converters for the values not stored natively.
+     * @throws IOException if the file cannot be read.
+     */
+    protected OcbReader(File file, OcoConverterSet converters) throws IOException {
+        this.file = file;
+        this.converters = converters;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < 24 || buffer.getInt(0) != OcbWriter.MAGIC) {
+            throw new MalformedFileException(file, "this is not an ocb file.");
+        }
+        if (buffer.getInt(4) != OcbWriter.VERSION) {
+            throw new MalformedFileException(file, "version " + buffer.getInt(4) + " is not supported.");
+        }
+        nodeCount = buffer.getInt(8);
+
+        for (Attribute.Type type : Attribute.Type.values()) {
+            directory.put(type, new LinkedHashMap<>());
+        }
+        ByteBuffer input = at(buffer.getLong(buffer.limit() - 8));
+        int attributeCount = input.getInt();
+        for (int i = 0; i < attributeCount; i++) {
+            Attribute.Type type = Attribute.Type.values()[input.get()];
+            String name = OcbValueType.readString(input);
+            directory.get(type).put(name, (int) input.getLong());
+        }
+
+        input = at(12);
+        skipStrings(input, nodeCount);
+        edgeCount = input.getInt();
+    }
+
+    /**
+     * Gets the number of nodes in the file.
+     *
+     * @return the number of nodes.
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Gets the number of edges in the file.
+     *
+     * @return the number of edges.
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Gets the names of the stored attributes of a given type.
+     *
+     * @param type the attribute type.
+     * @return the attribute names.
+     */
+    public Set<String> attributeNames(Attribute.Type type) {
+        return Collections.unmodifiableSet(directory.get(type).keySet());
+    }
+
+    /**
+     * Reads the whole graph.
+     *
+     * @return the graph.
+     */
+    public DyGraph readGraph() {
+        DyGraph graph = readStructure();
+        for (Attribute.Type type : Attribute.Type.values()) {
+            for (String name : directory.get(type).keySet()) {
+                readAttribute(graph, type, name);
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Reads the graph nodes and edges, but only the attributes with the given
+     * names. The other attributes can be read later with readAttribute.
+     *
+     * @param attributeNames the names of the attributes to read.
+     * @return the graph.
+     */
+    public DyGraph readGraph(Collection<String> attributeNames) {
+        DyGraph graph = readStructure();
+        for (Attribute.Type type : Attribute.Type.values()) {
+            for (String name : directory.get(type).keySet()) {
+                if (attributeNames.contains(name)) {
+                    readAttribute(graph, type, name);
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Reads an attribute into a graph previously read from this file.
+     *
+     * @param graph the graph.
+     * @param type the attribute type.
+     * @param name the attribute name.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void readAttribute(DyGraph graph, Attribute.Type type, String name) {
+        Integer offset = directory.get(type).get(name);
+        if (offset == null) {
+            throw new IllegalArgumentException("The file does not contain the " + type + " attribute " + name + ".");
+        }
+        readTables();
+
+        ByteBuffer input = at(offset);
+        OcbValueType valueType = OcbValueType.values()[input.get()];
+        OcoValueConverter converter = null;
+        if (valueType == OcbValueType.CONVERTED) {
+            String typeName = OcbValueType.readString(input);
+            converter = converters.get(typeName);
+            if (converter == null) {
+                throw new MalformedFileException(file, "no converter is available for the type " + typeName + ".");
+            }
+        }
+
+        int valueCount = input.getInt();
+        input.getInt();
+        Evolution defaultValue = readValue(input, valueType, converter);
+        switch (type) {
+            case graph:
+                graph.newLocalGraphAttribute(name, defaultValue);
+                break;
+            case node:
+                DyNodeAttribute nodeAttribute = graph.newLocalNodeAttribute(name, defaultValue);
+                for (int i = 1; i < valueCount; i++) {
+                    Node node = graph.getNode(nodeIds[input.getInt()]);
+                    nodeAttribute.set(node, readValue(input, valueType, converter));
+                }
+                break;
+            case edge:
+                DyEdgeAttribute edgeAttribute = graph.newLocalEdgeAttribute(name, defaultValue);
+                for (int i = 1; i < valueCount; i++) {
+                    edgeAttribute.set(graph.getEdge(edgeIds[input.getInt()]), readValue(input, valueType, converter));
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown attribute type " + type);
+        }
+    }
+
+    /**
+     * Creates a graph with the nodes and edges of the file.
+     *
+     * @return the graph.
+     */
+    private DyGraph readStructure() {
+        readTables();
+        DyGraph graph = new DyGraph();
+        Node[] nodes = new Node[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = graph.newNode(nodeIds[i]);
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            graph.newEdge(edgeIds[i], nodes[edgeSources[i]], nodes[edgeTargets[i]]);
+        }
+        return graph;
+    }
+
+    /**
+     * Decodes the node and edge tables, if not done already.
+     */
+    private synchronized void readTables() {
+        if (nodeIds != null) {
+            return;
+        }
+        ByteBuffer input = at(12);
+        String[] ids = new String[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            ids[i] = OcbValueType.readString(input);
+        }
+        input.getInt();
+        edgeIds = new String[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            edgeIds[i] = OcbValueType.readString(input);
+        }
+        edgeSources = readInts(input, edgeCount);
+        edgeTargets = readInts(input, edgeCount);
+        nodeIds = ids;
+    }
+
+    /**
+     * Reads the value of an attribute for an element.
+     *
+     * @param input the input positioned at the value.
+     * @param valueType the value type.
+     * @param converter the converter for values not stored natively.
+     * @return the value.
+     */
+    private static Evolution<?> readValue(ByteBuffer input, OcbValueType valueType, OcoValueConverter<?> converter) {
+        if (valueType == OcbValueType.CONVERTED) {
+            return (Evolution<?>) converter.ocoToGraphLib(OcbValueType.readString(input));
+        }
+        byte kind = input.get();
+        if (kind == OcbWriter.TRAJECTORY) {
+            return readTrajectory(input);
+        }
+        return readEvolution(input, valueType);
+    }
+
+    /**
+     * Reads an evolution stored in columns.
+     *
+     * @param input the input positioned after the evolution kind.
+     * @param valueType the value type.
+     * @return the evolution.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Evolution<?> readEvolution(ByteBuffer input, OcbValueType valueType) {
+        Evolution evolution = new Evolution<>(valueType.read(input));
+        int functionCount = input.getInt();
+        if (functionCount == 0) {
+            return evolution;
+        }
+        double[] leftBounds = readDoubles(input, functionCount);
+        double[] rightBounds = readDoubles(input, functionCount);
+        byte[] flags = readBytes(input, functionCount);
+        byte[] interpolations = readBytes(input, functionCount);
+        Object[] leftValues = new Object[functionCount];
+        for (int i = 0; i < functionCount; i++) {
+            leftValues[i] = valueType.read(input);
+        }
+
+        List<Function<?>> functions = new ArrayList<>(functionCount);
+        for (int i = 0; i < functionCount; i++) {
+            Interval interval = Interval.newCustom(leftBounds[i], rightBounds[i],
+                    (flags[i] & OcbWriter.LEFT_CLOSED) != 0, (flags[i] & OcbWriter.RIGHT_CLOSED) != 0);
+            if ((flags[i] & OcbWriter.RECT) != 0) {
+                Interpolation interpolation = Interpolation.Std.values()[interpolations[i]].get();
+                functions.add(valueType.buildRect(interval, leftValues[i], valueType.read(input), interpolation));
+            } else {
+                functions.add(new FunctionConst<>(interval, leftValues[i]));
+            }
+        }
+        evolution.insertAll(functions);
+        return evolution;
+    }
+
+    /**
+     * Reads a trajectory stored in columns.
+     *
+     * @param input the input positioned after the evolution kind.
+     * @return the trajectory.
+     */
+    private static Trajectory readTrajectory(ByteBuffer input) {
+        Trajectory.Builder builder = new Trajectory.Builder((Coordinates) OcbValueType.COORDINATES.read(input));
+        int pieceCount = input.getInt();
+        int pointCount = input.getInt();
+        int[] pieceStarts = readInts(input, pieceCount);
+        byte[] closures = readBytes(input, pieceCount);
+        double[] times = readDoubles(input, pointCount);
+        double[] xs = readDoubles(input, pointCount);
+        double[] ys = readDoubles(input, pointCount);
+        for (int piece = 0; piece < pieceCount; piece++) {
+            int start = pieceStarts[piece];
+            int end = piece + 1 < pieceCount ? pieceStarts[piece + 1] : pointCount;
+            builder.startPiece(times[start], new Coordinates(xs[start], ys[start]), (closures[piece] & OcbWriter.LEFT_CLOSED) != 0);
+            for (int point = start + 1; point < end; point++) {
+                builder.lineTo(times[point], new Coordinates(xs[point], ys[point]));
+            }
+            builder.endPiece((closures[piece] & OcbWriter.RIGHT_CLOSED) != 0);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Gets an independent view of the file positioned at a given offset.
+     *
+     * @param offset the offset.
+     * @return the view.
+     */
+    private ByteBuffer at(long offset) {
+        ByteBuffer view = buffer.duplicate();
+        view.position((int) offset);
+        return view;
+    }
+
+    /**
+     * Skips a number of strings.
+     *
+     * @param input the input.
+     * @param count the number of strings.
+     */
+    private static void skipStrings(ByteBuffer input, int count) {
+        for (int i = 0; i < count; i++) {
+            int length = input.getInt();
+            input.position(input.position() + length);
+        }
+    }
+
+    /**
+     * Reads a column of integers.
+     *
+     * @param input the input.
+     * @param count the number of values.
+     * @return the values.
+     */
+    private static int[] readInts(ByteBuffer input, int count) {
+        int[] values = new int[count];
+        input.asIntBuffer().get(values);
+        input.position(input.position() + Integer.BYTES * count);
+        return values;
+    }
+
+    /**
+     * Reads a column of doubles.
+     *
+     * @param input the input.
+     * @param count the number of values.
+     * @return the values.
+     */
+    private static double[] readDoubles(ByteBuffer input, int count) {
+        double[] values = new double[count];
+        input.asDoubleBuffer().get(values);
+        input.position(input.position() + Double.BYTES * count);
+        return values;
+    }
+
+    /**
+     * Reads a column of bytes.
+     *
+     * @param input the input.
+     * @param count the number of values.
+     * @return the values.
+     */
+    private static byte[] readBytes(ByteBuffer input, int count) {
+        byte[] values = new byte[count];
+        input.get(values);
+        return values;
+    }
+
+    /**
+     * Exception thrown when the file is not a valid ocb file.
+     */
+    public static class MalformedFileException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private MalformedFileException(File file, String message) {
+            super("Cannot read " + file.getName() + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.serialization.ocb;
+
+import java.io.File;
+import java.io.IOException;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.serialization.oco.OcoConverterSet;
+
+/**
+ * Reads and writes ocb files, a binary format for dynamic graphs. Boolean,
+ * integer, double, string, coordinates and colour evolutions are stored as
+ * primitive columns, and trajectories as columns of points. The values of
+ * other types are stored in their oco representation.
+ */
+public class OcbSerializer {
+
+    private final OcoConverterSet dynamicConverters = OcoConverterSet.standardDynamic();
+
+    /**
+     * Opens a file for reading. Attributes are only decoded when requested.
+     *
+     * @param file the input ocb file.
+     * @return the reader.
+     * @throws IOException if the file cannot be read.
+     */
+    public OcbReader open(File file) throws IOException {
+        return new OcbReader(file, dynamicConverters);
+    }
+
+    /**
+     * Reads a file and generates a dynamic graph.
+     *
+     * @param file the input ocb file.
+     * @return the generated dynamic graph.
+     * @throws IOException if the file cannot be read.
+     */
+    public DyGraph readDynamicFile(File file) throws IOException {
+        return open(file).readGraph();
+    }
+
+    /**
+     * Writes a dynamic graph in the given file.
+     *
+     * @param graph the graph to write.
+     * @param file the destination file.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeFile(DyGraph graph, File file) throws IOException {
+        new OcbWriter(dynamicConverters).write(graph, file);
+    }
+
+    /**
+     * Gets the set of dynamic converters, used for the values that are not
+     * stored natively.
+     *
+     * @return the dynamic converter set.
+     */
+    public OcoConverterSet dynamicConverters() {
+        return dynamicConverters;
+    }
+}
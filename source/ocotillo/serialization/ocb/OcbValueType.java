@@ -0,0 +1,235 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.serialization.ocb;
+
+import java.awt.Color;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import ocotillo.dygraph.Function;
+import ocotillo.dygraph.FunctionRect;
+import ocotillo.dygraph.Interpolation;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+
+/**
+ * The types of values stored natively in ocb files. The values of the other
+ * types are stored as the oco description of the whole evolution.
+ */
+enum OcbValueType {
+
+    BOOLEAN(Boolean.class) {
+        @Override
+        void write(DataOutputStream out, Object value) throws IOException {
+            out.writeBoolean((Boolean) value);
+        }
+
+        @Override
+        Object read(ByteBuffer buffer) {
+            return buffer.get() != 0;
+        }
+
+        @Override
+        Function<?> buildRect(Interval interval, Object leftValue, Object rightValue, Interpolation interpolation) {
+            return new FunctionRect.Boolean(interval, (Boolean) leftValue, (Boolean) rightValue, interpolation);
+        }
+    },
+    INTEGER(Integer.class) {
+        @Override
+        void write(DataOutputStream out, Object value) throws IOException {
+            out.writeInt((Integer) value);
+        }
+
+        @Override
+        Object read(ByteBuffer buffer) {
+            return buffer.getInt();
+        }
+
+        @Override
+        Function<?> buildRect(Interval interval, Object leftValue, Object rightValue, Interpolation interpolation) {
+            return new FunctionRect.Integer(interval, (Integer) leftValue, (Integer) rightValue, interpolation);
+        }
+    },
+    DOUBLE(Double.class) {
+        @Override
+        void write(DataOutputStream out, Object value) throws IOException {
+            out.writeDouble((Double) value);
+        }
+
+        @Override
+        Object read(ByteBuffer buffer) {
+            return buffer.getDouble();
+        }
+
+        @Override
+        Function<?> buildRect(Interval interval, Object leftValue, Object rightValue, Interpolation interpolation) {
+            return new FunctionRect.Double(interval, (Double) leftValue, (Double) rightValue, interpolation);
+        }
+    },
+    STRING(String.class) {
+        @Override
+        void write(DataOutputStream out, Object value) throws IOException {
+            writeString(out, (String) value);
+        }
+
+        @Override
+        Object read(ByteBuffer buffer) {
+            return readString(buffer);
+        }
+
+        @Override
+        Function<?> buildRect(Interval interval, Object leftValue, Object rightValue, Interpolation interpolation) {
+            return new FunctionRect.String(interval, (String) leftValue, (String) rightValue, interpolation);
+        }
+    },
+    COORDINATES(Coordinates.class) {
+        @Override
+        void write(DataOutputStream out, Object value) throws IOException {
+            Coordinates coordinates = (Coordinates) value;
+            out.writeByte(coordinates.dim());
+            for (int i = 0; i < coordinates.dim(); i++) {
+                out.writeDouble(coordinates.get(i));
+            }
+        }
+
+        @Override
+        Object read(ByteBuffer buffer) {
+            double[] values = new double[buffer.get()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = buffer.getDouble();
+            }
+            return new Coordinates(values);
+        }
+
+        @Override
+        Function<?> buildRect(Interval interval, Object leftValue, Object rightValue, Interpolation interpolation) {
+            return new FunctionRect.Coordinates(interval, (Coordinates) leftValue, (Coordinates) rightValue, interpolation);
+        }
+    },
+    COLOR(Color.class) {
+        @Override
+        void write(DataOutputStream out, Object value) throws IOException {
+            out.writeInt(((Color) value).getRGB());
+        }
+
+        @Override
+        Object read(ByteBuffer buffer) {
+            return new Color(buffer.getInt(), true);
+        }
+
+        @Override
+        Function<?> buildRect(Interval interval, Object leftValue, Object rightValue, Interpolation interpolation) {
+            return new FunctionRect.Color(interval, (Color) leftValue, (Color) rightValue, interpolation);
+        }
+    },
+    CONVERTED(null) {
+        @Override
+        void write(DataOutputStream out, Object value) {
+            throw new UnsupportedOperationException("Converted values are stored as whole evolutions.");
+        }
+
+        @Override
+        Object read(ByteBuffer buffer) {
+            throw new UnsupportedOperationException("Converted values are stored as whole evolutions.");
+        }
+
+        @Override
+        Function<?> buildRect(Interval interval, Object leftValue, Object rightValue, Interpolation interpolation) {
+            throw new UnsupportedOperationException("Converted values are stored as whole evolutions.");
+        }
+    };
+
+    private final Class<?> typeClass;
+
+    /**
+     * Builds a value type.
+     *
+     * @param typeClass the class of the values handled.
+     */
+    private OcbValueType(Class<?> typeClass) {
+        this.typeClass = typeClass;
+    }
+
+    /**
+     * Writes a value.
+     *
+     * @param out the output stream.
+     * @param value the value.
+     * @throws IOException if the value cannot be written.
+     */
+    abstract void write(DataOutputStream out, Object value) throws IOException;
+
+    /**
+     * Reads a value at the current position of the buffer.
+     *
+     * @param buffer the buffer.
+     * @return the value.
+     */
+    abstract Object read(ByteBuffer buffer);
+
+    /**
+     * Builds a function defined on an interval for this type of values.
+     *
+     * @param interval the definition interval.
+     * @param leftValue the initial value.
+     * @param rightValue the final value.
+     * @param interpolation the interpolation.
+     * @return the function.
+     */
+    abstract Function<?> buildRect(Interval interval, Object leftValue, Object rightValue, Interpolation interpolation);
+
+    /**
+     * Gets the value type that stores the values of a class.
+     *
+     * @param typeClass the class of the values.
+     * @return the native value type, or CONVERTED if the class is not
+     * supported natively.
+     */
+    static OcbValueType of(Class<?> typeClass) {
+        for (OcbValueType type : values()) {
+            if (type.typeClass == typeClass) {
+                return type;
+            }
+        }
+        return CONVERTED;
+    }
+
+    /**
+     * Writes a string as its UTF-8 length followed by its UTF-8 bytes.
+     *
+     * @param out the output stream.
+     * @param value the string.
+     * @throws IOException if the string cannot be written.
+     */
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by writeString.
+     *
+     * @param buffer the buffer.
+     * @return the string.
+     */
+    static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
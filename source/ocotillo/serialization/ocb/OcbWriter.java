@@ -0,0 +1,303 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.serialization.ocb;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.Function;
+import ocotillo.dygraph.FunctionConst;
+import ocotillo.dygraph.FunctionRect;
+import ocotillo.dygraph.Interpolation;
+import ocotillo.dygraph.Trajectory;
+import ocotillo.graph.Attribute;
+import ocotillo.graph.Edge;
+import ocotillo.graph.EdgeAttribute;
+import ocotillo.graph.Node;
+import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.StdAttribute;
+import ocotillo.serialization.oco.OcoConverterSet;
+import ocotillo.serialization.oco.OcoValueConverter;
+
+/**
+ * Writer for ocb files, the binary counterpart of the oco files for dynamic
+ * graphs. A file contains a header, the node table, the edge table, a section
+ * for each attribute and a directory of the attribute sections, whose
+ * position is given by the last long of the file. Only the root graph is
+ * stored.
+ */
+public class OcbWriter {
+
+    static final int MAGIC = 0x4F434F42;
+    static final int VERSION = 1;
+
+    static final byte EVOLUTION = 0;
+    static final byte TRAJECTORY = 1;
+
+    static final byte RECT = 1;
+    static final byte LEFT_CLOSED = 2;
+    static final byte RIGHT_CLOSED = 4;
+
+    private final OcoConverterSet converters;
+
+    /**
+     * Constructs an ocb writer.
+     *
+     * @param converters the converters for the values not stored natively.
+     */
+    protected OcbWriter(OcoConverterSet converters) {
+        this.converters = converters;
+    }
+
+    /**
+     * Writes a dynamic graph in the ocb format.
+     *
+     * @param graph the graph.
+     * @param file the destination file.
+     * @throws IOException if the file cannot be written.
+     */
+    protected void write(DyGraph graph, File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            List<Node> nodes = new ArrayList<>(graph.nodes());
+            Map<Node, Integer> nodeIndices = new HashMap<>();
+            out.writeInt(nodes.size());
+            for (Node node : nodes) {
+                nodeIndices.put(node, nodeIndices.size());
+                OcbValueType.writeString(out, node.id());
+            }
+
+            List<Edge> edges = new ArrayList<>(graph.edges());
+            out.writeInt(edges.size());
+            for (Edge edge : edges) {
+                OcbValueType.writeString(out, edge.id());
+            }
+            for (Edge edge : edges) {
+                out.writeInt(nodeIndices.get(edge.source()));
+            }
+            for (Edge edge : edges) {
+                out.writeInt(nodeIndices.get(edge.target()));
+            }
+
+            List<Attribute.Type> directoryTypes = new ArrayList<>();
+            List<String> directoryNames = new ArrayList<>();
+            List<Integer> directoryOffsets = new ArrayList<>();
+            for (Attribute.Type type : Attribute.Type.values()) {
+                List<String> orderedAttributeList = new ArrayList<>(graph.localAttributes(type).keySet());
+                Collections.sort(orderedAttributeList);
+                for (String attributeName : orderedAttributeList) {
+                    Attribute<?> attribute = graph.attribute(type, attributeName);
+                    if (!attribute.isSleeping()) {
+                        directoryTypes.add(type);
+                        directoryNames.add(attributeName);
+                        directoryOffsets.add(out.size());
+                        writeAttribute(out, attribute, attributeName, type == Attribute.Type.node ? nodes : edges);
+                    }
+                }
+            }
+
+            int directoryOffset = out.size();
+            out.writeInt(directoryNames.size());
+            for (int i = 0; i < directoryNames.size(); i++) {
+                out.writeByte(directoryTypes.get(i).ordinal());
+                OcbValueType.writeString(out, directoryNames.get(i));
+                out.writeLong(directoryOffsets.get(i));
+            }
+            out.writeLong(directoryOffset);
+        }
+    }
+
+    /**
+     * Writes an attribute section. The section starts with the value type
+     * and is followed by the attribute default and by the values of the
+     * elements that do not take the default, each preceded by the index of
+     * its element.
+     *
+     * @param out the output stream.
+     * @param attribute the attribute.
+     * @param attributeName the attribute name.
+     * @param elements the elements of the graph the attribute refers to.
+     * @throws IOException if the section cannot be written.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void writeAttribute(DataOutputStream out, Attribute<?> attribute, String attributeName, List<? extends Object> elements) throws IOException {
+        Evolution<?> defaultValue = (Evolution<?>) attribute.getDefault();
+        Class<?> valueClass = valueClass(attributeName, defaultValue);
+        OcbValueType valueType = OcbValueType.of(valueClass);
+        out.writeByte(valueType.ordinal());
+
+        OcoValueConverter converter = null;
+        if (valueType == OcbValueType.CONVERTED) {
+            converter = converters.contains(valueClass) ? converters.get(valueClass) : converters.get(String.class);
+            OcbValueType.writeString(out, converter.typeName());
+        }
+
+        List<Integer> indices = new ArrayList<>();
+        List<Evolution<?>> values = new ArrayList<>();
+        indices.add(-1);
+        values.add(defaultValue);
+        if (attribute instanceof NodeAttribute) {
+            NodeAttribute nodeAttribute = (NodeAttribute) attribute;
+            for (int i = 0; i < elements.size(); i++) {
+                if (!nodeAttribute.isDefault((Node) elements.get(i))) {
+                    indices.add(i);
+                    values.add((Evolution<?>) nodeAttribute.get((Node) elements.get(i)));
+                }
+            }
+        } else if (attribute instanceof EdgeAttribute) {
+            EdgeAttribute edgeAttribute = (EdgeAttribute) attribute;
+            for (int i = 0; i < elements.size(); i++) {
+                if (!edgeAttribute.isDefault((Edge) elements.get(i))) {
+                    indices.add(i);
+                    values.add((Evolution<?>) edgeAttribute.get((Edge) elements.get(i)));
+                }
+            }
+        }
+
+        out.writeInt(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            out.writeInt(indices.get(i));
+            if (valueType == OcbValueType.CONVERTED) {
+                OcbValueType.writeString(out, converter.graphLibToOco(values.get(i)));
+            } else if (values.get(i) instanceof Trajectory) {
+                writeTrajectory(out, (Trajectory) values.get(i));
+            } else {
+                writeEvolution(out, valueType, values.get(i));
+            }
+        }
+    }
+
+    /**
+     * Gets the class of the values of an attribute.
+     *
+     * @param attributeName the attribute name.
+     * @param defaultValue the attribute default value.
+     * @return the value class.
+     */
+    private static Class<?> valueClass(String attributeName, Evolution<?> defaultValue) {
+        if (StdAttribute.isStandard(attributeName)) {
+            return StdAttribute.get(attributeName).matchingClass;
+        } else {
+            return defaultValue.getDefaultValue().getClass();
+        }
+    }
+
+    /**
+     * Writes an evolution as columns of interval bounds, function flags,
+     * interpolations, left values and, for the functions that are not
+     * constant, right values.
+     *
+     * @param out the output stream.
+     * @param valueType the value type.
+     * @param evolution the evolution.
+     * @throws IOException if the evolution cannot be written.
+     */
+    private static void writeEvolution(DataOutputStream out, OcbValueType valueType, Evolution<?> evolution) throws IOException {
+        out.writeByte(EVOLUTION);
+        valueType.write(out, evolution.getDefaultValue());
+
+        List<Function<?>> functions = new ArrayList<>(evolution.size());
+        for (Function<?> function : evolution) {
+            if (!(function instanceof FunctionConst) && !(function instanceof FunctionRect)) {
+                throw new UnsupportedOperationException("Ocb representation for the following function is not available: " + function);
+            }
+            functions.add(function);
+        }
+
+        out.writeInt(functions.size());
+        for (Function<?> function : functions) {
+            out.writeDouble(function.interval().leftBound());
+        }
+        for (Function<?> function : functions) {
+            out.writeDouble(function.interval().rightBound());
+        }
+        for (Function<?> function : functions) {
+            int flags = function instanceof FunctionRect ? RECT : 0;
+            flags |= function.interval().isLeftClosed() ? LEFT_CLOSED : 0;
+            flags |= function.interval().isRightClosed() ? RIGHT_CLOSED : 0;
+            out.writeByte(flags);
+        }
+        for (Function<?> function : functions) {
+            out.writeByte(function instanceof FunctionRect ? interpolationIndex((FunctionRect<?>) function) : -1);
+        }
+        for (Function<?> function : functions) {
+            valueType.write(out, function.leftValue());
+        }
+        for (Function<?> function : functions) {
+            if (function instanceof FunctionRect) {
+                valueType.write(out, function.rightValue());
+            }
+        }
+    }
+
+    /**
+     * Gets the index of the standard interpolation of a function.
+     *
+     * @param function the function.
+     * @return the index of its interpolation.
+     */
+    private static int interpolationIndex(FunctionRect<?> function) {
+        for (Interpolation.Std interpolation : Interpolation.Std.values()) {
+            if (interpolation.get() == function.interpolation()) {
+                return interpolation.ordinal();
+            }
+        }
+        throw new UnsupportedOperationException("Ocb representation for the following interpolation is not available: " + function.interpolation().name());
+    }
+
+    /**
+     * Writes a trajectory as its piece starts and closures, followed by the
+     * columns of point times, x coordinates and y coordinates.
+     *
+     * @param out the output stream.
+     * @param trajectory the trajectory.
+     * @throws IOException if the trajectory cannot be written.
+     */
+    private static void writeTrajectory(DataOutputStream out, Trajectory trajectory) throws IOException {
+        out.writeByte(TRAJECTORY);
+        OcbValueType.COORDINATES.write(out, trajectory.getDefaultValue());
+        out.writeInt(trajectory.pieceCount());
+        out.writeInt(trajectory.pointCount());
+        for (int piece = 0; piece < trajectory.pieceCount(); piece++) {
+            out.writeInt(trajectory.pieceStart(piece));
+        }
+        for (int piece = 0; piece < trajectory.pieceCount(); piece++) {
+            int flags = trajectory.isPieceLeftClosed(piece) ? LEFT_CLOSED : 0;
+            flags |= trajectory.isPieceRightClosed(piece) ? RIGHT_CLOSED : 0;
+            out.writeByte(flags);
+        }
+        for (int point = 0; point < trajectory.pointCount(); point++) {
+            out.writeDouble(trajectory.timeAt(point));
+        }
+        for (int point = 0; point < trajectory.pointCount(); point++) {
+            out.writeDouble(trajectory.pointAt(point).x());
+        }
+        for (int point = 0; point < trajectory.pointCount(); point++) {
+            out.writeDouble(trajectory.pointAt(point).y());
+        }
+    }
+}
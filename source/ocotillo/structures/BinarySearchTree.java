@@ -120,6 +120,20 @@ public interface BinarySearchTree<T extends BinarySearchTree.Data<K>, K extends
      */
     List<T> inOrderTraversal();
 
+    /**
+     * Returns the first data according to an in-order traversal.
+     *
+     * @return the first data, or null if the tree is empty.
+     */
+    public T first();
+
+    /**
+     * Returns the last data according to an in-order traversal.
+     *
+     * @return the last data, or null if the tree is empty.
+     */
+    public T last();
+
     /**
      * Defines the data contained in the search tree.
      *
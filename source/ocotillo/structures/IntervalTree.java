@@ -221,14 +221,17 @@ public class IntervalTree<T extends IntervalTree.Data> implements Iterable<T> {
     }
 
     /**
-     * Inserts all given elements in the interval tree.
+     * Inserts all given elements in the interval tree. If the tree is empty,
+     * it is built bottom-up in a single pass.
      *
      * @param elementSet the collection of elements.
      */
     public void insertAll(Collection<T> elementSet) {
+        List<DataContainer<T>> containers = new ArrayList<>(elementSet.size());
         for (T data : elementSet) {
-            insert(data);
+            containers.add(new DataContainer<>(data));
         }
+        tree.insertAll(containers);
     }
 
     /**
@@ -300,9 +303,47 @@ public class IntervalTree<T extends IntervalTree.Data> implements Iterable<T> {
         return objectList;
     }
 
+    /**
+     * Returns the element with the lowest left bound.
+     *
+     * @return the first element, or null if the tree is empty.
+     */
+    public T first() {
+        DataContainer<T> container = tree.first();
+        return container != null ? container.originalObject : null;
+    }
+
+    /**
+     * Returns the element with the highest left bound.
+     *
+     * @return the last element, or null if the tree is empty.
+     */
+    public T last() {
+        DataContainer<T> container = tree.last();
+        return container != null ? container.originalObject : null;
+    }
+
+    /**
+     * Returns an iterator that visits the elements in order of increasing left
+     * bound without copying the tree content. The tree must not be modified
+     * while the iterator is in use.
+     *
+     * @return the iterator.
+     */
     @Override
     public Iterator<T> iterator() {
-        return inOrderTraversal().iterator();
+        Iterator<DataContainer<T>> containerIterator = tree.iterator();
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return containerIterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return containerIterator.next().originalObject;
+            }
+        };
     }
 
     @Override
@@ -456,6 +497,14 @@ public class IntervalTree<T extends IntervalTree.Data> implements Iterable<T> {
             ((ItNode) insertedNode).updateAndPropagate();
         }
 
+        @Override
+        protected void onBulkLoad(RbNode<DataContainer<T>, Double> node) {
+            super.onBulkLoad(node);
+            ItNode itNode = (ItNode) node;
+            itNode.maxRightInNode = itNode.computeMaxRightInNode();
+            itNode.maxRightInSubTree = itNode.computeMaxRightInSubTree();
+        }
+
         @Override
         protected void onNodeDeletion(RbNode<DataContainer<T>, Double> deletedNodeParent) {
             super.onNodeDeletion(deletedNodeParent);
@@ -0,0 +1,158 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.structures;
+
+import java.util.Arrays;
+
+/**
+ * Set of primitive long values based on open addressing with linear probing.
+ * It avoids the boxing of the elements and the allocation of an entry for
+ * each of them, and supports insertions, look-ups and clearing.
+ */
+public class LongHashSet {
+
+    private static final long emptySlot = Long.MIN_VALUE;
+    private static final double maxLoadFactor = 0.5;
+
+    private long[] slots;
+    private boolean containsEmptySlotValue;
+    private int size;
+
+    /**
+     * Builds an empty set.
+     */
+    public LongHashSet() {
+        this(16);
+    }
+
+    /**
+     * Builds an empty set able to contain the given number of elements
+     * without resizing.
+     *
+     * @param expectedSize the expected number of elements.
+     */
+    public LongHashSet(int expectedSize) {
+        int capacity = 16;
+        while (capacity * maxLoadFactor < expectedSize) {
+            capacity *= 2;
+        }
+        slots = new long[capacity];
+        Arrays.fill(slots, emptySlot);
+    }
+
+    /**
+     * Inserts a value in the set.
+     *
+     * @param value the value.
+     * @return true if the value was not already in the set.
+     */
+    public boolean add(long value) {
+        if (value == emptySlot) {
+            if (containsEmptySlotValue) {
+                return false;
+            }
+            containsEmptySlotValue = true;
+            size++;
+            return true;
+        }
+        int index = indexOf(slots, value);
+        if (slots[index] == value) {
+            return false;
+        }
+        slots[index] = value;
+        size++;
+        if (size > slots.length * maxLoadFactor) {
+            resize(2 * slots.length);
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a value is contained in the set.
+     *
+     * @param value the value.
+     * @return true if the value is contained.
+     */
+    public boolean contains(long value) {
+        if (value == emptySlot) {
+            return containsEmptySlotValue;
+        }
+        return slots[indexOf(slots, value)] == value;
+    }
+
+    /**
+     * Returns the number of values in the set.
+     *
+     * @return the size of the set.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the set is empty.
+     *
+     * @return true if the set is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all values from the set, keeping its capacity.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(slots, emptySlot);
+            containsEmptySlotValue = false;
+            size = 0;
+        }
+    }
+
+    /**
+     * Finds the slot that contains a value, or the empty slot where it
+     * should be inserted.
+     *
+     * @param table the slot table.
+     * @param value the value.
+     * @return the slot index.
+     */
+    private static int indexOf(long[] table, long value) {
+        int mask = table.length - 1;
+        long hash = value * 0x9E3779B97F4A7C15L;
+        int index = (int) (hash ^ (hash >>> 32)) & mask;
+        while (table[index] != emptySlot && table[index] != value) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * Moves the values to a table of the given capacity.
+     *
+     * @param capacity the new capacity.
+     */
+    private void resize(int capacity) {
+        long[] newSlots = new long[capacity];
+        Arrays.fill(newSlots, emptySlot);
+        for (long value : slots) {
+            if (value != emptySlot) {
+                newSlots[indexOf(newSlots, value)] = value;
+            }
+        }
+        slots = newSlots;
+    }
+}
@@ -15,8 +15,11 @@
  */
 package ocotillo.structures;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.Stack;
 import lombok.EqualsAndHashCode;
@@ -43,6 +46,12 @@ public class MultidimIntervalTree<T extends MultidimIntervalTree.Data> {
         public IntervalBox intervalBox();
     }
 
+    private static final Comparator<Interval> intervalOrder = Comparator
+            .<Interval>comparingDouble(interval -> interval.leftBound() + 0.0)
+            .thenComparingDouble(interval -> interval.rightBound() + 0.0)
+            .thenComparing(Interval::isLeftClosed)
+            .thenComparing(Interval::isRightClosed);
+
     private final IntervalTree<?> rootTree;
     private final int dimensions;
     private int size;
@@ -165,14 +174,57 @@ public class MultidimIntervalTree<T extends MultidimIntervalTree.Data> {
     }
 
     /**
-     * Inserts all given intervals in the interval tree.
+     * Inserts all given intervals in the interval tree. If the tree is empty,
+     * the elements are grouped by interval once per dimension and each level
+     * is built bottom-up, rather than inserting them one at a time.
      *
      * @param intervalSet the collection of intervals.
      */
     public void insertAll(Collection<T> intervalSet) {
-        for (T data : intervalSet) {
-            insert(data);
+        if (isEmpty()) {
+            List<DataContainer<T>> wrappedElements = new ArrayList<>(intervalSet.size());
+            for (T data : intervalSet) {
+                wrappedElements.add(new DataContainer<>(data));
+            }
+            size = bulkLoad(rootTree, wrappedElements, dimensions - 1);
+        } else {
+            for (T data : intervalSet) {
+                insert(data);
+            }
+        }
+    }
+
+    /**
+     * Builds the given tree and its inner level trees from scratch.
+     *
+     * @param tree the tree to build.
+     * @param elements the elements to insert.
+     * @param dimension the dimension indexed by the tree.
+     * @return the number of elements inserted.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private int bulkLoad(IntervalTree tree, List<DataContainer<T>> elements, int dimension) {
+        if (dimension == 0) {
+            tree.insertAll(elements);
+            return tree.size();
+        }
+        elements.sort((a, b) -> intervalOrder.compare(a.interval(dimension), b.interval(dimension)));
+        List<InnerLevelTree> innerTrees = new ArrayList<>();
+        int insertedElements = 0;
+        int groupStart = 0;
+        while (groupStart < elements.size()) {
+            Interval groupInterval = elements.get(groupStart).interval(dimension);
+            int groupEnd = groupStart + 1;
+            while (groupEnd < elements.size() && elements.get(groupEnd).interval(dimension).equals(groupInterval)) {
+                groupEnd++;
+            }
+            InnerLevelTree innerTree = new InnerLevelTree(groupInterval);
+            insertedElements += bulkLoad(innerTree, new ArrayList<>(elements.subList(groupStart, groupEnd)), dimension - 1);
+            innerTrees.add(innerTree);
+            groupStart = groupEnd;
         }
+        tree.insertAll(innerTrees);
+        return insertedElements;
     }
 
     /**
@@ -319,5 +371,15 @@ public class MultidimIntervalTree<T extends MultidimIntervalTree.Data> {
         public Interval interval() {
             return interval;
         }
+
+        @Override
+        public boolean equals(Object obj) {
+            return this == obj;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
     }
 }
@@ -0,0 +1,387 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.structures;
+
+import java.util.Arrays;
+
+/**
+ * Region quadtree over a set of 2D points stored in primitive arrays. Each
+ * cell keeps the number of points it contains and their centroid, so that it
+ * can be used for Barnes-Hut approximations. The cells are stored in flat
+ * arrays and the structure can be rebuilt without allocating once its
+ * capacity is large enough for the given point set.
+ */
+public class QuadTree {
+
+    /**
+     * The maximum number of points stored in a leaf.
+     */
+    public static final int leafCapacity = 8;
+    /**
+     * The maximum depth of the tree. Prevents unbounded subdivisions when
+     * many points are coincident.
+     */
+    public static final int maxDepth = 24;
+
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    private int pointCount;
+    private int[] order = new int[0];
+
+    private int cellCount;
+    private double[] cellMinX = new double[0];
+    private double[] cellMinY = new double[0];
+    private double[] cellSize = new double[0];
+    private double[] centroidX = new double[0];
+    private double[] centroidY = new double[0];
+    private int[] rangeStart = new int[0];
+    private int[] rangeEnd = new int[0];
+    private int[] children = new int[0];
+
+    /**
+     * Builds an empty quadtree.
+     */
+    public QuadTree() {
+    }
+
+    /**
+     * Builds a quadtree for the given points.
+     *
+     * @param xs the x coordinates of the points.
+     * @param ys the y coordinates of the points.
+     * @param pointCount the number of points to consider.
+     */
+    public QuadTree(double[] xs, double[] ys, int pointCount) {
+        rebuild(xs, ys, pointCount);
+    }
+
+    /**
+     * Rebuilds the quadtree for the given points. The coordinate arrays are
+     * not copied and must not be modified while the tree is in use.
+     *
+     * @param xs the x coordinates of the points.
+     * @param ys the y coordinates of the points.
+     * @param pointCount the number of points to consider.
+     */
+    public final void rebuild(double[] xs, double[] ys, int pointCount) {
+        assert (xs.length >= pointCount && ys.length >= pointCount) : "The coordinate arrays are shorter than the point count.";
+        this.xs = xs;
+        this.ys = ys;
+        this.pointCount = pointCount;
+        this.cellCount = 0;
+        if (order.length < pointCount) {
+            order = new int[pointCount];
+        }
+        for (int i = 0; i < pointCount; i++) {
+            order[i] = i;
+        }
+
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < pointCount; i++) {
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        if (pointCount == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+        double size = Math.max(Math.max(maxX - minX, maxY - minY), Double.MIN_NORMAL);
+        buildCell(minX, minY, size, 0, pointCount, 0);
+    }
+
+    /**
+     * Builds a cell and, recursively, its sub-cells.
+     *
+     * @param minX the minimum x of the cell.
+     * @param minY the minimum y of the cell.
+     * @param size the side of the cell.
+     * @param start the first position of the cell points in the order array.
+     * @param end the position after the last cell point in the order array.
+     * @param depth the cell depth.
+     * @return the index of the cell.
+     */
+    private int buildCell(double minX, double minY, double size, int start, int end, int depth) {
+        int cell = newCell(minX, minY, size, start, end);
+        if (end - start > leafCapacity && depth < maxDepth) {
+            double half = size / 2;
+            double midX = minX + half;
+            double midY = minY + half;
+            int splitY = partition(start, end, midY, false);
+            int splitXLow = partition(start, splitY, midX, true);
+            int splitXHigh = partition(splitY, end, midX, true);
+            setChild(cell, 0, buildChild(minX, minY, half, start, splitXLow, depth));
+            setChild(cell, 1, buildChild(midX, minY, half, splitXLow, splitY, depth));
+            setChild(cell, 2, buildChild(minX, midY, half, splitY, splitXHigh, depth));
+            setChild(cell, 3, buildChild(midX, midY, half, splitXHigh, end, depth));
+        }
+        computeCentroid(cell);
+        return cell;
+    }
+
+    /**
+     * Builds a child cell if it contains any point.
+     *
+     * @param minX the minimum x of the cell.
+     * @param minY the minimum y of the cell.
+     * @param size the side of the cell.
+     * @param start the first position of the cell points in the order array.
+     * @param end the position after the last cell point in the order array.
+     * @param parentDepth the depth of the parent cell.
+     * @return the index of the child, or -1 if it is empty.
+     */
+    private int buildChild(double minX, double minY, double size, int start, int end, int parentDepth) {
+        if (start == end) {
+            return -1;
+        }
+        return buildCell(minX, minY, size, start, end, parentDepth + 1);
+    }
+
+    /**
+     * Partitions a range of the order array so that the points with
+     * coordinate lower than the given threshold come first.
+     *
+     * @param start the start of the range.
+     * @param end the end of the range (excluded).
+     * @param threshold the threshold.
+     * @param onX true to partition on x, false to partition on y.
+     * @return the first position of the second half.
+     */
+    private int partition(int start, int end, double threshold, boolean onX) {
+        double[] values = onX ? xs : ys;
+        int i = start;
+        int j = end - 1;
+        while (i <= j) {
+            if (values[order[i]] < threshold) {
+                i++;
+            } else {
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+                j--;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Computes the centroid of a cell from its points.
+     *
+     * @param cell the cell.
+     */
+    private void computeCentroid(int cell) {
+        double sumX = 0;
+        double sumY = 0;
+        int count = rangeEnd[cell] - rangeStart[cell];
+        if (isLeaf(cell)) {
+            for (int i = rangeStart[cell]; i < rangeEnd[cell]; i++) {
+                sumX += xs[order[i]];
+                sumY += ys[order[i]];
+            }
+        } else {
+            for (int quadrant = 0; quadrant < 4; quadrant++) {
+                int child = child(cell, quadrant);
+                if (child != -1) {
+                    int childCount = pointCount(child);
+                    sumX += centroidX[child] * childCount;
+                    sumY += centroidY[child] * childCount;
+                }
+            }
+        }
+        centroidX[cell] = count > 0 ? sumX / count : cellMinX[cell] + cellSize[cell] / 2;
+        centroidY[cell] = count > 0 ? sumY / count : cellMinY[cell] + cellSize[cell] / 2;
+    }
+
+    /**
+     * Allocates a new cell.
+     *
+     * @param minX the minimum x of the cell.
+     * @param minY the minimum y of the cell.
+     * @param size the side of the cell.
+     * @param start the first position of the cell points in the order array.
+     * @param end the position after the last cell point in the order array.
+     * @return the cell index.
+     */
+    private int newCell(double minX, double minY, double size, int start, int end) {
+        if (cellCount == cellSize.length) {
+            int capacity = Math.max(16, cellCount * 2);
+            cellMinX = Arrays.copyOf(cellMinX, capacity);
+            cellMinY = Arrays.copyOf(cellMinY, capacity);
+            cellSize = Arrays.copyOf(cellSize, capacity);
+            centroidX = Arrays.copyOf(centroidX, capacity);
+            centroidY = Arrays.copyOf(centroidY, capacity);
+            rangeStart = Arrays.copyOf(rangeStart, capacity);
+            rangeEnd = Arrays.copyOf(rangeEnd, capacity);
+            children = Arrays.copyOf(children, capacity * 4);
+        }
+        int cell = cellCount++;
+        cellMinX[cell] = minX;
+        cellMinY[cell] = minY;
+        cellSize[cell] = size;
+        rangeStart[cell] = start;
+        rangeEnd[cell] = end;
+        Arrays.fill(children, cell * 4, cell * 4 + 4, -1);
+        return cell;
+    }
+
+    /**
+     * Sets the child of a cell.
+     *
+     * @param cell the cell.
+     * @param quadrant the quadrant.
+     * @param child the child index.
+     */
+    private void setChild(int cell, int quadrant, int child) {
+        children[cell * 4 + quadrant] = child;
+    }
+
+    /**
+     * Returns the root cell. The root is always present, even for empty
+     * point sets.
+     *
+     * @return the root cell.
+     */
+    public int root() {
+        return 0;
+    }
+
+    /**
+     * Returns the number of points in the tree.
+     *
+     * @return the number of points.
+     */
+    public int size() {
+        return pointCount;
+    }
+
+    /**
+     * Returns the number of cells in the tree.
+     *
+     * @return the number of cells.
+     */
+    public int cellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Checks if a cell is a leaf.
+     *
+     * @param cell the cell.
+     * @return true if the cell has no children.
+     */
+    public boolean isLeaf(int cell) {
+        int base = cell * 4;
+        return children[base] == -1 && children[base + 1] == -1
+                && children[base + 2] == -1 && children[base + 3] == -1;
+    }
+
+    /**
+     * Returns the child of a cell in the given quadrant. Quadrants are
+     * numbered 0 (low x, low y), 1 (high x, low y), 2 (low x, high y) and 3
+     * (high x, high y).
+     *
+     * @param cell the cell.
+     * @param quadrant the quadrant.
+     * @return the child index, or -1 if the quadrant is empty.
+     */
+    public int child(int cell, int quadrant) {
+        return children[cell * 4 + quadrant];
+    }
+
+    /**
+     * Returns the number of points contained in a cell.
+     *
+     * @param cell the cell.
+     * @return the number of points.
+     */
+    public int pointCount(int cell) {
+        return rangeEnd[cell] - rangeStart[cell];
+    }
+
+    /**
+     * Returns the index of the k-th point contained in a cell.
+     *
+     * @param cell the cell.
+     * @param k the position of the point in the cell.
+     * @return the point index in the original coordinate arrays.
+     */
+    public int point(int cell, int k) {
+        assert (k >= 0 && k < pointCount(cell)) : "Point position out of the cell range.";
+        return order[rangeStart[cell] + k];
+    }
+
+    /**
+     * Returns the x coordinate of the centroid of a cell.
+     *
+     * @param cell the cell.
+     * @return the centroid x.
+     */
+    public double centroidX(int cell) {
+        return centroidX[cell];
+    }
+
+    /**
+     * Returns the y coordinate of the centroid of a cell.
+     *
+     * @param cell the cell.
+     * @return the centroid y.
+     */
+    public double centroidY(int cell) {
+        return centroidY[cell];
+    }
+
+    /**
+     * Returns the side of a cell.
+     *
+     * @param cell the cell.
+     * @return the cell side.
+     */
+    public double cellSize(int cell) {
+        return cellSize[cell];
+    }
+
+    /**
+     * Computes the minimum distance between a point and a cell. The distance
+     * is zero if the point is inside the cell.
+     *
+     * @param cell the cell.
+     * @param x the point x.
+     * @param y the point y.
+     * @return the minimum distance.
+     */
+    public double minDistance(int cell, double x, double y) {
+        double dx = Math.max(0, Math.max(cellMinX[cell] - x, x - cellMinX[cell] - cellSize[cell]));
+        double dy = Math.max(0, Math.max(cellMinY[cell] - y, y - cellMinY[cell] - cellSize[cell]));
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Computes the maximum distance between a point and a cell.
+     *
+     * @param cell the cell.
+     * @param x the point x.
+     * @param y the point y.
+     * @return the maximum distance.
+     */
+    public double maxDistance(int cell, double x, double y) {
+        double dx = Math.max(Math.abs(cellMinX[cell] - x), Math.abs(cellMinX[cell] + cellSize[cell] - x));
+        double dy = Math.max(Math.abs(cellMinY[cell] - y), Math.abs(cellMinY[cell] + cellSize[cell] - y));
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
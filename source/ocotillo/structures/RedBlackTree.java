@@ -15,11 +15,16 @@
  */
 package ocotillo.structures;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
 
@@ -34,6 +39,7 @@ public class RedBlackTree<T extends BinarySearchTree.Data<K>, K extends Comparab
 
     protected RbNode<T, K> root;
     protected int size = 0;
+    private int modifications = 0;
 
     @Override
     public T get(K queryKey) {
@@ -57,6 +63,7 @@ public class RedBlackTree<T extends BinarySearchTree.Data<K>, K extends Comparab
 
     @Override
     public void insert(T data) {
+        modifications++;
         RbNode<T, K> potentialParent = findLastNode(data.bstKey());
         RbNode<T, K> newNode = createNewNode(data);
         newNode.setRed();
@@ -172,15 +179,87 @@ public class RedBlackTree<T extends BinarySearchTree.Data<K>, K extends Comparab
         }
     }
 
+    /**
+     * {@inheritDoc} If the tree is empty, the data are sorted once and the
+     * tree is built bottom-up as a balanced tree, rather than inserting and
+     * rebalancing one element at a time.
+     */
     @Override
     public void insertAll(Collection<T> dataSet) {
-        for (T data : dataSet) {
-            insert(data);
+        if (isEmpty()) {
+            bulkLoad(dataSet);
+        } else {
+            for (T data : dataSet) {
+                insert(data);
+            }
+        }
+    }
+
+    /**
+     * Builds the tree from scratch with the given data. Data with equal keys
+     * are collected in the same node, and the nodes are linked in a balanced
+     * tree where only the nodes in an incomplete last level are red.
+     *
+     * @param dataSet the data.
+     */
+    private void bulkLoad(Collection<T> dataSet) {
+        modifications++;
+        List<T> sortedData = new ArrayList<>(dataSet);
+        sortedData.sort((a, b) -> a.bstKey().compareTo(b.bstKey()));
+        List<RbNode<T, K>> nodes = new ArrayList<>();
+        RbNode<T, K> currentNode = null;
+        for (T data : sortedData) {
+            if (currentNode != null && data.bstKey().compareTo(currentNode.bstKey()) == 0) {
+                if (currentNode.dataSet.add(data)) {
+                    size++;
+                }
+            } else {
+                currentNode = createNewNode(data);
+                nodes.add(currentNode);
+                size++;
+            }
+        }
+        int lastLevel = 31 - Integer.numberOfLeadingZeros(nodes.size() + 1);
+        int redLevel = Integer.bitCount(nodes.size() + 1) == 1 ? -1 : lastLevel;
+        root = linkBalanced(nodes, 0, nodes.size() - 1, 0, redLevel);
+    }
+
+    /**
+     * Links a sorted range of nodes in a balanced subtree.
+     *
+     * @param nodes the sorted nodes.
+     * @param first the first node of the range.
+     * @param last the last node of the range.
+     * @param depth the depth of the subtree root.
+     * @param redLevel the depth of the nodes to colour red.
+     * @return the root of the subtree.
+     */
+    private RbNode<T, K> linkBalanced(List<RbNode<T, K>> nodes, int first, int last, int depth, int redLevel) {
+        if (first > last) {
+            return null;
+        }
+        int middle = (first + last) >>> 1;
+        RbNode<T, K> subtreeRoot = nodes.get(middle);
+        subtreeRoot.leftChild = linkBalanced(nodes, first, middle - 1, depth + 1, redLevel);
+        subtreeRoot.rightChild = linkBalanced(nodes, middle + 1, last, depth + 1, redLevel);
+        if (subtreeRoot.leftChild != null) {
+            subtreeRoot.leftChild.parent = subtreeRoot;
+        }
+        if (subtreeRoot.rightChild != null) {
+            subtreeRoot.rightChild.parent = subtreeRoot;
+        }
+        if (depth == redLevel) {
+            subtreeRoot.setRed();
+        } else {
+            subtreeRoot.setBlack();
         }
+        onBulkLoad(subtreeRoot);
+        return subtreeRoot;
     }
 
     @Override
     public void delete(T data) {
+        modifications++;
         RbNode<T, K> nodeToDelete = findNode(data.bstKey());
         //							######## RISKY!!!!
         if (nodeToDelete == null /* || !nodeToDelete.dataSet.contains(data) */) { 
@@ -399,6 +478,7 @@ public class RedBlackTree<T extends BinarySearchTree.Data<K>, K extends Comparab
 
     @Override
     public void clear() {
+        modifications++;
         root = null;
         size = 0;
     }
@@ -426,9 +506,39 @@ public class RedBlackTree<T extends BinarySearchTree.Data<K>, K extends Comparab
         inOrderTraversalRecursion(results, currentRoot.rightChild);
     }
 
+    @Override
+    public T first() {
+        if (root == null) {
+            return null;
+        }
+        return leftmostNode(root).dataSet.iterator().next();
+    }
+
+    @Override
+    public T last() {
+        if (root == null) {
+            return null;
+        }
+        RbNode<T, K> lastNode = root;
+        while (lastNode.rightChild != null) {
+            lastNode = lastNode.rightChild;
+        }
+        T lastData = null;
+        for (T data : lastNode.dataSet) {
+            lastData = data;
+        }
+        return lastData;
+    }
+
+    /**
+     * Returns an iterator that visits the tree in order without copying its
+     * content. The tree must not be modified while the iterator is in use.
+     *
+     * @return the iterator.
+     */
     @Override
     public Iterator<T> iterator() {
-        return inOrderTraversal().iterator();
+        return new InOrderIterator();
     }
 
     @Override
@@ -582,6 +692,15 @@ public class RedBlackTree<T extends BinarySearchTree.Data<K>, K extends Comparab
     protected void onNodeInsertion(RbNode<T, K> insertedNode) {
     }
 
+    /**
+     * Hook for operations to perform on the nodes created by a bulk load. It
+     * is called on each node after its subtree has been completed.
+     *
+     * @param node the node.
+     */
+    protected void onBulkLoad(RbNode<T, K> node) {
+    }
+
     /**
      * Hook for operations to perform on node deletion.
      *
@@ -605,6 +724,70 @@ public class RedBlackTree<T extends BinarySearchTree.Data<K>, K extends Comparab
         }
     }
 
+    /**
+     * Finds the leftmost node of a subtree.
+     *
+     * @param currentRoot the root of the subtree.
+     * @return the leftmost node.
+     */
+    private RbNode<T, K> leftmostNode(RbNode<T, K> currentRoot) {
+        while (currentRoot.leftChild != null) {
+            currentRoot = currentRoot.leftChild;
+        }
+        return currentRoot;
+    }
+
+    /**
+     * Iterator that performs an in-order traversal using a stack of the
+     * nodes whose left subtree is being visited.
+     */
+    private class InOrderIterator implements Iterator<T> {
+
+        private final Deque<RbNode<T, K>> pendingNodes = new ArrayDeque<>();
+        private final int expectedModifications = modifications;
+        private Iterator<T> nodeData = Collections.emptyIterator();
+
+        /**
+         * Builds the iterator.
+         */
+        private InOrderIterator() {
+            pushLeftPath(root);
+        }
+
+        /**
+         * Pushes a node and all its left descendants in the stack.
+         *
+         * @param node the node.
+         */
+        private void pushLeftPath(RbNode<T, K> node) {
+            while (node != null) {
+                pendingNodes.push(node);
+                node = node.leftChild;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nodeData.hasNext() || !pendingNodes.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (modifications != expectedModifications) {
+                throw new ConcurrentModificationException();
+            }
+            if (!nodeData.hasNext()) {
+                if (pendingNodes.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                RbNode<T, K> node = pendingNodes.pop();
+                pushLeftPath(node.rightChild);
+                nodeData = node.dataSet.iterator();
+            }
+            return nodeData.next();
+        }
+    }
+
     /**
      * Performs a left rotation which moves current node in the place of its
      * parent.
@@ -0,0 +1,227 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.structures;
+
+import java.util.Arrays;
+
+/**
+ * Square symmetric matrix stored in compressed sparse row format. The
+ * sparsity pattern is fixed at construction, while the values can be changed
+ * and copied between matrices with the same pattern. Symmetric positive
+ * definite systems are solved with the Jacobi preconditioned conjugate
+ * gradient method.
+ */
+public class SparseSymmetricMatrix {
+
+    private final int[] rowStarts;
+    private final int[] columns;
+    private final double[] values;
+
+    /**
+     * Builds a matrix with the given sparsity pattern and zero values. Both
+     * the entries above and below the diagonal must be listed.
+     *
+     * @param rowColumns the columns of the entries of each row.
+     */
+    public SparseSymmetricMatrix(int[][] rowColumns) {
+        rowStarts = new int[rowColumns.length + 1];
+        for (int row = 0; row < rowColumns.length; row++) {
+            rowStarts[row + 1] = rowStarts[row] + rowColumns[row].length;
+        }
+        columns = new int[rowStarts[rowColumns.length]];
+        for (int row = 0; row < rowColumns.length; row++) {
+            int[] sortedColumns = rowColumns[row].clone();
+            Arrays.sort(sortedColumns);
+            System.arraycopy(sortedColumns, 0, columns, rowStarts[row], sortedColumns.length);
+        }
+        values = new double[columns.length];
+    }
+
+    /**
+     * Builds a matrix that shares the sparsity pattern of another one.
+     *
+     * @param other the other matrix.
+     */
+    public SparseSymmetricMatrix(SparseSymmetricMatrix other) {
+        rowStarts = other.rowStarts;
+        columns = other.columns;
+        values = other.values.clone();
+    }
+
+    /**
+     * Gets the number of rows and columns of the matrix.
+     *
+     * @return the matrix size.
+     */
+    public int size() {
+        return rowStarts.length - 1;
+    }
+
+    /**
+     * Gets the value of an entry.
+     *
+     * @param row the entry row.
+     * @param column the entry column.
+     * @return the entry value, zero if the entry is not in the pattern.
+     */
+    public double get(int row, int column) {
+        int position = position(row, column);
+        return position >= 0 ? values[position] : 0;
+    }
+
+    /**
+     * Adds a value to an entry of the pattern. The symmetric entry is not
+     * modified.
+     *
+     * @param row the entry row.
+     * @param column the entry column.
+     * @param value the value to add.
+     */
+    public void add(int row, int column, double value) {
+        int position = position(row, column);
+        if (position < 0) {
+            throw new IllegalArgumentException("The entry (" + row + ", " + column + ") is not in the matrix pattern.");
+        }
+        values[position] += value;
+    }
+
+    /**
+     * Copies the values of a matrix with the same sparsity pattern.
+     *
+     * @param other the other matrix.
+     */
+    public void copyValuesFrom(SparseSymmetricMatrix other) {
+        if (other.columns != columns) {
+            throw new IllegalArgumentException("The matrices do not share the same pattern.");
+        }
+        System.arraycopy(other.values, 0, values, 0, values.length);
+    }
+
+    /**
+     * Finds the position of an entry in the value array.
+     *
+     * @param row the entry row.
+     * @param column the entry column.
+     * @return the entry position, or a negative value if the entry is not in
+     * the pattern.
+     */
+    private int position(int row, int column) {
+        int position = Arrays.binarySearch(columns, rowStarts[row], rowStarts[row + 1], column);
+        return position >= rowStarts[row] ? position : -1;
+    }
+
+    /**
+     * Multiplies the matrix by a vector.
+     *
+     * @param vector the vector.
+     * @param result the vector where to store the result.
+     */
+    public void multiply(double[] vector, double[] result) {
+        for (int row = 0; row < size(); row++) {
+            double sum = 0;
+            for (int i = rowStarts[row]; i < rowStarts[row + 1]; i++) {
+                sum += values[i] * vector[columns[i]];
+            }
+            result[row] = sum;
+        }
+    }
+
+    /**
+     * Solves the system given by this matrix and the known terms with the
+     * Jacobi preconditioned conjugate gradient method. The matrix must be
+     * positive definite. The initial content of the solution vector is used
+     * as starting point, and null known terms give the null solution.
+     *
+     * @param knownTerms the known terms.
+     * @param solution the initial guess, replaced by the solution.
+     * @param tolerance the residual norm, relative to the known terms norm,
+     * under which the solution is accepted.
+     * @param maxIterations the maximum number of iterations.
+     * @return the number of iterations performed.
+     */
+    public int solve(double[] knownTerms, double[] solution, double tolerance, int maxIterations) {
+        int size = size();
+        double[] inverseDiagonal = new double[size];
+        for (int row = 0; row < size; row++) {
+            double diagonal = get(row, row);
+            inverseDiagonal[row] = diagonal != 0 ? 1.0 / diagonal : 1.0;
+        }
+
+        double[] residual = new double[size];
+        multiply(solution, residual);
+        double knownTermsNorm = 0;
+        for (int i = 0; i < size; i++) {
+            residual[i] = knownTerms[i] - residual[i];
+            knownTermsNorm += knownTerms[i] * knownTerms[i];
+        }
+        double threshold = tolerance * tolerance * knownTermsNorm;
+        if (knownTermsNorm == 0) {
+            Arrays.fill(solution, 0);
+            return 0;
+        }
+
+        double[] preconditioned = new double[size];
+        double[] direction = new double[size];
+        double[] product = new double[size];
+        double residualDot = 0;
+        for (int i = 0; i < size; i++) {
+            preconditioned[i] = inverseDiagonal[i] * residual[i];
+            direction[i] = preconditioned[i];
+            residualDot += residual[i] * preconditioned[i];
+        }
+
+        int iteration = 0;
+        while (iteration < maxIterations && squaredNorm(residual) > threshold) {
+            multiply(direction, product);
+            double curvature = 0;
+            for (int i = 0; i < size; i++) {
+                curvature += direction[i] * product[i];
+            }
+            if (curvature <= 0) {
+                break;
+            }
+            double step = residualDot / curvature;
+            double nextResidualDot = 0;
+            for (int i = 0; i < size; i++) {
+                solution[i] += step * direction[i];
+                residual[i] -= step * product[i];
+                preconditioned[i] = inverseDiagonal[i] * residual[i];
+                nextResidualDot += residual[i] * preconditioned[i];
+            }
+            double beta = nextResidualDot / residualDot;
+            for (int i = 0; i < size; i++) {
+                direction[i] = preconditioned[i] + beta * direction[i];
+            }
+            residualDot = nextResidualDot;
+            iteration++;
+        }
+        return iteration;
+    }
+
+    /**
+     * Computes the squared norm of a vector.
+     *
+     * @param vector the vector.
+     * @return its squared norm.
+     */
+    private static double squaredNorm(double[] vector) {
+        double norm = 0;
+        for (double value : vector) {
+            norm += value * value;
+        }
+        return norm;
+    }
+}
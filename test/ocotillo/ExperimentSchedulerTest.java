@@ -0,0 +1,89 @@
+/**
+ * Copyright © 2020 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class ExperimentSchedulerTest {
+
+	@Test
+	public void testLinesAreStreamedInCompletionOrder() throws IOException {
+		File file = File.createTempFile("schedulerTest", ".csv");
+		file.deleteOnExit();
+		ExperimentScheduler scheduler = new ExperimentScheduler(1, 10, file);
+		for(String line : Arrays.asList("first", "second", "third"))
+			scheduler.submit(line, () -> line);
+		scheduler.submit("empty", () -> null);
+		scheduler.submit("failing", () -> {
+			throw new IllegalStateException("Expected failure");
+		});
+
+		List<String> lines = scheduler.awaitCompletion();
+		assertThat(lines, is(Arrays.asList("first", "second", "third")));
+		assertThat(Files.readAllLines(file.toPath()), is(lines));
+	}
+
+	@Test
+	public void testTimedOutJobIsInterruptedAndDiscarded() {
+		ExperimentScheduler scheduler = new ExperimentScheduler(1, 1, null);
+		AtomicBoolean interrupted = new AtomicBoolean(false);
+		scheduler.submit("slow", () -> {
+			try {
+				Thread.sleep(10000);
+			} catch (InterruptedException e) {
+				interrupted.set(true);
+			}
+			return "slow";
+		});
+		AtomicReference<Boolean> nextStartedInterrupted = new AtomicReference<>();
+		scheduler.submit("next", () -> {
+			nextStartedInterrupted.set(Thread.currentThread().isInterrupted());
+			return "next";
+		});
+
+		assertThat(scheduler.awaitCompletion(), is(Arrays.asList("next")));
+		assertThat(interrupted.get(), is(true));
+		assertThat(nextStartedInterrupted.get(), is(false));
+	}
+
+	@Test
+	public void testJobIgnoringTheInterruptDoesNotLeakIt() {
+		ExperimentScheduler scheduler = new ExperimentScheduler(1, 1, null);
+		scheduler.submit("stubborn", () -> {
+			long end = System.nanoTime() + 1500000000L;
+			while(System.nanoTime() < end)
+				Thread.onSpinWait();
+			return "stubborn";
+		});
+		AtomicReference<Boolean> nextStartedInterrupted = new AtomicReference<>();
+		scheduler.submit("next", () -> {
+			nextStartedInterrupted.set(Thread.currentThread().isInterrupted());
+			return "next";
+		});
+
+		assertThat(scheduler.awaitCompletion(), is(Arrays.asList("next")));
+		assertThat(nextStartedInterrupted.get(), is(false));
+	}
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+/**
+ * Test for the Trajectory class.
+ */
+public class TrajectoryTest {
+
+    private final Coordinates defaultValue = new Coordinates(-1, -1);
+
+    private Trajectory buildSample() {
+        return new Trajectory.Builder(defaultValue)
+                .startPiece(20, new Coordinates(5, 5), false)
+                .lineTo(25, new Coordinates(6, 4))
+                .endPiece(true)
+                .startPiece(0, new Coordinates(0, 0), true)
+                .lineTo(5, new Coordinates(10, 0))
+                .lineTo(10, new Coordinates(10, 10))
+                .endPiece(false)
+                .build();
+    }
+
+    @Test
+    public void testValueAt() {
+        Trajectory trajectory = buildSample();
+        assertThat(trajectory.isEmpty(), is(false));
+        assertThat(trajectory.size(), is(3));
+        assertThat(trajectory.pieceCount(), is(2));
+        assertThat(trajectory.valueAt(0), is(new Coordinates(0, 0)));
+        assertThat(trajectory.valueAt(2.5), is(new Coordinates(5, 0)));
+        assertThat(trajectory.valueAt(5), is(new Coordinates(10, 0)));
+        assertThat(trajectory.valueAt(7.5), is(new Coordinates(10, 5)));
+        assertThat(trajectory.valueAt(10), is(defaultValue));
+        assertThat(trajectory.valueAt(15), is(defaultValue));
+        assertThat(trajectory.valueAt(20), is(defaultValue));
+        assertThat(trajectory.valueAt(25), is(new Coordinates(6, 4)));
+        assertThat(trajectory.valueAt(-1), is(defaultValue));
+        assertThat(trajectory.isDefinedAt(0), is(true));
+        assertThat(trajectory.isDefinedAt(10), is(false));
+        assertThat(trajectory.isDefinedAt(22), is(true));
+        assertThat(trajectory.getFirstValue(), is(new Coordinates(0, 0)));
+        assertThat(trajectory.getLastValue(), is(new Coordinates(6, 4)));
+    }
+
+    @Test
+    public void testIteration() {
+        List<Function<Coordinates>> functions = new ArrayList<>(buildSample().getAllIntervals());
+        assertThat(functions.size(), is(3));
+        assertThat(functions.get(0).interval(), is(Interval.newClosed(0, 5)));
+        assertThat(functions.get(1).interval(), is(Interval.newOpen(5, 10)));
+        assertThat(functions.get(2).interval(), is(Interval.newRightClosed(20, 25)));
+        assertThat(functions.get(1).leftValue(), is(new Coordinates(10, 0)));
+        assertThat(functions.get(1).rightValue(), is(new Coordinates(10, 10)));
+    }
+
+    @Test
+    public void testMatchesEvolution() {
+        Random random = new Random(7);
+        Trajectory.Builder builder = new Trajectory.Builder(defaultValue);
+        Evolution<Coordinates> evolution = new Evolution<>(defaultValue);
+        double time = 0;
+        for (int piece = 0; piece < 5; piece++) {
+            boolean leftClosed = random.nextBoolean();
+            boolean rightClosed = random.nextBoolean();
+            Coordinates position = new Coordinates(random.nextDouble() * 100, random.nextDouble() * 100);
+            builder.startPiece(time, position, leftClosed);
+            int segments = 1 + random.nextInt(6);
+            for (int segment = 0; segment < segments; segment++) {
+                double nextTime = time + random.nextDouble() * 10;
+                Coordinates nextPosition = new Coordinates(random.nextDouble() * 100, random.nextDouble() * 100);
+                builder.lineTo(nextTime, nextPosition);
+                evolution.insert(new FunctionRect.Coordinates(
+                        Interval.newCustom(time, nextTime, segment == 0 ? leftClosed : false,
+                                segment == segments - 1 ? rightClosed : true),
+                        position, nextPosition, Interpolation.Std.linear));
+                time = nextTime;
+                position = nextPosition;
+            }
+            builder.endPiece(rightClosed);
+            time += random.nextInt(2) * random.nextDouble() * 5;
+            if (rightClosed) {
+                time += 1;
+            }
+        }
+        Trajectory trajectory = builder.build();
+
+        assertThat(trajectory.sameFunctionsAs(evolution), is(true));
+        assertThat(trajectory.equals(evolution), is(false));
+        assertThat(trajectory.size(), is(evolution.size()));
+        assertThat(trajectory.getFirstValue(), is(evolution.getFirstValue()));
+        assertThat(trajectory.getLastValue(), is(evolution.getLastValue()));
+        List<Function<Coordinates>> expected = new ArrayList<>(evolution.getAllIntervals());
+        List<Function<Coordinates>> actual = new ArrayList<>(trajectory.getAllIntervals());
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).interval(), is(expected.get(i).interval()));
+            assertThat(actual.get(i).leftValue(), is(expected.get(i).leftValue()));
+            assertThat(actual.get(i).rightValue(), is(expected.get(i).rightValue()));
+        }
+        for (int i = 0; i < 1000; i++) {
+            double query = random.nextDouble() * (time + 10) - 5;
+            assertThat(trajectory.isDefinedAt(query), is(evolution.isDefinedAt(query)));
+            assertThat(trajectory.valueAt(query), is(evolution.valueAt(query)));
+        }
+        for (Function<Coordinates> function : expected) {
+            double left = function.interval().leftBound();
+            double right = function.interval().rightBound();
+            assertThat(trajectory.valueAt(left), is(evolution.valueAt(left)));
+            assertThat(trajectory.valueAt(right), is(evolution.valueAt(right)));
+        }
+    }
+
+    @Test
+    public void testEquality() {
+        assertThat(buildSample().equals(buildSample()), is(true));
+        assertThat(buildSample().hashCode(), is(buildSample().hashCode()));
+
+        Trajectory openEnded = new Trajectory.Builder(defaultValue)
+                .startPiece(20, new Coordinates(5, 5), false)
+                .lineTo(25, new Coordinates(6, 4))
+                .endPiece(false)
+                .startPiece(0, new Coordinates(0, 0), true)
+                .lineTo(5, new Coordinates(10, 0))
+                .lineTo(10, new Coordinates(10, 10))
+                .endPiece(false)
+                .build();
+        assertThat(buildSample().equals(openEnded), is(false));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() {
+        Trajectory trajectory = buildSample();
+        trajectory.insert(new FunctionRect.Coordinates(Interval.newClosed(30, 40),
+                new Coordinates(0, 0), new Coordinates(1, 1), Interpolation.Std.linear));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOverlappingPieces() {
+        new Trajectory.Builder(defaultValue)
+                .startPiece(0, new Coordinates(0, 0), true)
+                .lineTo(10, new Coordinates(1, 1))
+                .endPiece(true)
+                .startPiece(5, new Coordinates(0, 0), true)
+                .lineTo(15, new Coordinates(1, 1))
+                .endPiece(true)
+                .build();
+    }
+}
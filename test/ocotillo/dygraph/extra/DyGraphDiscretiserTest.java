@@ -0,0 +1,79 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.extra;
+
+import java.util.Arrays;
+import ocotillo.dygraph.*;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+/**
+ * Tests the discretisation of dynamic graphs.
+ */
+public class DyGraphDiscretiserTest {
+
+    @Test
+    public void testDiscretiseWithSnapTimes() {
+        DyGraph graph = new DyGraph();
+        Node a = graph.newNode("a");
+        Node b = graph.newNode("b");
+        Edge ab = graph.newEdge("ab", a, b);
+        graph.<Boolean>nodeAttribute(StdAttribute.dyPresence).set(a, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newLeftClosed(1, 2), true)
+                .build());
+        graph.<Boolean>nodeAttribute(StdAttribute.dyPresence).set(b, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(0, 0.2), true)
+                .withConst(Interval.newRightClosed(3.5, 4), true)
+                .build());
+        graph.<Boolean>edgeAttribute(StdAttribute.dyPresence).set(ab, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(0, 0.5), true)
+                .build());
+        graph.<String>nodeAttribute(StdAttribute.label).set(a, EvoBuilder.defaultAt("early")
+                .withConst(Interval.newLeftClosed(2, 10), "late")
+                .build());
+        graph.<Coordinates>nodeAttribute(StdAttribute.nodePosition).set(a, EvoBuilder.defaultAt(new Coordinates(0, 0))
+                .withRect(Interval.newClosed(0, 4), new Coordinates(0, 0), new Coordinates(4, 8), Interpolation.Std.linear)
+                .build());
+
+        DyGraph discrete = DyGraphDiscretiser.discretiseWithSnapTimes(graph, Arrays.asList(0.0, 1.0, 2.0, 3.0, 4.0), 0.5);
+        Evolution<Boolean> aPresence = discrete.<Boolean>nodeAttribute(StdAttribute.dyPresence).get(a);
+        Evolution<Boolean> bPresence = discrete.<Boolean>nodeAttribute(StdAttribute.dyPresence).get(b);
+        Evolution<Boolean> abPresence = discrete.<Boolean>edgeAttribute(StdAttribute.dyPresence).get(ab);
+        assertThat(aPresence.valueAt(0.0), is(false));
+        assertThat(aPresence.valueAt(1.0), is(true));
+        assertThat(aPresence.valueAt(2.0), is(true));
+        assertThat(aPresence.valueAt(3.0), is(false));
+        assertThat(bPresence.valueAt(0.0), is(true));
+        assertThat(bPresence.valueAt(1.0), is(false));
+        assertThat(bPresence.valueAt(3.0), is(false));
+        assertThat(bPresence.valueAt(4.0), is(true));
+        assertThat(abPresence.valueAt(0.0), is(true));
+        assertThat(abPresence.valueAt(1.0), is(false));
+
+        Evolution<String> aLabel = discrete.<String>nodeAttribute(StdAttribute.label).get(a);
+        assertThat(aLabel.valueAt(1.0), is("early"));
+        assertThat(aLabel.valueAt(2.0), is("late"));
+        Evolution<Coordinates> aPosition = discrete.<Coordinates>nodeAttribute(StdAttribute.nodePosition).get(a);
+        assertThat(aPosition.valueAt(1.5), is(new Coordinates(1.5, 3)));
+        assertThat(aPosition.valueAt(2.5), is(new Coordinates(2.5, 5)));
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.extra;
+
+import java.util.HashSet;
+import java.util.Set;
+import ocotillo.dygraph.*;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+/**
+ * Tests the presence index of dynamic graphs.
+ */
+public class DyPresenceIndexTest {
+
+    private final DyGraph graph = new DyGraph();
+    private final Node a = graph.newNode("a");
+    private final Node b = graph.newNode("b");
+    private final Node c = graph.newNode("c");
+    private final Edge ab = graph.newEdge("ab", a, b);
+    private final Edge bc = graph.newEdge("bc", b, c);
+
+    /**
+     * Builds the test graph.
+     */
+    public DyPresenceIndexTest() {
+        graph.<Boolean>nodeAttribute(StdAttribute.dyPresence).set(a, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(0, 10), true)
+                .build());
+        graph.<Boolean>nodeAttribute(StdAttribute.dyPresence).set(b, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newRightClosed(2, 4), true)
+                .withConst(Interval.newClosed(6, 8), true)
+                .build());
+        graph.<Boolean>nodeAttribute(StdAttribute.dyPresence).set(c, EvoBuilder.defaultAt(true)
+                .withConst(Interval.newOpen(3, 7), false)
+                .build());
+        graph.<Boolean>edgeAttribute(StdAttribute.dyPresence).set(ab, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(1, 9), true)
+                .build());
+        graph.<Boolean>edgeAttribute(StdAttribute.dyPresence).set(bc, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(0, 10), true)
+                .build());
+        graph.newNodeAttribute("heat", 0.0);
+        graph.<Double>nodeAttribute("heat").set(b, EvoBuilder.defaultAt(1.0)
+                .withRect(Interval.newClosed(2, 8), 2.0, 8.0, Interpolation.Std.linear)
+                .build());
+    }
+
+    @Test
+    public void testQueries() {
+        DyPresenceIndex index = new DyPresenceIndex(graph);
+        assertThat(index.nodesAt(2.0), is(set(a, c)));
+        assertThat(index.nodesAt(3.0), is(set(a, b, c)));
+        assertThat(index.nodesAt(5.0), is(set(a)));
+        assertThat(index.nodesAt(-1.0), is(set(c)));
+        assertThat(index.edgesAt(0.5), is(set(bc)));
+        assertThat(index.nodesIn(Interval.newOpen(4, 6)), is(set(a)));
+        assertThat(index.nodesIn(Interval.newClosed(4, 6)), is(set(a, b)));
+        assertThat(index.edgesIn(Interval.newClosed(-5, 0.5)), is(set(bc)));
+    }
+
+    @Test
+    public void testCursor() {
+        DyPresenceIndex index = new DyPresenceIndex(graph);
+        DyPresenceIndex.Cursor cursor = index.cursor(Double.NEGATIVE_INFINITY);
+        double[] times = {-1, 0, 1.5, 2, 3, 3.5, 4, 5, 6, 7, 7.5, 8, 9.5, 12, 5, 2.5, 0};
+        for (double time : times) {
+            cursor.moveTo(time);
+            Graph expected = graph.snapshotAt(time);
+            Graph actual = cursor.snapshot();
+            assertThat(new HashSet<>(actual.nodes()), is(new HashSet<>(expected.nodes())));
+            assertThat(new HashSet<>(actual.edges()), is(new HashSet<>(expected.edges())));
+            for (Node node : actual.nodes()) {
+                assertThat(actual.<Double>nodeAttribute("heat").get(node), is(expected.<Double>nodeAttribute("heat").get(node)));
+            }
+        }
+        cursor.moveTo(3);
+        assertThat(cursor.nodes(), is(set(a, b, c)));
+        assertThat(cursor.edges(), is(set(ab, bc)));
+        cursor.moveTo(6);
+        assertThat(cursor.nodes(), is(set(a, b)));
+        assertThat(cursor.edges(), is(set(ab)));
+    }
+
+    @SafeVarargs
+    private static <T> Set<T> set(T... elements) {
+        Set<T> result = new HashSet<>();
+        for (T element : elements) {
+            result.add(element);
+        }
+        return result;
+    }
+}
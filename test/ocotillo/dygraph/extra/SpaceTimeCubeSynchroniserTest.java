@@ -29,6 +29,8 @@ import ocotillo.graph.NodeAttribute;
 import ocotillo.graph.StdAttribute;
 import ocotillo.graph.StdAttribute.ControlPoints;
 import ocotillo.geometry.Interval;
+import java.util.HashMap;
+import java.util.Map;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.Matchers.contains;
 import static org.junit.Assert.assertThat;
@@ -234,4 +236,51 @@ public class SpaceTimeCubeSynchroniserTest {
                 .withRect(Interval.newOpen(8, 10), new Coordinates(5, 32), new Coordinates(8, 3), Interpolation.Std.linear)
                 .build()));
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCoarserLevelConstruction() {
+        DyGraph coarseGraph = new DyGraph();
+        Node coarseNode = coarseGraph.newNode();
+        coarseGraph.<Boolean>nodeAttribute(StdAttribute.dyPresence).set(coarseNode, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(0, 10), true)
+                .build());
+        coarseGraph.<Coordinates>nodeAttribute(StdAttribute.nodePosition).set(coarseNode, EvoBuilder.defaultAt(new Coordinates(0, 0))
+                .withRect(Interval.newClosed(0, 5), new Coordinates(0, 0), new Coordinates(10, 0), Interpolation.Std.linear)
+                .withRect(Interval.newRightClosed(5, 10), new Coordinates(10, 0), new Coordinates(10, 10), Interpolation.Std.linear)
+                .build());
+        SpaceTimeCubeSynchroniser coarseSynchroniser = new StcsBuilder(coarseGraph, 10).build();
+
+        DyGraph graph = new DyGraph();
+        Node member = graph.newNode();
+        Node unmapped = graph.newNode();
+        DyNodeAttribute<Boolean> dyPresences = graph.nodeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> dyPositions = graph.nodeAttribute(StdAttribute.nodePosition);
+        dyPresences.set(member, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(2, 8), true)
+                .build());
+        dyPresences.set(unmapped, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(0, 10), true)
+                .build());
+        dyPositions.set(member, new Evolution<>(new Coordinates(1, 1)));
+        dyPositions.set(unmapped, new Evolution<>(new Coordinates(3, 3)));
+        Map<Node, Node> coarserNodes = new HashMap<>();
+        coarserNodes.put(member, coarseNode);
+
+        SpaceTimeCubeSynchroniser synchroniser = new StcsBuilder(graph, 10)
+                .withCoarserLevel(coarseSynchroniser, coarserNodes)
+                .build();
+
+        MirrorLine memberLine = synchroniser.mirrorLines(member).getAnyContaining(5);
+        assertThat(memberLine.mirrorInterval(), is(Interval.newClosed(20, 80)));
+        assertThat(memberLine.bendsAndExtremities().size(), is(3));
+        assertThat(memberLine.bendsAndExtremities().get(0), isAlmost(new Coordinates(1, 1, 20)));
+        assertThat(memberLine.bendsAndExtremities().get(1), isAlmost(new Coordinates(7, 1, 50)));
+        assertThat(memberLine.bendsAndExtremities().get(2), isAlmost(new Coordinates(7, 7, 80)));
+
+        MirrorLine unmappedLine = synchroniser.mirrorLines(unmapped).getAnyContaining(5);
+        assertThat(unmappedLine.bendsAndExtremities().size(), is(2));
+        assertThat(unmappedLine.bendsAndExtremities().get(0), isAlmost(new Coordinates(3, 3, 0)));
+        assertThat(unmappedLine.bendsAndExtremities().get(1), isAlmost(new Coordinates(3, 3, 100)));
+    }
 }
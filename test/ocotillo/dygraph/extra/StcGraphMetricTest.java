@@ -0,0 +1,124 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.extra;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.EvoBuilder;
+import ocotillo.dygraph.Interpolation;
+import ocotillo.dygraph.extra.SpaceTimeCubeSynchroniser.StcsBuilder;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.StdAttribute;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class StcGraphMetricTest {
+
+    @Test
+    public void testCrowdingCrossingNodes() {
+        DyGraph graph = new DyGraph();
+        DyNodeAttribute<Boolean> presences = graph.nodeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        Node a = graph.newNode();
+        Node b = graph.newNode();
+        presences.set(a, EvoBuilder.defaultAt(false).withConst(Interval.newClosed(0, 10), true).build());
+        presences.set(b, EvoBuilder.defaultAt(false).withConst(Interval.newClosed(0, 10), true).build());
+        positions.set(a, EvoBuilder.defaultAt(new Coordinates(0, 0))
+                .withRect(Interval.newClosed(0, 5), new Coordinates(0, 0), new Coordinates(10, 0), Interpolation.Std.linear)
+                .withRect(Interval.newRightClosed(5, 10), new Coordinates(10, 0), new Coordinates(0, 0), Interpolation.Std.linear)
+                .build());
+        positions.set(b, EvoBuilder.defaultAt(new Coordinates(0, 0))
+                .withRect(Interval.newClosed(0, 10), new Coordinates(5, 0), new Coordinates(5, 0), Interpolation.Std.linear)
+                .build());
+
+        SpaceTimeCubeSynchroniser synchroniser = new StcsBuilder(graph, 1).build();
+        int crowding = new StcGraphMetric.Crowding(Interval.newClosed(0, 10), 101).computeMetric(synchroniser);
+        assertThat(crowding, is(2));
+    }
+
+    @Test
+    public void testCrowdingMatchesSnapshots() {
+        Random random = new Random(13);
+        DyGraph graph = new DyGraph();
+        DyNodeAttribute<Boolean> presences = graph.nodeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        for (int i = 0; i < 60; i++) {
+            Node node = graph.newNode();
+            double start = random.nextDouble() * 5;
+            double end = start + 1 + random.nextDouble() * 5;
+            double middle = (start + end) / 2;
+            presences.set(node, EvoBuilder.defaultAt(false).withConst(Interval.newClosed(start, end), true).build());
+            Coordinates first = new Coordinates(random.nextDouble() * 20, random.nextDouble() * 20);
+            Coordinates second = new Coordinates(random.nextDouble() * 20, random.nextDouble() * 20);
+            Coordinates third = new Coordinates(random.nextDouble() * 20, random.nextDouble() * 20);
+            positions.set(node, EvoBuilder.defaultAt(new Coordinates(0, 0))
+                    .withRect(Interval.newClosed(start, middle), first, second, Interpolation.Std.linear)
+                    .withRect(Interval.newRightClosed(middle, end), second, third, Interpolation.Std.linear)
+                    .build());
+        }
+
+        SpaceTimeCubeSynchroniser synchroniser = new StcsBuilder(graph, 1).build();
+        Interval interval = Interval.newClosed(0, 11);
+        int crowding = new StcGraphMetric.Crowding(interval, 300).computeMetric(synchroniser);
+        assertThat(crowding, is(snapshotCrowding(graph, interval, 300)));
+    }
+
+    /**
+     * Computes the crowding by comparing all pairs of nodes in each snapshot.
+     */
+    private int snapshotCrowding(DyGraph graph, Interval interval, int samples) {
+        Set<Set<Node>> currentOverlaps = new HashSet<>();
+        int crowdingCount = 0;
+        for (double time : interval.sample(samples)) {
+            Graph snapshot = graph.snapshotAt(time);
+            NodeAttribute<Coordinates> positions = snapshot.nodeAttribute(StdAttribute.nodePosition);
+            NodeAttribute<Coordinates> sizes = snapshot.nodeAttribute(StdAttribute.nodeSize);
+            Set<Set<Node>> nextOverlaps = new HashSet<>();
+            List<Node> nodes = new ArrayList<>(snapshot.nodes());
+            for (int i = 0; i < nodes.size(); ++i) {
+                for (int j = i + 1; j < nodes.size(); ++j) {
+                    Node a = nodes.get(i);
+                    Node b = nodes.get(j);
+                    Coordinates aSize = sizes.get(a);
+                    Coordinates bSize = sizes.get(b);
+                    double collisionDistance = (Math.max(aSize.x(), aSize.y()) + Math.max(bSize.x(), bSize.y())) / 2.0;
+                    Coordinates delta = positions.get(b).minus(positions.get(a));
+                    if (Math.sqrt(delta.x() * delta.x() + delta.y() * delta.y()) < collisionDistance) {
+                        Set<Node> pair = new HashSet<>();
+                        pair.add(a);
+                        pair.add(b);
+                        nextOverlaps.add(pair);
+                        if (!currentOverlaps.contains(pair)) {
+                            crowdingCount++;
+                        }
+                    }
+                }
+            }
+            currentOverlaps = nextOverlaps;
+        }
+        return crowdingCount;
+    }
+}
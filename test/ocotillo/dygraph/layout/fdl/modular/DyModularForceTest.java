@@ -15,14 +15,17 @@
  */
 package ocotillo.dygraph.layout.fdl.modular;
 
+import java.util.Random;
 import ocotillo.dygraph.*;
 import ocotillo.dygraph.layout.fdl.modular.DyModularFdl.DyModularFdlBuilder;
 import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Geom;
 import ocotillo.geometry.GeomXD;
 import ocotillo.geometry.Interval;
 import static ocotillo.geometry.matchers.CoreMatchers.isAlmost;
 import ocotillo.graph.Edge;
 import ocotillo.graph.Node;
+import ocotillo.graph.NodeAttribute;
 import ocotillo.graph.StdAttribute;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -59,6 +62,59 @@ public class DyModularForceTest {
         // TODO: write it once the original bends can be considered.
     }
 
+    @Test
+    public void testTimeStraightningForceOnShortTrajectories() {
+        assertTimeStraightningCloseToExact(40);
+    }
+
+    @Test
+    public void testTimeStraightningForceOnLongTrajectories() {
+        assertTimeStraightningCloseToExact(600);
+    }
+
+    /**
+     * Checks that the approximated straightening force on a random walk
+     * trajectory is within 2% of the one computed pair by pair.
+     *
+     * @param steps the number of steps of the random walk.
+     */
+    private void assertTimeStraightningCloseToExact(int steps) {
+        DyGraph graph = new DyGraph();
+        Node node = graph.newNode();
+        DyNodeAttribute<Boolean> dyPresences = graph.nodeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> dyPositions = graph.nodeAttribute(StdAttribute.nodePosition);
+        dyPresences.set(node, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(0, steps), true)
+                .build());
+        Random random = new Random(42);
+        EvoBuilder.Builder<Coordinates> positions = EvoBuilder.defaultAt(new Coordinates(0, 0));
+        Coordinates current = new Coordinates(0, 0);
+        for (int i = 0; i < steps; i++) {
+            Coordinates next = current.plus(new Coordinates(random.nextGaussian(), random.nextGaussian()));
+            positions.withRect(Interval.newRightClosed(i, i + 1), current, next, Interpolation.Std.linear);
+            current = next;
+        }
+        dyPositions.set(node, positions.build());
+
+        DyModularForce.TimeStraightning clustered = new DyModularForce.TimeStraightning(1);
+        DyModularForce.TimeStraightning exact = new DyModularForce.TimeStraightning(1, 0);
+        DyModularFdl dyModularFdl = new DyModularFdlBuilder(graph, 1)
+                .withForce(clustered)
+                .withForce(exact)
+                .build();
+        NodeAttribute<Coordinates> clusteredForces = clustered.computeForces();
+        NodeAttribute<Coordinates> exactForces = exact.computeForces();
+
+        double errorSum = 0;
+        double forceSum = 0;
+        for (Node bend : dyModularFdl.synchronizer.mirrorGraph().nodes()) {
+            errorSum += Geom.e2D.magnitude(clusteredForces.get(bend).minus(exactForces.get(bend)));
+            forceSum += Geom.e2D.magnitude(exactForces.get(bend));
+        }
+        assertTrue(forceSum > 0);
+        assertTrue(errorSum / forceSum < 0.02);
+    }
+
     @Test
     public void testConnectionAttractionForce() {
         DyGraph graph = new DyGraph();
@@ -21,6 +21,7 @@ import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.Assert.assertThat;
+import java.util.SplittableRandom;
 import org.junit.Test;
 
 public class GeomNumericTest {
@@ -55,6 +56,18 @@ public class GeomNumericTest {
         }
     }
 
+    @Test
+    public void testSeededRandomDouble() {
+        SplittableRandom first = new SplittableRandom(7);
+        SplittableRandom second = new SplittableRandom(7);
+        for (int i = 0; i < 200; i++) {
+            double random = GeomNumeric.randomDouble(first, 50, 100);
+            assertThat(random, greaterThanOrEqualTo(50.0));
+            assertThat(random, lessThanOrEqualTo(100.0));
+            assertThat(random, is(GeomNumeric.randomDouble(second, 50, 100)));
+        }
+    }
+
     @Test
     public void testRadiansToDegrees() {
         assertThat(GeomNumeric.radiansToDegrees(1), isAlmost(57.2957795131));
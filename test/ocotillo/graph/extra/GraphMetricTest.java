@@ -15,6 +15,9 @@
  */
 package ocotillo.graph.extra;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import ocotillo.geometry.Coordinates;
 import ocotillo.geometry.Geom;
 import static ocotillo.geometry.matchers.CoreMatchers.isAlmost;
@@ -26,10 +29,14 @@ import ocotillo.graph.NodeAttribute;
 import ocotillo.graph.StdAttribute;
 import ocotillo.graph.extra.GraphMetric.LoggedMetric;
 import ocotillo.graph.extra.GraphMetric.NodeDistances;
+import ocotillo.graph.extra.GraphMetric.NodeDistancesCache;
 import ocotillo.graph.extra.GraphMetric.NodeSpacialDistancesMetric;
 import ocotillo.graph.extra.GraphMetric.NodeTheoreticalDistancesMetric;
 import ocotillo.graph.extra.GraphMetric.StressMetric;
+import ocotillo.graph.extra.GraphMetric.StressScalingStatistics;
+import ocotillo.graph.extra.GraphMetric.StressScalingStatisticsMetric;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.empty;
 import static org.junit.Assert.assertThat;
@@ -285,4 +292,132 @@ public class GraphMetricTest {
         double stress = abContr + acContr + adContr + bcContr + bdContr + cdContr;
         assertThat(metric.computeMetric(graph), isAlmost(stress));
     }
+
+    @Test
+    public void testNodeTheoreticalDistanceMetricMatchesFloydWarshall() {
+        Random random = new Random(11);
+        Graph graph = new Graph();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            nodes.add(graph.newNode());
+        }
+        EdgeAttribute<Double> attribute = new EdgeAttribute<>(1.0);
+        for (int i = 0; i < 250; i++) {
+            Node source = nodes.get(random.nextInt(nodes.size()));
+            Node target = nodes.get(random.nextInt(nodes.size()));
+            if (source != target && graph.betweenEdge(source, target) == null) {
+                attribute.set(graph.newEdge(source, target), 1.0 + random.nextInt(5));
+            }
+        }
+
+        for (boolean directed : new boolean[]{false, true}) {
+            for (boolean weighted : new boolean[]{false, true}) {
+                double[][] expected = new double[nodes.size()][nodes.size()];
+                for (int i = 0; i < nodes.size(); i++) {
+                    for (int j = 0; j < nodes.size(); j++) {
+                        expected[i][j] = i == j ? 0 : Double.POSITIVE_INFINITY;
+                    }
+                }
+                for (Edge edge : graph.edges()) {
+                    double weight = weighted ? attribute.get(edge) : 1.0;
+                    int source = nodes.indexOf(edge.source());
+                    int target = nodes.indexOf(edge.target());
+                    expected[source][target] = weight;
+                    if (!directed) {
+                        expected[target][source] = weight;
+                    }
+                }
+                for (int k = 0; k < nodes.size(); k++) {
+                    for (int i = 0; i < nodes.size(); i++) {
+                        for (int j = 0; j < nodes.size(); j++) {
+                            expected[i][j] = Math.min(expected[i][j], expected[i][k] + expected[k][j]);
+                        }
+                    }
+                }
+
+                NodeTheoreticalDistancesMetric.Builder builder = new NodeTheoreticalDistancesMetric.Builder().withDirectedEdges(directed);
+                if (weighted) {
+                    builder.withWeight(attribute);
+                }
+                NodeDistances distances = builder.build().computeMetric(graph);
+                for (int i = 0; i < nodes.size(); i++) {
+                    for (int j = 0; j < nodes.size(); j++) {
+                        assertThat(distances.get(nodes.get(i), nodes.get(j)), is(expected[i][j]));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNodeDistancesCache() {
+        Graph graph = new Graph();
+        Node a = graph.newNode();
+        Node b = graph.newNode();
+        Node c = graph.newNode();
+        Edge ab = graph.newEdge(a, b);
+        graph.newEdge(b, c);
+        EdgeAttribute<Double> attribute = new EdgeAttribute<>(1.0);
+
+        NodeDistancesCache cache = new NodeDistancesCache();
+        GraphMetric<NodeDistances> metric = new NodeTheoreticalDistancesMetric.Builder().withWeight(attribute).withCache(cache).build();
+        NodeDistances first = metric.computeMetric(graph);
+        assertThat(cache.size(), is(1));
+        assertThat(first.get(a, c), is(2.0));
+
+        Graph sameSnapshot = new Graph();
+        for (Node node : graph.nodes()) {
+            sameSnapshot.add(node);
+        }
+        for (Edge edge : graph.edges()) {
+            sameSnapshot.add(edge);
+        }
+        assertThat(metric.computeMetric(sameSnapshot), is(sameInstance(first)));
+        assertThat(cache.size(), is(1));
+
+        attribute.set(ab, 3.0);
+        NodeDistances reweighted = metric.computeMetric(graph);
+        assertThat(reweighted.get(a, c), is(4.0));
+        assertThat(cache.size(), is(2));
+
+        GraphMetric<Double> stress = new StressMetric.Builder().withWeight(attribute).withDistanceCache(cache).build();
+        stress.computeMetric(graph);
+        assertThat(cache.size(), is(2));
+
+        cache.clear();
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void testStressScalingStatistics() {
+        Random random = new Random(5);
+        Graph graph = new Graph();
+        List<Node> nodes = new ArrayList<>();
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        for (int i = 0; i < 20; i++) {
+            Node node = graph.newNode();
+            positions.set(node, new Coordinates(random.nextDouble() * 30, random.nextDouble() * 30));
+            nodes.add(node);
+        }
+        for (int i = 0; i < 30; i++) {
+            Node source = nodes.get(random.nextInt(nodes.size()));
+            Node target = nodes.get(random.nextInt(nodes.size()));
+            if (source != target && graph.betweenEdge(source, target) == null) {
+                graph.newEdge(source, target);
+            }
+        }
+
+        StressScalingStatistics statistics = new StressScalingStatisticsMetric.Builder().withScaling(2.0).build().computeMetric(graph);
+        for (double scaling : new double[]{0.5, 1.0, 3.0}) {
+            double stress = new StressMetric.Builder().withScaling(2.0 * scaling).build().computeMetric(graph);
+            assertThat(statistics.stress(scaling) / stress, isAlmost(1.0));
+        }
+
+        double idealScaling = statistics.idealScaling();
+        double idealStress = new StressMetric.Builder().withScaling(2.0 * idealScaling).build().computeMetric(graph);
+        for (double factor : new double[]{0.9, 0.99, 1.01, 1.1}) {
+            double stress = new StressMetric.Builder().withScaling(2.0 * idealScaling * factor).build().computeMetric(graph);
+            assertThat(idealStress < stress, is(true));
+        }
+    }
 }
@@ -60,6 +60,55 @@ public class ModularFdlTest {
         assertThat(Geom.e2D.magnitude(positions.get(b).minus(positions.get(a))), is(lessThan(1.0)));
     }
 
+    @Test
+    public void testConvergence() {
+        for (boolean arrayEngine : new boolean[]{false, true}) {
+            Graph graph = new Graph();
+            Node a = graph.newNode();
+            Node b = graph.newNode();
+            graph.newEdge(a, b);
+
+            NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+            positions.set(a, new Coordinates(0, 0));
+            positions.set(b, new Coordinates(8, 5));
+
+            ModularFdlBuilder builder = new ModularFdlBuilder(graph)
+                    .withForce(new ModularForce.EdgeAttraction2D(5))
+                    .withConstraint(new ModularConstraint.DecreasingMaxMovement(3))
+                    .withConvergence(0.01, 0.01, 5);
+            if (arrayEngine) {
+                builder.enableArrayEngine();
+            }
+            ModularStatistics stats = builder.build().iterate(500);
+
+            assertThat(stats.getStopReason(), is(ModularStatistics.StopReason.converged));
+            assertThat(stats.getIterationCount(), is(greaterThan(4)));
+            assertThat(stats.getIterationCount(), is(lessThan(500)));
+            assertThat(Geom.e2D.magnitude(positions.get(b).minus(positions.get(a))), is(lessThan(1.0)));
+        }
+    }
+
+    @Test
+    public void testIterationLimit() {
+        Graph graph = new Graph();
+        Node a = graph.newNode();
+        Node b = graph.newNode();
+        graph.newEdge(a, b);
+
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        positions.set(a, new Coordinates(0, 0));
+        positions.set(b, new Coordinates(8, 5));
+
+        ModularStatistics stats = new ModularFdlBuilder(graph)
+                .withForce(new ModularForce.EdgeAttraction2D(5))
+                .withConstraint(new ModularConstraint.DecreasingMaxMovement(3))
+                .build()
+                .iterate(20);
+
+        assertThat(stats.getStopReason(), is(ModularStatistics.StopReason.iterationLimit));
+        assertThat(stats.getIterationCount(), is(20));
+    }
+
     @Test
     public void testNodeNodeRepulsionDynamic() {
         Graph graph = new Graph();
@@ -341,4 +390,108 @@ public class ModularFdlTest {
         assertThat(edgePoints.get(ab).get(3), is(new Coordinates(-5, 50)));
         assertThat(edgePoints.get(ab).get(4), is(new Coordinates(0, 51)));
     }
+
+    @Test
+    public void testArrayEngine() throws Exception {
+        Graph attributeGraph = createArrayEngineTestGraph();
+        Graph arrayGraph = createArrayEngineTestGraph();
+
+        ModularFdl attributeFdl = createArrayEngineTestFdl(new ModularFdlBuilder(attributeGraph));
+        ModularFdl arrayFdl = createArrayEngineTestFdl(new ModularFdlBuilder(arrayGraph).enableArrayEngine());
+
+        attributeFdl.iterate(10);
+        arrayFdl.iterate(10);
+
+        NodeAttribute<Coordinates> attributePositions = attributeGraph.nodeAttribute(StdAttribute.nodePosition);
+        NodeAttribute<Coordinates> arrayPositions = arrayGraph.nodeAttribute(StdAttribute.nodePosition);
+        for (Node node : attributeGraph.nodes()) {
+            assertThat(arrayPositions.get(arrayGraph.getNode(node.id())), isAlmost(attributePositions.get(node)));
+        }
+    }
+
+    @Test
+    public void testGridLocator() throws Exception {
+        Graph treeGraph = createArrayEngineTestGraph();
+        Graph gridGraph = createArrayEngineTestGraph();
+
+        ModularFdl treeFdl = createArrayEngineTestFdl(new ModularFdlBuilder(treeGraph));
+        ModularFdl gridFdl = createArrayEngineTestFdl(new ModularFdlBuilder(gridGraph).withGridLocator(2));
+
+        treeFdl.iterate(10);
+        gridFdl.iterate(10);
+
+        NodeAttribute<Coordinates> treePositions = treeGraph.nodeAttribute(StdAttribute.nodePosition);
+        NodeAttribute<Coordinates> gridPositions = gridGraph.nodeAttribute(StdAttribute.nodePosition);
+        for (Node node : treeGraph.nodes()) {
+            assertThat(gridPositions.get(gridGraph.getNode(node.id())), isAlmost(treePositions.get(node)));
+        }
+    }
+
+    @Test
+    public void testArrayEngineFlexibleEdges() throws Exception {
+        Graph graph = new Graph();
+        Node a = graph.newNode();
+        Node b = graph.newNode();
+        Edge ab = graph.newEdge(a, b);
+
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        positions.set(a, new Coordinates(0, 0));
+        positions.set(b, new Coordinates(0, 100));
+
+        EdgeAttribute<ControlPoints> edgePoints = graph.edgeAttribute(StdAttribute.edgePoints);
+
+        ModularFdl modularFdl = new ModularFdlBuilder(graph)
+                .withForce(new ModularForce.EdgeAttraction2D(10))
+                .withConstraint(new ModularConstraint.DecreasingMaxMovement(1))
+                .withPostProcessing(new ModularPostProcessing.FlexibleEdges(Arrays.asList(ab), 0, 30))
+                .enableArrayEngine()
+                .build();
+
+        modularFdl.iterate(3);
+
+        assertThat(graph.edgeCount(), is(1));
+        assertThat(edgePoints.get(ab).size(), is(3));
+        assertThat(Geom.e2D.magnitude(positions.get(b).minus(positions.get(a))), is(lessThan(100.0)));
+        for (Coordinates bend : edgePoints.get(ab)) {
+            assertThat(bend.y(), is(greaterThan(positions.get(a).y())));
+            assertThat(bend.y(), is(lessThan(positions.get(b).y())));
+        }
+    }
+
+    /**
+     * Creates the graph used to compare array engine and attribute engine.
+     *
+     * @return the graph.
+     */
+    private Graph createArrayEngineTestGraph() {
+        Graph graph = new Graph();
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        Node previous = null;
+        for (int i = 0; i < 12; i++) {
+            Node node = graph.newNode("n" + i);
+            positions.set(node, new Coordinates(3 * (i % 4) + 0.1 * i, 4 * (i / 4) - 0.2 * i));
+            if (previous != null) {
+                graph.newEdge("e" + i, previous, node);
+            }
+            previous = node;
+        }
+        graph.newEdge("e0", graph.getNode("n0"), graph.getNode("n11"));
+        return graph;
+    }
+
+    /**
+     * Creates the algorithm used to compare array engine and attribute engine.
+     *
+     * @param builder the builder.
+     * @return the algorithm.
+     */
+    private ModularFdl createArrayEngineTestFdl(ModularFdlBuilder builder) {
+        return builder
+                .withForce(new ModularForce.EdgeAttraction2D(3))
+                .withForce(new ModularForce.NodeNodeRepulsion2D(3))
+                .withForce(new ModularForce.EdgeNodeRepulsion2D(1))
+                .withConstraint(new ModularConstraint.DecreasingMaxMovement(2))
+                .withConstraint(new ModularConstraint.MovementAcceleration(2, Geom.e2D))
+                .build();
+    }
 }
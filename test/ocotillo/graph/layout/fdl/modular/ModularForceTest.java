@@ -17,7 +17,9 @@ package ocotillo.graph.layout.fdl.modular;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import ocotillo.geometry.Coordinates;
 import ocotillo.geometry.Geom;
 import static ocotillo.geometry.matchers.CoreMatchers.isAlmost;
@@ -30,6 +32,7 @@ import ocotillo.graph.StdAttribute;
 import ocotillo.graph.StdAttribute.ControlPoints;
 import ocotillo.graph.layout.fdl.modular.ModularFdl.ModularFdlBuilder;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.lessThan;
 import static org.junit.Assert.assertThat;
@@ -81,6 +84,21 @@ public class ModularForceTest {
         assertThat(Geom.e2D.magnitude(forces.get(a)), is(greaterThan(originalMagnitude)));
     }
 
+    @Test
+    public void testSeededRandomForce() {
+        List<Coordinates> firstForces = computeRandomTestForces(42);
+        List<Coordinates> secondForces = computeRandomTestForces(42);
+        List<Coordinates> otherForces = computeRandomTestForces(43);
+
+        boolean differentSeedDiffers = false;
+        for (int i = 0; i < firstForces.size(); i++) {
+            assertThat(firstForces.get(i), isAlmost(secondForces.get(i)));
+            assertThat(Geom.e2D.magnitude(firstForces.get(i)), is(lessThan(5.0)));
+            differentSeedDiffers |= !firstForces.get(i).equals(otherForces.get(i));
+        }
+        assertThat(differentSeedDiffers, is(true));
+    }
+
     @Test
     public void testNodeNodeRepulsion() {
         Graph graph = new Graph();
@@ -175,6 +193,76 @@ public class ModularForceTest {
         assertThat(Geom.e2D.magnitude(forces.get(b)), isAlmost(0.0));
     }
 
+    @Test
+    public void testBarnesHutNodeNodeRepulsion() {
+        Graph graph = new Graph();
+        Node a = graph.newNode();
+        Node b = graph.newNode();
+
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        positions.set(a, new Coordinates(0, 0));
+        positions.set(b, new Coordinates(0, 3));
+
+        ModularFdl exactFdl = new ModularFdlBuilder(graph)
+                .withForce(new ModularForce.NodeNodeRepulsion2D(5))
+                .build();
+        NodeAttribute<Coordinates> exactForces = Whitebox.getInternalState(exactFdl, "forces");
+        exactFdl.iterate(1);
+        Coordinates exactForceOnA = new Coordinates(exactForces.get(a));
+
+        positions.set(a, new Coordinates(0, 0));
+        positions.set(b, new Coordinates(0, 3));
+
+        ModularFdl approximatedFdl = new ModularFdlBuilder(graph)
+                .withNodeNodeRepulsion(5, ModularFdl.RepulsionMode.barnesHut)
+                .build();
+        NodeAttribute<Coordinates> forces = Whitebox.getInternalState(approximatedFdl, "forces");
+        approximatedFdl.iterate(1);
+        assertThat(forces.get(a), isAlmost(exactForceOnA));
+        assertThat(forces.get(b), isAlmost(exactForceOnA.minus()));
+    }
+
+    @Test
+    public void testBarnesHutFarField() {
+        Graph graph = new Graph();
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        Node far = graph.newNode();
+        List<Node> cluster = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            cluster.add(graph.newNode());
+        }
+        positions.set(far, new Coordinates(-100, 0));
+        for (int i = 0; i < 20; i++) {
+            positions.set(cluster.get(i), new Coordinates(i % 5, i / 5));
+        }
+
+        ModularFdl localFdl = new ModularFdlBuilder(graph)
+                .withNodeNodeRepulsion(5, ModularFdl.RepulsionMode.localNeighbourhood)
+                .build();
+        NodeAttribute<Coordinates> localForces = Whitebox.getInternalState(localFdl, "forces");
+        localFdl.iterate(1);
+        assertThat(Geom.e2D.magnitude(localForces.get(far)), isAlmost(0.0));
+
+        positions.set(far, new Coordinates(-100, 0));
+        for (int i = 0; i < 20; i++) {
+            positions.set(cluster.get(i), new Coordinates(i % 5, i / 5));
+        }
+        ModularForce.BarnesHutNodeNodeRepulsion2D force = new ModularForce.BarnesHutNodeNodeRepulsion2D(5);
+        ModularFdl approximatedFdl = new ModularFdlBuilder(graph)
+                .withForce(force)
+                .build();
+        NodeAttribute<Coordinates> forces = Whitebox.getInternalState(approximatedFdl, "forces");
+        approximatedFdl.iterate(1);
+        double expectedMagnitude = 0;
+        for (int i = 0; i < 20; i++) {
+            double dx = i % 5 + 100;
+            double dy = i / 5;
+            expectedMagnitude += Math.pow(5 / Math.sqrt(dx * dx + dy * dy), 2) * dx / Math.sqrt(dx * dx + dy * dy);
+        }
+        assertThat(forces.get(far).x(), is(lessThan(0.0)));
+        assertThat(-forces.get(far).x(), is(closeTo(expectedMagnitude, expectedMagnitude * 0.01)));
+    }
+
     @Test
     public void testEdgeNodeRepulsion() {
         Graph graph = new Graph();
@@ -329,4 +417,137 @@ public class ModularForceTest {
         assertThat(Geom.eXD.unitVector(forces.get(b)), isAlmost(new Coordinates(0, 1)));
         assertThat(Geom.eXD.unitVector(forces.get(c)), isAlmost(new Coordinates(0, 1)));
     }
+
+    @Test
+    public void testParallelForces() {
+        Graph graph = new Graph();
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        Map<Node, Coordinates> initialPositions = new HashMap<>();
+        Node previous = null;
+        for (int i = 0; i < 200; i++) {
+            Node node = graph.newNode();
+            initialPositions.put(node, new Coordinates((i % 20) * 2 + (i * 7 % 5) * 0.3, (i / 20) * 2 + (i * 3 % 7) * 0.2));
+            if (previous != null) {
+                graph.newEdge(previous, node);
+            }
+            previous = node;
+        }
+
+        Map<Node, Coordinates> sequentialForces = computeParallelTestForces(graph, initialPositions, 1);
+        Map<Node, Coordinates> twoThreadForces = computeParallelTestForces(graph, initialPositions, 2);
+        Map<Node, Coordinates> fourThreadForces = computeParallelTestForces(graph, initialPositions, 4);
+
+        for (Node node : graph.nodes()) {
+            assertThat(twoThreadForces.get(node), isAlmost(sequentialForces.get(node)));
+            assertThat(fourThreadForces.get(node), isAlmost(sequentialForces.get(node)));
+        }
+    }
+
+    @Test
+    public void testParallelAccumulationIsDeterministic() {
+        Coordinates[] twoThreadForces = computeSummingForces(2);
+        Coordinates[] threeThreadForces = computeSummingForces(3);
+        Coordinates[] eightThreadForces = computeSummingForces(8);
+        Coordinates[] sequentialForces = computeSummingForces(1);
+
+        for (int i = 0; i < sequentialForces.length; i++) {
+            assertThat(threeThreadForces[i], is(twoThreadForces[i]));
+            assertThat(eightThreadForces[i], is(twoThreadForces[i]));
+            assertThat(twoThreadForces[i], is(sequentialForces[i]));
+        }
+    }
+
+    /**
+     * Computes the forces of a force that adds many small contributions to
+     * few nodes.
+     *
+     * @param parallelism the number of threads.
+     * @return the forces of the nodes.
+     */
+    private Coordinates[] computeSummingForces(int parallelism) {
+        Graph graph = new Graph();
+        List<Node> nodes = Arrays.asList(graph.newNode(), graph.newNode(), graph.newNode());
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            items.add(i);
+        }
+
+        ModularForce summingForce = new ModularForce() {
+            @Override
+            protected NodeAttribute<Coordinates> computeForces() {
+                ForceAccumulator accumulator = new ForceAccumulator();
+                accumulateForces(items, (item, itemAccumulator) -> {
+                    itemAccumulator.add(nodes.get(item % 3), new Coordinates(1.0 / (item + 1), Math.sqrt(item) / 7));
+                }, accumulator);
+                return accumulator.toNodeAttribute(new Coordinates(0, 0));
+            }
+        };
+
+        ModularFdl modularFdl = new ModularFdlBuilder(graph)
+                .withForce(summingForce)
+                .withParallelism(parallelism)
+                .build();
+        modularFdl.iterate(1);
+        modularFdl.close();
+
+        NodeAttribute<Coordinates> forces = Whitebox.getInternalState(modularFdl, "forces");
+        return new Coordinates[]{forces.get(nodes.get(0)), forces.get(nodes.get(1)), forces.get(nodes.get(2))};
+    }
+
+    /**
+     * Computes the random forces of the first iteration on a small graph.
+     *
+     * @param seed the random seed.
+     * @return the computed forces, in node creation order.
+     */
+    private List<Coordinates> computeRandomTestForces(long seed) {
+        Graph graph = new Graph();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            nodes.add(graph.newNode("n" + i));
+        }
+
+        ModularFdl modularFdl = new ModularFdlBuilder(graph)
+                .withForce(new ModularForce.RandomForce2D(5, seed))
+                .build();
+        modularFdl.iterate(1);
+
+        NodeAttribute<Coordinates> forces = Whitebox.getInternalState(modularFdl, "forces");
+        List<Coordinates> computedForces = new ArrayList<>();
+        for (Node node : nodes) {
+            computedForces.add(new Coordinates(forces.get(node)));
+        }
+        return computedForces;
+    }
+
+    /**
+     * Computes the forces of the first iteration from the given positions.
+     *
+     * @param graph the graph.
+     * @param initialPositions the node positions.
+     * @param parallelism the number of threads.
+     * @return the computed forces.
+     */
+    private Map<Node, Coordinates> computeParallelTestForces(Graph graph, Map<Node, Coordinates> initialPositions, int parallelism) {
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        for (Node node : graph.nodes()) {
+            positions.set(node, new Coordinates(initialPositions.get(node)));
+        }
+
+        ModularFdl modularFdl = new ModularFdlBuilder(graph)
+                .withForce(new ModularForce.EdgeAttraction2D(2))
+                .withForce(new ModularForce.NodeNodeRepulsion2D(2))
+                .withForce(new ModularForce.EdgeNodeRepulsion2D(1))
+                .withParallelism(parallelism)
+                .build();
+        modularFdl.iterate(1);
+        modularFdl.close();
+
+        NodeAttribute<Coordinates> forces = Whitebox.getInternalState(modularFdl, "forces");
+        Map<Node, Coordinates> computedForces = new HashMap<>();
+        for (Node node : graph.nodes()) {
+            computedForces.put(node, forces.get(node));
+        }
+        return computedForces;
+    }
 }
@@ -0,0 +1,147 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.graph.layout.fdl.modular;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import ocotillo.geometry.Coordinates;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.StdAttribute;
+import ocotillo.graph.layout.fdl.modular.ModularFdl.ModularFdlBuilder;
+import ocotillo.graph.layout.fdl.modular.ModularInstrumentation.Measurement;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class ModularInstrumentationTest {
+
+    @Test
+    public void testTimersAndCounters() {
+        ModularInstrumentation instrumentation = new ModularInstrumentation();
+        long elapsed = instrumentation.start("phase", 2, 0).stop();
+        instrumentation.start("phase", 1, 0).stop();
+        instrumentation.count("counter", 2, 0, 3);
+        instrumentation.count("counter", 2, 1, 4);
+
+        List<Measurement> measurements = instrumentation.measurements();
+        assertThat(measurements.size(), is(4));
+        assertThat(measurements.get(0).kind(), is(ModularInstrumentation.Kind.timer));
+        assertThat(measurements.get(0).value(), is(elapsed));
+        assertThat(measurements.get(2).kind(), is(ModularInstrumentation.Kind.counter));
+
+        assertThat(instrumentation.total("counter"), is(7L));
+        assertThat(instrumentation.total("counter", 1), is(0L));
+        assertThat(instrumentation.total("phase", 2), is(elapsed));
+        assertThat(instrumentation.total("phase"), is(greaterThanOrEqualTo(elapsed)));
+
+        Map<String, Long> totals = instrumentation.totals();
+        assertThat(totals.size(), is(2));
+        assertThat(totals.get("counter"), is(7L));
+    }
+
+    @Test
+    public void testExport() throws IOException {
+        ModularInstrumentation instrumentation = new ModularInstrumentation().enableJfrEvents();
+        instrumentation.start("forces", 0, 3).stop();
+        instrumentation.count("quoted \"name\"", ModularInstrumentation.NO_INDEX, ModularInstrumentation.NO_INDEX, 5);
+
+        StringWriter csv = new StringWriter();
+        instrumentation.writeCsv(csv);
+        String[] lines = csv.toString().split("\n");
+        assertThat(lines.length, is(3));
+        assertThat(lines[0], is("Kind;Name;Level;Iteration;Value;Thread"));
+        assertThat(lines[1], containsString("timer;forces;0;3;"));
+        assertThat(lines[2], containsString("counter;quoted \"name\";-1;-1;5;"));
+
+        StringWriter json = new StringWriter();
+        instrumentation.writeJson(json);
+        assertThat(json.toString(), containsString("\"kind\": \"timer\", \"name\": \"forces\", \"level\": 0, \"iteration\": 3"));
+        assertThat(json.toString(), containsString("\"name\": \"quoted \\\"name\\\"\", \"level\": -1, \"iteration\": -1, \"value\": 5"));
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        ModularInstrumentation instrumentation = new ModularInstrumentation();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int level = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    instrumentation.count("counter", level, i, 1);
+                    instrumentation.start("phase", level, i).stop();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(instrumentation.measurements().size(), is(8000));
+        assertThat(instrumentation.total("counter"), is(4000L));
+        for (int level = 0; level < 4; level++) {
+            assertThat(instrumentation.total("counter", level), is(1000L));
+        }
+    }
+
+    @Test
+    public void testModularFdlPhases() {
+        Graph graph = new Graph();
+        Node a = graph.newNode();
+        Node b = graph.newNode();
+        graph.newEdge(a, b);
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        positions.set(a, new Coordinates(0, 0));
+        positions.set(b, new Coordinates(4, 0));
+
+        ModularInstrumentation instrumentation = new ModularInstrumentation();
+        ModularFdl modularFdl = new ModularFdlBuilder(graph)
+                .withForce(new ModularForce.EdgeAttraction2D(2))
+                .withForce(new ModularForce.NodeNodeRepulsion2D(2))
+                .withConstraint(new ModularConstraint.DecreasingMaxMovement(1))
+                .withInstrumentation(instrumentation, 3)
+                .build();
+        modularFdl.iterate(5);
+
+        assertThat(instrumentation.total(ModularInstrumentation.ITERATIONS, 3), is(5L));
+        int forceTimers = 0;
+        int locatorTimers = 0;
+        int constraintTimers = 0;
+        for (Measurement measurement : instrumentation.measurements()) {
+            assertThat(measurement.level(), is(3));
+            if (measurement.name().startsWith(ModularInstrumentation.FORCE)) {
+                forceTimers++;
+            } else if (measurement.name().equals(ModularInstrumentation.LOCATOR_REBUILD)) {
+                locatorTimers++;
+            } else if (measurement.name().equals(ModularInstrumentation.CONSTRAINT + "DecreasingMaxMovement")) {
+                constraintTimers++;
+            }
+        }
+        assertThat(forceTimers, is(10));
+        assertThat(locatorTimers, is(5));
+        assertThat(constraintTimers, is(5));
+        assertThat(instrumentation.totals().containsKey(ModularInstrumentation.FORCE + "EdgeAttraction2D"), is(true));
+    }
+}
@@ -61,6 +61,34 @@ public class ModularPreMovementTest {
         assertThat(modularFdl.movements.get(b).y(), isAlmost(yLimit));
     }
 
+    @Test
+    public void testVectorFieldSmoothingKeepsUniformMovements() {
+        Graph graph = new Graph();
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        positions.set(graph.newNode(), new Coordinates(2, 2));
+        positions.set(graph.newNode(), new Coordinates(5, 6));
+        positions.set(graph.newNode(), new Coordinates(3.1, 4.9));
+        positions.set(graph.newNode(), new Coordinates(4.4, 2.7));
+
+        ModularFdl modularFdl = new ModularFdl.ModularFdlBuilder(graph)
+                .withForce(new ModularForce() {
+                    @Override
+                    protected NodeAttribute<Coordinates> computeForces() {
+                        return new NodeAttribute<>(new Coordinates(0.3, -0.2));
+                    }
+                })
+                .withPreMovmement(new VectorFieldSmoothing(4))
+                .build();
+
+        for (int i = 0; i < 3; i++) {
+            modularFdl.iterate(1);
+            for (Node node : graph.nodes()) {
+                assertThat(modularFdl.movements.get(node).x(), isAlmost(0.3));
+                assertThat(modularFdl.movements.get(node).y(), isAlmost(-0.2));
+            }
+        }
+    }
+
     @Test
     public void testGetCellInfoSingleCell() throws Exception {
         Graph graph = new Graph();
@@ -0,0 +1,126 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.graph.layout.fdl.sfdp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Geom;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.StdAttribute;
+import ocotillo.graph.layout.fdl.sfdp.MultilevelFdl.MultilevelFdlBuilder;
+import ocotillo.graph.layout.fdl.sfdp.SfdpExecutor.SfdpBuilder;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class MultilevelFdlTest {
+
+    private Graph grid(int side) {
+        Graph graph = new Graph();
+        Node[][] nodes = new Node[side][side];
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                nodes[i][j] = graph.newNode(i + "-" + j);
+                if (i > 0) {
+                    graph.newEdge(nodes[i - 1][j], nodes[i][j]);
+                }
+                if (j > 0) {
+                    graph.newEdge(nodes[i][j - 1], nodes[i][j]);
+                }
+            }
+        }
+        return graph;
+    }
+
+    private double averageEdgeLength(Graph graph) {
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        double total = 0;
+        for (Edge edge : graph.edges()) {
+            total += Geom.e2D.magnitude(positions.get(edge.source()).minus(positions.get(edge.target())));
+        }
+        return total / graph.edgeCount();
+    }
+
+    @Test
+    public void testGridLayout() {
+        Graph graph = grid(20);
+        new MultilevelFdlBuilder().withDesiredEdgeLength(2).build().execute(graph);
+
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        List<Node> nodes = new ArrayList<>(graph.nodes());
+        Random random = new Random(3);
+        double nonAdjacentTotal = 0;
+        for (int i = 0; i < 1000; i++) {
+            Node a = nodes.get(random.nextInt(nodes.size()));
+            Node b = nodes.get(random.nextInt(nodes.size()));
+            nonAdjacentTotal += Geom.e2D.magnitude(positions.get(a).minus(positions.get(b)));
+        }
+        for (Node node : nodes) {
+            assertThat(Double.isFinite(positions.get(node).x()), is(true));
+            assertThat(Double.isFinite(positions.get(node).y()), is(true));
+        }
+
+        assertThat(averageEdgeLength(graph), is(closeTo(2.0, 1e-6)));
+        assertThat(nonAdjacentTotal / 1000, is(greaterThan(2.0 * 8)));
+    }
+
+    @Test
+    public void testSeed() {
+        Graph first = grid(8);
+        Graph second = grid(8);
+        new MultilevelFdlBuilder().withSeed(42).build().execute(first);
+        new MultilevelFdlBuilder().withSeed(42).build().execute(second);
+
+        NodeAttribute<Coordinates> firstPositions = first.nodeAttribute(StdAttribute.nodePosition);
+        NodeAttribute<Coordinates> secondPositions = second.nodeAttribute(StdAttribute.nodePosition);
+        List<Node> firstNodes = new ArrayList<>(first.nodes());
+        for (Node node : firstNodes) {
+            assertThat(secondPositions.get(second.getNode(node.id())), is(firstPositions.get(node)));
+        }
+    }
+
+    @Test
+    public void testDegenerateGraphs() {
+        Graph graph = new Graph();
+        new MultilevelFdlBuilder().build().execute(graph);
+
+        Node a = graph.newNode();
+        new MultilevelFdlBuilder().build().execute(graph);
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        assertThat(Double.isFinite(positions.get(a).x()), is(true));
+
+        Node b = graph.newNode();
+        graph.newEdge(a, a);
+        graph.newEdge(a, b);
+        graph.newEdge(b, a);
+        new MultilevelFdlBuilder().build().execute(graph);
+        assertThat(Geom.e2D.magnitude(positions.get(a).minus(positions.get(b))), is(greaterThan(0.0)));
+    }
+
+    @Test
+    public void testInProcessExecutor() {
+        Graph graph = grid(5);
+        new SfdpBuilder().withCommandLine(SfdpExecutor.AVAILABLE_STATIC_LAYOUTS.inprocess).build().execute(graph);
+        assertThat(averageEdgeLength(graph), is(closeTo(1.0, 1e-6)));
+    }
+}
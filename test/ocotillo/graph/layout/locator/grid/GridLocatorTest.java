@@ -0,0 +1,227 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.graph.layout.locator.grid;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.EvoBuilder;
+import ocotillo.dygraph.layout.fdl.modular.DyModularFdl;
+import ocotillo.dygraph.layout.fdl.modular.DyModularForce;
+import ocotillo.dygraph.layout.fdl.modular.DyModularPostProcessing;
+import ocotillo.dygraph.layout.fdl.modular.DyModularPostProcessing.FlexibleTimeTrajectories;
+import ocotillo.geometry.Box;
+import ocotillo.geometry.Box.Box2D;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Geom;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+import ocotillo.graph.layout.locator.ElementLocator;
+import ocotillo.graph.layout.locator.ElementLocator.EdgePolicy;
+import ocotillo.graph.layout.locator.ElementLocator.NodePolicy;
+import ocotillo.graph.layout.locator.ElementLocatorAbstTestBase;
+import ocotillo.graph.layout.fdl.modular.ModularConstraint;
+import ocotillo.graph.layout.locator.grid.GridLocator.GlBuilder;
+import ocotillo.graph.layout.locator.intervaltree.IntervalTreeLocator.ItlBuilder;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class GridLocatorTest extends ElementLocatorAbstTestBase {
+
+    @Override
+    protected GridLocator createInstance() {
+        return new GlBuilder(graph, NodePolicy.nodesAsGlyphs, EdgePolicy.edgesAsGlyphs).withCellSize(0.7).build();
+    }
+
+    @Test
+    public final void getCloseNodesWithAutoPositionUpdate() {
+        sizes.setDefault(new Coordinates(1, 1));
+        Coordinates pointZero = new Coordinates(0, 0);
+
+        Node a1 = graph.newNode();
+        Node a2 = graph.newNode();
+        Edge a = graph.newEdge(a1, a2);
+
+        Node b = graph.newNode();
+
+        positions.set(a1, new Coordinates(0, 0));
+        positions.set(a2, new Coordinates(0, 1));
+        positions.set(b, new Coordinates(1, 0));
+
+        ElementLocator locator = new GlBuilder(graph, NodePolicy.nodesAsGlyphs, EdgePolicy.edgesAsGlyphs).withCellSize(0.7).enableAutoSync().build();
+
+        assertThat(locator.getCloseNodes(pointZero, 2), hasItem(b));
+        assertThat(locator.getCloseNodes(a1, 2), hasItem(b));
+        assertThat(locator.getCloseNodes(a, 2), hasItem(b));
+
+        positions.set(b, new Coordinates(100, 100));
+
+        assertThat(locator.getCloseNodes(pointZero, 2), not(hasItem(b)));
+        assertThat(locator.getCloseNodes(a1, 2), not(hasItem(b)));
+        assertThat(locator.getCloseNodes(a, 2), not(hasItem(b)));
+
+        positions.set(b, new Coordinates(1, 1));
+
+        assertThat(locator.getCloseNodes(pointZero, 2), hasItem(b));
+        assertThat(locator.getCloseNodes(a1, 2), hasItem(b));
+        assertThat(locator.getCloseNodes(a, 2), hasItem(b));
+
+        locator.close();
+    }
+
+    @Test
+    public final void getCloseNodesWithManualRebuild() {
+        sizes.setDefault(new Coordinates(1, 1));
+        Coordinates pointZero = new Coordinates(0, 0);
+
+        Node a = graph.newNode();
+        Node b = graph.newNode();
+        positions.set(a, new Coordinates(0, 0));
+        positions.set(b, new Coordinates(1, 0));
+
+        ElementLocator locator = new GlBuilder(graph, NodePolicy.nodesAsGlyphs, EdgePolicy.edgesAsGlyphs).withCellSize(0.7).disableAutoSync().build();
+        assertThat(locator.getCloseNodes(pointZero, 2), hasItem(b));
+
+        positions.set(b, new Coordinates(100, 100));
+        assertThat(locator.getCloseNodes(pointZero, 2), hasItem(b));
+        locator.rebuild();
+        assertThat(locator.getCloseNodes(pointZero, 2), not(hasItem(b)));
+
+        Node c = graph.newNode();
+        positions.set(c, new Coordinates(0.5, 0.5));
+        graph.remove(b);
+        locator.rebuild();
+        assertThat(locator.getCloseNodes(pointZero, 2), hasItem(c));
+        assertThat(locator.getNodesPartiallyInBox(new Box2D(-1000, 1000, -1000, 1000)), not(hasItem(b)));
+
+        locator.close();
+    }
+
+    @Test
+    public final void matchesIntervalTreeLocator() {
+        Random random = new Random(42);
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            Node node = graph.newNode();
+            positions.set(node, new Coordinates(random.nextDouble() * 50, random.nextDouble() * 50));
+            sizes.set(node, new Coordinates(random.nextDouble() * 2, random.nextDouble() * 2));
+            nodes.add(node);
+        }
+        for (int i = 0; i < 100; i++) {
+            graph.newEdge(nodes.get(random.nextInt(nodes.size())), nodes.get(random.nextInt(nodes.size())));
+        }
+
+        ElementLocator grid = new GlBuilder(graph, NodePolicy.nodesAsGlyphs, EdgePolicy.edgesAsGlyphs).withCellSize(3).disableAutoSync().build();
+        ElementLocator tree = new ItlBuilder(graph, NodePolicy.nodesAsGlyphs, EdgePolicy.edgesAsGlyphs).disableAutoSync().build();
+
+        for (int step = 0; step < 5; step++) {
+            for (Node node : graph.nodes()) {
+                Coordinates position = positions.get(node);
+                positions.set(node, new Coordinates(position.x() + random.nextDouble() * 4 - 2, position.y() + random.nextDouble() * 4 - 2));
+            }
+            Node removed = graph.nodes().iterator().next();
+            for (Edge edge : new ArrayList<>(graph.inOutEdges(removed))) {
+                graph.remove(edge);
+            }
+            graph.remove(removed);
+            grid.rebuild();
+            tree.rebuild();
+
+            for (int query = 0; query < 20; query++) {
+                double x = random.nextDouble() * 60 - 5;
+                double y = random.nextDouble() * 60 - 5;
+                double side = random.nextDouble() * (query == 0 ? 100 : 10);
+                Box box = new Box2D(x, x + side, y, y + side);
+                assertThat(new HashSet<>(grid.getNodesPartiallyInBox(box)), is(new HashSet<>(tree.getNodesPartiallyInBox(box))));
+                assertThat(new HashSet<>(grid.getNodesFullyInBox(box)), is(new HashSet<>(tree.getNodesFullyInBox(box))));
+                assertThat(new HashSet<>(grid.getEdgesPartiallyInBox(box)), is(new HashSet<>(tree.getEdgesPartiallyInBox(box))));
+                assertThat(new HashSet<>(grid.getEdgesFullyInBox(box)), is(new HashSet<>(tree.getEdgesFullyInBox(box))));
+            }
+        }
+
+        grid.close();
+        tree.close();
+    }
+
+    @Test
+    public final void fewLargeElementsInSpaceTimeCube() {
+        Random random = new Random(42);
+        DyGraph dyGraph = new DyGraph();
+        DyNodeAttribute<Boolean> nodePresences = dyGraph.nodeAttribute(StdAttribute.dyPresence);
+        DyEdgeAttribute<Boolean> edgePresences = dyGraph.edgeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> dyPositions = dyGraph.nodeAttribute(StdAttribute.nodePosition);
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            Node node = dyGraph.newNode();
+            nodePresences.set(node, EvoBuilder.defaultAt(false).withConst(Interval.newClosed(0, 30), true).build());
+            dyPositions.set(node, EvoBuilder.defaultAt(new Coordinates(random.nextDouble() * 20, random.nextDouble() * 20)).build());
+            nodes.add(node);
+        }
+        for (int i = 0; i < 120; i++) {
+            Node source = nodes.get(random.nextInt(nodes.size()));
+            Node target = nodes.get(random.nextInt(nodes.size()));
+            if (source != target && dyGraph.betweenEdge(source, target) == null) {
+                double start = random.nextInt(25);
+                edgePresences.set(dyGraph.newEdge(source, target), EvoBuilder.defaultAt(false)
+                        .withConst(Interval.newClosed(start, start + 1 + random.nextInt(5)), true).build());
+            }
+        }
+
+        double delta = 1;
+        LargeElementRecorder recorder = new LargeElementRecorder();
+        DyModularFdl algorithm = new DyModularFdl.DyModularFdlBuilder(dyGraph, 1)
+                .withForce(new DyModularForce.TimeStraightning(delta))
+                .withForce(new DyModularForce.Gravity())
+                .withForce(new DyModularForce.ConnectionAttraction(delta))
+                .withForce(new DyModularForce.EdgeRepulsion(delta))
+                .withConstraint(new ModularConstraint.DecreasingMaxMovement(2 * delta))
+                .withConstraint(new ModularConstraint.MovementAcceleration(2 * delta, Geom.e3D))
+                .withPostProcessing(new FlexibleTimeTrajectories(delta * 1.5, delta * 2.0, Geom.e3D))
+                .withPostProcessing(recorder)
+                .withGridLocator(2 * delta)
+                .build();
+        algorithm.iterate(5);
+        algorithm.close();
+
+        assertThat(recorder.largeElements, is(lessThanOrEqualTo(recorder.elements / 100)));
+    }
+
+    /**
+     * Records how many elements of the space-time cube are kept outside the
+     * cells of the layout grid.
+     */
+    private static class LargeElementRecorder extends DyModularPostProcessing {
+
+        private int largeElements;
+        private int elements;
+
+        @Override
+        protected void execute() {
+            largeElements = ((GridLocator) locator()).largeElementCount();
+            elements = mirrorGraph().nodeCount() + mirrorGraph().edgeCount();
+        }
+    }
+}
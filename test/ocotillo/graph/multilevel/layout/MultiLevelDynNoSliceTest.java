@@ -0,0 +1,124 @@
+/**
+ * Copyright © 2020 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.graph.multilevel.layout;
+
+import java.util.Random;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.EvoBuilder;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+import ocotillo.graph.layout.fdl.sfdp.SfdpExecutor.AVAILABLE_STATIC_LAYOUTS;
+import ocotillo.graph.multilevel.layout.MultiLevelDynNoSlice.LIMIT_MINIMUM_TUNING;
+import ocotillo.multilevel.coarsening.GraphCoarsener;
+import ocotillo.multilevel.coarsening.IndependentSet;
+import ocotillo.multilevel.coarsening.SolarMerger;
+import ocotillo.multilevel.flattener.DyGraphFlattener;
+import ocotillo.multilevel.placement.MultilevelNodePlacementStrategy;
+import ocotillo.multilevel.placement.WeightedBarycenterPlacementStrategy;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class MultiLevelDynNoSliceTest {
+
+	private static final long SEED = 7;
+
+	@Test
+	public void testSameSeedGivesSameLayoutWithIndependentSet() {
+		assertSameLayout(drawGraph(new IndependentSet(), new WeightedBarycenterPlacementStrategy(false), false),
+				drawGraph(new IndependentSet(), new WeightedBarycenterPlacementStrategy(false), false));
+	}
+
+	@Test
+	public void testSameSeedGivesSameLayoutWithWarmStart() {
+		assertSameLayout(drawGraph(new IndependentSet(), new WeightedBarycenterPlacementStrategy(false), true),
+				drawGraph(new IndependentSet(), new WeightedBarycenterPlacementStrategy(false), true));
+	}
+
+	@Test
+	public void testSameSeedGivesSameLayoutWithSolarMerger() {
+		assertSameLayout(drawGraph(new SolarMerger(), new WeightedBarycenterPlacementStrategy.SolarMergerPlacementStrategy(false), false),
+				drawGraph(new SolarMerger(), new WeightedBarycenterPlacementStrategy.SolarMergerPlacementStrategy(false), false));
+	}
+
+	/**
+	 * Draws a freshly built graph with the in-process static layout and a
+	 * fixed seed, optionally warm starting each level from the coarser one.
+	 */
+	private static DyGraph drawGraph(GraphCoarsener coarsener, MultilevelNodePlacementStrategy placement, boolean warmStart) {
+		MultiLevelDynNoSlice multiDyn = new MultiLevelDynNoSlice(buildGraph(), 1.0, 5.0)
+				.setCoarsener(coarsener)
+				.setPlacementStrategy(placement)
+				.setFlattener(new DyGraphFlattener.StaticSumPresenceFlattener())
+				.defaultLayoutParameters(LIMIT_MINIMUM_TUNING.LIMITED)
+				.withSingleLevelLayout(AVAILABLE_STATIC_LAYOUTS.inprocess)
+				.addOption(MultiLevelDynNoSlice.LOG_OPTION, false)
+				.addOption(MultiLevelDynNoSlice.WARM_START, warmStart)
+				.withSeed(SEED)
+				.build();
+		return multiDyn.runMultiLevelLayout();
+	}
+
+	/**
+	 * Builds a random dynamic graph of 60 nodes, the same on every call.
+	 */
+	private static DyGraph buildGraph() {
+		Random random = new Random(42);
+		DyGraph graph = new DyGraph();
+		DyNodeAttribute<Boolean> nodePresences = graph.nodeAttribute(StdAttribute.dyPresence);
+		DyEdgeAttribute<Boolean> edgePresences = graph.edgeAttribute(StdAttribute.dyPresence);
+		DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+		Node[] nodes = new Node[60];
+		for(int i = 0; i < nodes.length; i++) {
+			nodes[i] = graph.newNode("n" + i);
+			nodePresences.set(nodes[i], EvoBuilder.defaultAt(false)
+					.withConst(Interval.newClosed(0, 10), true)
+					.build());
+			positions.set(nodes[i], EvoBuilder.defaultAt(new Coordinates(0, 0)).build());
+		}
+		for(int i = 0; i < 150; i++) {
+			Node source = nodes[random.nextInt(nodes.length)];
+			Node target = nodes[random.nextInt(nodes.length)];
+			if(source == target || graph.betweenEdge(source, target) != null)
+				continue;
+			double start = random.nextInt(9);
+			edgePresences.set(graph.newEdge("e" + i, source, target), EvoBuilder.defaultAt(false)
+					.withConst(Interval.newClosed(start, start + 1 + random.nextInt(3)), true)
+					.build());
+		}
+		return graph;
+	}
+
+	/**
+	 * Checks that the nodes of two drawings are in the very same positions
+	 * over the whole time interval.
+	 */
+	private static void assertSameLayout(DyGraph first, DyGraph second) {
+		DyNodeAttribute<Coordinates> firstPositions = first.nodeAttribute(StdAttribute.nodePosition);
+		DyNodeAttribute<Coordinates> secondPositions = second.nodeAttribute(StdAttribute.nodePosition);
+		assertThat(second.nodeCount(), is(first.nodeCount()));
+		for(Node node : first.nodes()) {
+			Node other = second.getNode(node.id());
+			for(double time = 0; time <= 10; time += 0.5)
+				assertThat(node.id() + " at " + time, secondPositions.get(other).valueAt(time),
+						is(firstPositions.get(node).valueAt(time)));
+		}
+	}
+}
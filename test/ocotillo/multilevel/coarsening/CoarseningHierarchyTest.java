@@ -0,0 +1,131 @@
+/**
+ * Copyright © 2020 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.multilevel.coarsening;
+
+import java.util.Arrays;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.multilevel.coarsening.CoarseningHierarchy.LevelBuilder;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class CoarseningHierarchyTest {
+
+	private final Graph graph = new Graph();
+
+	/**
+	 * Builds a hierarchy whose finest level contains a, b, c, d, e and whose
+	 * second level groups them as {c, a, e}, {d, b}.
+	 */
+	private CoarseningHierarchy buildHierarchy() {
+		Node a = graph.newNode("a");
+		Node b = graph.newNode("b");
+		Node c = graph.newNode("c");
+		Node d = graph.newNode("d");
+		Node e = graph.newNode("e");
+		CoarseningHierarchy hierarchy = new CoarseningHierarchy();
+		hierarchy.setFinestLevel(Arrays.asList(a, b, c, d, e));
+
+		LevelBuilder builder = hierarchy.newLevel();
+		int first = builder.newGroup(c, graph.newNode("C"));
+		int second = builder.newGroup(d, graph.newNode("D"));
+		builder.assign(e, first);
+		builder.assign(a, first);
+		builder.assign(b, second);
+		assertThat(builder.groupCount(), is(2));
+		hierarchy.addLevel(builder);
+		return hierarchy;
+	}
+
+	@Test
+	public void testParentArray() {
+		CoarseningHierarchy hierarchy = buildHierarchy();
+		assertThat(hierarchy.depth(), is(2));
+		assertThat(hierarchy.nodeCount(0), is(5));
+		assertThat(hierarchy.nodeCount(1), is(2));
+
+		int[] parents = new int[5];
+		for(int i = 0; i < parents.length; i++)
+			parents[i] = hierarchy.parent(0, i);
+		assertThat(parents, is(new int[]{0, 1, 0, 1, 0}));
+		assertThat(hierarchy.parent(1, 0), is(-1));
+		assertThat(hierarchy.parent(1, 1), is(-1));
+	}
+
+	@Test
+	public void testChildRanges() {
+		CoarseningHierarchy hierarchy = buildHierarchy();
+		assertThat(hierarchy.groupStart(1, 0), is(0));
+		assertThat(hierarchy.groupEnd(1, 0), is(3));
+		assertThat(hierarchy.groupStart(1, 1), is(3));
+		assertThat(hierarchy.groupEnd(1, 1), is(5));
+		assertThat(hierarchy.groupSize(1, 0), is(3));
+		assertThat(hierarchy.groupSize(1, 1), is(2));
+
+		int[] members = new int[5];
+		for(int position = 0; position < members.length; position++)
+			members[position] = hierarchy.member(1, position);
+		assertThat(members, is(new int[]{2, 0, 4, 3, 1}));
+		assertThat(hierarchy.leader(1, 0), is(2));
+		assertThat(hierarchy.leader(1, 1), is(3));
+	}
+
+	@Test
+	public void testNodeIndices() {
+		CoarseningHierarchy hierarchy = buildHierarchy();
+		assertThat(hierarchy.node(0, 3).id(), is("d"));
+		assertThat(hierarchy.node(1, 0).id(), is("C"));
+		assertThat(hierarchy.node(1, 1).id(), is("D"));
+		assertThat(hierarchy.indexOf(0, graph.getNode("e")), is(4));
+		assertThat(hierarchy.indexOf(1, graph.getNode("D")), is(1));
+		assertThat(hierarchy.indexOf(1, graph.getNode("a")), is(-1));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testUnassignedNodesAreRejected() {
+		Node a = graph.newNode("a");
+		Node b = graph.newNode("b");
+		CoarseningHierarchy hierarchy = new CoarseningHierarchy();
+		hierarchy.setFinestLevel(Arrays.asList(a, b));
+		LevelBuilder builder = hierarchy.newLevel();
+		builder.newGroup(a, graph.newNode("A"));
+		hierarchy.addLevel(builder);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDoubleAssignmentIsRejected() {
+		Node a = graph.newNode("a");
+		Node b = graph.newNode("b");
+		CoarseningHierarchy hierarchy = new CoarseningHierarchy();
+		hierarchy.setFinestLevel(Arrays.asList(a, b));
+		LevelBuilder builder = hierarchy.newLevel();
+		int group = builder.newGroup(a, graph.newNode("A"));
+		builder.assign(b, group);
+		builder.assign(b, group);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testStaleBuilderIsRejected() {
+		CoarseningHierarchy hierarchy = buildHierarchy();
+		LevelBuilder stale = hierarchy.newLevel();
+		LevelBuilder builder = hierarchy.newLevel();
+		builder.newGroup(graph.getNode("C"), graph.newNode("CD"));
+		builder.assign(graph.getNode("D"), 0);
+		hierarchy.addLevel(builder);
+		hierarchy.addLevel(stale);
+	}
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright © 2020 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.multilevel.coarsening;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.EvoBuilder;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class GraphCoarsenerTest {
+
+	/**
+	 * Builds the path a -> b -> c -> d -> e -> f -> g, where all the nodes
+	 * and edges are present on [0, 1].
+	 */
+	private static DyGraph buildPath() {
+		DyGraph graph = new DyGraph();
+		DyNodeAttribute<Boolean> nodePresences = graph.nodeAttribute(StdAttribute.dyPresence);
+		DyEdgeAttribute<Boolean> edgePresences = graph.edgeAttribute(StdAttribute.dyPresence);
+		Node previous = null;
+		for(String id : Arrays.asList("a", "b", "c", "d", "e", "f", "g")) {
+			Node node = graph.newNode(id);
+			nodePresences.set(node, EvoBuilder.defaultAt(false)
+					.withConst(Interval.newClosed(0, 1), true)
+					.build());
+			if(previous != null)
+				edgePresences.set(graph.newEdge(previous.id() + id, previous, node), EvoBuilder.defaultAt(false)
+						.withConst(Interval.newClosed(0, 1), true)
+						.build());
+			previous = node;
+		}
+		return graph;
+	}
+
+	/**
+	 * Lists the ids of the members of each group of a level, leader first.
+	 */
+	private static List<List<String>> groups(CoarseningHierarchy hierarchy, int level) {
+		List<List<String>> groups = new ArrayList<>();
+		for(int group = 0; group < hierarchy.nodeCount(level); group++) {
+			List<String> members = new ArrayList<>();
+			for(int position = hierarchy.groupStart(level, group); position < hierarchy.groupEnd(level, group); position++)
+				members.add(hierarchy.node(level - 1, hierarchy.member(level, position)).id());
+			groups.add(members);
+		}
+		return groups;
+	}
+
+	@Test
+	public void testIndependentSetGroups() {
+		GraphCoarsener coarsener = new IndependentSet();
+		coarsener.setGraph(buildPath());
+		coarsener.computeCoarsening();
+
+		CoarseningHierarchy hierarchy = coarsener.getLevelHierarchy();
+		assertThat(coarsener.getHierarchyDepth(), is(4));
+		assertThat(hierarchy.depth(), is(4));
+		assertThat(groups(hierarchy, 1), is(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c", "d"),
+				Arrays.asList("e", "f"), Arrays.asList("g"))));
+		assertThat(groups(hierarchy, 2), is(Arrays.asList(Arrays.asList("a", "c"), Arrays.asList("e", "g"))));
+		assertThat(groups(hierarchy, 3), is(Arrays.asList(Arrays.asList("a", "e"))));
+		assertThat(coarsener.getCoarsestGraph().edgeCount(), is(0));
+	}
+
+	@Test
+	public void testSolarMergerGroups() {
+		GraphCoarsener coarsener = new SolarMerger();
+		coarsener.setGraph(buildPath());
+		coarsener.computeCoarsening();
+
+		CoarseningHierarchy hierarchy = coarsener.getLevelHierarchy();
+		assertThat(coarsener.getHierarchyDepth(), is(3));
+		assertThat(groups(hierarchy, 1), is(Arrays.asList(Arrays.asList("a", "b", "c"), Arrays.asList("d", "e", "f"),
+				Arrays.asList("g"))));
+		assertThat(groups(hierarchy, 2), is(Arrays.asList(Arrays.asList("a", "d", "g"))));
+
+		DyGraph finest = coarsener.getFinestGraph();
+		DyNodeAttribute<Byte> status = finest.nodeAttribute(SolarMerger.STATUS_NODE_ATTRIBUTE_NAME);
+		assertThat(status.get(finest.getNode("a")).getDefaultValue(), is(SolarMerger.SUN));
+		assertThat(status.get(finest.getNode("b")).getDefaultValue(), is(SolarMerger.PLANET));
+		assertThat(status.get(finest.getNode("c")).getDefaultValue(), is(SolarMerger.MOON));
+	}
+
+	@Test
+	public void testCoarserLevelWeightsAndEdges() {
+		GraphCoarsener coarsener = new IndependentSet();
+		coarsener.setGraph(buildPath());
+		coarsener.computeCoarsening();
+
+		DyGraph level = levelGraph(coarsener, 1);
+		DyNodeAttribute<Double> nodeWeight = level.nodeAttribute(StdAttribute.weight);
+		assertThat(level.nodeCount(), is(4));
+		assertThat(nodeWeight.get(level.getNode("a")).getDefaultValue(), is(2.0));
+		assertThat(nodeWeight.get(level.getNode("g")).getDefaultValue(), is(1.0));
+		assertThat(level.edgeCount(), is(3));
+		assertThat(level.betweenEdge(level.getNode("a"), level.getNode("c")).id(), is("a-c"));
+		assertThat(level.betweenEdge(level.getNode("e"), level.getNode("g")).id(), is("e-g"));
+	}
+
+	/**
+	 * Gets the graph of a level of the hierarchy.
+	 */
+	private static DyGraph levelGraph(GraphCoarsener coarsener, int level) {
+		Iterator<DyGraph> iterator = coarsener.getGraphIterator();
+		while(iterator.hasNext()) {
+			DyGraph graph = iterator.next();
+			if(coarsener.getLevel(graph) == level)
+				return graph;
+		}
+		throw new IllegalArgumentException("No level " + level + " in the hierarchy.");
+	}
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright © 2020 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.multilevel.coarsening;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.Evolution;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Node;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class NodeRankingTest {
+
+	private DyGraph graph;
+	private DyNodeAttribute<Double> nodeWeight;
+	private DyEdgeAttribute<Double> edgeWeight;
+
+	/**
+	 * Builds a level where a has score 5, b and d score 3, c scores 4 and e
+	 * scores 1, counting node weights and outgoing edge weights.
+	 */
+	private void buildLevel() {
+		graph = new DyGraph();
+		nodeWeight = graph.newNodeAttribute("weight", new Evolution<>(1.0));
+		edgeWeight = graph.newEdgeAttribute("weight", new Evolution<>(1.0));
+		Node a = graph.newNode("a");
+		Node b = graph.newNode("b");
+		Node c = graph.newNode("c");
+		Node d = graph.newNode("d");
+		graph.newNode("e");
+		nodeWeight.set(a, new Evolution<>(2.0));
+		nodeWeight.set(c, new Evolution<>(3.5));
+		edgeWeight.set(graph.newEdge("ab", a, b), new Evolution<>(1.5));
+		edgeWeight.set(graph.newEdge("ac", a, c), new Evolution<>(1.5));
+		edgeWeight.set(graph.newEdge("bd", b, d), new Evolution<>(2.0));
+		edgeWeight.set(graph.newEdge("ce", c, graph.getNode("e")), new Evolution<>(0.5));
+		edgeWeight.set(graph.newEdge("da", d, a), new Evolution<>(2.0));
+	}
+
+	@Test
+	public void testRankingMatchesWeightAndIdOrder() {
+		buildLevel();
+		List<Node> expected = new ArrayList<>(graph.nodes());
+		Collections.sort(expected, (x, y) -> {
+			int order = Double.compare(score(y), score(x));
+			return order != 0 ? order : x.compareTo(y);
+		});
+
+		NodeRanking ranking = new NodeRanking(graph, edgeWeight, nodeWeight);
+		List<Node> actual = new ArrayList<>();
+		while(ranking.hasNext())
+			actual.add(ranking.next());
+
+		assertThat(actual, is(expected));
+		assertThat(actual.get(0).id(), is("a"));
+		assertThat(actual.get(1).id(), is("c"));
+		assertThat(actual.get(2).id(), is("b"));
+		assertThat(actual.get(3).id(), is("d"));
+		assertThat(actual.get(4).id(), is("e"));
+	}
+
+	@Test
+	public void testAssignedNodesAreSkipped() {
+		buildLevel();
+		NodeRanking ranking = new NodeRanking(graph, edgeWeight, nodeWeight);
+		assertThat(ranking.assign(graph.getNode("c")), is(true));
+		assertThat(ranking.assign(graph.getNode("c")), is(false));
+		assertThat(ranking.isAssigned(graph.getNode("c")), is(true));
+		assertThat(ranking.isAssigned(graph.getNode("b")), is(false));
+
+		assertThat(ranking.next().id(), is("a"));
+		assertThat(ranking.next().id(), is("b"));
+	}
+
+	/**
+	 * Computes the score of a node as the old comparator did.
+	 */
+	private double score(Node node) {
+		double score = nodeWeight.get(node).getDefaultValue();
+		for(Edge e : graph.outEdges(node))
+			score += edgeWeight.get(e).getDefaultValue();
+		return score;
+	}
+}
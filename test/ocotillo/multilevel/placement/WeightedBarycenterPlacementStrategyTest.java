@@ -0,0 +1,148 @@
+/**
+ * Copyright © 2020 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.multilevel.placement;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.EvoBuilder;
+import ocotillo.dygraph.Evolution;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Geom;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+import ocotillo.multilevel.coarsening.GraphCoarsener;
+import ocotillo.multilevel.coarsening.IndependentSet;
+import ocotillo.multilevel.coarsening.SolarMerger;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.closeTo;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class WeightedBarycenterPlacementStrategyTest {
+
+	/**
+	 * Coarsens the path a -> b -> c -> d -> e -> f -> g with the independent
+	 * set, which groups it as {a, b}, {c, d}, {e, f}, {g} in the first coarser
+	 * level, and places the groups at (0,0), (3,0), (6,3) and (9,0).
+	 */
+	private static GraphCoarsener coarsenPath() {
+		DyGraph graph = new DyGraph();
+		DyNodeAttribute<Boolean> nodePresences = graph.nodeAttribute(StdAttribute.dyPresence);
+		DyEdgeAttribute<Boolean> edgePresences = graph.edgeAttribute(StdAttribute.dyPresence);
+		Node previous = null;
+		for(String id : Arrays.asList("a", "b", "c", "d", "e", "f", "g")) {
+			Node node = graph.newNode(id);
+			nodePresences.set(node, EvoBuilder.defaultAt(false)
+					.withConst(Interval.newClosed(0, 1), true)
+					.build());
+			if(previous != null)
+				edgePresences.set(graph.newEdge(previous.id() + id, previous, node), EvoBuilder.defaultAt(false)
+						.withConst(Interval.newClosed(0, 1), true)
+						.build());
+			previous = node;
+		}
+
+		GraphCoarsener coarsener = new IndependentSet();
+		coarsener.setGraph(graph);
+		coarsener.computeCoarsening();
+
+		DyGraph upperLevel = levelGraph(coarsener, 1);
+		DyNodeAttribute<Coordinates> upperPositions = upperLevel.nodeAttribute(StdAttribute.nodePosition);
+		upperPositions.set(upperLevel.getNode("a"), new Evolution<>(new Coordinates(0, 0)));
+		upperPositions.set(upperLevel.getNode("c"), new Evolution<>(new Coordinates(3, 0)));
+		upperPositions.set(upperLevel.getNode("e"), new Evolution<>(new Coordinates(6, 3)));
+		upperPositions.set(upperLevel.getNode("g"), new Evolution<>(new Coordinates(9, 0)));
+		return coarsener;
+	}
+
+	/**
+	 * Gets the graph of a level of the hierarchy.
+	 */
+	private static DyGraph levelGraph(GraphCoarsener coarsener, int level) {
+		Iterator<DyGraph> iterator = coarsener.getGraphIterator();
+		while(iterator.hasNext()) {
+			DyGraph graph = iterator.next();
+			if(coarsener.getLevel(graph) == level)
+				return graph;
+		}
+		throw new IllegalArgumentException("No level " + level + " in the hierarchy.");
+	}
+
+	@Test
+	public void testMembersArePlacedAtWeightedBarycenter() {
+		GraphCoarsener coarsener = coarsenPath();
+		WeightedBarycenterPlacementStrategy placement = new WeightedBarycenterPlacementStrategy(false, 0.0);
+		placement.setOptimalDistance(10);
+		placement.withSeed(1);
+		placement.setCoarsener(coarsener);
+		DyGraph finerLevel = levelGraph(coarsener, 0);
+		placement.placeVertices(finerLevel, levelGraph(coarsener, 1));
+
+		// Each member is pulled towards the groups of its neighbours, and
+		// towards its own group with a weight equal to the group size.
+		assertPlacedAt(finerLevel, "b", 1, 0);
+		assertPlacedAt(finerLevel, "c", 2, 0);
+		assertPlacedAt(finerLevel, "d", 4, 1);
+		assertPlacedAt(finerLevel, "e", 5, 2);
+		assertPlacedAt(finerLevel, "f", 7, 2);
+		assertPlacedAt(finerLevel, "g", 7.5, 1.5);
+
+		// The neighbours of a are all in its own group.
+		Coordinates a = position(finerLevel, "a");
+		assertThat(Geom.e2D.magnitude(a), is(closeTo(10, 1e-4)));
+	}
+
+	@Test
+	public void testSolarMergerWeightsDependOnStatus() {
+		GraphCoarsener coarsener = coarsenPath();
+		markSolarStatus(coarsener);
+		WeightedBarycenterPlacementStrategy placement = new WeightedBarycenterPlacementStrategy.SolarMergerPlacementStrategy(false, 0.0);
+		placement.withSeed(1);
+		placement.setCoarsener(coarsener);
+		DyGraph finerLevel = levelGraph(coarsener, 0);
+		placement.placeVertices(finerLevel, levelGraph(coarsener, 1));
+
+		// A planet weighs its own group half as much as its other neighbours,
+		// a moon a quarter.
+		assertPlacedAt(finerLevel, "b", 2, 0);
+		assertPlacedAt(finerLevel, "d", 5.4, 2.4);
+	}
+
+	/**
+	 * Marks b as a planet and d as a moon in the finest level.
+	 */
+	private static void markSolarStatus(GraphCoarsener coarsener) {
+		DyGraph finest = coarsener.getFinestGraph();
+		DyNodeAttribute<Byte> status = finest.newNodeAttribute(SolarMerger.STATUS_NODE_ATTRIBUTE_NAME, SolarMerger.UNASSIGNED_STATE);
+		status.set(finest.getNode("b"), new Evolution<>(SolarMerger.PLANET));
+		status.set(finest.getNode("d"), new Evolution<>(SolarMerger.MOON));
+	}
+
+	private static Coordinates position(DyGraph graph, String id) {
+		DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+		return positions.get(graph.getNode(id)).getDefaultValue();
+	}
+
+	private static void assertPlacedAt(DyGraph graph, String id, double x, double y) {
+		Coordinates placed = position(graph, id);
+		assertThat(id, placed.x(), is(closeTo(x, 1e-4)));
+		assertThat(id, placed.y(), is(closeTo(y, 1e-4)));
+	}
+}
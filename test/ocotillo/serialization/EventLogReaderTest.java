@@ -0,0 +1,126 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.serialization;
+
+import java.io.IOException;
+import java.io.StringReader;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class EventLogReaderTest {
+
+    @Test
+    public void testTokenize() throws IOException {
+        EventLogReader reader = new EventLogReader(new StringReader("a,bb,,ccc\n"), ',');
+        assertThat(reader.nextLine(), is(true));
+        assertThat(reader.tokenCount(), is(4));
+        assertThat(reader.token(0), is("a"));
+        assertThat(reader.token(1), is("bb"));
+        assertThat(reader.token(2), is(""));
+        assertThat(reader.token(3), is("ccc"));
+        assertThat(reader.nextLine(), is(false));
+        assertThat(reader.tokenCount(), is(0));
+    }
+
+    @Test
+    public void testLineTerminators() throws IOException {
+        EventLogReader reader = new EventLogReader(new StringReader("a b\r\nc d\re f\n\ng h"), ' ');
+        assertThat(reader.nextLine(), is(true));
+        assertThat(reader.token(1), is("b"));
+        assertThat(reader.lineNumber(), is(1L));
+        assertThat(reader.nextLine(), is(true));
+        assertThat(reader.token(0), is("c"));
+        assertThat(reader.nextLine(), is(true));
+        assertThat(reader.token(0), is("e"));
+        assertThat(reader.nextLine(), is(true));
+        assertThat(reader.token(1), is("h"));
+        assertThat(reader.lineNumber(), is(5L));
+        assertThat(reader.nextLine(), is(false));
+    }
+
+    @Test
+    public void testSkipLines() throws IOException {
+        EventLogReader reader = new EventLogReader(new StringReader("header\n1\n2\n"), ',');
+        reader.skipLines(1);
+        assertThat(reader.nextLine(), is(true));
+        assertThat(reader.longToken(0), is(1L));
+        reader.skipLines(5);
+        assertThat(reader.nextLine(), is(false));
+    }
+
+    @Test
+    public void testLineLongerThanBuffers() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            builder.append(i % 10).append(i < 99999 ? "\t" : "\n");
+        }
+        EventLogReader reader = new EventLogReader(new StringReader(builder.toString()), '\t');
+        assertThat(reader.nextLine(), is(true));
+        assertThat(reader.tokenCount(), is(100000));
+        assertThat(reader.longToken(99999), is(9L));
+    }
+
+    @Test
+    public void testComparisons() throws IOException {
+        EventLogReader reader = new EventLogReader(new StringReader("Voice Call,x,x,y"), ',');
+        assertThat(reader.nextLine(), is(true));
+        assertThat(reader.tokenEquals(0, "voice call"), is(false));
+        assertThat(reader.tokenEqualsIgnoreCase(0, "voice call"), is(true));
+        assertThat(reader.tokenEqualsIgnoreCase(0, "voice"), is(false));
+        assertThat(reader.tokenEquals(1, "x"), is(true));
+        assertThat(reader.tokensEqual(1, 2), is(true));
+        assertThat(reader.tokensEqual(2, 3), is(false));
+    }
+
+    @Test
+    public void testNumbers() throws IOException {
+        EventLogReader reader = new EventLogReader(new StringReader(
+                "42,-17,+5,9223372036854775807,-9223372036854775808,1.5,1e3,-3"), ',');
+        assertThat(reader.nextLine(), is(true));
+        assertThat(reader.longToken(0), is(42L));
+        assertThat(reader.longToken(1), is(-17L));
+        assertThat(reader.longToken(2), is(5L));
+        assertThat(reader.longToken(3), is(Long.MAX_VALUE));
+        assertThat(reader.longToken(4), is(Long.MIN_VALUE));
+        assertThat(reader.doubleToken(0), is(42.0));
+        assertThat(reader.doubleToken(5), is(1.5));
+        assertThat(reader.doubleToken(6), is(1000.0));
+        assertThat(reader.doubleToken(7), is(-3.0));
+        assertThat(reader.doubleToken(3), is((double) Long.MAX_VALUE));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testLongOverflow() throws IOException {
+        EventLogReader reader = new EventLogReader(new StringReader("9223372036854775808"), ',');
+        reader.nextLine();
+        reader.longToken(0);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testNotANumber() throws IOException {
+        EventLogReader reader = new EventLogReader(new StringReader("12a"), ',');
+        reader.nextLine();
+        reader.longToken(0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testMissingToken() throws IOException {
+        EventLogReader reader = new EventLogReader(new StringReader("a,b"), ',');
+        reader.nextLine();
+        reader.token(2);
+    }
+}
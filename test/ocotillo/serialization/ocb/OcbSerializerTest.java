@@ -0,0 +1,157 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.serialization.ocb;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.EvoBuilder;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.Interpolation;
+import ocotillo.dygraph.Trajectory;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Attribute;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+import ocotillo.graph.StdAttribute.NodeShape;
+import ocotillo.serialization.ocb.OcbReader.MalformedFileException;
+import ocotillo.serialization.oco.OcoSerializer;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class OcbSerializerTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        DyGraph graph = createGraph();
+        File file = temporaryFile();
+        OcbSerializer serializer = new OcbSerializer();
+        serializer.writeFile(graph, file);
+        DyGraph read = serializer.readDynamicFile(file);
+
+        assertThat(read.nodeCount(), is(3));
+        assertThat(read.edgeCount(), is(2));
+        assertThat(read.getEdge("ab").source(), is(read.getNode("a")));
+        assertThat(read.getEdge("ab").target(), is(read.getNode("b")));
+        assertThat(ocoLines(read), is(ocoLines(graph)));
+
+        Evolution<Coordinates> position = read.<Coordinates>nodeAttribute(StdAttribute.nodePosition).get(read.getNode("a"));
+        assertThat(position, instanceOf(Trajectory.class));
+        assertThat(position.valueAt(1.5), is(new Coordinates(1.5, 3)));
+        assertThat(read.<Boolean>nodeAttribute(StdAttribute.dyPresence).get(read.getNode("b")).valueAt(2.0), is(true));
+        assertThat(read.<Boolean>nodeAttribute(StdAttribute.dyPresence).get(read.getNode("b")).valueAt(0.5), is(false));
+        assertThat(read.<Double>nodeAttribute("heat").get(read.getNode("c")).valueAt(5.0), is(15.0));
+        assertThat(read.<NodeShape>nodeAttribute(StdAttribute.nodeShape).get(read.getNode("c")).valueAt(0), is(NodeShape.cuboid));
+    }
+
+    @Test
+    public void testLazyAttributes() throws IOException {
+        File file = temporaryFile();
+        new OcbSerializer().writeFile(createGraph(), file);
+        OcbReader reader = new OcbSerializer().open(file);
+
+        assertThat(reader.nodeCount(), is(3));
+        assertThat(reader.edgeCount(), is(2));
+        assertThat(reader.attributeNames(Attribute.Type.node).contains("heat"), is(true));
+        assertThat(reader.attributeNames(Attribute.Type.graph).contains("title"), is(true));
+
+        DyGraph read = reader.readGraph(Arrays.asList(StdAttribute.dyPresence.name()));
+        assertThat(read.hasNodeAttribute("heat"), is(false));
+        assertThat(read.<Boolean>edgeAttribute(StdAttribute.dyPresence).get(read.getEdge("bc")).valueAt(2.5), is(true));
+
+        reader.readAttribute(read, Attribute.Type.node, "heat");
+        assertThat(read.<Double>nodeAttribute("heat").get(read.getNode("c")).valueAt(0.0), is(10.0));
+        assertThat(read.<Double>nodeAttribute("heat").get(read.getNode("a")).valueAt(0.0), is(-1.0));
+    }
+
+    @Test(expected = MalformedFileException.class)
+    public void testNotAnOcbFile() throws IOException {
+        File file = temporaryFile();
+        Files.write(file.toPath(), new byte[64]);
+        new OcbSerializer().open(file);
+    }
+
+    private static DyGraph createGraph() {
+        DyGraph graph = new DyGraph();
+        Node a = graph.newNode("a");
+        Node b = graph.newNode("b");
+        Node c = graph.newNode("c");
+        Edge ab = graph.newEdge("ab", a, b);
+        Edge bc = graph.newEdge("bc", b, c);
+
+        graph.newGraphAttribute("title", "Sample");
+
+        graph.<Boolean>nodeAttribute(StdAttribute.dyPresence).set(b, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newRightClosed(1, 3), true)
+                .withConst(Interval.newClosed(4, 5), true)
+                .build());
+        graph.<Coordinates>nodeAttribute(StdAttribute.nodePosition).set(a, new Trajectory.Builder(new Coordinates(0, 0))
+                .startPiece(1, new Coordinates(1, 2), true)
+                .lineTo(2, new Coordinates(2, 4))
+                .lineTo(3, new Coordinates(2, 4))
+                .endPiece(false)
+                .startPiece(3, new Coordinates(5, 5), true)
+                .lineTo(6, new Coordinates(8, 5))
+                .endPiece(true)
+                .build());
+        graph.<Coordinates>nodeAttribute(StdAttribute.nodePosition).set(c, EvoBuilder.defaultAt(new Coordinates(1, 1))
+                .withRect(Interval.newClosed(0, 2), new Coordinates(0, 0), new Coordinates(2, 2, 1), Interpolation.Std.linear)
+                .build());
+        graph.<Color>nodeAttribute(StdAttribute.color).set(a, EvoBuilder.defaultAt(Color.RED)
+                .withRect(Interval.newClosed(0, 1), new Color(0, 0, 0, 0), Color.RED, Interpolation.Std.smoothStep)
+                .build());
+        graph.<String>nodeAttribute(StdAttribute.label).set(c, new Evolution<>("çà"));
+        graph.<NodeShape>nodeAttribute(StdAttribute.nodeShape).set(c, new Evolution<>(NodeShape.cuboid));
+        graph.newNodeAttribute("heat", -1.0);
+        graph.<Double>nodeAttribute("heat").set(c, EvoBuilder.defaultAt(10.0)
+                .withRect(Interval.newLeftClosed(0, 10), 10.0, 20.0, Interpolation.Std.linear)
+                .build());
+
+        graph.<Boolean>edgeAttribute(StdAttribute.dyPresence).set(ab, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(1, 2), true)
+                .build());
+        graph.<Boolean>edgeAttribute(StdAttribute.dyPresence).set(bc, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newOpen(2, 3), true)
+                .build());
+        graph.newEdgeAttribute("rank", 0);
+        graph.<Integer>edgeAttribute("rank").set(bc, EvoBuilder.defaultAt(3)
+                .withConst(Interval.newClosed(0, 1), 7)
+                .build());
+        return graph;
+    }
+
+    private static List<String> ocoLines(DyGraph graph) {
+        List<String> lines = new ArrayList<>(new OcoSerializer().write(graph));
+        Collections.sort(lines);
+        return lines;
+    }
+
+    private static File temporaryFile() throws IOException {
+        File file = File.createTempFile("ocbTest", ".ocb");
+        file.deleteOnExit();
+        return file;
+    }
+}
@@ -15,6 +15,10 @@
  */
 package ocotillo.structures;
 
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
 import lombok.EqualsAndHashCode;
 import ocotillo.geometry.Interval;
 import static org.hamcrest.CoreMatchers.anyOf;
@@ -127,6 +131,44 @@ public class IntervalTreeTest {
                 new DataClass(Interval.newClosed(5, 7)), new DataClass(Interval.newOpen(7, 17))));
     }
 
+    @Test
+    public void testIteratorAndFirstLast() {
+        IntervalTree<DataClass> tree = new IntervalTree<>();
+        assertThat(tree.first(), is(nullValue()));
+        assertThat(tree.last(), is(nullValue()));
+        assertThat(tree.iterator().hasNext(), is(false));
+
+        DataClass first = new DataClass(Interval.newClosed(0, 3));
+        DataClass second = new DataClass(Interval.newRightClosed(3, 4));
+        DataClass third = new DataClass(Interval.newOpen(4, 5));
+        DataClass fourth = new DataClass(Interval.newClosed(5, 7));
+        DataClass fifth = new DataClass(Interval.newOpen(7, 17));
+        tree.insert(fourth);
+        tree.insert(fifth);
+        tree.insert(third);
+        tree.insert(first);
+        tree.insert(second);
+
+        List<DataClass> iterated = new ArrayList<>();
+        for (DataClass data : tree) {
+            iterated.add(data);
+        }
+        assertThat(iterated, contains(first, second, third, fourth, fifth));
+        assertThat(tree.first(), is(first));
+        assertThat(tree.last(), is(fifth));
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testIteratorFailsOnModification() {
+        IntervalTree<DataClass> tree = new IntervalTree<>();
+        tree.insert(new DataClass(Interval.newClosed(0, 3)));
+        tree.insert(new DataClass(Interval.newClosed(5, 7)));
+        Iterator<DataClass> iterator = tree.iterator();
+        iterator.next();
+        tree.insert(new DataClass(Interval.newClosed(1, 2)));
+        iterator.next();
+    }
+
     @Test
     public void testGetAnyEqual() {
         IntervalTree<DataClass> tree = new IntervalTree<>();
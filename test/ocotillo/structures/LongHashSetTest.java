@@ -0,0 +1,63 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.structures;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class LongHashSetTest {
+
+    @Test
+    public void testAddAndContains() {
+        LongHashSet set = new LongHashSet();
+        assertThat(set.isEmpty(), is(true));
+        assertThat(set.add(5), is(true));
+        assertThat(set.add(5), is(false));
+        assertThat(set.add(Long.MIN_VALUE), is(true));
+        assertThat(set.add(Long.MIN_VALUE), is(false));
+        assertThat(set.add(0), is(true));
+        assertThat(set.size(), is(3));
+        assertThat(set.contains(5), is(true));
+        assertThat(set.contains(Long.MIN_VALUE), is(true));
+        assertThat(set.contains(0), is(true));
+        assertThat(set.contains(6), is(false));
+
+        set.clear();
+        assertThat(set.isEmpty(), is(true));
+        assertThat(set.contains(5), is(false));
+        assertThat(set.contains(Long.MIN_VALUE), is(false));
+    }
+
+    @Test
+    public void testMatchesHashSet() {
+        Random random = new Random(3);
+        LongHashSet set = new LongHashSet(4);
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 5000; i++) {
+            long value = ((long) random.nextInt(300) << 32) | random.nextInt(300);
+            assertThat(set.add(value), is(expected.add(value)));
+        }
+        assertThat(set.size(), is(expected.size()));
+        for (int i = 0; i < 5000; i++) {
+            long value = ((long) random.nextInt(400) << 32) | random.nextInt(400);
+            assertThat(set.contains(value), is(expected.contains(value)));
+        }
+    }
+}
@@ -15,6 +15,9 @@
  */
 package ocotillo.structures;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import lombok.EqualsAndHashCode;
 import ocotillo.geometry.Interval;
 import ocotillo.geometry.IntervalBox;
@@ -228,4 +231,55 @@ public class MultidimIntervalTreeTest {
                 IntervalBox.newInstance(Interval.newClosed(9, 10), Interval.newClosed(6, 6), Interval.newClosed(8, 8))),
                 containsInAnyOrder(a, e));
     }
+
+    @Test
+    public void testBulkInsert() {
+        Random random = new Random(7);
+        List<DataClass> elements = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            int x = random.nextInt(20);
+            int y = random.nextInt(20);
+            elements.add(new DataClass(i, Interval.newClosed(x, x + random.nextInt(3)),
+                    Interval.newClosed(y, y + random.nextInt(3))));
+        }
+
+        MultidimIntervalTree<DataClass> bulkTree = new MultidimIntervalTree<>(2);
+        bulkTree.insertAll(elements.subList(0, 300));
+        MultidimIntervalTree<DataClass> incrementalTree = new MultidimIntervalTree<>(2);
+        for (DataClass element : elements.subList(0, 300)) {
+            incrementalTree.insert(element);
+        }
+        assertThat(bulkTree.size(), is(300));
+
+        for (int i = 0; i < 50; i++) {
+            assertSameQueryResults(bulkTree, incrementalTree, random);
+        }
+
+        bulkTree.insertAll(elements.subList(300, 400));
+        for (DataClass element : elements.subList(300, 400)) {
+            incrementalTree.insert(element);
+        }
+        assertThat(bulkTree.size(), is(400));
+
+        for (int i = 0; i < 50; i++) {
+            assertSameQueryResults(bulkTree, incrementalTree, random);
+        }
+    }
+
+    /**
+     * Checks that two trees return the same results for a random query.
+     *
+     * @param tree the first tree.
+     * @param otherTree the second tree.
+     * @param random the random generator.
+     */
+    private void assertSameQueryResults(MultidimIntervalTree<DataClass> tree, MultidimIntervalTree<DataClass> otherTree, Random random) {
+        int x = random.nextInt(20);
+        int y = random.nextInt(20);
+        IntervalBox query = IntervalBox.newInstance(Interval.newClosed(x, x + random.nextInt(4)),
+                Interval.newClosed(y, y + random.nextInt(4)));
+        assertThat(tree.getAllOverlapping(query), is(otherTree.getAllOverlapping(query)));
+        assertThat(tree.getAllContainedIn(query), is(otherTree.getAllContainedIn(query)));
+        assertThat(tree.getAllContaining(query), is(otherTree.getAllContaining(query)));
+    }
 }
@@ -0,0 +1,99 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.structures;
+
+import java.util.HashSet;
+import java.util.Set;
+import static ocotillo.geometry.matchers.CoreMatchers.isAlmost;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class QuadTreeTest {
+
+    private final double[] xs = new double[]{0, 10, 10, 0, 5, 1, 2, 3, 4, 6, 7, 8};
+    private final double[] ys = new double[]{0, 0, 10, 10, 5, 1, 2, 3, 4, 6, 7, 8};
+
+    @Test
+    public void testEmptyTree() {
+        QuadTree tree = new QuadTree(new double[0], new double[0], 0);
+        assertThat(tree.size(), is(0));
+        assertThat(tree.pointCount(tree.root()), is(0));
+        assertThat(tree.isLeaf(tree.root()), is(true));
+    }
+
+    @Test
+    public void testRootCentroid() {
+        QuadTree tree = new QuadTree(xs, ys, xs.length);
+        assertThat(tree.size(), is(xs.length));
+        assertThat(tree.pointCount(tree.root()), is(xs.length));
+        assertThat(tree.centroidX(tree.root()), isAlmost(56.0 / 12.0));
+        assertThat(tree.centroidY(tree.root()), isAlmost(56.0 / 12.0));
+        assertThat(tree.cellSize(tree.root()), isAlmost(10.0));
+        assertThat(tree.isLeaf(tree.root()), is(false));
+    }
+
+    @Test
+    public void testChildrenPartitionPoints() {
+        QuadTree tree = new QuadTree(xs, ys, xs.length);
+        Set<Integer> points = new HashSet<>();
+        int childrenPoints = 0;
+        for (int quadrant = 0; quadrant < 4; quadrant++) {
+            int child = tree.child(tree.root(), quadrant);
+            if (child != -1) {
+                childrenPoints += tree.pointCount(child);
+                for (int k = 0; k < tree.pointCount(child); k++) {
+                    points.add(tree.point(child, k));
+                }
+            }
+        }
+        assertThat(childrenPoints, is(xs.length));
+        assertThat(points.size(), is(xs.length));
+
+        int lowerLeft = tree.child(tree.root(), 0);
+        assertThat(tree.pointCount(lowerLeft), is(5));
+        assertThat(tree.centroidX(lowerLeft), isAlmost(2.0));
+        assertThat(tree.centroidY(lowerLeft), isAlmost(2.0));
+    }
+
+    @Test
+    public void testCoincidentPoints() {
+        double[] sameXs = new double[50];
+        double[] sameYs = new double[50];
+        QuadTree tree = new QuadTree(sameXs, sameYs, 50);
+        assertThat(tree.pointCount(tree.root()), is(50));
+        assertThat(tree.centroidX(tree.root()), isAlmost(0.0));
+        assertThat(tree.centroidY(tree.root()), isAlmost(0.0));
+    }
+
+    @Test
+    public void testRebuild() {
+        QuadTree tree = new QuadTree(xs, ys, xs.length);
+        tree.rebuild(new double[]{1, 3}, new double[]{2, 4}, 2);
+        assertThat(tree.size(), is(2));
+        assertThat(tree.cellCount(), is(1));
+        assertThat(tree.centroidX(tree.root()), isAlmost(2.0));
+        assertThat(tree.centroidY(tree.root()), isAlmost(3.0));
+    }
+
+    @Test
+    public void testDistances() {
+        QuadTree tree = new QuadTree(xs, ys, xs.length);
+        assertThat(tree.minDistance(tree.root(), 5, 5), isAlmost(0.0));
+        assertThat(tree.minDistance(tree.root(), 13, 14), isAlmost(5.0));
+        assertThat(tree.maxDistance(tree.root(), 13, 14), isAlmost(Math.sqrt(13 * 13 + 14 * 14)));
+    }
+}
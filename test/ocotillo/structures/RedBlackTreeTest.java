@@ -15,6 +15,9 @@
  */
 package ocotillo.structures;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
@@ -709,4 +712,68 @@ public class RedBlackTreeTest extends BinarySearchTreeTestBase {
         assertThat(tree.root.leftChild.rightChild.rightChild, is(nullValue()));
         assertThat(tree.root.leftChild.rightChild.isRed(), is(true));
     }
+
+    @Test
+    public void testBulkLoad() {
+        RedBlackTree<DataClass, Integer> tree = new RedBlackTree<>();
+        tree.insertAll(Arrays.asList(seven, three, nine, one, five, oneBis, two, eight, four, six, one));
+
+        assertThat(tree.size, is(10));
+        assertThat(tree.root.parent, is(nullValue()));
+        assertThat(tree.root.isBlack(), is(true));
+        checkRedBlackProperties(tree.root);
+        assertThat(tree.inOrderTraversal().get(0).bstKey(), is(1));
+        assertThat(tree.inOrderTraversal().get(9).bstKey(), is(9));
+        assertThat(tree.getAll(1).size(), is(2));
+
+        tree.delete(five);
+        tree.delete(one);
+        tree.insert(twoBis);
+        assertThat(tree.size, is(9));
+        checkRedBlackProperties(tree.root);
+        assertThat(tree.contains(five), is(false));
+        assertThat(tree.contains(oneBis), is(true));
+        assertThat(tree.getAll(2).size(), is(2));
+    }
+
+    @Test
+    public void testIterator() {
+        RedBlackTree<DataClass, Integer> tree = new RedBlackTree<>();
+        assertThat(tree.first(), is(nullValue()));
+        assertThat(tree.last(), is(nullValue()));
+        assertThat(tree.iterator().hasNext(), is(false));
+
+        for (DataClass data : Arrays.asList(six, two, nine, oneBis, four, one, eight, three, seven, five, twoBis)) {
+            tree.insert(data);
+        }
+        List<DataClass> iterated = new ArrayList<>();
+        for (DataClass data : tree) {
+            iterated.add(data);
+        }
+        assertThat(iterated, is(tree.inOrderTraversal()));
+        assertThat(tree.first(), is(iterated.get(0)));
+        assertThat(tree.last(), is(nine));
+    }
+
+    /**
+     * Checks parent links, red nodes and black heights of a subtree.
+     *
+     * @param node the root of the subtree.
+     * @return the black height of the subtree.
+     */
+    private int checkRedBlackProperties(RedBlackTree.RbNode<DataClass, Integer> node) {
+        if (node == null) {
+            return 1;
+        }
+        for (RedBlackTree.RbNode<DataClass, Integer> child : Arrays.asList(node.leftChild, node.rightChild)) {
+            if (child != null) {
+                assertThat(child.parent, is(node));
+                assertThat(node.isRed() && child.isRed(), is(false));
+            }
+        }
+        int leftHeight = checkRedBlackProperties(node.leftChild);
+        int rightHeight = checkRedBlackProperties(node.rightChild);
+        assertThat(leftHeight, is(rightHeight));
+        return leftHeight + (node.isBlack() ? 1 : 0);
+    }
 }
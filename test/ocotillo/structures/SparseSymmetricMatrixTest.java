@@ -0,0 +1,100 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.structures;
+
+import static ocotillo.geometry.matchers.IsAlmostNumber.isAlmost;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class SparseSymmetricMatrixTest {
+
+    @Test
+    public void testEntries() {
+        SparseSymmetricMatrix matrix = tridiagonal(4);
+        assertThat(matrix.size(), is(4));
+        assertThat(matrix.get(1, 1), is(2.0));
+        assertThat(matrix.get(1, 2), is(-1.0));
+        assertThat(matrix.get(0, 3), is(0.0));
+
+        SparseSymmetricMatrix copy = new SparseSymmetricMatrix(matrix);
+        copy.add(1, 1, 3);
+        assertThat(copy.get(1, 1), is(5.0));
+        assertThat(matrix.get(1, 1), is(2.0));
+        copy.copyValuesFrom(matrix);
+        assertThat(copy.get(1, 1), is(2.0));
+
+        double[] result = new double[4];
+        matrix.multiply(new double[]{1, 2, 3, 4}, result);
+        assertThat(result[0], is(0.0));
+        assertThat(result[1], is(0.0));
+        assertThat(result[2], is(0.0));
+        assertThat(result[3], is(5.0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddOutsidePattern() {
+        tridiagonal(4).add(0, 3, 1);
+    }
+
+    @Test
+    public void testSolve() {
+        SparseSymmetricMatrix matrix = tridiagonal(50);
+        double[] expected = new double[50];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = Math.sin(i);
+        }
+        double[] knownTerms = new double[50];
+        matrix.multiply(expected, knownTerms);
+
+        double[] solution = new double[50];
+        matrix.solve(knownTerms, solution, 1e-12, 200);
+        for (int i = 0; i < expected.length; i++) {
+            assertThat(solution[i], isAlmost(expected[i]));
+        }
+
+        int iterations = matrix.solve(knownTerms, solution, 1e-12, 200);
+        assertThat(iterations, is(0));
+    }
+
+    /**
+     * Builds the tridiagonal matrix with 2 on the diagonal and -1 beside it.
+     *
+     * @param size the matrix size.
+     * @return the matrix.
+     */
+    private static SparseSymmetricMatrix tridiagonal(int size) {
+        int[][] rowColumns = new int[size][];
+        for (int row = 0; row < size; row++) {
+            if (row == 0) {
+                rowColumns[row] = new int[]{0, 1};
+            } else if (row == size - 1) {
+                rowColumns[row] = new int[]{row - 1, row};
+            } else {
+                rowColumns[row] = new int[]{row - 1, row, row + 1};
+            }
+        }
+        SparseSymmetricMatrix matrix = new SparseSymmetricMatrix(rowColumns);
+        for (int row = 0; row < size; row++) {
+            matrix.add(row, row, 2);
+            if (row > 0) {
+                matrix.add(row, row - 1, -1);
+                matrix.add(row - 1, row, -1);
+            }
+        }
+        return matrix;
+    }
+}